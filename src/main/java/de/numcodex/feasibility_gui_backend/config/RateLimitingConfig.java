@@ -18,8 +18,8 @@ public class RateLimitingConfig implements WebMvcConfigurer {
 
   @Override
   public void addInterceptors(InterceptorRegistry registry) {
+    // Handler methods declare whether they are rate-limited, see RateLimited.
     registry.addInterceptor(interceptor)
-        .addPathPatterns(PATH_API + PATH_QUERY + PATH_FEASIBILITY + PATH_ID_MATCHER + PATH_SUMMARY_RESULT)
-        .addPathPatterns(PATH_API + PATH_QUERY + PATH_FEASIBILITY + PATH_ID_MATCHER + PATH_DETAILED_OBFUSCATED_RESULT);
+        .addPathPatterns(PATH_API + PATH_QUERY + PATH_FEASIBILITY + "/**");
   }
 }
@@ -46,6 +46,7 @@ public class WebSecurityConfig {
   public static final String PATH_SUMMARY_RESULT = "/summary-result";
   public static final String PATH_DETAILED_OBFUSCATED_RESULT = "/detailed-obfuscated-result";
   public static final String PATH_DETAILED_RESULT = "/detailed-result";
+  public static final String PATH_STREAM = "/stream";
   public static final String PATH_TERMINOLOGY = "/terminology";
   public static final String PATH_DSE = "/dse";
   public static final String PATH_CODEABLE_CONCEPT = "/codeable-concept";
@@ -0,0 +1,110 @@
+package de.numcodex.feasibility_gui_backend.dse;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.numcodex.feasibility_gui_backend.config.PropertiesReader;
+import de.numcodex.feasibility_gui_backend.dse.api.DseProfile;
+import de.numcodex.feasibility_gui_backend.dse.persistence.DseProfileRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import static de.numcodex.feasibility_gui_backend.terminology.OntologyInfoContributor.KEY_ONTOLOGY_TAG_PROPERTIES;
+
+/**
+ * Immutable in-memory index of all parsed dse profiles, keyed by their url.
+ * <p>
+ * The dse_profile table is filled by (ontology) migrations and does not change at runtime. The index is therefore
+ * loaded once the application is ready and only reloaded if the ontology tag changes. Each profile is kept parsed and
+ * serialized, so that responses can be written without parsing or serializing it again.
+ */
+@Component
+@Slf4j
+public class DseProfileIndex {
+
+  private final DseProfileRepository dseProfileRepository;
+
+  private final ObjectMapper objectMapper;
+
+  private final PropertiesReader propertiesReader;
+
+  private volatile Snapshot snapshot;
+
+  public DseProfileIndex(DseProfileRepository dseProfileRepository, ObjectMapper objectMapper,
+                         PropertiesReader propertiesReader) {
+    this.dseProfileRepository = dseProfileRepository;
+    this.objectMapper = objectMapper;
+    this.propertiesReader = propertiesReader;
+  }
+
+  /**
+   * Looks up a single dse profile.
+   *
+   * @param url the url of the profile
+   * @return the parsed and serialized profile or an empty {@link Optional} if there is no profile with this url
+   * @throws IllegalStateException if the stored profile can not be parsed
+   */
+  public Optional<IndexedDseProfile> get(String url) {
+    var current = getSnapshot();
+    if (current.unparsableUrls().contains(url)) {
+      throw new IllegalStateException("dse profile '%s' can not be parsed".formatted(url));
+    }
+    return Optional.ofNullable(current.profilesByUrl().get(url));
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    getSnapshot();
+  }
+
+  private Snapshot getSnapshot() {
+    var current = snapshot;
+    var ontologyTag = propertiesReader.getValue(KEY_ONTOLOGY_TAG_PROPERTIES);
+    if (current != null && Objects.equals(current.ontologyTag(), ontologyTag)) {
+      return current;
+    }
+    return refresh(ontologyTag);
+  }
+
+  private synchronized Snapshot refresh(String ontologyTag) {
+    // Another thread may have loaded the index for the same ontology in the meantime
+    var current = snapshot;
+    if (current != null && Objects.equals(current.ontologyTag(), ontologyTag)) {
+      return current;
+    }
+
+    var profilesByUrl = new HashMap<String, IndexedDseProfile>();
+    var unparsableUrls = new HashSet<String>();
+    for (var dseProfile : dseProfileRepository.findAll()) {
+      try {
+        var profile = objectMapper.readValue(dseProfile.getEntry(), DseProfile.class);
+        profilesByUrl.put(dseProfile.getUrl(), new IndexedDseProfile(profile, objectMapper.writeValueAsBytes(profile)));
+      } catch (JsonProcessingException e) {
+        log.error("Could not parse dse profile '{}'", dseProfile.getUrl(), e);
+        unparsableUrls.add(dseProfile.getUrl());
+      }
+    }
+
+    snapshot = new Snapshot(ontologyTag, Map.copyOf(profilesByUrl), Set.copyOf(unparsableUrls));
+    log.info("Loaded {} dse profiles for ontology '{}'", profilesByUrl.size(), ontologyTag);
+    return snapshot;
+  }
+
+  /**
+   * A parsed dse profile together with its JSON representation.
+   */
+  public record IndexedDseProfile(DseProfile profile, byte[] json) {
+  }
+
+  private record Snapshot(String ontologyTag, Map<String, IndexedDseProfile> profilesByUrl,
+                          Set<String> unparsableUrls) {
+  }
+}
@@ -4,18 +4,15 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import de.numcodex.feasibility_gui_backend.dse.api.DseProfile;
 import de.numcodex.feasibility_gui_backend.dse.api.DseProfileTreeNode;
-import de.numcodex.feasibility_gui_backend.dse.persistence.DseProfileRepository;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URL;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 @Service
 @Slf4j
@@ -24,14 +21,14 @@ public class DseService {
   @Getter
   private final DseProfileTreeNode profileTree;
 
-  private final DseProfileRepository dseProfileRepository;
+  private final DseProfileIndex dseProfileIndex;
 
   private final ObjectMapper objectMapper;
 
   public DseService(@Value("${app.dseProfileTreeFile}") String dseProfileTreeFilename,
-                    DseProfileRepository dseProfileRepository,
+                    DseProfileIndex dseProfileIndex,
                     ObjectMapper objectMapper) throws IOException {
-    this.dseProfileRepository = dseProfileRepository;
+    this.dseProfileIndex = dseProfileIndex;
     this.objectMapper = objectMapper;
     this.profileTree = readProfileTree(dseProfileTreeFilename);
   }
@@ -42,30 +39,39 @@ public class DseService {
   }
 
   public List<DseProfile> getProfileData(List<String> profileIds) {
-    var results = new ArrayList<DseProfile>();
+    return profileIds.stream()
+        .map(profileId -> dseProfileIndex.get(profileId)
+            .map(DseProfileIndex.IndexedDseProfile::profile)
+            .orElseGet(() -> createProfileNotFound(profileId)))
+        .toList();
+  }
 
-    for (String profileId : profileIds) {
-      Optional<de.numcodex.feasibility_gui_backend.dse.persistence.DseProfile> dseProfile;
-      try {
-        dseProfile = dseProfileRepository.findByUrl(profileId);
-      } catch (DataIntegrityViolationException e) {
-        dseProfile = Optional.empty();
-      }
-      if (dseProfile.isPresent()) {
-        try {
-          results.add(objectMapper.readValue(dseProfile.get().getEntry(), DseProfile.class));
-        } catch (JsonProcessingException e) {
-          throw new RuntimeException(e);
-        }
-      } else {
-        results.add(DseProfile.builder()
-            .url(profileId)
-            .errorCode("TBD-00000")
-            .errorCause("profile not found")
-            .build());
+  /**
+   * Same as {@link #getProfileData(List)}, but returns the profiles as JSON array. The JSON of found profiles is
+   * taken from the {@link DseProfileIndex} instead of being serialized again.
+   */
+  public byte[] getProfileDataJson(List<String> profileIds) throws JsonProcessingException {
+    var json = new ByteArrayOutputStream();
+    json.write('[');
+    for (int i = 0; i < profileIds.size(); ++i) {
+      if (i > 0) {
+        json.write(',');
       }
+      var profileId = profileIds.get(i);
+      var indexedProfile = dseProfileIndex.get(profileId);
+      json.writeBytes(indexedProfile.isPresent()
+          ? indexedProfile.get().json()
+          : objectMapper.writeValueAsBytes(createProfileNotFound(profileId)));
     }
+    json.write(']');
+    return json.toByteArray();
+  }
 
-    return results;
+  private DseProfile createProfileNotFound(String profileId) {
+    return DseProfile.builder()
+        .url(profileId)
+        .errorCode("TBD-00000")
+        .errorCause("profile not found")
+        .build();
   }
 }
@@ -2,9 +2,13 @@ package de.numcodex.feasibility_gui_backend.dse.persistence;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface DseProfileRepository extends JpaRepository<DseProfile, Long> {
 
   Optional<DseProfile> findByUrl(String url);
+
+  List<DseProfile> findAllByUrlIn(Collection<String> urls);
 }
@@ -1,10 +1,13 @@
 package de.numcodex.feasibility_gui_backend.dse.v5;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import de.numcodex.feasibility_gui_backend.dse.DseService;
-import de.numcodex.feasibility_gui_backend.dse.api.DseProfile;
 import de.numcodex.feasibility_gui_backend.dse.api.DseProfileTreeNode;
+import de.numcodex.feasibility_gui_backend.terminology.OntologyResponseCache;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -20,22 +23,28 @@ public class DseRestController {
 
   private final DseService dseService;
 
-  public DseRestController(DseService dseService) {
+  private final OntologyResponseCache ontologyResponseCache;
+
+  public DseRestController(DseService dseService, OntologyResponseCache ontologyResponseCache) {
     this.dseService = dseService;
+    this.ontologyResponseCache = ontologyResponseCache;
   }
 
   @GetMapping(value = "profile-tree", produces = MediaType.APPLICATION_JSON_VALUE)
-  public DseProfileTreeNode getProfileTree() {
+  public ResponseEntity<byte[]> getProfileTree(@RequestHeader HttpHeaders headers) {
     DseProfileTreeNode profileTree = dseService.getProfileTree();
     if (profileTree == null) {
       throw new ResponseStatusException(HttpStatus.NOT_FOUND, "DSE profile tree not found");
     } else {
-      return profileTree;
+      return ontologyResponseCache.respond("dse-profile-tree", headers, () -> profileTree);
     }
   }
 
   @GetMapping(value = "profile-data", produces = MediaType.APPLICATION_JSON_VALUE)
-  public List<DseProfile> getProfileData(@RequestParam List<String> ids) {
-    return dseService.getProfileData(ids);
+  public ResponseEntity<byte[]> getProfileData(@RequestParam List<String> ids) throws JsonProcessingException {
+    // The profiles are already serialized, so write them as they are
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(dseService.getProfileDataJson(ids));
   }
 }
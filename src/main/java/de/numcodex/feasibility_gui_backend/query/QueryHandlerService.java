@@ -2,6 +2,8 @@ package de.numcodex.feasibility_gui_backend.query;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import de.numcodex.feasibility_gui_backend.query.api.Query;
 import de.numcodex.feasibility_gui_backend.query.api.*;
 import de.numcodex.feasibility_gui_backend.query.api.status.QueryQuota;
@@ -9,20 +11,24 @@ import de.numcodex.feasibility_gui_backend.query.api.status.QueryQuotaEntry;
 import de.numcodex.feasibility_gui_backend.query.dispatch.QueryDispatchException;
 import de.numcodex.feasibility_gui_backend.query.dispatch.QueryDispatcher;
 import de.numcodex.feasibility_gui_backend.query.persistence.*;
+import de.numcodex.feasibility_gui_backend.query.quota.QueryQuotaStore;
 import de.numcodex.feasibility_gui_backend.query.result.RandomSiteNameGenerator;
-import de.numcodex.feasibility_gui_backend.query.result.ResultLine;
+import de.numcodex.feasibility_gui_backend.query.result.QueryResultSnapshot;
 import de.numcodex.feasibility_gui_backend.query.result.ResultService;
 import de.numcodex.feasibility_gui_backend.query.translation.QueryTranslationException;
 import de.numcodex.feasibility_gui_backend.query.translation.QueryTranslator;
 import de.numcodex.feasibility_gui_backend.terminology.validation.StructuredQueryValidation;
 import lombok.NonNull;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.threeten.extra.PeriodDuration;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.util.ArrayList;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 
 @Service
@@ -40,7 +46,12 @@ public class QueryHandlerService {
                                @NonNull ResultService resultService,
                                @NonNull StructuredQueryValidation structuredQueryValidation,
                                @NonNull @Qualifier("cql") QueryTranslator queryTranslator,
-                               @NonNull ObjectMapper jsonUtil) {
+                               @NonNull ObjectMapper jsonUtil,
+                               @NonNull QueryQuotaStore queryQuotaStore,
+                               @NonNull @Value("#{T(org.threeten.extra.PeriodDuration).parse('${app.queryResultExpiry}').getDuration()}")
+                               Duration queryResultExpiry,
+                               @Value("${app.queryAuthorsCache.maxEntries:10000}") long queryAuthorsMaxEntries,
+                               @Value("${app.privacy.threshold.sitesResult}") long privacyThresholdSitesResult) {
         this.queryDispatcher = queryDispatcher;
         this.queryRepository = queryRepository;
         this.queryContentRepository = queryContentRepository;
@@ -48,6 +59,15 @@ public class QueryHandlerService {
         this.structuredQueryValidation = structuredQueryValidation;
         this.queryTranslator = queryTranslator;
         this.jsonUtil = jsonUtil;
+        this.queryQuotaStore = queryQuotaStore;
+        this.queryResultExpiry = queryResultExpiry;
+        this.privacyThresholdSitesResult = privacyThresholdSitesResult;
+        // Authors are looked up on each poll of a result. Keep them at least as long as results of a query are
+        // available. Bound the cache anyway, evicted authors are simply looked up again.
+        this.queryAuthors = Caffeine.newBuilder()
+                .maximumSize(queryAuthorsMaxEntries)
+                .expireAfterAccess(queryResultExpiry)
+                .build();
     }
 
     private final QueryDispatcher queryDispatcher;
@@ -64,9 +84,19 @@ public class QueryHandlerService {
 
     private ObjectMapper jsonUtil;
 
+    private final QueryQuotaStore queryQuotaStore;
+
+    private final Cache<Long, String> queryAuthors;
+
+    private final Duration queryResultExpiry;
+
+    private final long privacyThresholdSitesResult;
+
     public Mono<Long> runQuery(StructuredQuery structuredQuery, String userId) {
         try {
             var queryId = queryDispatcher.enqueueNewQuery(structuredQuery, userId);
+            queryAuthors.put(queryId, userId);
+            queryQuotaStore.recordQuery(userId, Instant.now());
             return queryDispatcher.dispatchEnqueuedQuery(queryId)
                     .thenReturn(queryId);
         } catch (QueryDispatchException e) {
@@ -76,11 +106,53 @@ public class QueryHandlerService {
 
     @Transactional
     public QueryResult getQueryResult(Long queryId, ResultDetail resultDetail) {
-        var singleSiteResults = resultService.findSuccessfulByQuery(queryId);
-        List<QueryResultLine> resultLines = new ArrayList<>();
+        return buildQueryResult(queryId, resultService.findSnapshotByQuery(queryId), resultDetail);
+    }
+
+    /**
+     * Streams the aggregated result of a query. The current result is emitted right away. A new result is emitted
+     * whenever the results of the query change afterward. If the result store is shared with other backend instances,
+     * results are additionally checked periodically to pick up results that arrived at those instances.
+     * <p>
+     * The stream completes once the result expiry has passed since the query has been created. Streams of older
+     * queries only emit the current result.
+     *
+     * @param queryId      the query id
+     * @param resultDetail the level of detail of the emitted results
+     * @param pollInterval the interval in which results of a shared result store are checked for changes
+     * @return a {@link Flux} of aggregated results
+     */
+    public Flux<QueryResult> streamQueryResult(Long queryId, ResultDetail resultDetail, Duration pollInterval) {
+        return Flux.defer(() -> {
+            var remaining = queryRepository.findById(queryId)
+                    .map(query -> Duration.between(Instant.now(),
+                            query.getCreatedAt().toInstant().plus(queryResultExpiry)))
+                    .orElse(Duration.ZERO);
+            if (remaining.isNegative() || remaining.isZero()) {
+                return Mono.fromCallable(() -> buildQueryResult(queryId, resultService.findSnapshotByQuery(queryId),
+                        resultDetail)).subscribeOn(Schedulers.boundedElastic());
+            }
+
+            var resultChanges = resultService.resultUpdates(queryId);
+            if (resultService.isShared()) {
+                resultChanges = resultChanges.mergeWith(Flux.interval(pollInterval).map(tick -> queryId));
+            }
+            return resultChanges
+                    .startWith(queryId)
+                    .onBackpressureLatest()
+                    .publishOn(Schedulers.boundedElastic(), 1)
+                    .map(id -> resultService.findSnapshotByQuery(id))
+                    .distinctUntilChanged()
+                    .map(snapshot -> buildQueryResult(queryId, snapshot, resultDetail))
+                    .take(remaining);
+        });
+    }
+
+    private QueryResult buildQueryResult(Long queryId, QueryResultSnapshot snapshot, ResultDetail resultDetail) {
+        List<QueryResultLine> resultLines = List.of();
 
         if (resultDetail != ResultDetail.SUMMARY) {
-            resultLines = singleSiteResults.stream()
+            resultLines = snapshot.successfulResultLines().stream()
                 .map(ssr -> QueryResultLine.builder()
                     .siteName(resultDetail == ResultDetail.DETAILED_OBFUSCATED ? RandomSiteNameGenerator.generateRandomSiteName() : ssr.siteName())
                     .numberOfPatients(ssr.result())
@@ -88,13 +160,11 @@ public class QueryHandlerService {
                 .toList();
         }
 
-        var totalMatchesInPopulation = singleSiteResults.stream()
-            .mapToLong(ResultLine::result).sum();
-
         return QueryResult.builder()
             .queryId(queryId)
             .resultLines(resultLines)
-            .totalNumberOfPatients(totalMatchesInPopulation)
+            .totalNumberOfPatients(snapshot.totalNumberOfPatients())
+            .numberOfSitesAboveThreshold(snapshot.countSitesAboveThreshold(privacyThresholdSitesResult))
             .build();
     }
 
@@ -126,36 +196,46 @@ public class QueryHandlerService {
                 .build();
     }
 
+    /**
+     * Gets the id of the user that created a query. Authors of recently created or requested queries are served from
+     * memory.
+     *
+     * @param queryId the query id
+     * @return the id of the author of the query
+     * @throws QueryNotFoundException if there is no query with the given id
+     */
     public String getAuthorId(Long queryId) throws QueryNotFoundException {
-        return queryRepository.getAuthor(queryId).orElseThrow(QueryNotFoundException::new);
+        var authorId = queryAuthors.get(queryId, id -> queryRepository.getAuthor(id).orElse(null));
+        if (authorId == null) {
+            throw new QueryNotFoundException();
+        }
+        return authorId;
     }
 
     public Long getAmountOfQueriesByUserAndInterval(String userId, String interval) {
-        return queryRepository.countQueriesByAuthorInTheLastNMinutes(userId, PeriodDuration.parse(interval).getDuration().toMinutes());
+        return queryQuotaStore.countQueries(userId, QueryQuotaStore.parseInterval(interval));
     }
 
     public Long getRetryAfterTime(String userId, int offset, String interval) {
-        try {
-            return PeriodDuration.parse(interval).getDuration().getSeconds() - queryRepository.getAgeOfNToLastQueryInSeconds(userId, offset) + 1;
-        } catch (NullPointerException e) {
-            return 0L;
-        }
+        return queryQuotaStore.findAgeOfQuery(userId, offset)
+                .map(age -> QueryQuotaStore.parseInterval(interval).minus(age).getSeconds() + 1)
+                .orElse(0L);
     }
 
   public QueryQuota getSentQueryStatistics(String userName, int softAmount, String softInterval, int hardAmount, String hardInterval) {
-    var softUsed = queryRepository.countQueriesByAuthorInTheLastNMinutes(userName, PeriodDuration.parse(softInterval).getDuration().toMinutes());
-    var hardUsed = queryRepository.countQueriesByAuthorInTheLastNMinutes(userName, PeriodDuration.parse(hardInterval).getDuration().toMinutes());
+    var softUsed = queryQuotaStore.countQueries(userName, QueryQuotaStore.parseInterval(softInterval));
+    var hardUsed = queryQuotaStore.countQueries(userName, QueryQuotaStore.parseInterval(hardInterval));
 
     return QueryQuota.builder()
         .soft(QueryQuotaEntry.builder()
             .interval(softInterval)
             .limit(softAmount)
-            .used(softUsed.intValue())
+            .used((int) softUsed)
             .build())
         .hard(QueryQuotaEntry.builder()
             .interval(hardInterval)
             .limit(hardAmount)
-            .used(hardUsed.intValue())
+            .used((int) hardUsed)
             .build())
         .build();
   }
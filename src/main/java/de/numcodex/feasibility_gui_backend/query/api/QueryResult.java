@@ -1,5 +1,6 @@
 package de.numcodex.feasibility_gui_backend.query.api;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Builder;
 
 import java.util.List;
@@ -8,7 +9,10 @@ import java.util.List;
 public record QueryResult(
     long totalNumberOfPatients,
     Long queryId,
-    List<QueryResultLine> resultLines
+    List<QueryResultLine> resultLines,
+    // Number of sites whose successful result is above the configured privacy threshold for site results. Only used
+    // for the privacy checks, never exposed.
+    @JsonIgnore int numberOfSitesAboveThreshold
 ) {
   public QueryResult {
     resultLines = resultLines == null ? List.of() : resultLines;
@@ -6,6 +6,7 @@ import de.numcodex.feasibility_gui_backend.query.persistence.BrokerClientType;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.OptionalInt;
 
 /**
  * Represents a client for creating and triggering execution of distributed feasibility queries as well as
@@ -106,4 +107,16 @@ public interface BrokerClient {
      * @throws IOException           IO/communication error
      */
     String getSiteName(String siteId) throws SiteNotFoundException, IOException;
+
+    /**
+     * Gets the number of sites a published broker specific query is going to be answered by, if it is known upfront.
+     * <p>
+     * Once that many sites have answered, the query can be closed.
+     *
+     * @param brokerQueryId Identifies the broker specific query.
+     * @return The number of sites expected to answer the query or an empty {@link OptionalInt} if it is unknown.
+     */
+    default OptionalInt getExpectedSiteCount(String brokerQueryId) {
+        return OptionalInt.empty();
+    }
 }
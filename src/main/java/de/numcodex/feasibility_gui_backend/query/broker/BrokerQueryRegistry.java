@@ -0,0 +1,75 @@
+package de.numcodex.feasibility_gui_backend.query.broker;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Provides the maps broker clients keep their per-query state in, keyed by broker query id.
+ * <p>
+ * The maps are safe to be used from request threads and broker callback threads at the same time. Since queries are
+ * not reliably closed, an entry is evicted once it has not been accessed for the configured expiry, or once a map
+ * holds more than the configured maximum number of queries. Queries are only polled for a limited time after they got
+ * published, so evicting them later on does not affect users.
+ */
+public class BrokerQueryRegistry {
+
+  public static final long DEFAULT_MAX_QUERIES = 10_000;
+  public static final Duration DEFAULT_EXPIRY = Duration.ofHours(24);
+
+  @Getter
+  private final long maxQueries;
+  @Getter
+  private final Duration expiry;
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Creates a new BrokerQueryRegistry with default limits.
+   */
+  public BrokerQueryRegistry() {
+    this(DEFAULT_MAX_QUERIES, DEFAULT_EXPIRY, new SimpleMeterRegistry());
+  }
+
+  /**
+   * Creates a new BrokerQueryRegistry.
+   *
+   * @param maxQueries    the maximum number of queries kept within each map
+   * @param expiry        the duration after which a query that has not been accessed is evicted
+   * @param meterRegistry registry for exposing the number of queries kept within each map
+   */
+  public BrokerQueryRegistry(long maxQueries, @NonNull Duration expiry, @NonNull MeterRegistry meterRegistry) {
+    if (maxQueries <= 0) {
+      throw new IllegalArgumentException("maximum number of broker queries must be positive");
+    }
+    this.maxQueries = maxQueries;
+    this.expiry = expiry;
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Creates a new map for keeping state of broker queries.
+   *
+   * @param name name of the map, used for tagging its size metric
+   * @param <V>  type of the state kept per broker query
+   * @return a concurrent map evicting queries according to the limits of this registry
+   */
+  public <V> ConcurrentMap<String, V> createQueryMap(@NonNull String name) {
+    Cache<String, V> queries = Caffeine.newBuilder()
+        .maximumSize(maxQueries)
+        .expireAfterAccess(expiry)
+        .build();
+
+    Gauge.builder("broker.queries", queries, Cache::estimatedSize)
+        .description("Number of broker queries kept in memory")
+        .tag("map", name)
+        .register(meterRegistry);
+    return queries.asMap();
+  }
+}
@@ -3,7 +3,10 @@ package de.numcodex.feasibility_gui_backend.query.broker;
 import ca.uhn.fhir.context.FhirContext;
 import de.numcodex.feasibility_gui_backend.query.broker.mock.MockBrokerClient;
 import de.numcodex.feasibility_gui_backend.query.collect.QueryStatusListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.BeanFactoryAnnotationUtils;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,6 +15,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import org.springframework.context.annotation.Lazy;
@@ -47,6 +51,15 @@ public class BrokerSpringConfig {
     return FhirContext.forR4();
   }
 
+  @Bean
+  public BrokerQueryRegistry brokerQueryRegistry(
+      @Value("${app.broker.queryRegistry.maxQueries:10000}") long maxQueries,
+      @Value("#{T(java.time.Duration).parse('${app.broker.queryRegistry.expiry:PT24H}')}") Duration expiry,
+      ObjectProvider<MeterRegistry> meterRegistry) {
+    log.info("Keep up to {} broker queries per map for {} after their last access", maxQueries, expiry);
+    return new BrokerQueryRegistry(maxQueries, expiry, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+  }
+
   @Qualifier("brokerClients")
   @Bean
   public List<BrokerClient> createBrokerClients(QueryStatusListener statusListener) throws IOException {
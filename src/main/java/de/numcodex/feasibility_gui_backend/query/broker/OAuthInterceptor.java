@@ -38,7 +38,7 @@ public final class OAuthInterceptor implements IClientInterceptor {
         issuer = new Issuer(oauthIssuerUrl);
     }
 
-    public String getToken() {
+    public synchronized String getToken() {
         if (token == null || DateTime.now().plus(TOKEN_EXPIRY_THRESHOLD).isAfter(tokenExpiry)) {
             try {
                 TokenResponse response = TokenResponse.parse(getTokenRequest().send());
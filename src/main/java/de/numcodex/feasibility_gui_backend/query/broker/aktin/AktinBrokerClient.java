@@ -2,6 +2,7 @@ package de.numcodex.feasibility_gui_backend.query.broker.aktin;
 
 import de.numcodex.feasibility_gui_backend.query.QueryMediaType;
 import de.numcodex.feasibility_gui_backend.query.broker.BrokerClient;
+import de.numcodex.feasibility_gui_backend.query.broker.BrokerQueryRegistry;
 import de.numcodex.feasibility_gui_backend.query.broker.QueryNotFoundException;
 import de.numcodex.feasibility_gui_backend.query.broker.SiteNotFoundException;
 import de.numcodex.feasibility_gui_backend.query.broker.UnsupportedMediaTypeException;
@@ -13,7 +14,6 @@ import org.aktin.broker.xml.Node;
 import org.aktin.broker.xml.RequestStatusInfo;
 
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -31,9 +31,9 @@ public class AktinBrokerClient implements BrokerClient {
 	private final BrokerAdmin2 delegate;
 	private final Map<String, Long> brokerToBackendQueryIdMapping;
 
-    public AktinBrokerClient(BrokerAdmin2 delegate) {
+    public AktinBrokerClient(BrokerAdmin2 delegate, BrokerQueryRegistry queryRegistry) {
         this.delegate = Objects.requireNonNull(delegate);
-        this.brokerToBackendQueryIdMapping = new HashMap<>();
+        this.brokerToBackendQueryIdMapping = queryRegistry.createQueryMap("aktin-backend-query-ids");
     }
 
     @Override
@@ -85,7 +85,10 @@ public class AktinBrokerClient implements BrokerClient {
 
 	@Override
 	public void closeQuery(String brokerQueryId) throws IOException {
+		// Closed requests are not needed anymore, so they are deleted from the broker right away.
 		delegate.closeRequest(unwrapQueryId(brokerQueryId));
+		delegate.deleteRequest(unwrapQueryId(brokerQueryId));
+		brokerToBackendQueryIdMapping.remove(brokerQueryId);
 	}
 
 	@Override
@@ -1,6 +1,7 @@
 package de.numcodex.feasibility_gui_backend.query.broker.aktin;
 
 import de.numcodex.feasibility_gui_backend.query.broker.BrokerClient;
+import de.numcodex.feasibility_gui_backend.query.broker.BrokerQueryRegistry;
 import lombok.AllArgsConstructor;
 import org.aktin.broker.client2.AuthFilter;
 import org.aktin.broker.client2.BrokerAdmin2;
@@ -30,12 +31,12 @@ public class AktinClientSpringConfig {
 
     @Qualifier("aktin")
     @Bean
-    public BrokerClient aktinBrokerClient() {
+    public BrokerClient aktinBrokerClient(BrokerQueryRegistry queryRegistry) {
     	BrokerAdmin2 client = new BrokerAdmin2(URI.create(brokerBaseUrl));
     	// when websocket is disconnected, automatically reconnect. delay 10 seconds between failures.
     	client.addListener(ReconnectingListener.forAdmin(client, 10*1000, -1));
     	client.setAuthFilter(new ApiKeyAuthFilter(brokerApiKey));
-    	return new AktinBrokerClient(client);
+    	return new AktinBrokerClient(client, queryRegistry);
     }
 
 	@AllArgsConstructor
@@ -16,6 +16,7 @@ import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.UUID;
 import java.util.concurrent.ThreadLocalRandom;
 import lombok.Getter;
@@ -78,6 +79,11 @@ public abstract class DirectBrokerClient implements BrokerClient {
     return findQuery(brokerQueryId).hasResult() ? Collections.singletonList(SITE_ID_LOCAL) : Collections.emptyList();
   }
 
+  @Override
+  public OptionalInt getExpectedSiteCount(String brokerQueryId) {
+    return OptionalInt.of(1);
+  }
+
   @Override
   public String getSiteName(String siteId) throws SiteNotFoundException {
     if (SITE_ID_LOCAL.equals(siteId)) {
@@ -144,7 +150,7 @@ public abstract class DirectBrokerClient implements BrokerClient {
     private final Long backendQueryId;
     private final Map<QueryMediaType, String> queryDefinitions;
     @Setter
-    private Integer result;
+    private volatile Integer result;
 
     private DirectQuery(String queryId, Long backendQueryId) {
       this.queryId = queryId;
@@ -1,15 +1,21 @@
 package de.numcodex.feasibility_gui_backend.query.broker.direct;
 
 import de.numcodex.feasibility_gui_backend.query.broker.BrokerClient;
+import de.numcodex.feasibility_gui_backend.query.broker.BrokerQueryRegistry;
 import de.numcodex.feasibility_gui_backend.query.broker.QueryDefinitionNotFoundException;
 import de.numcodex.feasibility_gui_backend.query.collect.QueryStatus;
 import de.numcodex.feasibility_gui_backend.query.broker.QueryNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import org.hl7.fhir.r4.model.Bundle;
-import org.hl7.fhir.r4.model.MeasureReport;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.publisher.Sinks.EmitFailureHandler;
+import reactor.core.scheduler.Scheduler;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static de.numcodex.feasibility_gui_backend.query.QueryMediaType.CQL;
 import static de.numcodex.feasibility_gui_backend.query.collect.QueryStatus.COMPLETED;
@@ -18,11 +24,18 @@ import static de.numcodex.feasibility_gui_backend.query.collect.QueryStatus.FAIL
 /**
  * A {@link BrokerClient} to be used to directly communicate with a CQL-capable FHIR Server instance
  * without the need for using any middleware (Aktin or DSF).
+ * <p>
+ * Queries are evaluated asynchronously. At most a configured number of queries is evaluated against the FHIR server
+ * at the same time. Further queries are queued until an evaluation finishes. Publishing a query fails if the queue
+ * is full.
  */
 @Slf4j
 public class DirectBrokerClientCql extends DirectBrokerClient {
     private final FhirConnector fhirConnector;
     private final FhirHelper fhirHelper;
+    private final int maxPendingEvaluations;
+    private final AtomicInteger pendingEvaluations;
+    private final Sinks.Many<Evaluation> evaluations;
 
     /**
      * Creates a new {@link DirectBrokerClientCql} instance that uses the given web client to
@@ -30,15 +43,33 @@ public class DirectBrokerClientCql extends DirectBrokerClient {
      *
      * @param fhirConnector A FHIR connector.
      * @param fhirHelper
+     * @param queryRegistry Registry providing the map for keeping track of queries.
+     * @param maxConcurrentEvaluations Maximum number of queries evaluated against the FHIR server at the same time.
+     * @param maxQueuedEvaluations Maximum number of queries waiting for their evaluation.
+     * @param resultScheduler Scheduler on which results of evaluated queries are handed to the listeners.
      */
     public DirectBrokerClientCql(FhirConnector fhirConnector,
         boolean obfuscateResultCount,
-        FhirHelper fhirHelper) {
+        FhirHelper fhirHelper,
+        BrokerQueryRegistry queryRegistry,
+        int maxConcurrentEvaluations,
+        int maxQueuedEvaluations,
+        Scheduler resultScheduler) {
         super(obfuscateResultCount);
+        if (maxConcurrentEvaluations <= 0 || maxQueuedEvaluations < 0) {
+            throw new IllegalArgumentException("maximum number of concurrent evaluations must be positive and "
+                + "maximum number of queued evaluations must not be negative");
+        }
         this.fhirConnector = Objects.requireNonNull(fhirConnector);
         this.fhirHelper = fhirHelper;
         listeners = new ArrayList<>();
-        brokerQueries = new HashMap<>();
+        brokerQueries = queryRegistry.createQueryMap("direct-cql-queries");
+        maxPendingEvaluations = maxConcurrentEvaluations + maxQueuedEvaluations;
+        pendingEvaluations = new AtomicInteger();
+        evaluations = Sinks.many().unicast().onBackpressureBuffer();
+        evaluations.asFlux()
+            .flatMap(evaluation -> evaluate(evaluation, resultScheduler), maxConcurrentEvaluations)
+            .subscribe();
     }
 
     @Override
@@ -50,18 +81,43 @@ public class DirectBrokerClientCql extends DirectBrokerClient {
         updateQueryStatus(query, QueryStatus.EXECUTING);
         var libraryUri = "urn:uuid" + UUID.randomUUID();
         var measureUri = "urn:uuid" + UUID.randomUUID();
-        MeasureReport measureReport;
+        Bundle bundle;
         try {
-            Bundle bundle = fhirHelper.createBundle(queryContent, libraryUri, measureUri);
-            fhirConnector.transmitBundle(bundle);
-            measureReport = fhirConnector.evaluateMeasure(measureUri);
+            bundle = fhirHelper.createBundle(queryContent, libraryUri, measureUri);
         } catch (IOException e) {
             updateQueryStatus(query, FAILED);
             throw e;
         }
 
-        var resultCount = measureReport.getGroupFirstRep().getPopulationFirstRep().getCount();
-        query.setResult(obfuscateResultCount ? obfuscate(resultCount) : resultCount);
-        updateQueryStatus(query, COMPLETED);
+        if (pendingEvaluations.incrementAndGet() > maxPendingEvaluations) {
+            pendingEvaluations.decrementAndGet();
+            updateQueryStatus(query, FAILED);
+            throw new IOException("Too many queries are waiting for their evaluation against the FHIR server");
+        }
+        // Queries may be published from several request threads at once. Retry colliding emissions.
+        evaluations.emitNext(new Evaluation(query, bundle, measureUri),
+            EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+    }
+
+    private Mono<Void> evaluate(Evaluation evaluation, Scheduler resultScheduler) {
+        var query = evaluation.query();
+        return fhirConnector.transmitBundle(evaluation.bundle())
+            .then(Mono.defer(() -> fhirConnector.evaluateMeasure(evaluation.measureUri())))
+            .publishOn(resultScheduler)
+            .doOnNext(measureReport -> {
+                var resultCount = measureReport.getGroupFirstRep().getPopulationFirstRep().getCount();
+                query.setResult(obfuscateResultCount ? obfuscate(resultCount) : resultCount);
+                updateQueryStatus(query, COMPLETED);
+            })
+            .onErrorResume(e -> {
+                log.error("Could not evaluate query '{}': {}", query.getQueryId(), e.getMessage());
+                updateQueryStatus(query, FAILED);
+                return Mono.empty();
+            })
+            .doFinally(signal -> pendingEvaluations.decrementAndGet())
+            .then();
+    }
+
+    private record Evaluation(DirectQuery query, Bundle bundle, String measureUri) {
     }
 }
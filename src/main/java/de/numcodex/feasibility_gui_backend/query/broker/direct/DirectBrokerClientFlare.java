@@ -1,6 +1,7 @@
 package de.numcodex.feasibility_gui_backend.query.broker.direct;
 
 import de.numcodex.feasibility_gui_backend.query.broker.BrokerClient;
+import de.numcodex.feasibility_gui_backend.query.broker.BrokerQueryRegistry;
 import de.numcodex.feasibility_gui_backend.query.broker.QueryDefinitionNotFoundException;
 import de.numcodex.feasibility_gui_backend.query.broker.QueryNotFoundException;
 import lombok.extern.slf4j.Slf4j;
@@ -28,12 +29,14 @@ public class DirectBrokerClientFlare extends DirectBrokerClient {
    * instance.
    *
    * @param webClient A web client to communicate with a Flare instance.
+   * @param queryRegistry Registry providing the map for keeping track of queries.
    */
-  public DirectBrokerClientFlare(WebClient webClient, boolean obfuscateResultCount) {
+  public DirectBrokerClientFlare(WebClient webClient, boolean obfuscateResultCount,
+                                 BrokerQueryRegistry queryRegistry) {
     super(obfuscateResultCount);
     this.webClient = Objects.requireNonNull(webClient);
     listeners = new ArrayList<>();
-    brokerQueries = new HashMap<>();
+    brokerQueries = queryRegistry.createQueryMap("direct-flare-queries");
   }
 
   @Override
@@ -1,23 +1,21 @@
 package de.numcodex.feasibility_gui_backend.query.broker.direct;
 
 import ca.uhn.fhir.context.FhirContext;
-import ca.uhn.fhir.rest.client.api.IClientInterceptor;
-import ca.uhn.fhir.rest.client.api.IGenericClient;
-import ca.uhn.fhir.rest.client.interceptor.BasicAuthInterceptor;
 import de.numcodex.feasibility_gui_backend.query.broker.BrokerClient;
-import de.numcodex.feasibility_gui_backend.query.broker.NoOpInterceptor;
+import de.numcodex.feasibility_gui_backend.query.broker.BrokerQueryRegistry;
 import de.numcodex.feasibility_gui_backend.query.broker.OAuthInterceptor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.http.client.config.RequestConfig;
-import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.protocol.HttpRequestExecutor;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.netty.http.client.HttpClient;
 
 import java.time.Duration;
@@ -34,6 +32,8 @@ import static org.springframework.web.reactive.function.client.ExchangeFilterFun
 @Slf4j
 public class DirectSpringConfig {
 
+    private static final int MAX_FHIR_RESPONSE_SIZE = 16 * 1024 * 1024;
+
     private final boolean useCql;
     private final String flareBaseUrl;
     private final String cqlBaseUrl;
@@ -70,46 +70,58 @@ public class DirectSpringConfig {
     @Bean
     public BrokerClient directBrokerClient(WebClient directWebClientFlare,
                                            @Value("${app.broker.direct.obfuscateResultCount:false}") boolean obfuscateResultCount,
-                                           FhirConnector fhirConnector, FhirHelper fhirHelper) {
+                                           FhirConnector fhirConnector, FhirHelper fhirHelper,
+                                           BrokerQueryRegistry queryRegistry,
+                                           @Value("${app.broker.direct.cql.maxConcurrentEvaluations:4}") int maxConcurrentEvaluations,
+                                           @Value("${app.broker.direct.cql.maxQueuedEvaluations:100}") int maxQueuedEvaluations) {
         if (useCql) {
-            log.info("Enable direct broker (type: cql)");
-            return new DirectBrokerClientCql(fhirConnector, obfuscateResultCount, fhirHelper);
+            log.info("Enable direct broker (type: cql, max concurrent evaluations: {}, max queued evaluations: {})",
+                    maxConcurrentEvaluations, maxQueuedEvaluations);
+            return new DirectBrokerClientCql(fhirConnector, obfuscateResultCount, fhirHelper, queryRegistry,
+                    maxConcurrentEvaluations, maxQueuedEvaluations, Schedulers.boundedElastic());
         } else {
             log.info("Enable direct broker (type: flare)");
-            return new DirectBrokerClientFlare(directWebClientFlare, obfuscateResultCount);
+            return new DirectBrokerClientFlare(directWebClientFlare, obfuscateResultCount, queryRegistry);
         }
     }
 
     @Bean
-    public IGenericClient getFhirClient(FhirContext fhirContext) {
-        var timeoutMs = (int) Math.min(timeout.toMillis(), Integer.MAX_VALUE);
-        var clientFactory = fhirContext.getRestfulClientFactory();
-        fhirContext.setRestfulClientFactory(clientFactory);
-        var httpClient = HttpClientBuilder.create()
-                .setRequestExecutor(
-                        useAsyncRequestPattern ? new AsyncRequestExecutor() : new HttpRequestExecutor())
-                .setDefaultRequestConfig(RequestConfig.custom()
-                        .setSocketTimeout(timeoutMs).build())
-                .build();
-        clientFactory.setSocketTimeout(timeoutMs);
-        clientFactory.setHttpClient(httpClient);
-        var client = fhirContext.newRestfulGenericClient(cqlBaseUrl);
-        client.registerInterceptor(getAuth());
-
-        return client;
+    public FhirConnector fhirConnector(WebClient directWebClientCql, FhirContext fhirContext) {
+        return new FhirConnector(directWebClientCql, fhirContext, useAsyncRequestPattern, timeout);
     }
 
-    private IClientInterceptor getAuth() {
+    @Bean
+    public WebClient directWebClientCql() {
+        var clientBuilder = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create().responseTimeout(timeout)))
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(MAX_FHIR_RESPONSE_SIZE))
+                .baseUrl(cqlBaseUrl);
+
         if (!isNullOrEmpty(password) && !isNullOrEmpty(username)) {
-            log.info("Configure direct broker instance with basic authentication (username: {})", username);
-            return new BasicAuthInterceptor(username, password);
+            log.info("Configure direct broker instance with basic authentication"
+                    + " (type: cql, url: {}, username: {}, timeout: {})",
+                    cqlBaseUrl, username, timeout);
+            clientBuilder.filter(basicAuthentication(username, password));
         } else if (!isNullOrEmpty(issuer) && !isNullOrEmpty(clientId) && !isNullOrEmpty(clientSecret)) {
-            log.info("Configure direct broker instance with oauth authentication (issuer: {}, client-id: {})", issuer,
-                    clientId);
-            return new OAuthInterceptor(issuer, clientId, clientSecret);
+            log.info("Configure direct broker instance with oauth authentication"
+                    + " (type: cql, url: {}, issuer: {}, client-id: {}, timeout: {})",
+                    cqlBaseUrl, issuer, clientId, timeout);
+            clientBuilder.filter(bearerAuthentication(new OAuthInterceptor(issuer, clientId, clientSecret)));
         } else {
-            return new NoOpInterceptor();
+            log.info("Configure direct broker instance (type: cql, url: {}, timeout: {})", cqlBaseUrl, timeout);
         }
+        return clientBuilder.build();
+    }
+
+    /**
+     * Adds an OAuth access token to each request. Fetching a new token blocks, so it happens on a worker thread.
+     */
+    private static ExchangeFilterFunction bearerAuthentication(OAuthInterceptor tokenProvider) {
+        return ExchangeFilterFunction.ofRequestProcessor(request -> Mono.fromCallable(tokenProvider::getToken)
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(token -> ClientRequest.from(request)
+                        .headers(headers -> headers.setBearerAuth(token))
+                        .build()));
     }
 
     @Bean
@@ -1,9 +1,8 @@
 package de.numcodex.feasibility_gui_backend.query.broker.direct;
 
-import ca.uhn.fhir.rest.client.api.IGenericClient;
-import ca.uhn.fhir.rest.param.DateParam;
-import ca.uhn.fhir.rest.param.StringParam;
-import ca.uhn.fhir.rest.server.exceptions.BaseServerResponseException;
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.DataFormatException;
+import ca.uhn.fhir.util.DateUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.hl7.fhir.r4.model.Bundle;
 import org.hl7.fhir.r4.model.Measure;
@@ -12,65 +11,209 @@ import org.hl7.fhir.r4.model.OperationOutcome;
 import org.hl7.fhir.r4.model.Parameters;
 import org.hl7.fhir.r4.model.Parameters.ParametersParameterComponent;
 import org.hl7.fhir.r4.model.Resource;
-import org.springframework.stereotype.Component;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientException;
+import reactor.core.publisher.Mono;
 
 import java.io.IOException;
-import java.util.List;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
 import java.util.Optional;
+import java.util.regex.Pattern;
 
-
-@Component
+/**
+ * Non-blocking connector to a CQL capable FHIR server.
+ * <p>
+ * If the FHIR Asynchronous Request Pattern is used, the status location returned by the server is polled using
+ * timers instead of waiting threads. The server may control the polling interval using the {@code Retry-After}
+ * header. Otherwise, the interval grows exponentially.
+ */
 @Slf4j
 public class FhirConnector {
 
-  private final IGenericClient client;
+  private static final MediaType FHIR_JSON = MediaType.parseMediaType("application/fhir+json");
+  private static final Duration WAIT_DURATION_MIN = Duration.ofMillis(250);
+  private static final Duration WAIT_DURATION_MAX = Duration.ofSeconds(30);
+  private static final Pattern NUMBER_PATTERN = Pattern.compile("\\d+");
+
+  private final WebClient client;
+  private final FhirContext fhirContext;
+  private final boolean useAsyncRequestPattern;
+  private final Duration timeout;
 
-  public FhirConnector( IGenericClient client) {
+  /**
+   * Creates a new {@link FhirConnector}.
+   *
+   * @param client                 Web client with the base URL of the FHIR server.
+   * @param fhirContext            FHIR context used for (de-)serializing resources.
+   * @param useAsyncRequestPattern Whether measures are evaluated using the FHIR Asynchronous Request Pattern.
+   * @param timeout                Maximum duration of polling the status of an asynchronous request.
+   */
+  public FhirConnector(WebClient client, FhirContext fhirContext, boolean useAsyncRequestPattern, Duration timeout) {
     this.client = client;
+    this.fhirContext = fhirContext;
+    this.useAsyncRequestPattern = useAsyncRequestPattern;
+    this.timeout = timeout;
   }
 
   /**
    * Submit a {@link Bundle} to the FHIR server.
+   *
    * @param bundle the {@link Bundle} to submit
-   * @throws IOException if the communication with the FHIR server fails due to any client or server error
+   * @return a {@link Mono} completing once the server accepted the bundle or failing with an {@link IOException} if
+   *         the communication with the FHIR server fails due to any client or server error
    */
-  public void transmitBundle(Bundle bundle) throws IOException {
-    try {
-      client.transaction().withBundle(bundle).execute();
-    } catch (BaseServerResponseException e) {
-      throw new IOException("An error occurred while trying to create measure and library", e);
-    }
+  public Mono<Void> transmitBundle(Bundle bundle) {
+    return Mono.fromCallable(() -> fhirContext.newJsonParser().encodeResourceToString(bundle))
+        .flatMap(body -> client.post()
+            .contentType(FHIR_JSON)
+            .accept(FHIR_JSON)
+            .bodyValue(body)
+            .retrieve()
+            .toBodilessEntity())
+        .onErrorMap(WebClientException.class,
+            e -> new IOException("An error occurred while trying to create measure and library", e))
+        .then();
   }
 
   /**
    * Get the {@link MeasureReport} for a previously transmitted {@link Measure}
    *
    * @param measureUri the identifier of the {@link Measure}
-   * @return the retrieved {@link MeasureReport} from the server
-   * @throws IOException if the communication with the FHIR server fails due to any client/server error or the response
-   *             did not contain a {@link MeasureReport}
+   * @return a {@link Mono} emitting the retrieved {@link MeasureReport} from the server or failing with an
+   *         {@link IOException} if the communication with the FHIR server fails due to any client/server error or the
+   *         response did not contain a {@link MeasureReport}
    */
-  public MeasureReport evaluateMeasure(String measureUri) throws IOException {
+  public Mono<MeasureReport> evaluateMeasure(String measureUri) {
+    var deadline = Instant.now().plus(timeout);
+    return client.get()
+        .uri(uriBuilder -> uriBuilder.path("/Measure/$evaluate-measure")
+            .queryParam("measure", measureUri)
+            .queryParam("periodStart", "1900")
+            .queryParam("periodEnd", "2100")
+            .build())
+        .accept(FHIR_JSON)
+        .headers(headers -> {
+          if (useAsyncRequestPattern) {
+            headers.set("Prefer", "respond-async");
+          }
+        })
+        .retrieve()
+        .toEntity(String.class)
+        .flatMap(response -> response.getStatusCode().isSameCodeAs(HttpStatus.ACCEPTED)
+            ? contentLocation(response).flatMap(location -> pollUntilReady(location, deadline))
+            : Mono.justOrEmpty(response.getBody()))
+        .onErrorMap(WebClientException.class,
+            e -> new IOException("An error occurred while trying to evaluate a measure report", e))
+        .flatMap(this::parseMeasureReport)
+        .switchIfEmpty(Mono.error(() -> new IOException("An error occurred while trying to evaluate a measure report")));
+  }
+
+  private Mono<URI> contentLocation(ResponseEntity<String> response) {
+    return Mono.justOrEmpty(response.getHeaders().getFirst(HttpHeaders.CONTENT_LOCATION))
+        .map(URI::create)
+        .switchIfEmpty(Mono.error(() -> new AsyncRequestException("No Content-Location provided for polling")));
+  }
+
+  private Mono<String> pollUntilReady(URI location, Instant deadline) {
+    return poll(location, deadline, Duration.ZERO)
+        .doOnCancel(() -> {
+          log.error("Polling status of asynchronous request at {} cancelled", location);
+          cancelAsyncRequest(location).onErrorResume(e -> Mono.empty()).subscribe();
+        });
+  }
+
+  private Mono<String> poll(URI location, Instant deadline, Duration waitDuration) {
+    log.debug("waiting {} before polling '{}'", waitDuration, location);
+    return Mono.delay(waitDuration)
+        .flatMap(tick -> {
+          if (Instant.now().isAfter(deadline)) {
+            log.error("Polling status of asynchronous request at {} timed out (timeout limit: {})", location, timeout);
+            return cancelAsyncRequest(location)
+                .then(Mono.<ResponseEntity<String>>error(new AsyncRequestException(
+                    "Polling status of asynchronous request at %s timed out".formatted(location))));
+          }
+          return client.get()
+              .uri(location)
+              .accept(FHIR_JSON)
+              .retrieve()
+              .toEntity(String.class);
+        })
+        .flatMap(response -> response.getStatusCode().isSameCodeAs(HttpStatus.ACCEPTED)
+            ? poll(location, deadline, nextWaitDuration(response, waitDuration, location))
+            : Mono.justOrEmpty(response.getBody()));
+  }
+
+  private Mono<Void> cancelAsyncRequest(URI location) {
+    return client.delete()
+        .uri(location)
+        .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode()))
+        .doOnNext(status -> logCancellation(status, location))
+        .onErrorMap(e -> new AsyncRequestException(
+            "Failed to cancel asynchronous request at %s".formatted(location), e))
+        .then();
+  }
+
+  private void logCancellation(HttpStatusCode status, URI location) {
+    if (status.isSameCodeAs(HttpStatus.ACCEPTED)) {
+      log.info("Asynchronous request at {} cancelled", location);
+    } else {
+      log.error("Got http status {} cancelling asynchronous request at {}", status.value(), location);
+    }
+  }
+
+  private Duration nextWaitDuration(ResponseEntity<String> response, Duration previousWaitDuration, URI location) {
+    var retryAfter = response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+    if (retryAfter == null) {
+      return exponentialWaitDuration(previousWaitDuration);
+    }
+    return Optional.ofNullable(DateUtils.parseDate(retryAfter))
+        .map(Date::getTime)
+        .map(t -> Duration.ofMillis(Math.max(t - System.currentTimeMillis(), 0)))
+        .orElseGet(() -> Optional.of(retryAfter)
+            .filter(h -> NUMBER_PATTERN.matcher(h).matches())
+            .map(BigDecimal::new)
+            .map(BigDecimal::longValue)
+            .map(Duration::ofSeconds)
+            .orElseGet(() -> {
+              log.error("Response from {} contains invalid Retry-After header value: {}", location, retryAfter);
+              return exponentialWaitDuration(previousWaitDuration);
+            }));
+  }
+
+  private static Duration exponentialWaitDuration(Duration previousWaitDuration) {
+    var doubled = previousWaitDuration.multipliedBy(2);
+    return doubled.compareTo(WAIT_DURATION_MIN) < 0 ? WAIT_DURATION_MIN
+        : doubled.compareTo(WAIT_DURATION_MAX) > 0 ? WAIT_DURATION_MAX : doubled;
+  }
+
+  private Mono<MeasureReport> parseMeasureReport(String body) {
+    Resource resource;
     try {
-        return Optional
-                .of(client.operation()
-                        .onType(Measure.class)
-                        .named("evaluate-measure")
-                        .withSearchParameter(Parameters.class, "measure", new StringParam(measureUri))
-                        .andSearchParameter("periodStart", new DateParam("1900"))
-                        .andSearchParameter("periodEnd", new DateParam("2100"))
-                        .useHttpGet()
-                        .preferResponseTypes(List.of(MeasureReport.class, Bundle.class, OperationOutcome.class))
-                        .execute())
-                .filter(Parameters::hasParameter)
-                .map(Parameters::getParameterFirstRep)
-                .filter(ParametersParameterComponent::hasResource)
-                .map(ParametersParameterComponent::getResource)
-                .flatMap(this::toMeasureReport)
-                .orElseThrow(() -> new IOException("An error occurred while trying to evaluate a measure report"));
-    } catch (BaseServerResponseException e) {
-      throw new IOException("An error occurred while trying to evaluate a measure report", e);
+      resource = (Resource) fhirContext.newJsonParser().parseResource(body);
+    } catch (DataFormatException | ClassCastException e) {
+      return Mono.error(new IOException("An error occurred while trying to evaluate a measure report", e));
+    }
+    return Mono.justOrEmpty(unwrapParameters(resource).flatMap(this::toMeasureReport));
+  }
+
+  private Optional<Resource> unwrapParameters(Resource resource) {
+    if (resource instanceof Parameters parameters) {
+      return Optional.of(parameters)
+          .filter(Parameters::hasParameter)
+          .map(Parameters::getParameterFirstRep)
+          .filter(ParametersParameterComponent::hasResource)
+          .map(ParametersParameterComponent::getResource);
     }
+    return Optional.of(resource);
   }
 
   private Optional<MeasureReport> toMeasureReport(Resource r) {
@@ -8,6 +8,7 @@ import static org.hl7.fhir.r4.model.Bundle.HTTPVerb.POST;
 import ca.uhn.fhir.context.FhirContext;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.model.Bundle;
 import org.hl7.fhir.r4.model.Library;
@@ -18,9 +19,22 @@ import org.springframework.stereotype.Component;
 public class FhirHelper {
 
   private final FhirContext context;
+  private final Library libraryTemplate;
+  private final Measure measureTemplate;
 
+  /**
+   * Creates a new {@link FhirHelper}. The {@link Library} and {@link Measure} templates are parsed once, each bundle
+   * gets its own copies of them.
+   * @param context the {@link FhirContext} used for parsing the templates
+   */
   public FhirHelper(FhirContext context) {
     this.context = context;
+    try {
+      libraryTemplate = parseResource(Library.class, getResourceFileAsString("Library.json"));
+      measureTemplate = parseResource(Measure.class, getResourceFileAsString("Measure.json"));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read library and measure templates", e);
+    }
   }
 
 
@@ -32,10 +46,8 @@ public class FhirHelper {
    * @return the {@link Bundle}, consisting of a {@link Library} and {@link Measure}, containing the submitted values
    */
   public Bundle createBundle(String cql, String libraryUri, String measureUri) throws IOException {
-    var library = appendCql(parseResource(Library.class,
-        getResourceFileAsString("Library.json")).setUrl(libraryUri), cql);
-    var measure = parseResource(Measure.class,
-        getResourceFileAsString("Measure.json"))
+    var library = appendCql(libraryTemplate.copy().setUrl(libraryUri), cql);
+    var measure = measureTemplate.copy()
         .setUrl(measureUri)
         .addLibrary(libraryUri);
     return bundleLibraryAndMeasure(library, measure);
@@ -3,6 +3,7 @@ package de.numcodex.feasibility_gui_backend.query.broker.dsf;
 
 import de.numcodex.feasibility_gui_backend.query.QueryMediaType;
 import de.numcodex.feasibility_gui_backend.query.broker.BrokerClient;
+import de.numcodex.feasibility_gui_backend.query.broker.BrokerQueryRegistry;
 import de.numcodex.feasibility_gui_backend.query.broker.QueryDefinitionNotFoundException;
 import de.numcodex.feasibility_gui_backend.query.broker.QueryNotFoundException;
 import de.numcodex.feasibility_gui_backend.query.broker.SiteNotFoundException;
@@ -11,7 +12,6 @@ import de.numcodex.feasibility_gui_backend.query.collect.QueryStatusListener;
 import de.numcodex.feasibility_gui_backend.query.persistence.BrokerClientType;
 
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -30,11 +30,13 @@ public final class DSFBrokerClient implements BrokerClient {
      *
      * @param queryManager         Manager capable of setting up queries and managing them throughout their lifecycle.
      * @param queryResultCollector Collector for collecting results of running feasibility queries.
+     * @param queryRegistry        Registry providing the map for keeping track of backend query ids.
      */
-    public DSFBrokerClient(QueryManager queryManager, QueryResultCollector queryResultCollector) {
+    public DSFBrokerClient(QueryManager queryManager, QueryResultCollector queryResultCollector,
+                           BrokerQueryRegistry queryRegistry) {
         this.queryManager = queryManager;
         this.queryResultCollector = queryResultCollector;
-        brokerToBackendQueryIdMapping = new HashMap<>();
+        brokerToBackendQueryIdMapping = queryRegistry.createQueryMap("dsf-backend-query-ids");
     }
 
     @Override
@@ -69,8 +71,13 @@ public final class DSFBrokerClient implements BrokerClient {
 
     @Override
     public void closeQuery(String brokerQueryId) throws QueryNotFoundException {
+        brokerToBackendQueryIdMapping.remove(brokerQueryId);
         queryManager.removeQuery(brokerQueryId);
-        queryResultCollector.removeResults(brokerQueryId);
+        try {
+            queryResultCollector.removeResults(brokerQueryId);
+        } catch (QueryNotFoundException e) {
+            // No site has answered the query, so there are no results to remove.
+        }
     }
 
     @Override
@@ -1,6 +1,7 @@
 package de.numcodex.feasibility_gui_backend.query.broker.dsf;
 
 import de.numcodex.feasibility_gui_backend.query.QueryMediaType;
+import de.numcodex.feasibility_gui_backend.query.broker.BrokerQueryRegistry;
 import de.numcodex.feasibility_gui_backend.query.broker.QueryDefinitionNotFoundException;
 import de.numcodex.feasibility_gui_backend.query.broker.QueryNotFoundException;
 import de.numcodex.feasibility_gui_backend.query.broker.UnsupportedMediaTypeException;
@@ -22,7 +23,6 @@ import java.io.IOException;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -83,13 +83,14 @@ class DSFQueryManager implements QueryManager {
      * @param fhirWebClientProvider Provider capable of providing a client to communicate with a FHIR server via HTTP.
      * @param mediaTypeTranslator   Translates different media types so that they can be sent to the ZARS.
      * @param organizationId        Identifies the local FHIR server instance (ZARS) that queries get published to.
+     * @param queryRegistry         Registry providing the map for keeping track of queries.
      */
     DSFQueryManager(FhirWebClientProvider fhirWebClientProvider, DSFMediaTypeTranslator mediaTypeTranslator,
-                    String organizationId) {
+                    String organizationId, BrokerQueryRegistry queryRegistry) {
         this.fhirWebClientProvider = fhirWebClientProvider;
         this.mediaTypeTranslator = mediaTypeTranslator;
         this.organizationId = organizationId;
-        this.queryHeap = new HashMap<>();
+        this.queryHeap = queryRegistry.createQueryMap("dsf-queries");
     }
 
     @Override
@@ -133,10 +134,11 @@ class DSFQueryManager implements QueryManager {
             }
         }
 
+        // The bundle is built in place. Copying it would copy the (potentially large) CQL attachments as well.
         var queryBundle = createQueryBundleWithTask(queryId);
         var libraryId = UUID.randomUUID();
-        queryBundle = addLibrary(queryBundle, queryContents, libraryId);
-        queryBundle = addMeasure(queryBundle, libraryId);
+        addLibrary(queryBundle, queryContents, libraryId);
+        addMeasure(queryBundle, libraryId);
 
         try {
             fhirWebserviceClient.postBundle(queryBundle);
@@ -147,10 +149,9 @@ class DSFQueryManager implements QueryManager {
 
     @Override
     public void removeQuery(String queryId) throws QueryNotFoundException {
-        if (!queryHeap.containsKey(queryId)) {
+        if (queryHeap.remove(queryId) == null) {
             throw new QueryNotFoundException(queryId);
         }
-        queryHeap.remove(queryId);
     }
 
     /**
@@ -220,10 +221,8 @@ class DSFQueryManager implements QueryManager {
      * @param queryBundle   The library is added to this query bundle.
      * @param queryContents Contents of the library mapped by their corresponding media types.
      * @param libraryId     Identifies the library for referential usage.
-     * @return A copy of the given {@link Bundle} with the library added.
      */
-    private Bundle addLibrary(Bundle queryBundle, Map<String, String> queryContents, UUID libraryId) {
-        Bundle bundle = queryBundle.copy();
+    private void addLibrary(Bundle queryBundle, Map<String, String> queryContents, UUID libraryId) {
         Library library = new Library()
                 .setName(LIBRARY_NAME)
                 .setVersion(LIBRARY_VERSION)
@@ -248,32 +247,28 @@ class DSFQueryManager implements QueryManager {
 
         library.setContent(attachments);
 
-        bundle.addEntry()
+        queryBundle.addEntry()
                 .setRequest(new BundleEntryRequestComponent()
                         .setMethod(POST)
                         .setUrl(REQUEST_URL_LIBRARY))
                 .setResource(library)
                 .setFullUrl(createCanonicalUUIDUrn(UUID.randomUUID()));
-
-        return bundle;
     }
 
     /**
      * Given a query bundle adds a measure resource to it.
      * <p>
-     * Adds a measure resource that references a library using the given library Id.
+     * Adds a measure resource that references a library using the given library Id. The task of the query bundle gets
+     * a reference to the measure.
      *
      * @param queryBundle The measure is added to this query bundle.
      * @param libraryId   Identifies a library that this measure is going to use.
-     * @return A copy of the given {@link Bundle} with the measure added.
      */
-    private Bundle addMeasure(Bundle queryBundle, UUID libraryId) {
-        Bundle bundle = queryBundle.copy();
-
+    private void addMeasure(Bundle queryBundle, UUID libraryId) {
         var measureId = UUID.randomUUID();
         var measureUrl = URI.create(fhirWebserviceClient.getBaseUrl()).resolve("./Measure/" + measureId);
 
-        Task task = (Task) bundle.getEntryFirstRep().getResource();
+        Task task = (Task) queryBundle.getEntryFirstRep().getResource();
         task.addInput()
                 .setType(new CodeableConcept()
                         .addCoding(new Coding()
@@ -307,12 +302,11 @@ class DSFQueryManager implements QueryManager {
                         .setCode(CODE_SYSTEM_READ_ACCESS_TAG_VALUE_ALL))
                 .addProfile(MEASURE_PROFILE);
 
-        bundle.addEntry()
+        queryBundle.addEntry()
                 .setRequest(new BundleEntryRequestComponent()
                         .setMethod(POST)
                         .setUrl(REQUEST_URL_MEASURE))
                 .setResource(measure)
                 .setFullUrl(createCanonicalUUIDUrn(measureId));
-        return bundle;
     }
 }
@@ -8,20 +8,30 @@ import de.numcodex.feasibility_gui_backend.query.collect.QueryStatus;
 import de.numcodex.feasibility_gui_backend.query.collect.QueryStatusListener;
 import de.numcodex.feasibility_gui_backend.query.collect.QueryStatusUpdate;
 import dev.dsf.fhir.client.WebsocketClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 import org.hl7.fhir.r4.model.DomainResource;
+import reactor.core.scheduler.Scheduler;
 
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Collector for collecting the results of feasibility queries that are running in a distributed fashion.
  * <p>
  * The collector gathers query results from a single FHIR server. Communication with this FHIR server
  * happens using a websocket. The FHIR server sends all task resources that are associated with a subscription.
+ * <p>
+ * Received resources are handled on a separate scheduler, so that the websocket keeps receiving results of other
+ * sites while a single result is being fetched.
  */
+@Slf4j
 class DSFQueryResultCollector implements QueryResultCollector {
 
     private final QueryResultStore store;
@@ -29,25 +39,32 @@ class DSFQueryResultCollector implements QueryResultCollector {
     private final FhirWebClientProvider fhirWebClientProvider;
     private final DSFQueryResultHandler resultHandler;
     private final Map<DSFBrokerClient, QueryStatusListener> listeners;
+    private final Scheduler resultHandlingScheduler;
+    private final Timer queuedTimer;
     private boolean websocketConnectionEstablished;
 
     /**
      * Creates a new {@link DSFQueryResultCollector}.
      *
-     * @param store                 Storage facility for storing collected results.
-     * @param fhirContext           The FHIR context used for communication purposes with the FHIR server results are
-     *                              gathered from.
-     * @param fhirWebClientProvider Provider capable of providing a websocket client.
-     * @param resultHandler         Handler able to process query results received from the FHIR server.
+     * @param store                   Storage facility for storing collected results.
+     * @param fhirContext             The FHIR context used for communication purposes with the FHIR server results are
+     *                                gathered from.
+     * @param fhirWebClientProvider   Provider capable of providing a websocket client.
+     * @param resultHandler           Handler able to process query results received from the FHIR server.
+     * @param resultHandlingScheduler Scheduler on which received query results are handled.
+     * @param meterRegistry           Registry for exposing the time results wait for being handled.
      */
     public DSFQueryResultCollector(QueryResultStore store, FhirContext fhirContext,
-                                   FhirWebClientProvider fhirWebClientProvider, DSFQueryResultHandler resultHandler) {
+                                   FhirWebClientProvider fhirWebClientProvider, DSFQueryResultHandler resultHandler,
+                                   Scheduler resultHandlingScheduler, MeterRegistry meterRegistry) {
         this.store = store;
         this.fhirContext = fhirContext;
         this.fhirWebClientProvider = fhirWebClientProvider;
         this.resultHandler = resultHandler;
+        this.resultHandlingScheduler = resultHandlingScheduler;
+        this.queuedTimer = DSFQueryResultHandler.stageTimer("queued", meterRegistry);
         this.websocketConnectionEstablished = false;
-        this.listeners = new HashMap<>();
+        this.listeners = new ConcurrentHashMap<>();
     }
 
     private void listenForQueryResults() throws FhirWebClientProvisionException {
@@ -61,6 +78,20 @@ class DSFQueryResultCollector implements QueryResultCollector {
     }
 
     private void setUpQueryResultHandler(DomainResource resource) {
+        var receivedAt = System.nanoTime();
+        try {
+            resultHandlingScheduler.schedule(() -> {
+                queuedTimer.record(System.nanoTime() - receivedAt, TimeUnit.NANOSECONDS);
+                handleQueryResult(resource);
+            });
+        } catch (RejectedExecutionException e) {
+            // Too many results are waiting already. Slow down the websocket instead of dropping the result.
+            log.warn("Handling query result on the websocket thread since too many results are waiting to be handled");
+            handleQueryResult(resource);
+        }
+    }
+
+    private void handleQueryResult(DomainResource resource) {
         resultHandler.onResult(resource).ifPresent((res) -> {
             store.storeResult(res);
             notifyResultListeners(res);
@@ -1,21 +1,35 @@
 package de.numcodex.feasibility_gui_backend.query.broker.dsf;
 
 import dev.dsf.fhir.client.FhirWebserviceClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.hl7.fhir.r4.model.DomainResource;
 import org.hl7.fhir.r4.model.IdType;
 import org.hl7.fhir.r4.model.MeasureReport;
 import org.hl7.fhir.r4.model.Reference;
 import org.hl7.fhir.r4.model.Task;
+import reactor.core.publisher.Sinks;
+import reactor.core.publisher.Sinks.EmitFailureHandler;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A handler that is capable of processing a FHIR Task which represents the result of a feasibility query that ran
  * in a single DIC.
+ * <p>
+ * Only fetching the measure report is needed for getting the result. Deleting the measure report afterwards happens
+ * in batches on a dedicated worker, so that results of other sites do not wait for it. Failing deletions are logged
+ * and skipped, they never stop the deletion of later measure reports.
  */
 @Slf4j
-class DSFQueryResultHandler {
+class DSFQueryResultHandler implements AutoCloseable {
 
     private static final String SINGLE_DIC_QUERY_RESULT_PROFILE = "http://medizininformatik-initiative.de/fhir/StructureDefinition/feasibility-task-single-dic-result|1.0";
     private static final String CODE_SYSTEM_FEASIBILITY = "http://medizininformatik-initiative.de/fhir/CodeSystem/feasibility";
@@ -26,7 +40,16 @@ class DSFQueryResultHandler {
     private static final String CODE_SYSTEM_MEASURE_POPULATION = "http://terminology.hl7.org/CodeSystem/measure-population";
     private static final String CODE_SYSTEM_MEASURE_POPULATION_VALUE_INITIAL_POPULATION = "initial-population";
 
+    private static final int DELETION_BATCH_SIZE = 50;
+    private static final Duration DELETION_BATCH_DELAY = Duration.ofSeconds(1);
+    private static final Duration DELETION_CLOSE_TIMEOUT = Duration.ofSeconds(30);
+
     private final FhirWebClientProvider fhirWebClientProvider;
+    private final Sinks.Many<String> measureReportDeletions;
+    private final Scheduler deletionScheduler;
+    private final CountDownLatch deletionsCompleted = new CountDownLatch(1);
+    private final Timer readTimer;
+    private final Timer deleteTimer;
     private FhirWebserviceClient fhirWebserviceClient;
 
     /**
@@ -34,9 +57,37 @@ class DSFQueryResultHandler {
      *
      * @param fhirWebClientProvider Provider capable of providing a FHIR webservice client for communicating with a
      *                              FHIR server via HTTP.
+     * @param meterRegistry         Registry for exposing the duration of fetching and deleting measure reports.
      */
-    public DSFQueryResultHandler(FhirWebClientProvider fhirWebClientProvider) {
+    public DSFQueryResultHandler(FhirWebClientProvider fhirWebClientProvider, MeterRegistry meterRegistry) {
         this.fhirWebClientProvider = fhirWebClientProvider;
+        this.readTimer = stageTimer("read", meterRegistry);
+        this.deleteTimer = stageTimer("delete", meterRegistry);
+        this.measureReportDeletions = Sinks.many().unicast().onBackpressureBuffer();
+        // A worker of its own can not reject batches because other work occupies it
+        this.deletionScheduler = Schedulers.newSingle("dsf-measure-report-deletion", true);
+        measureReportDeletions.asFlux()
+                .bufferTimeout(DELETION_BATCH_SIZE, DELETION_BATCH_DELAY)
+                .publishOn(deletionScheduler)
+                .doOnNext(this::deleteMeasureReports)
+                .onErrorContinue((e, batch) -> log.error("Could not delete measure reports {}: {}", batch,
+                        e.getMessage(), e))
+                .doFinally(signal -> deletionsCompleted.countDown())
+                .subscribe(batch -> {}, e -> log.error("Stopped deleting measure reports: {}", e.getMessage(), e));
+    }
+
+    /**
+     * Creates a timer for the duration of a single stage of handling a query result.
+     *
+     * @param stage         The name of the stage.
+     * @param meterRegistry The registry the timer gets registered with.
+     * @return The timer.
+     */
+    static Timer stageTimer(String stage, MeterRegistry meterRegistry) {
+        return Timer.builder("dsf.query.result.handling")
+                .description("Duration of the stages of handling query results received from DSF")
+                .tag("stage", stage)
+                .register(meterRegistry);
     }
 
     /**
@@ -63,8 +114,8 @@ class DSFQueryResultHandler {
           log.info("Received query result of query with ID '{}' for site with ID '{}'", queryId, siteId);
 
             try {
-                MeasureReport report = fetchMeasureReport(measureReportUrl.getIdPart());
-                deleteMeasureReport(measureReportUrl.getIdPart());
+                MeasureReport report = readTimer.recordCallable(() -> fetchMeasureReport(measureReportUrl.getIdPart()));
+                scheduleDeletion(measureReportUrl.getIdPart());
                 int measureCount = extractMeasureCount(report);
                 return Optional.of(new DSFQueryResult(queryId, siteId, measureCount));
             } catch (Exception e) {
@@ -123,10 +174,41 @@ class DSFQueryResultHandler {
      * @return The fetched measure report.
      */
     private MeasureReport fetchMeasureReport(String measureReportId) throws FhirWebClientProvisionException {
-        if (fhirWebserviceClient == null) {
-            fhirWebserviceClient = fhirWebClientProvider.provideFhirWebserviceClient();
+        return getFhirWebserviceClient().read(MeasureReport.class, measureReportId);
+    }
+
+    /**
+     * Schedules the deletion of a fetched measure report. The result of the query does not depend on it, so failing to
+     * schedule the deletion is only logged.
+     *
+     * @param measureReportId Identifies the measure report that shall be deleted.
+     */
+    private void scheduleDeletion(String measureReportId) {
+        try {
+            // Results of different sites may be handled concurrently. Retry emissions that collide with each other.
+            measureReportDeletions.emitNext(measureReportId, EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+        } catch (Sinks.EmissionException e) {
+            log.error("Could not schedule deletion of measure report with ID '{}': {}", measureReportId,
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes a batch of measure reports in DSF. Measure reports that cannot be deleted are skipped.
+     *
+     * @param measureReportIds Identify the measure reports that shall be deleted.
+     */
+    private void deleteMeasureReports(List<String> measureReportIds) {
+        for (String measureReportId : measureReportIds) {
+            try {
+                deleteTimer.recordCallable(() -> {
+                    deleteMeasureReport(measureReportId);
+                    return null;
+                });
+            } catch (Exception e) {
+                log.error("Could not delete measure report with ID '{}': {}", measureReportId, e.getMessage(), e);
+            }
         }
-        return fhirWebserviceClient.read(MeasureReport.class, measureReportId);
     }
 
     /**
@@ -135,11 +217,16 @@ class DSFQueryResultHandler {
      * @param measureReportId Identifies the measure report that shall be deleted.
      */
     private void deleteMeasureReport(String measureReportId) throws FhirWebClientProvisionException {
+        var client = getFhirWebserviceClient();
+        client.delete(MeasureReport.class, measureReportId);
+        client.deletePermanently(MeasureReport.class, measureReportId);
+    }
+
+    private synchronized FhirWebserviceClient getFhirWebserviceClient() throws FhirWebClientProvisionException {
         if (fhirWebserviceClient == null) {
             fhirWebserviceClient = fhirWebClientProvider.provideFhirWebserviceClient();
         }
-        fhirWebserviceClient.delete(MeasureReport.class, measureReportId);
-        fhirWebserviceClient.deletePermanently(MeasureReport.class, measureReportId);
+        return fhirWebserviceClient;
     }
 
     /**
@@ -155,4 +242,22 @@ class DSFQueryResultHandler {
                         && g.getPopulationFirstRep().getCode().getCodingFirstRep().getCode().equals(CODE_SYSTEM_MEASURE_POPULATION_VALUE_INITIAL_POPULATION))
                 .findFirst().orElseThrow().getPopulationFirstRep().getCount();
     }
+
+    /**
+     * Deletes all measure reports that are still waiting to be deleted and stops accepting new ones. Waits for the
+     * deletions to complete, but not longer than {@link #DELETION_CLOSE_TIMEOUT}.
+     */
+    @Override
+    public void close() {
+        measureReportDeletions.emitComplete(EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+        try {
+            if (!deletionsCompleted.await(DELETION_CLOSE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Measure reports still waiting to be deleted after {}, skipping them", DELETION_CLOSE_TIMEOUT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            deletionScheduler.dispose();
+        }
+    }
 }
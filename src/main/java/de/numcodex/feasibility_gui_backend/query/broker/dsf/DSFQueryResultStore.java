@@ -1,12 +1,13 @@
 package de.numcodex.feasibility_gui_backend.query.broker.dsf;
 
+import de.numcodex.feasibility_gui_backend.query.broker.BrokerQueryRegistry;
 import de.numcodex.feasibility_gui_backend.query.broker.QueryNotFoundException;
 import de.numcodex.feasibility_gui_backend.query.broker.SiteNotFoundException;
 
 import jakarta.validation.constraints.NotNull;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Manages {@link DSFQueryResult}s.
@@ -15,21 +16,16 @@ class DSFQueryResultStore implements QueryResultStore {
 
     private final Map<String, Map<String, Integer>> results;
 
-    public DSFQueryResultStore() {
-        this.results = new HashMap<>();
+    public DSFQueryResultStore(BrokerQueryRegistry queryRegistry) {
+        // Results of different sites are stored concurrently.
+        this.results = queryRegistry.createQueryMap("dsf-results");
     }
 
 
     @Override
     public void storeResult(@NotNull DSFQueryResult result) {
-        Map<String, Integer> resultsPerClient = results.get(result.getQueryId());
-        if (resultsPerClient == null) {
-            resultsPerClient = new HashMap<>();
-            resultsPerClient.put(result.getSiteId(), result.getMeasureCount());
-            results.put(result.getQueryId(), resultsPerClient);
-        } else {
-            resultsPerClient.put(result.getSiteId(), result.getMeasureCount());
-        }
+        results.computeIfAbsent(result.getQueryId(), queryId -> new ConcurrentHashMap<>())
+                .put(result.getSiteId(), result.getMeasureCount());
     }
 
     @Override
@@ -59,11 +55,8 @@ class DSFQueryResultStore implements QueryResultStore {
 
     @Override
     public void removeResult(String queryId) throws QueryNotFoundException {
-        Map<String, Integer> resultsPerClient = results.get(queryId);
-        if (resultsPerClient == null) {
+        if (results.remove(queryId) == null) {
             throw new QueryNotFoundException(queryId);
         }
-
-        results.remove(queryId);
     }
 }
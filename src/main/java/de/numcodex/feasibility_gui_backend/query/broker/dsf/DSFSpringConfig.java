@@ -2,12 +2,19 @@ package de.numcodex.feasibility_gui_backend.query.broker.dsf;
 
 import ca.uhn.fhir.context.FhirContext;
 import de.numcodex.feasibility_gui_backend.query.broker.BrokerClient;
+import de.numcodex.feasibility_gui_backend.query.broker.BrokerQueryRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 import org.threeten.extra.PeriodDuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 
 /**
@@ -15,6 +22,7 @@ import org.threeten.extra.PeriodDuration;
  */
 @Lazy
 @Configuration
+@Slf4j
 public class DSFSpringConfig {
 
     @Value("${app.broker.dsf.security.keystore.p12file}")
@@ -53,16 +61,24 @@ public class DSFSpringConfig {
     @Value("${app.broker.dsf.organizationId}")
     private String organizationId;
 
+    @Value("${app.broker.dsf.resultHandling.threads:4}")
+    private int resultHandlingThreads;
+
+    @Value("${app.broker.dsf.resultHandling.maxQueuedResults:1000}")
+    private int resultHandlingMaxQueuedResults;
+
     @Qualifier("dsf")
     @Bean
-    public BrokerClient dsfBrokerClient(QueryManager queryManager, QueryResultCollector queryResultCollector) {
-        return new DSFBrokerClient(queryManager, queryResultCollector);
+    public BrokerClient dsfBrokerClient(QueryManager queryManager, QueryResultCollector queryResultCollector,
+                                        BrokerQueryRegistry queryRegistry) {
+        return new DSFBrokerClient(queryManager, queryResultCollector, queryRegistry);
     }
 
     @Bean
-    QueryManager dsfQueryManager(FhirWebClientProvider fhirWebClientProvider, DSFMediaTypeTranslator dsfMediaTypeTranslator) {
+    QueryManager dsfQueryManager(FhirWebClientProvider fhirWebClientProvider, DSFMediaTypeTranslator dsfMediaTypeTranslator,
+                                 BrokerQueryRegistry queryRegistry) {
         return new DSFQueryManager(fhirWebClientProvider, dsfMediaTypeTranslator,
-                organizationId.replace(' ', '_'));
+                organizationId.replace(' ', '_'), queryRegistry);
     }
 
     @Bean
@@ -72,18 +88,32 @@ public class DSFSpringConfig {
 
     @Bean
     QueryResultCollector queryResultCollector(QueryResultStore resultStore, FhirContext fhirContext,
-                                              FhirWebClientProvider webClientProvider, DSFQueryResultHandler resultHandler) {
-        return new DSFQueryResultCollector(resultStore, fhirContext, webClientProvider, resultHandler);
+                                              FhirWebClientProvider webClientProvider, DSFQueryResultHandler resultHandler,
+                                              @Qualifier("dsfResultHandling") Scheduler resultHandlingScheduler,
+                                              ObjectProvider<MeterRegistry> meterRegistry) {
+        return new DSFQueryResultCollector(resultStore, fhirContext, webClientProvider, resultHandler,
+                resultHandlingScheduler, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    // Results arriving via the websocket are handled on their own workers, so that fetching the measure report of one
+    // site does not block receiving the results of others. Measure reports are deleted on a worker of their own.
+    @Qualifier("dsfResultHandling")
+    @Bean(destroyMethod = "dispose")
+    Scheduler dsfResultHandlingScheduler() {
+        log.info("Handle DSF query results on {} threads (max queued results: {})", resultHandlingThreads,
+                resultHandlingMaxQueuedResults);
+        return Schedulers.newBoundedElastic(resultHandlingThreads, resultHandlingMaxQueuedResults, "dsf-result-handling");
     }
 
     @Bean
-    QueryResultStore queryResultStore() {
-        return new DSFQueryResultStore();
+    QueryResultStore queryResultStore(BrokerQueryRegistry queryRegistry) {
+        return new DSFQueryResultStore(queryRegistry);
     }
 
     @Bean
-    DSFQueryResultHandler queryResultHandler(FhirWebClientProvider webClientProvider) {
-        return new DSFQueryResultHandler(webClientProvider);
+    DSFQueryResultHandler queryResultHandler(FhirWebClientProvider webClientProvider,
+                                             ObjectProvider<MeterRegistry> meterRegistry) {
+        return new DSFQueryResultHandler(webClientProvider, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
     }
 
 
@@ -0,0 +1,271 @@
+package de.numcodex.feasibility_gui_backend.query.collect;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import de.numcodex.feasibility_gui_backend.query.broker.BrokerClient;
+import de.numcodex.feasibility_gui_backend.query.broker.QueryNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.publisher.Sinks.EmitFailureHandler;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Closes broker specific queries once they are not needed anymore, freeing the resources they occupy within the
+ * broker clients and remote brokers.
+ * <p>
+ * A broker specific query is closed as soon as all sites it is expected to be answered by have answered, or at the
+ * latest when the results of its backend query expire. This happens when no site answered for the duration of the
+ * result expiry.
+ * <p>
+ * Most brokers cannot tell how many sites are going to answer. Sites of these brokers may answer long after the
+ * results of a backend query expired, so their broker specific queries are only closed once a separate close timeout
+ * passed since they got created. Until then, late answers can still be collected.
+ * <p>
+ * Closing happens in batches on a dedicated scheduler, so that neither dispatching queries nor collecting results
+ * waits for remote brokers. The queries of a batch are closed concurrently. Failed attempts are retried apart from
+ * the batches after an exponential backoff, so that an unreachable broker does not hold back closing queries of other
+ * brokers.
+ */
+@Slf4j
+public class BrokerQueryLifecycleManager implements AutoCloseable {
+
+    /**
+     * Maximum number of broker specific queries that are closed at the same time.
+     */
+    public static final int CLOSING_CONCURRENCY = 4;
+
+    private static final Duration CLOSING_BATCH_DELAY = Duration.ofSeconds(1);
+
+    private final Cache<Long, Map<BrokerQuery, Set<String>>> openQueries;
+    private final Cache<BrokerQuery, Long> openQueriesWithUnknownSites;
+    private final Sinks.Many<Closing> closings;
+    private final Counter closedCounter;
+    private final Counter failedCounter;
+    private final int maxRetries;
+    private final Duration retryBackoff;
+    private final Scheduler closingScheduler;
+
+    /**
+     * Creates a new {@link BrokerQueryLifecycleManager}.
+     *
+     * @param resultExpiry             Duration after the last answer of a site at which results of a query expire.
+     * @param unknownSitesCloseTimeout Duration after its creation at which a broker specific query is closed if its
+     *                                 broker cannot tell how many sites are going to answer it.
+     * @param batchSize                Maximum number of broker specific queries closed within a single batch.
+     * @param maxRetries               Number of times closing a single broker specific query is retried.
+     * @param retryBackoff             Minimum duration to wait before retrying to close a broker specific query.
+     * @param closingScheduler         Scheduler on which broker specific queries get closed.
+     * @param meterRegistry            Registry for exposing the number of closed broker specific queries.
+     */
+    public BrokerQueryLifecycleManager(@NonNull Duration resultExpiry, @NonNull Duration unknownSitesCloseTimeout,
+                                       int batchSize, int maxRetries, @NonNull Duration retryBackoff,
+                                       @NonNull Scheduler closingScheduler, @NonNull MeterRegistry meterRegistry) {
+        this.openQueries = Caffeine.newBuilder()
+                .expireAfterAccess(resultExpiry)
+                .scheduler(com.github.benmanes.caffeine.cache.Scheduler.systemScheduler())
+                .removalListener(this::onRemoval)
+                .build();
+        this.openQueriesWithUnknownSites = Caffeine.newBuilder()
+                .expireAfterWrite(unknownSitesCloseTimeout)
+                .scheduler(com.github.benmanes.caffeine.cache.Scheduler.systemScheduler())
+                .removalListener(this::onCloseTimeout)
+                .build();
+        this.closedCounter = closingCounter("closed", meterRegistry);
+        this.failedCounter = closingCounter("failed", meterRegistry);
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+        this.closingScheduler = closingScheduler;
+        this.closings = Sinks.many().unicast().onBackpressureBuffer();
+        closings.asFlux()
+                .bufferTimeout(batchSize, CLOSING_BATCH_DELAY)
+                .concatMap(this::closeBatch)
+                .subscribe();
+    }
+
+    private static Counter closingCounter(String outcome, MeterRegistry meterRegistry) {
+        return Counter.builder("broker.query.closings")
+                .description("Number of broker specific queries that got closed after they were not needed anymore")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts tracking a broker specific query that has just been created for a backend query.
+     * <p>
+     * Queries need to be tracked before they get published, since some brokers answer them while publishing. Whether
+     * the broker knows how many sites are going to answer is decided once, right here.
+     *
+     * @param backendQueryId Identifies the backend query.
+     * @param broker         The broker client the query has been created with.
+     * @param brokerQueryId  Identifies the broker specific query.
+     */
+    public void onQueryCreated(long backendQueryId, BrokerClient broker, String brokerQueryId) {
+        if (broker.getExpectedSiteCount(brokerQueryId).isEmpty()) {
+            openQueriesWithUnknownSites.put(new BrokerQuery(broker, brokerQueryId), backendQueryId);
+            return;
+        }
+        openQueries.asMap().compute(backendQueryId, (id, brokerQueries) -> {
+            var openBrokerQueries = brokerQueries == null
+                    ? new ConcurrentHashMap<BrokerQuery, Set<String>>()
+                    : brokerQueries;
+            openBrokerQueries.put(new BrokerQuery(broker, brokerQueryId), ConcurrentHashMap.newKeySet());
+            return openBrokerQueries;
+        });
+    }
+
+    /**
+     * Closes a broker specific query that could not be published.
+     *
+     * @param backendQueryId Identifies the backend query.
+     * @param broker         The broker client the query has been created with.
+     * @param brokerQueryId  Identifies the broker specific query.
+     */
+    public void onQueryFailed(long backendQueryId, BrokerClient broker, String brokerQueryId) {
+        var brokerQuery = new BrokerQuery(broker, brokerQueryId);
+        if (openQueriesWithUnknownSites.asMap().remove(brokerQuery) != null) {
+            scheduleClosing(brokerQuery);
+        } else {
+            closeBrokerQuery(backendQueryId, brokerQuery);
+        }
+    }
+
+    /**
+     * Records the answer of a site to a broker specific query. Closes the query if all expected sites answered.
+     *
+     * @param backendQueryId Identifies the backend query.
+     * @param statusUpdate   The update carrying a final status of the query at a single site.
+     */
+    public void onSiteAnswered(long backendQueryId, QueryStatusUpdate statusUpdate) {
+        var brokerQuery = new BrokerQuery(statusUpdate.source(), statusUpdate.brokerQueryId());
+        // Reading the open queries of the backend query resets their expiry.
+        var brokerQueries = openQueries.getIfPresent(backendQueryId);
+        var answeredSites = brokerQueries == null ? null : brokerQueries.get(brokerQuery);
+        if (answeredSites == null) {
+            return;
+        }
+
+        answeredSites.add(statusUpdate.brokerSiteId());
+        var expectedSiteCount = brokerQuery.broker().getExpectedSiteCount(brokerQuery.brokerQueryId());
+        if (expectedSiteCount.isPresent() && answeredSites.size() >= expectedSiteCount.getAsInt()) {
+            closeBrokerQuery(backendQueryId, brokerQuery);
+        }
+    }
+
+    /**
+     * Closes all broker specific queries of a backend query whose results expired. Queries of brokers that cannot tell
+     * how many sites are going to answer are kept open until their close timeout.
+     *
+     * @param backendQueryId Identifies the backend query.
+     */
+    public void onResultsExpired(long backendQueryId) {
+        var brokerQueries = openQueries.asMap().remove(backendQueryId);
+        if (brokerQueries != null) {
+            brokerQueries.keySet().forEach(this::scheduleClosing);
+        }
+    }
+
+    private void onRemoval(Long backendQueryId, Map<BrokerQuery, Set<String>> brokerQueries, RemovalCause cause) {
+        if (cause.wasEvicted() && brokerQueries != null) {
+            log.debug("No site answered query '{}' within the result expiry. Closing its broker specific queries",
+                    backendQueryId);
+            brokerQueries.keySet().forEach(this::scheduleClosing);
+        }
+    }
+
+    private void onCloseTimeout(BrokerQuery brokerQuery, Long backendQueryId, RemovalCause cause) {
+        if (cause.wasEvicted() && brokerQuery != null) {
+            log.debug("Closing query '{}' of broker client with type '{}' for query '{}' after its close timeout",
+                    brokerQuery.brokerQueryId(), brokerQuery.broker().getBrokerType(), backendQueryId);
+            scheduleClosing(brokerQuery);
+        }
+    }
+
+    private void closeBrokerQuery(long backendQueryId, BrokerQuery brokerQuery) {
+        var removed = new AtomicBoolean();
+        openQueries.asMap().computeIfPresent(backendQueryId, (id, brokerQueries) -> {
+            removed.set(brokerQueries.remove(brokerQuery) != null);
+            return brokerQueries.isEmpty() ? null : brokerQueries;
+        });
+        if (removed.get()) {
+            scheduleClosing(brokerQuery);
+        }
+    }
+
+    private void scheduleClosing(BrokerQuery brokerQuery) {
+        // Queries may be closed from dispatch, collection and expiry threads at once. Retry colliding emissions.
+        closings.emitNext(new Closing(brokerQuery, 0), EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+    }
+
+    private Mono<Void> closeBatch(List<Closing> batch) {
+        return Flux.fromIterable(batch)
+                .flatMap(this::attemptClosing, CLOSING_CONCURRENCY)
+                .then();
+    }
+
+    private Mono<Void> attemptClosing(Closing closing) {
+        return Mono.fromCallable(() -> closeQuery(closing.brokerQuery()))
+                .subscribeOn(closingScheduler)
+                .doOnNext(closed -> closedCounter.increment())
+                .onErrorResume(e -> {
+                    retryClosing(closing, e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private void retryClosing(Closing closing, Throwable error) {
+        var brokerQuery = closing.brokerQuery();
+        if (closing.attempt() >= maxRetries) {
+            failedCounter.increment();
+            log.error("Could not close query '{}' of broker client with type '{}': {}", brokerQuery.brokerQueryId(),
+                    brokerQuery.broker().getBrokerType(), error.getMessage());
+            return;
+        }
+        var backoff = retryBackoff.multipliedBy(1L << closing.attempt());
+        log.debug("Could not close query '{}' of broker client with type '{}', retrying in {}: {}",
+                brokerQuery.brokerQueryId(), brokerQuery.broker().getBrokerType(), backoff, error.getMessage());
+        Mono.delay(backoff)
+                .then(attemptClosing(new Closing(brokerQuery, closing.attempt() + 1)))
+                .subscribe();
+    }
+
+    private boolean closeQuery(BrokerQuery brokerQuery) throws Exception {
+        log.debug("Closing query '{}' of broker client with type '{}'", brokerQuery.brokerQueryId(),
+                brokerQuery.broker().getBrokerType());
+        try {
+            brokerQuery.broker().closeQuery(brokerQuery.brokerQueryId());
+        } catch (QueryNotFoundException e) {
+            log.debug("Query '{}' of broker client with type '{}' is already gone", brokerQuery.brokerQueryId(),
+                    brokerQuery.broker().getBrokerType());
+        }
+        return true;
+    }
+
+    /**
+     * Closes all broker specific queries that are still waiting to be closed and stops accepting new ones. Queries
+     * that are still open are left to the brokers.
+     */
+    @Override
+    public void close() {
+        closings.emitComplete(EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+    }
+
+    private record BrokerQuery(BrokerClient broker, String brokerQueryId) {
+    }
+
+    private record Closing(BrokerQuery brokerQuery, int attempt) {
+    }
+}
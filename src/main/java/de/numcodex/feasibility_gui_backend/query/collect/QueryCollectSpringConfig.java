@@ -2,15 +2,61 @@ package de.numcodex.feasibility_gui_backend.query.collect;
 
 import de.numcodex.feasibility_gui_backend.query.persistence.QueryRepository;
 import de.numcodex.feasibility_gui_backend.query.result.ResultService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.threeten.extra.PeriodDuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
 
 @Configuration
+@Slf4j
 public class QueryCollectSpringConfig {
 
+    @Value("${app.broker.queryClosing.batchSize:50}")
+    private int queryClosingBatchSize;
+
+    @Value("${app.broker.queryClosing.maxRetries:3}")
+    private int queryClosingMaxRetries;
+
+    @Value("#{T(java.time.Duration).parse('${app.broker.queryClosing.retryBackoff:PT10S}')}")
+    private Duration queryClosingRetryBackoff;
+
+    @Value("#{T(java.time.Duration).parse('${app.broker.queryClosing.unknownSitesTimeout:PT12H}')}")
+    private Duration queryClosingUnknownSitesTimeout;
+
     @Bean
     public QueryStatusListener createQueryStatusListener(QueryRepository queryRepository,
-                                                         ResultService resultService) {
-        return new QueryStatusListenerImpl(queryRepository, resultService);
+                                                         ResultService resultService,
+                                                         BrokerQueryLifecycleManager brokerQueryLifecycleManager) {
+        return new QueryStatusListenerImpl(queryRepository, resultService, brokerQueryLifecycleManager);
+    }
+
+    @Bean
+    public BrokerQueryLifecycleManager createBrokerQueryLifecycleManager(
+            @Value("${app.queryResultExpiry}") String resultExpiry,
+            @Qualifier("brokerQueryClosing") Scheduler closingScheduler,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        log.info("Close broker queries in batches of {} (max retries: {}, retry backoff: {}, unknown sites timeout: {})",
+                queryClosingBatchSize, queryClosingMaxRetries, queryClosingRetryBackoff,
+                queryClosingUnknownSitesTimeout);
+        return new BrokerQueryLifecycleManager(PeriodDuration.parse(resultExpiry).getDuration(),
+                queryClosingUnknownSitesTimeout, queryClosingBatchSize, queryClosingMaxRetries,
+                queryClosingRetryBackoff, closingScheduler, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    // Closing queries may block on remote brokers. A few workers keep a slow broker from holding back the others.
+    @Qualifier("brokerQueryClosing")
+    @Bean(destroyMethod = "dispose")
+    public Scheduler createBrokerQueryClosingScheduler() {
+        return Schedulers.newBoundedElastic(BrokerQueryLifecycleManager.CLOSING_CONCURRENCY,
+                Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "broker-query-closing");
     }
 }
@@ -33,6 +33,9 @@ public class QueryStatusListenerImpl implements QueryStatusListener {
     @NonNull
     private final ResultService resultService;
 
+    @NonNull
+    private final BrokerQueryLifecycleManager brokerQueryLifecycleManager;
+
     @Override
     public void onClientUpdate(Long backendQueryId, QueryStatusUpdate statusUpdate) {
         logQueryStatusChange(statusUpdate.brokerQueryId(), statusUpdate.brokerSiteId(),
@@ -52,6 +55,10 @@ public class QueryStatusListenerImpl implements QueryStatusListener {
             log.error("cannot persist result of query '%s' for site '%s' with status '%s'".formatted(
                     statusUpdate.brokerQueryId(), statusUpdate.brokerSiteId(), statusUpdate.status().toString()), e);
         }
+
+        if (statusUpdate.status() == COMPLETED || statusUpdate.status() == FAILED) {
+            brokerQueryLifecycleManager.onSiteAnswered(backendQueryId, statusUpdate);
+        }
     }
 
     private void logQueryStatusChange(String externalQueryId, String siteId, BrokerClientType brokerClientType,
@@ -26,7 +26,10 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.text.MessageFormat;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -82,9 +85,47 @@ public class DataqueryCsvExportService {
   };
 
   public String jsonToCsv(DataExtraction in, SUPPORTED_LANGUAGES lang) throws IOException {
-    Map<String, String> idMap = new HashMap<>();
     StringWriter stringWriter = new StringWriter();
-    CSVWriter csvWriter = new CSVWriter(stringWriter,
+    writeCsv(in, resolveDseProfiles(in), lang, stringWriter);
+    return stringWriter.toString();
+  }
+
+  /**
+   * Loads and parses all dse profiles referenced by the attribute groups of a data extraction at once. The result can
+   * be shared by all files of an export.
+   *
+   * @throws DataqueryCsvExportException if a profile is unknown or can not be parsed
+   */
+  public ExportDseProfiles resolveDseProfiles(DataExtraction in) {
+    var urls = in.attributeGroups().stream()
+        .map(attributeGroup -> attributeGroup.groupReference().toString())
+        .distinct()
+        .toList();
+    if (urls.isEmpty()) {
+      return ExportDseProfiles.EMPTY;
+    }
+
+    Map<String, ExportDseProfiles.IndexedDseProfile> profilesByUrl = new HashMap<>();
+    for (DseProfile dseProfile : dseProfileRepository.findAllByUrlIn(urls)) {
+      try {
+        var parsedProfile = jsonUtil.readValue(dseProfile.getEntry(), de.numcodex.feasibility_gui_backend.dse.api.DseProfile.class);
+        profilesByUrl.put(dseProfile.getUrl(), ExportDseProfiles.IndexedDseProfile.of(parsedProfile));
+      } catch (JsonProcessingException e) {
+        throw new DataqueryCsvExportException();
+      }
+    }
+    if (profilesByUrl.size() < urls.size()) {
+      throw new DataqueryCsvExportException();
+    }
+    return new ExportDseProfiles(profilesByUrl);
+  }
+
+  /**
+   * Writes the features of a data extraction as csv to the given writer. The writer is flushed but not closed.
+   */
+  public void writeCsv(DataExtraction in, ExportDseProfiles dseProfiles, SUPPORTED_LANGUAGES lang, Writer writer) throws IOException {
+    Map<String, String> idMap = new HashMap<>();
+    CSVWriter csvWriter = new CSVWriter(writer,
         csvDelimiter,
         csvTextWrapper,
         CSVWriter.DEFAULT_ESCAPE_CHARACTER,
@@ -102,18 +143,26 @@ public class DataqueryCsvExportService {
     }
 
     for (AttributeGroup attributeGroup : in.attributeGroups()) {
-      var dseProfileOptional = dseProfileRepository.findByUrl(attributeGroup.groupReference().toString());
+      var dseProfileOptional = dseProfiles.get(attributeGroup.groupReference().toString());
       String[] row = getRow(attributeGroup, idMap, dseProfileOptional, in, lang);
       csvWriter.writeNext(row);
     }
 
-    csvWriter.close();
-    return stringWriter.toString();
+    // Closing the csv writer would close the underlying writer as well
+    csvWriter.flush();
   }
 
   public String jsonToCsv(List<List<Criterion>> in, SUPPORTED_LANGUAGES lang) throws IOException {
     StringWriter stringWriter = new StringWriter();
-    CSVWriter csvWriter = new CSVWriter(stringWriter,
+    writeCsv(in, lang, stringWriter);
+    return stringWriter.toString();
+  }
+
+  /**
+   * Writes the given criteria as csv to the given writer. The writer is flushed but not closed.
+   */
+  public void writeCsv(List<List<Criterion>> in, SUPPORTED_LANGUAGES lang, Writer writer) throws IOException {
+    CSVWriter csvWriter = new CSVWriter(writer,
         csvDelimiter,
         csvTextWrapper,
         CSVWriter.DEFAULT_ESCAPE_CHARACTER,
@@ -135,11 +184,11 @@ public class DataqueryCsvExportService {
       }
     }
 
-    csvWriter.close();
-    return stringWriter.toString();
+    // Closing the csv writer would close the underlying writer as well
+    csvWriter.flush();
   }
 
-  private String[] getRow(AttributeGroup attributeGroup, Map<String, String> idMap, Optional<DseProfile> dseProfileOptional, DataExtraction dataExtraction, SUPPORTED_LANGUAGES lang) {
+  private String[] getRow(AttributeGroup attributeGroup, Map<String, String> idMap, Optional<ExportDseProfiles.IndexedDseProfile> dseProfileOptional, DataExtraction dataExtraction, SUPPORTED_LANGUAGES lang) {
     String id = idMap.get(attributeGroup.id());
     String module = getModule(dseProfileOptional, lang);
     String profileType = getProfile(dseProfileOptional, lang);
@@ -154,7 +203,7 @@ public class DataqueryCsvExportService {
     return new String[]{id, module, profileType, featureName, fieldsAndLinks.fields(), filter, timeRestriction, fieldsAndLinks.links(), onlyExtractIfLinked, isRequired};
   }
 
-  private FieldsAndLinks getFieldsAndLinks(AttributeGroup attributeGroup, Map<String, String> idMap, Optional<DseProfile> dseProfileOptional, SUPPORTED_LANGUAGES lang) {
+  private FieldsAndLinks getFieldsAndLinks(AttributeGroup attributeGroup, Map<String, String> idMap, Optional<ExportDseProfiles.IndexedDseProfile> dseProfileOptional, SUPPORTED_LANGUAGES lang) {
     List<String> fieldsList = new ArrayList<>();
     List<String> linksList = new ArrayList<>();
 
@@ -168,19 +217,14 @@ public class DataqueryCsvExportService {
                 .collect(Collectors.joining(" " + MultiMessageBundle.getEntry("and", lang) + " "))
         );
       } else if (dseProfileOptional.isPresent()) {
-        try {
-          var dseProfile = jsonUtil.readValue(dseProfileOptional.get().getEntry(), de.numcodex.feasibility_gui_backend.dse.api.DseProfile.class);
-          var fieldEntryOptional = dseProfile.fields().stream().filter(profile -> profile.id().equalsIgnoreCase(attribute.attributeRef())).findFirst();
-          if (fieldEntryOptional.isPresent()) {
-            var fieldEntry = fieldEntryOptional.get();
-            fieldsList.add(
-                MessageFormat.format("{0}{1}",
-                    getLocalizedDisplayEntry(fieldEntry.display(), lang),
-                    attribute.mustHave() ? " (" + MultiMessageBundle.getEntry("required", lang) + ")" : "")
-            );
-          }
-        } catch (JsonProcessingException | NoSuchElementException e) {
-          throw new DataqueryCsvExportException();
+        var fieldEntryOptional = dseProfileOptional.get().getField(attribute.attributeRef());
+        if (fieldEntryOptional.isPresent()) {
+          var fieldEntry = fieldEntryOptional.get();
+          fieldsList.add(
+              MessageFormat.format("{0}{1}",
+                  getLocalizedDisplayEntry(fieldEntry.display(), lang),
+                  attribute.mustHave() ? " (" + MultiMessageBundle.getEntry("required", lang) + ")" : "")
+          );
         }
       } else {
         throw new DataqueryCsvExportException();
@@ -244,30 +288,16 @@ public class DataqueryCsvExportService {
     return "";
   }
 
-  private String getProfile(Optional<DseProfile> dseProfileOptional, SUPPORTED_LANGUAGES lang) {
-    if (dseProfileOptional.isPresent()) {
-      try {
-        var dseProfile = jsonUtil.readValue(dseProfileOptional.get().getEntry(), de.numcodex.feasibility_gui_backend.dse.api.DseProfile.class);
-        return getLocalizedDisplayEntry(dseProfile.display(), lang);
-      } catch (JsonProcessingException e) {
-        throw new DataqueryCsvExportException();
-      }
-    } else {
-      throw new DataqueryCsvExportException();
-    }
+  private String getProfile(Optional<ExportDseProfiles.IndexedDseProfile> dseProfileOptional, SUPPORTED_LANGUAGES lang) {
+    return dseProfileOptional
+        .map(dseProfile -> getLocalizedDisplayEntry(dseProfile.profile().display(), lang))
+        .orElseThrow(DataqueryCsvExportException::new);
   }
 
-  private String getModule(Optional<DseProfile> dseProfileOptional, SUPPORTED_LANGUAGES lang) {
-    if (dseProfileOptional.isPresent()) {
-      try {
-        var dseProfile = jsonUtil.readValue(dseProfileOptional.get().getEntry(), de.numcodex.feasibility_gui_backend.dse.api.DseProfile.class);
-        return getLocalizedDisplayEntry(dseProfile.module(), lang);
-      } catch (JsonProcessingException e) {
-        throw new DataqueryCsvExportException();
-      }
-    } else {
-      throw new DataqueryCsvExportException();
-    }
+  private String getModule(Optional<ExportDseProfiles.IndexedDseProfile> dseProfileOptional, SUPPORTED_LANGUAGES lang) {
+    return dseProfileOptional
+        .map(dseProfile -> getLocalizedDisplayEntry(dseProfile.profile().module(), lang))
+        .orElseThrow(DataqueryCsvExportException::new);
   }
 
   private String[] getRow(Criterion criterion, int conjunctionGroup, SUPPORTED_LANGUAGES lang) {
@@ -399,6 +429,25 @@ public class DataqueryCsvExportService {
     zos.closeEntry();
   }
 
+  /**
+   * Writes the given criteria as csv file directly into the zip stream without building it in memory first.
+   */
+  public void addCsvFileToZip(ZipOutputStream zos, String fileName, List<List<Criterion>> in, SUPPORTED_LANGUAGES lang) throws IOException {
+    zos.putNextEntry(new ZipEntry(fileName));
+    writeCsv(in, lang, new OutputStreamWriter(zos, StandardCharsets.UTF_8));
+    zos.closeEntry();
+  }
+
+  /**
+   * Writes the features of a data extraction as csv file directly into the zip stream without building it in memory
+   * first.
+   */
+  public void addCsvFileToZip(ZipOutputStream zos, String fileName, DataExtraction in, ExportDseProfiles dseProfiles, SUPPORTED_LANGUAGES lang) throws IOException {
+    zos.putNextEntry(new ZipEntry(fileName));
+    writeCsv(in, dseProfiles, lang, new OutputStreamWriter(zos, StandardCharsets.UTF_8));
+    zos.closeEntry();
+  }
+
   private String getLocalizedDisplayEntry(DisplayEntry displayEntry , SUPPORTED_LANGUAGES lang, boolean fallbackToOriginal) {
     Optional<LocalizedValue> localizedValueOptional = displayEntry.translations().stream()
         .filter(lv -> lv.language().equalsIgnoreCase(lang.getJsonKey()))
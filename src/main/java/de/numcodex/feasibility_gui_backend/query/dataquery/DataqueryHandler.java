@@ -11,10 +11,11 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.threeten.extra.PeriodDuration;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.*;
@@ -154,43 +155,42 @@ public class DataqueryHandler {
         .build();
   }
 
-  public ByteArrayOutputStream createCsvExportZipfile(Dataquery dataquery) throws DataqueryException, IOException {
+  /**
+   * Prepares a zip file containing the data definition and its csv representation in all supported languages.
+   * <p>
+   * The dataquery is checked and serialized right away, so that invalid dataqueries are rejected before anything is
+   * written. The referenced dse profiles are loaded once for all languages at this point as well, which rejects
+   * unknown profiles. The csv files are only generated once the returned body is written, directly into the zip
+   * stream.
+   */
+  public StreamingResponseBody createCsvExportZipStream(Dataquery dataquery) throws DataqueryException, JsonProcessingException {
     if (dataquery.content() == null || dataquery.content().cohortDefinition() == null) {
       throw new DataqueryException("No ccdl part present");
     }
-    var byteArrayOutputStream = new ByteArrayOutputStream();
-    var zipOutputStream = new ZipOutputStream(byteArrayOutputStream);
-    Map<String, String> files = new HashMap<>();
-    files.put("Datendefinition.json", jsonUtil.writeValueAsString(dataquery.content()));
+    var dataDefinition = jsonUtil.writeValueAsString(dataquery.content());
+    var dataExtraction = dataquery.content().dataExtraction() == null ? DataExtraction.builder().build() : dataquery.content().dataExtraction();
+    var dseProfiles = csvExportHandler.resolveDseProfiles(dataExtraction);
+    return outputStream -> writeCsvExportZipfile(dataquery.content(), dataDefinition, dataExtraction, dseProfiles, outputStream);
+  }
 
-    for (DataqueryCsvExportService.SUPPORTED_LANGUAGES lang : DataqueryCsvExportService.SUPPORTED_LANGUAGES.values()) {
-    if (dataquery.content().cohortDefinition().inclusionCriteria() == null) {
-        // Call with empty lists to just write the headers to the file
-        files.put(MultiMessageBundle.getEntry("filenameInclusion", lang) + ".csv", csvExportHandler.jsonToCsv(List.of(List.of()), lang));
-      } else {
-        files.put(MultiMessageBundle.getEntry("filenameInclusion", lang) + ".csv", csvExportHandler.jsonToCsv(dataquery.content().cohortDefinition().inclusionCriteria(), lang));
-      }
-      if (dataquery.content().cohortDefinition().exclusionCriteria() == null) {
-        // Call with empty lists to just write the headers to the file
-        files.put(MultiMessageBundle.getEntry("filenameExclusion", lang) + ".csv", csvExportHandler.jsonToCsv(List.of(List.of()), lang));
-      } else {
-        files.put(MultiMessageBundle.getEntry("filenameExclusion", lang) + ".csv", csvExportHandler.jsonToCsv(dataquery.content().cohortDefinition().exclusionCriteria(), lang));
-      }
-      if (dataquery.content().dataExtraction() == null) {
-        // Call with empty lists to just write the headers to the file
-        files.put(MultiMessageBundle.getEntry("filenameFeatures", lang) + ".csv", csvExportHandler.jsonToCsv(DataExtraction.builder().build(), lang));
-      } else {
-        files.put(MultiMessageBundle.getEntry("filenameFeatures", lang) + ".csv", csvExportHandler.jsonToCsv(dataquery.content().dataExtraction(), lang));
-      }
-    }
+  private void writeCsvExportZipfile(Crtdl content, String dataDefinition, DataExtraction dataExtraction,
+                                     ExportDseProfiles dseProfiles, OutputStream outputStream) throws IOException {
+    var zipOutputStream = new ZipOutputStream(outputStream);
+    csvExportHandler.addFileToZip(zipOutputStream, "Datendefinition.json", dataDefinition);
 
-    for (Map.Entry<String, String> file : files.entrySet()) {
-      csvExportHandler.addFileToZip(zipOutputStream, file.getKey(), file.getValue());
+    var cohortDefinition = content.cohortDefinition();
+    for (DataqueryCsvExportService.SUPPORTED_LANGUAGES lang : DataqueryCsvExportService.SUPPORTED_LANGUAGES.values()) {
+      // Write empty lists to just get the headers if a part is missing
+      csvExportHandler.addCsvFileToZip(zipOutputStream, MultiMessageBundle.getEntry("filenameInclusion", lang) + ".csv",
+          cohortDefinition.inclusionCriteria() == null ? List.of(List.of()) : cohortDefinition.inclusionCriteria(), lang);
+      csvExportHandler.addCsvFileToZip(zipOutputStream, MultiMessageBundle.getEntry("filenameExclusion", lang) + ".csv",
+          cohortDefinition.exclusionCriteria() == null ? List.of(List.of()) : cohortDefinition.exclusionCriteria(), lang);
+      csvExportHandler.addCsvFileToZip(zipOutputStream, MultiMessageBundle.getEntry("filenameFeatures", lang) + ".csv",
+          dataExtraction, dseProfiles, lang);
     }
 
-    zipOutputStream.close();
-    byteArrayOutputStream.close();
-    return byteArrayOutputStream;
+    // Only finish the zip file, the output stream belongs to the caller
+    zipOutputStream.finish();
   }
 
   private boolean hasAccess(de.numcodex.feasibility_gui_backend.query.persistence.Dataquery dataquery, Authentication authentication) {
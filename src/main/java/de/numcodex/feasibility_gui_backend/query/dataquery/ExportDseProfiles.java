@@ -0,0 +1,43 @@
+package de.numcodex.feasibility_gui_backend.query.dataquery;
+
+import de.numcodex.feasibility_gui_backend.dse.api.DseProfile;
+import de.numcodex.feasibility_gui_backend.dse.api.Field;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The parsed dse profiles referenced by the attribute groups of a single export, keyed by their url. Each profile
+ * comes with an index of its fields, so that attributes can be looked up without scanning the field list.
+ */
+public record ExportDseProfiles(Map<String, IndexedDseProfile> profilesByUrl) {
+
+  public static final ExportDseProfiles EMPTY = new ExportDseProfiles(Map.of());
+
+  public Optional<IndexedDseProfile> get(String url) {
+    return Optional.ofNullable(profilesByUrl.get(url));
+  }
+
+  public record IndexedDseProfile(DseProfile profile, Map<String, Field> fieldsById) {
+
+    public static IndexedDseProfile of(DseProfile profile) {
+      Map<String, Field> fieldsById = new HashMap<>();
+      // Keep the first field per id, like the former linear search did
+      profile.fields().forEach(field -> fieldsById.putIfAbsent(normalizeId(field.id()), field));
+      return new IndexedDseProfile(profile, fieldsById);
+    }
+
+    /**
+     * Finds a field by its id, ignoring the case like the attribute references of a data extraction do.
+     */
+    public Optional<Field> getField(String id) {
+      return id == null ? Optional.empty() : Optional.ofNullable(fieldsById.get(normalizeId(id)));
+    }
+
+    private static String normalizeId(String id) {
+      return id == null ? null : id.toLowerCase(Locale.ROOT);
+    }
+  }
+}
@@ -3,32 +3,125 @@ package de.numcodex.feasibility_gui_backend.query.dispatch;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.hash.Hashing;
 import de.numcodex.feasibility_gui_backend.query.broker.BrokerClient;
+import de.numcodex.feasibility_gui_backend.query.collect.BrokerQueryLifecycleManager;
 import de.numcodex.feasibility_gui_backend.query.persistence.QueryContentRepository;
+import de.numcodex.feasibility_gui_backend.query.persistence.QueryContentTranslationRepository;
 import de.numcodex.feasibility_gui_backend.query.persistence.QueryDispatchRepository;
 import de.numcodex.feasibility_gui_backend.query.persistence.QueryRepository;
 import de.numcodex.feasibility_gui_backend.query.translation.QueryTranslationComponent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
 
 @Configuration
+@Slf4j
 public class QueryDispatchSpringConfig {
 
+    @Value("${app.broker.dispatch.parallel:false}")
+    private boolean parallelDispatchEnabled;
+
+    @Value("${app.broker.dispatch.maxThreads:10}")
+    private int maxDispatchThreads;
+
+    @Value("${app.broker.dispatch.maxQueuedTasks:100}")
+    private int maxQueuedDispatchTasks;
+
+    @Value("#{T(java.time.Duration).parse('${app.broker.dispatch.timeout:PT30S}')}")
+    private Duration dispatchTimeout;
+
+    @Value("${app.translationCache.maxEntries:1000}")
+    private long translationCacheMaxEntries;
+
+    @Value("#{T(java.time.Duration).parse('${app.translationCache.expiry:PT24H}')}")
+    private Duration translationCacheExpiry;
+
+    @Value("${app.translationCache.persistent:false}")
+    private boolean translationCachePersistent;
+
+    @Value("${app.mappingsFile}")
+    private String mappingsFile;
+
+    @Value("${app.conceptTreeFile}")
+    private String conceptTreeFile;
+
     // Keep the dispatcher a singleton instance since it uses a task executor.
     // Without this you may use more threads than intended.
     @Bean
     public QueryDispatcher createQueryDispatcher(
             @Qualifier("brokerClients") List<BrokerClient> queryBrokerClients,
             QueryTranslationComponent queryTranslationComponent,
+            QueryTranslationCache queryTranslationCache,
             QueryHashCalculator queryHashCalculator,
             @Qualifier("translation") ObjectMapper jsonUtil,
             QueryRepository queryRepository,
             QueryContentRepository queryContentRepository,
-            QueryDispatchRepository queryDispatchRepository) {
-        return new QueryDispatcher(queryBrokerClients, queryTranslationComponent, queryHashCalculator, jsonUtil, queryRepository,
-                queryContentRepository, queryDispatchRepository);
+            QueryDispatchRepository queryDispatchRepository,
+            @Qualifier("dispatch") Scheduler dispatchScheduler,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            BrokerQueryLifecycleManager brokerQueryLifecycleManager) {
+        return new QueryDispatcher(queryBrokerClients, queryTranslationComponent, queryTranslationCache,
+                queryHashCalculator, jsonUtil, queryRepository,
+                queryContentRepository, queryDispatchRepository, dispatchScheduler, dispatchTimeout,
+                meterRegistry.getIfAvailable(SimpleMeterRegistry::new), brokerQueryLifecycleManager);
+    }
+
+    // Blocking broker calls of a single dispatch run on their own worker each, so that brokers do not wait for
+    // each other. The scheduler is bounded to keep a burst of dispatches from spawning an unlimited amount of threads.
+    @Qualifier("dispatch")
+    @Bean(destroyMethod = "dispose")
+    public Scheduler createDispatchScheduler() {
+        if (parallelDispatchEnabled) {
+            log.info("Dispatch queries to brokers in parallel (max threads: {}, max queued tasks: {}, timeout: {})",
+                    maxDispatchThreads, maxQueuedDispatchTasks, dispatchTimeout);
+            return Schedulers.newBoundedElastic(maxDispatchThreads, maxQueuedDispatchTasks, "broker-dispatch");
+        } else {
+            log.info("Dispatch queries to brokers sequentially (timeout: {})", dispatchTimeout);
+            return Schedulers.immediate();
+        }
+    }
+
+    @Bean
+    public QueryTranslationCache createQueryTranslationCache(
+            QueryContentTranslationRepository queryContentTranslationRepository,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        var mappingVersion = hashMappingFiles();
+        log.info("Create translation cache (max entries: {}, expiry: {}, persistent: {}, mapping version: {})",
+                translationCacheMaxEntries, translationCacheExpiry, translationCachePersistent, mappingVersion);
+        if (translationCachePersistent && mappingVersion == null) {
+            log.warn("Query translations are only cached in memory since the mapping version is unknown");
+        }
+        return new QueryTranslationCache(translationCacheMaxEntries, translationCacheExpiry, mappingVersion,
+                translationCachePersistent ? queryContentTranslationRepository : null,
+                meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    // The mapping files are what translations depend on, no matter which ontology tag the deployment claims. Hashing
+    // their contents lets persisted translations of a previous mapping go unused once different files are deployed.
+    private String hashMappingFiles() {
+        try {
+            var hasher = Hashing.sha256().newHasher();
+            for (var mappingFile : List.of(mappingsFile, conceptTreeFile)) {
+                var content = Files.readAllBytes(Path.of(mappingFile));
+                hasher.putInt(content.length).putBytes(content);
+            }
+            return hasher.hash().toString();
+        } catch (IOException e) {
+            log.warn("Cannot derive mapping version from mapping files: {}", e.getMessage());
+            return null;
+        }
     }
 
     @Bean
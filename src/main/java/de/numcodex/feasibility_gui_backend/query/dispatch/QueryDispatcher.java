@@ -5,26 +5,36 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import de.numcodex.feasibility_gui_backend.query.QueryMediaType;
 import de.numcodex.feasibility_gui_backend.query.api.StructuredQuery;
 import de.numcodex.feasibility_gui_backend.query.broker.BrokerClient;
+import de.numcodex.feasibility_gui_backend.query.broker.QueryDefinitionNotFoundException;
 import de.numcodex.feasibility_gui_backend.query.broker.QueryNotFoundException;
 import de.numcodex.feasibility_gui_backend.query.broker.UnsupportedMediaTypeException;
+import de.numcodex.feasibility_gui_backend.query.collect.BrokerQueryLifecycleManager;
 import de.numcodex.feasibility_gui_backend.query.persistence.*;
 import de.numcodex.feasibility_gui_backend.query.persistence.QueryDispatch.QueryDispatchId;
 import de.numcodex.feasibility_gui_backend.query.translation.QueryTranslationComponent;
 import de.numcodex.feasibility_gui_backend.query.translation.QueryTranslationException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import jakarta.transaction.Transactional;
 import java.io.IOException;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
 
 /**
@@ -35,12 +45,20 @@ import java.util.function.Predicate;
 @RequiredArgsConstructor
 public class QueryDispatcher {
 
+    private static final String DISPATCH_TIMER_NAME = "query.dispatch";
+    private static final String OUTCOME_SUCCESS = "success";
+    private static final String OUTCOME_FAILURE = "failure";
+    private static final String OUTCOME_TIMEOUT = "timeout";
+
     @NonNull
     private List<BrokerClient> queryBrokerClients;
 
     @NonNull
     private QueryTranslationComponent queryTranslationComponent;
 
+    @NonNull
+    private QueryTranslationCache queryTranslationCache;
+
     @NonNull
     private QueryHashCalculator queryHashCalculator;
 
@@ -56,6 +74,18 @@ public class QueryDispatcher {
     @NonNull
     private QueryDispatchRepository queryDispatchRepository;
 
+    @NonNull
+    private Scheduler dispatchScheduler;
+
+    @NonNull
+    private Duration dispatchTimeout;
+
+    @NonNull
+    private MeterRegistry meterRegistry;
+
+    @NonNull
+    private BrokerQueryLifecycleManager brokerQueryLifecycleManager;
+
     /**
      * Enqueues a {@link StructuredQuery}, allowing it to be published afterwards. Enqueued queries are stored within
      * the database as a side effect.
@@ -84,7 +114,8 @@ public class QueryDispatcher {
 
     /**
      * Dispatches (publishes) an already enqueued query in a broadcast fashion using all configured {@link BrokerClient}s.
-     * The dispatch is designed to happen asynchronously (but not in parallel).
+     * The dispatch is designed to happen asynchronously. Whether brokers get dispatched to in parallel depends on the
+     * configured dispatch scheduler.
      *
      * @param queryId Identifies the backend query that shall be dispatched.
      * @return A {@link Mono} in complete state if at least a single broker managed to publish the query. If all brokers
@@ -94,16 +125,23 @@ public class QueryDispatcher {
     public Mono<Void> dispatchEnqueuedQuery(Long queryId) {
         try {
             var enqueuedQuery = getEnqueuedQuery(queryId);
-            var deserializedQueryBody = getStructuredQueryFromEnqueuedQuery(enqueuedQuery);
-            var translatedQueryBodyFormats = translateQueryIntoTargetFormats(deserializedQueryBody);
 
-            var dispatchable = new Dispatchable(enqueuedQuery, translatedQueryBodyFormats);
+            return translateQueryIntoTargetFormats(enqueuedQuery)
+                    .onErrorMap(QueryTranslationException.class, e -> {
+                        log.error("dispatch of query with id '%s' failed".formatted(queryId), e);
+                        return new QueryDispatchException("dispatch of query with id '%s' failed".formatted(queryId),
+                                new QueryDispatchException("cannot translate enqueued query body into configured formats",
+                                        e));
+                    })
+                    .flatMap(translatedQueryBodyFormats -> {
+                        var dispatchable = new Dispatchable(enqueuedQuery, translatedQueryBodyFormats);
 
-            var dispatches = queryBrokerClients.stream()
-                    .map(c -> dispatchAsynchronously(dispatchable, c)).toList();
+                        var dispatches = queryBrokerClients.stream()
+                                .map(c -> dispatchAsynchronously(dispatchable, c)).toList();
 
-            return Mono.zip(dispatches, dispatchResults -> Arrays.stream(dispatchResults)
-                            .allMatch(Predicate.isEqual(false)))
+                        return Mono.zip(dispatches, dispatchResults -> Arrays.stream(dispatchResults)
+                                .allMatch(Predicate.isEqual(false)));
+                    })
                     .flatMap(allDispatchesFailed -> {
                         if (allDispatchesFailed) {
                             return Mono.error(new QueryDispatchException(("cannot dispatch query with id '%s'. " +
@@ -121,7 +159,11 @@ public class QueryDispatcher {
 
     /**
      * Dispatches a single dispatchable entity (query) using the specified broker.
-     * Dispatching happens in an asynchronous fashion.
+     * Dispatching happens in an asynchronous fashion on the dispatch scheduler. A dispatch that does not finish within
+     * the configured dispatch timeout is considered failed. Timing out cancels the dispatch, but a broker call that is
+     * already running might not react to that. The dispatch and the timeout race for settling the outcome: a query
+     * that gets published after the timeout is closed again instead of being persisted, while a timeout that fires
+     * after the dispatch got decided waits for its actual outcome.
      *
      * @param dispatchable This is going to be dispatched.
      * @param broker       This actually dispatches the dispatchable entity.
@@ -129,25 +171,92 @@ public class QueryDispatcher {
      * (dispatch was successful) or false (dispatch failed).
      */
     private Mono<Boolean> dispatchAsynchronously(Dispatchable dispatchable, BrokerClient broker) {
-        return Mono.fromCallable(() -> {
-            try {
-                var brokerQueryId = broker.createQuery(dispatchable.query.getId());
-
-                for (Entry<QueryMediaType, String> queryBodyFormats : dispatchable.serializedQueryByFormat.entrySet()) {
-                    broker.addQueryDefinition(brokerQueryId, queryBodyFormats.getKey(),
-                            queryBodyFormats.getValue());
-                }
+        return Mono.defer(() -> {
+            var dispatchTimer = Timer.start(meterRegistry);
+            var outcome = new AtomicReference<>(DispatchOutcome.PENDING);
+            var settledOutcome = new CompletableFuture<DispatchOutcome>();
+            return Mono.fromCallable(() -> {
+                        try {
+                            var dispatchOutcome = dispatch(dispatchable, broker, outcome);
+                            settledOutcome.complete(dispatchOutcome);
+                            return dispatchOutcome;
+                        } catch (QueryDefinitionNotFoundException | RuntimeException e) {
+                            settledOutcome.completeExceptionally(e);
+                            throw e;
+                        }
+                    })
+                    .subscribeOn(dispatchScheduler)
+                    .timeout(dispatchTimeout)
+                    .onErrorResume(TimeoutException.class, e -> {
+                        if (!outcome.compareAndSet(DispatchOutcome.PENDING, DispatchOutcome.TIMED_OUT)) {
+                            // The dispatch got decided right before timing out, so its actual outcome counts.
+                            return Mono.fromFuture(settledOutcome);
+                        }
+                        log.error("failed to dispatch query '{}' with broker type '{}': timed out after {}",
+                                dispatchable.query.getId(), broker.getBrokerType(), dispatchTimeout);
+                        return Mono.just(DispatchOutcome.TIMED_OUT);
+                    })
+                    .doOnNext(dispatchOutcome -> dispatchTimer.stop(getDispatchTimer(broker, dispatchOutcome)))
+                    .map(dispatchOutcome -> dispatchOutcome == DispatchOutcome.PERSISTED);
+        });
+    }
+
+    private DispatchOutcome dispatch(Dispatchable dispatchable, BrokerClient broker,
+                                     AtomicReference<DispatchOutcome> outcome)
+            throws QueryDefinitionNotFoundException {
+        String brokerQueryId = null;
+        try {
+            brokerQueryId = broker.createQuery(dispatchable.query.getId());
+            brokerQueryLifecycleManager.onQueryCreated(dispatchable.query.getId(), broker, brokerQueryId);
+
+            for (Entry<QueryMediaType, String> queryBodyFormats : dispatchable.serializedQueryByFormat.entrySet()) {
+                broker.addQueryDefinition(brokerQueryId, queryBodyFormats.getKey(),
+                        queryBodyFormats.getValue());
+            }
+            if (outcome.get() == DispatchOutcome.PENDING) {
                 broker.publishQuery(brokerQueryId);
-                persistDispatchedQuery(dispatchable.query, brokerQueryId, broker.getBrokerType());
-                log.info("dispatched query '{}' as '{}' with broker type '{}'", dispatchable.query.getId(),
+            }
+        } catch (UnsupportedMediaTypeException | QueryNotFoundException | IOException e) {
+            log.error("failed to dispatch query '{}' with broker type '{}': {}",
+                dispatchable.query.getId(), broker.getBrokerType(), e.getMessage());
+            outcome.compareAndSet(DispatchOutcome.PENDING, DispatchOutcome.FAILED);
+            if (brokerQueryId != null) {
+                brokerQueryLifecycleManager.onQueryFailed(dispatchable.query.getId(), broker, brokerQueryId);
+            }
+            return DispatchOutcome.FAILED;
+        }
+
+        if (!outcome.compareAndSet(DispatchOutcome.PENDING, DispatchOutcome.PUBLISHED)) {
+            log.warn("closing query '{}' of broker type '{}' since its dispatch already timed out",
                     brokerQueryId, broker.getBrokerType());
-                return true;
-            } catch (UnsupportedMediaTypeException | QueryNotFoundException | IOException e) {
-                log.error("failed to dispatch query '{}' with broker type '{}': {}",
+            brokerQueryLifecycleManager.onQueryFailed(dispatchable.query.getId(), broker, brokerQueryId);
+            return DispatchOutcome.TIMED_OUT;
+        }
+        try {
+            persistDispatchedQuery(dispatchable.query, brokerQueryId, broker.getBrokerType());
+        } catch (DataAccessException e) {
+            log.error("failed to persist dispatch of query '{}' with broker type '{}': {}",
                     dispatchable.query.getId(), broker.getBrokerType(), e.getMessage());
-                return false;
-            }
-        });
+            outcome.set(DispatchOutcome.FAILED);
+            brokerQueryLifecycleManager.onQueryFailed(dispatchable.query.getId(), broker, brokerQueryId);
+            return DispatchOutcome.FAILED;
+        }
+        outcome.set(DispatchOutcome.PERSISTED);
+        log.info("dispatched query '{}' as '{}' with broker type '{}'", dispatchable.query.getId(),
+            brokerQueryId, broker.getBrokerType());
+        return DispatchOutcome.PERSISTED;
+    }
+
+    private Timer getDispatchTimer(BrokerClient broker, DispatchOutcome outcome) {
+        return Timer.builder(DISPATCH_TIMER_NAME)
+                .description("Time it takes to dispatch a query using a single broker")
+                .tag("broker", String.valueOf(broker.getBrokerType()))
+                .tag("outcome", switch (outcome) {
+                    case PERSISTED -> OUTCOME_SUCCESS;
+                    case TIMED_OUT -> OUTCOME_TIMEOUT;
+                    default -> OUTCOME_FAILURE;
+                })
+                .register(meterRegistry);
     }
 
     private String serializedStructuredQuery(StructuredQuery query) throws QueryDispatchException {
@@ -193,13 +302,36 @@ public class QueryDispatcher {
         }
     }
 
-    private Map<QueryMediaType, String> translateQueryIntoTargetFormats(StructuredQuery query)
+    /**
+     * Translates the body of an enqueued query into all configured target formats. Previously cached translations are
+     * reused. Everything touching the persisted query content happens synchronously so that the returned {@link Mono}
+     * does not depend on the surrounding transaction.
+     */
+    private Mono<Map<QueryMediaType, String>> translateQueryIntoTargetFormats(Query enqueuedQuery)
             throws QueryDispatchException {
-        try {
-            return queryTranslationComponent.translate(query);
-        } catch (QueryTranslationException e) {
-            throw new QueryDispatchException("cannot translate enqueued query body into configured formats", e);
+        var queryContent = enqueuedQuery.getQueryContent();
+        var cachedTranslations = queryTranslationCache.get(queryContent,
+                queryTranslationComponent.getTargetMediaTypes());
+        if (cachedTranslations.isPresent()) {
+            log.debug("reusing cached translations of query content '{}'", queryContent.getId());
+            return Mono.just(cachedTranslations.get());
         }
+
+        var deserializedQueryBody = getStructuredQueryFromEnqueuedQuery(enqueuedQuery);
+        return queryTranslationComponent.translateAsync(deserializedQueryBody)
+                .doOnNext(translations -> queryTranslationCache.put(queryContent, translations));
+    }
+
+    /**
+     * Progress of dispatching a query using a single broker. Only a pending dispatch can time out. A published query
+     * is either persisted or fails.
+     */
+    private enum DispatchOutcome {
+        PENDING,
+        PUBLISHED,
+        PERSISTED,
+        FAILED,
+        TIMED_OUT
     }
 
     @Getter
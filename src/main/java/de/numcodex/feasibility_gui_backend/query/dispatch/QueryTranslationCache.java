@@ -0,0 +1,146 @@
+package de.numcodex.feasibility_gui_backend.query.dispatch;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.numcodex.feasibility_gui_backend.query.QueryMediaType;
+import de.numcodex.feasibility_gui_backend.query.persistence.QueryContent;
+import de.numcodex.feasibility_gui_backend.query.persistence.QueryContentTranslation;
+import de.numcodex.feasibility_gui_backend.query.persistence.QueryContentTranslationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.NonNull;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Caches translations of query contents, so that identical query contents do not get translated over and over again.
+ * <p>
+ * Translations are keyed by the hash of the query content, the media type of the translation and the version of the
+ * mapping that has been used for the translation. Optionally, translations are persisted next to the query content.
+ * This way they survive restarts and are shared between multiple backend instances. Translations are only persisted
+ * if the mapping version is known, since they could not be told apart from translations of another mapping otherwise.
+ */
+public class QueryTranslationCache {
+
+    private static final String CACHE_NAME = "queryTranslations";
+
+    private final Cache<TranslationKey, String> translations;
+    private final QueryContentTranslationRepository queryContentTranslationRepository;
+    private final String mappingVersion;
+    private final Counter persistentHits;
+    private final Counter persistentMisses;
+
+    /**
+     * Creates a new {@link QueryTranslationCache}.
+     *
+     * @param maxEntries                        Maximum number of translations kept in memory.
+     * @param expiry                            Duration after which a translation is evicted from memory once written.
+     * @param mappingVersion                    Version of the mapping that translations are based on. May be
+     *                                          {@code null} if it is unknown, in which case translations are only
+     *                                          kept in memory.
+     * @param queryContentTranslationRepository Repository for persisting translations. May be {@code null} in which
+     *                                          case translations are only kept in memory.
+     * @param meterRegistry                     Registry for exposing hit and miss metrics.
+     */
+    public QueryTranslationCache(long maxEntries, @NonNull Duration expiry, String mappingVersion,
+                                 QueryContentTranslationRepository queryContentTranslationRepository,
+                                 @NonNull MeterRegistry meterRegistry) {
+        this.translations = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(expiry)
+                .recordStats()
+                .build();
+        this.mappingVersion = mappingVersion;
+        this.queryContentTranslationRepository = mappingVersion == null ? null : queryContentTranslationRepository;
+        CaffeineCacheMetrics.monitor(meterRegistry, translations, CACHE_NAME);
+        this.persistentHits = Counter.builder("query.translation.cache.persistent")
+                .description("Number of translations found in the database after missing the in-memory cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.persistentMisses = Counter.builder("query.translation.cache.persistent")
+                .description("Number of translations found in the database after missing the in-memory cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Gets the cached translations of a query content.
+     * <p>
+     * Translations are only returned if there is one for every requested media type. Query contents without a hash
+     * are never cached.
+     *
+     * @param queryContent The query content whose translations shall be gotten.
+     * @param mediaTypes   The media types of the required translations.
+     * @return The translations mapped to their corresponding media type or an empty {@link Optional} if at least one
+     * of them is not cached.
+     */
+    public Optional<Map<QueryMediaType, String>> get(QueryContent queryContent, Set<QueryMediaType> mediaTypes) {
+        if (queryContent.getHash() == null || mediaTypes.isEmpty()) {
+            return Optional.empty();
+        }
+
+        var cachedTranslations = new EnumMap<QueryMediaType, String>(QueryMediaType.class);
+        for (QueryMediaType mediaType : mediaTypes) {
+            var translation = translations.getIfPresent(new TranslationKey(queryContent.getHash(), mediaType,
+                    mappingVersion));
+            if (translation == null) {
+                return getPersisted(queryContent, mediaTypes);
+            }
+            cachedTranslations.put(mediaType, translation);
+        }
+        return Optional.of(cachedTranslations);
+    }
+
+    /**
+     * Adds translations of a query content to the cache. Query contents without a hash are ignored.
+     *
+     * @param queryContent         The query content that got translated.
+     * @param translationsByFormat The translations mapped to their corresponding media type.
+     */
+    public void put(QueryContent queryContent, Map<QueryMediaType, String> translationsByFormat) {
+        if (queryContent.getHash() == null) {
+            return;
+        }
+
+        translationsByFormat.forEach((mediaType, translation) -> translations.put(
+                new TranslationKey(queryContent.getHash(), mediaType, mappingVersion), translation));
+
+        if (queryContentTranslationRepository != null && queryContent.getId() != null) {
+            translationsByFormat.forEach((mediaType, translation) -> queryContentTranslationRepository
+                    .insertIfAbsent(queryContent.getId(), mediaType.name(), mappingVersion, translation));
+        }
+    }
+
+    private Optional<Map<QueryMediaType, String>> getPersisted(QueryContent queryContent,
+                                                               Set<QueryMediaType> mediaTypes) {
+        if (queryContentTranslationRepository == null || queryContent.getId() == null) {
+            return Optional.empty();
+        }
+
+        var persistedTranslations = new EnumMap<QueryMediaType, String>(QueryMediaType.class);
+        for (QueryContentTranslation persistedTranslation : queryContentTranslationRepository
+                .findByQueryContentIdAndMappingVersion(queryContent.getId(), mappingVersion)) {
+            persistedTranslations.put(persistedTranslation.getId().getMediaType(),
+                    persistedTranslation.getTranslation());
+        }
+
+        if (!persistedTranslations.keySet().containsAll(mediaTypes)) {
+            persistentMisses.increment();
+            return Optional.empty();
+        }
+
+        persistentHits.increment();
+        persistedTranslations.keySet().retainAll(mediaTypes);
+        persistedTranslations.forEach((mediaType, translation) -> translations.put(
+                new TranslationKey(queryContent.getHash(), mediaType, mappingVersion), translation));
+        return Optional.of(persistedTranslations);
+    }
+
+    private record TranslationKey(String queryContentHash, QueryMediaType mediaType, String mappingVersion) {
+    }
+}
@@ -1,8 +1,12 @@
 package de.numcodex.feasibility_gui_backend.query.persistence;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.NativeQuery;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.Optional;
 
 public interface QueryContentRepository extends JpaRepository<QueryContent, Long> {
@@ -11,4 +15,9 @@ public interface QueryContentRepository extends JpaRepository<QueryContent, Long
 
     @Query("SELECT t FROM QueryContent t LEFT JOIN Query q on t.id = q.queryContent.id WHERE q.id = ?1")
     Optional<QueryContent> findByQueryId(Long queryId);
+
+    @Transactional
+    @Modifying
+    @NativeQuery(value = "DELETE FROM query_content qc WHERE qc.id IN (?1) AND NOT EXISTS (SELECT 1 FROM query q WHERE q.query_content_id = qc.id)")
+    int deleteUnreferencedByIds(Collection<Long> queryContentIds);
 }
@@ -0,0 +1,65 @@
+package de.numcodex.feasibility_gui_backend.query.persistence;
+
+import de.numcodex.feasibility_gui_backend.query.QueryMediaType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.proxy.HibernateProxy;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.util.Objects;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@Entity
+public class QueryContentTranslation {
+
+    @EmbeddedId
+    private QueryContentTranslationId id;
+
+    @Column(nullable = false)
+    @ToString.Exclude
+    private String translation;
+
+    @Column(name = "created_at", insertable = false, updatable = false)
+    private Timestamp createdAt;
+
+    public QueryContentTranslation(QueryContentTranslationId id, String translation) {
+        this.id = id;
+        this.translation = translation;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Embeddable
+    public static class QueryContentTranslationId implements Serializable {
+        @Column(name = "query_content_id")
+        private Long queryContentId;
+
+        @Enumerated(EnumType.STRING)
+        @Column(name = "media_type")
+        private QueryMediaType mediaType;
+
+        @Column(name = "mapping_version")
+        private String mappingVersion;
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null) return false;
+        Class<?> oEffectiveClass = o instanceof HibernateProxy ? ((HibernateProxy) o).getHibernateLazyInitializer().getPersistentClass() : o.getClass();
+        Class<?> thisEffectiveClass = this instanceof HibernateProxy ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass() : this.getClass();
+        if (thisEffectiveClass != oEffectiveClass) return false;
+        QueryContentTranslation that = (QueryContentTranslation) o;
+        return getId() != null && Objects.equals(getId(), that.getId());
+    }
+
+    @Override
+    public final int hashCode() {
+        return Objects.hash(id);
+    }
+}
@@ -0,0 +1,20 @@
+package de.numcodex.feasibility_gui_backend.query.persistence;
+
+import de.numcodex.feasibility_gui_backend.query.persistence.QueryContentTranslation.QueryContentTranslationId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.NativeQuery;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface QueryContentTranslationRepository extends JpaRepository<QueryContentTranslation, QueryContentTranslationId> {
+    @Query("SELECT t FROM QueryContentTranslation t WHERE t.id.queryContentId = ?1 AND t.id.mappingVersion = ?2")
+    List<QueryContentTranslation> findByQueryContentIdAndMappingVersion(Long queryContentId, String mappingVersion);
+
+    @Transactional
+    @Modifying
+    @NativeQuery(value = "INSERT INTO query_content_translation (query_content_id, media_type, mapping_version, translation) VALUES (?1, ?2, ?3, ?4) ON CONFLICT DO NOTHING")
+    void insertIfAbsent(Long queryContentId, String mediaType, String mappingVersion, String translation);
+}
@@ -6,6 +6,7 @@ import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.NativeQuery;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface QueryRepository extends JpaRepository<Query, Long> {
 
@@ -21,6 +22,18 @@ public interface QueryRepository extends JpaRepository<Query, Long> {
   @NativeQuery(value = "SELECT EXTRACT (EPOCH from ( SELECT (current_timestamp - created_at) from query WHERE created_by = ?1 ORDER BY created_at desc LIMIT 1 OFFSET ?2))")
   Long getAgeOfNToLastQueryInSeconds(String authorId, int offset);
 
+  @org.springframework.data.jpa.repository.Query("SELECT t.createdBy, t.createdAt FROM Query t WHERE t.createdAt > ?1 AND t.createdBy IS NOT NULL")
+  List<Object[]> findAuthorsAndCreationDatesSince(Timestamp since);
+
+  /*
+   Deletes up to limit of the oldest queries created before the cutoff, including their dispatches. Returns the ids of
+   the contents of the deleted queries. Not annotated with @Modifying, since modifying queries may only return the
+   number of affected rows.
+   */
+  @Transactional
+  @NativeQuery(value = "DELETE FROM query WHERE id IN (SELECT id FROM query WHERE created_at < ?1 ORDER BY created_at LIMIT ?2) RETURNING CAST(query_content_id AS BIGINT)")
+  List<Long> deleteCreatedBefore(Timestamp cutoff, int limit);
+
   @Modifying(clearAutomatically = true)
   @NativeQuery(value = "UPDATE query SET created_at = ?2 where id =?1;")
   void updateCreationDate(Long queryId, Timestamp timestamp);
@@ -0,0 +1,59 @@
+package de.numcodex.feasibility_gui_backend.query.persistence;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.proxy.HibernateProxy;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.util.Objects;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@Entity
+@Table(name = "query_result_line")
+public class StoredResultLine {
+
+    @EmbeddedId
+    private StoredResultLineId id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "result_type", nullable = false)
+    private ResultType resultType;
+
+    @Column(nullable = false)
+    private long result;
+
+    @Column(name = "expires_at", nullable = false)
+    private Timestamp expiresAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Embeddable
+    public static class StoredResultLineId implements Serializable {
+        @Column(name = "query_id")
+        private Long queryId;
+
+        @Column(name = "site_name")
+        private String siteName;
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null) return false;
+        Class<?> oEffectiveClass = o instanceof HibernateProxy ? ((HibernateProxy) o).getHibernateLazyInitializer().getPersistentClass() : o.getClass();
+        Class<?> thisEffectiveClass = this instanceof HibernateProxy ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass() : this.getClass();
+        if (thisEffectiveClass != oEffectiveClass) return false;
+        StoredResultLine that = (StoredResultLine) o;
+        return getId() != null && Objects.equals(getId(), that.getId());
+    }
+
+    @Override
+    public final int hashCode() {
+        return Objects.hash(id);
+    }
+}
@@ -0,0 +1,34 @@
+package de.numcodex.feasibility_gui_backend.query.persistence;
+
+import de.numcodex.feasibility_gui_backend.query.persistence.StoredResultLine.StoredResultLineId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.NativeQuery;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+public interface StoredResultLineRepository extends JpaRepository<StoredResultLine, StoredResultLineId> {
+    @Query("SELECT l FROM StoredResultLine l WHERE l.id.queryId = ?1 AND l.expiresAt > ?2")
+    List<StoredResultLine> findUnexpiredByQueryId(Long queryId, Timestamp now);
+
+    /*
+     Extends the expiry of all unexpired result lines of the query and adds the new result line, unless its site
+     already has one. Both happen within a single statement. Expired result lines stay expired until they are purged.
+     */
+    @Transactional
+    @Modifying
+    @NativeQuery(value = "WITH extended AS (UPDATE query_result_line SET expires_at = ?6 WHERE query_id = ?1 AND expires_at > ?5) INSERT INTO query_result_line (query_id, site_name, result_type, result, expires_at) VALUES (?1, ?2, ?3, ?4, ?6) ON CONFLICT DO NOTHING")
+    void insertIfAbsent(Long queryId, String siteName, String resultType, long result, Timestamp now,
+                        Timestamp expiresAt);
+
+    /*
+     Not annotated with @Modifying on purpose. Modifying queries may only return the number of affected rows, while
+     this one returns the query ids of the deleted rows. It is executed as a query within its own write transaction.
+     */
+    @Transactional
+    @NativeQuery(value = "DELETE FROM query_result_line WHERE expires_at <= ?1 RETURNING CAST(query_id AS BIGINT)")
+    List<Long> deleteExpired(Timestamp now);
+}
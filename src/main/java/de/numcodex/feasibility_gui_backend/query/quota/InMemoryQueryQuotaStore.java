@@ -0,0 +1,144 @@
+package de.numcodex.feasibility_gui_backend.query.quota;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link QueryQuotaStore} keeping the creation times of recent queries within the memory of a single process.
+ * <p>
+ * Only queries created within the retention period (the longest quota interval) are kept. Queries are only visible to
+ * the backend instance that recorded them, plus the ones it was seeded with on startup.
+ */
+@Slf4j
+public class InMemoryQueryQuotaStore implements QueryQuotaStore {
+
+  private final Duration retention;
+
+  private final Clock clock;
+
+  private final Map<String, QueryTimes> queryTimesByUser = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a new InMemoryQueryQuotaStore.
+   *
+   * @param retention the duration for which creation times of queries are kept
+   * @param clock     the clock to determine the current time with
+   */
+  public InMemoryQueryQuotaStore(Duration retention, Clock clock) {
+    this.retention = retention;
+    this.clock = clock;
+  }
+
+  @Override
+  public void recordQuery(String userId, Instant createdAt) {
+    queryTimesByUser.compute(userId, (u, queryTimes) -> {
+      var userQueryTimes = queryTimes == null ? new QueryTimes() : queryTimes;
+      userQueryTimes.add(createdAt.toEpochMilli());
+      return userQueryTimes;
+    });
+  }
+
+  @Override
+  public long countQueries(String userId, Duration interval) {
+    var queryTimes = queryTimesByUser.get(userId);
+    if (queryTimes == null) {
+      return 0;
+    }
+    return queryTimes.countAfter(clock.millis() - interval.toMillis());
+  }
+
+  @Override
+  public Optional<Duration> findAgeOfQuery(String userId, int offset) {
+    var queryTimes = queryTimesByUser.get(userId);
+    if (queryTimes == null) {
+      return Optional.empty();
+    }
+    return queryTimes.getLatest(offset)
+        .map(createdAt -> Duration.ofMillis(clock.millis() - createdAt));
+  }
+
+  /**
+   * Removes the creation times of all queries that are older than the retention period.
+   */
+  @Scheduled(fixedDelay = 1, initialDelay = 1, timeUnit = TimeUnit.HOURS)
+  public void evictExpired() {
+    var cutoff = clock.millis() - retention.toMillis();
+    queryTimesByUser.keySet().forEach(userId -> queryTimesByUser.computeIfPresent(userId, (u, queryTimes) -> {
+      queryTimes.removeUntil(cutoff);
+      return queryTimes.isEmpty() ? null : queryTimes;
+    }));
+    log.debug("Keeping creation times of recent queries of {} users", queryTimesByUser.size());
+  }
+
+  /**
+   * Creation times (epoch millis) of the queries of a single user in ascending order.
+   */
+  private static class QueryTimes {
+
+    private long[] times = new long[4];
+    private int start;
+    private int end;
+
+    private synchronized void add(long time) {
+      if (end == times.length) {
+        var size = end - start;
+        var grown = new long[Math.max(4, size * 2)];
+        System.arraycopy(times, start, grown, 0, size);
+        times = grown;
+        start = 0;
+        end = size;
+      }
+      // Queries are usually recorded in order. Keep the array sorted in case they are not.
+      var insertionPoint = end;
+      while (insertionPoint > start && times[insertionPoint - 1] > time) {
+        insertionPoint--;
+      }
+      System.arraycopy(times, insertionPoint, times, insertionPoint + 1, end - insertionPoint);
+      times[insertionPoint] = time;
+      end++;
+    }
+
+    private synchronized long countAfter(long cutoff) {
+      return end - firstIndexAfter(cutoff);
+    }
+
+    private synchronized Optional<Long> getLatest(int offset) {
+      var index = end - 1 - offset;
+      return index >= start ? Optional.of(times[index]) : Optional.empty();
+    }
+
+    private synchronized void removeUntil(long cutoff) {
+      start = firstIndexAfter(cutoff);
+      if (start == end) {
+        times = new long[4];
+        start = 0;
+        end = 0;
+      }
+    }
+
+    private synchronized boolean isEmpty() {
+      return start == end;
+    }
+
+    private int firstIndexAfter(long cutoff) {
+      var index = Arrays.binarySearch(times, start, end, cutoff);
+      if (index < 0) {
+        return -(index + 1);
+      }
+      // Skip all entries equal to the cutoff.
+      while (index < end && times[index] <= cutoff) {
+        index++;
+      }
+      return index;
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package de.numcodex.feasibility_gui_backend.query.quota;
+
+import de.numcodex.feasibility_gui_backend.query.persistence.QueryRepository;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * {@link QueryQuotaStore} counting the queries within the (shared) PostgreSQL database.
+ * <p>
+ * All backend instances connected to the same database see the same quotas. Queries are recorded by persisting them,
+ * thus recording them here is a no-op.
+ */
+@RequiredArgsConstructor
+public class PostgresQueryQuotaStore implements QueryQuotaStore {
+
+  @NonNull
+  private final QueryRepository queryRepository;
+
+  @Override
+  public void recordQuery(String userId, Instant createdAt) {
+  }
+
+  @Override
+  public long countQueries(String userId, Duration interval) {
+    return queryRepository.countQueriesByAuthorInTheLastNMinutes(userId, interval.toMinutes());
+  }
+
+  @Override
+  public Optional<Duration> findAgeOfQuery(String userId, int offset) {
+    return Optional.ofNullable(queryRepository.getAgeOfNToLastQueryInSeconds(userId, offset))
+        .map(Duration::ofSeconds);
+  }
+}
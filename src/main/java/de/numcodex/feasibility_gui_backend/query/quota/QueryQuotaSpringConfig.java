@@ -0,0 +1,49 @@
+package de.numcodex.feasibility_gui_backend.query.quota;
+
+import de.numcodex.feasibility_gui_backend.query.persistence.QueryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+
+@Configuration
+@Slf4j
+public class QueryQuotaSpringConfig {
+
+  @Value("${app.queryQuotaStore.type:memory}")
+  private String queryQuotaStoreType;
+
+  @Bean
+  public QueryQuotaStore createQueryQuotaStore(QueryRepository queryRepository,
+                                               @Value("${app.privacy.quota.soft.create.interval}") String softInterval,
+                                               @Value("${app.privacy.quota.hard.create.interval}") String hardInterval) {
+    return switch (queryQuotaStoreType) {
+      case "memory" -> createInMemoryQueryQuotaStore(queryRepository, softInterval, hardInterval);
+      case "postgres" -> {
+        log.info("Query quotas are counted in the database and shared between backend instances");
+        yield new PostgresQueryQuotaStore(queryRepository);
+      }
+      default -> throw new IllegalArgumentException("unknown query quota store type '%s'".formatted(queryQuotaStoreType));
+    };
+  }
+
+  private InMemoryQueryQuotaStore createInMemoryQueryQuotaStore(QueryRepository queryRepository, String softInterval,
+                                                                String hardInterval) {
+    var softDuration = QueryQuotaStore.parseInterval(softInterval);
+    var hardDuration = QueryQuotaStore.parseInterval(hardInterval);
+    var retention = softDuration.compareTo(hardDuration) > 0 ? softDuration : hardDuration;
+    var queryQuotaStore = new InMemoryQueryQuotaStore(retention, Clock.systemUTC());
+
+    var recentQueries = queryRepository.findAuthorsAndCreationDatesSince(Timestamp.from(Instant.now().minus(retention)));
+    for (Object[] authorAndCreationDate : recentQueries) {
+      queryQuotaStore.recordQuery((String) authorAndCreationDate[0],
+          ((Timestamp) authorAndCreationDate[1]).toInstant());
+    }
+    log.info("Seeded query quotas with {} queries created within the last {}", recentQueries.size(), retention);
+    return queryQuotaStore;
+  }
+}
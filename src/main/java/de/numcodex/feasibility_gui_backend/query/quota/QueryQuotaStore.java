@@ -0,0 +1,53 @@
+package de.numcodex.feasibility_gui_backend.query.quota;
+
+import org.threeten.extra.PeriodDuration;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Keeps track of when users created queries, in order to enforce quotas on query creation.
+ */
+public interface QueryQuotaStore {
+
+  /**
+   * Records that a user created a query.
+   *
+   * @param userId    the id of the user that created the query
+   * @param createdAt the time the query was created
+   */
+  void recordQuery(String userId, Instant createdAt);
+
+  /**
+   * Counts the queries a user created within the given interval up to now.
+   *
+   * @param userId   the id of the user
+   * @param interval the interval reaching back from now
+   * @return the number of queries created by the user within the interval
+   */
+  long countQueries(String userId, Duration interval);
+
+  /**
+   * Gets the age of a query of a user, counting from the most recent one.
+   *
+   * @param userId the id of the user
+   * @param offset the number of more recent queries of the user, {@code 0} being the most recent query
+   * @return the age of the query or an empty {@link Optional} if the user did not create that many queries
+   */
+  Optional<Duration> findAgeOfQuery(String userId, int offset);
+
+  /**
+   * Parses a quota interval given as ISO 8601 period and/or duration, e.g. {@code P1W} or {@code PT1M}.
+   * <p>
+   * Periods are converted relative to the current date, e.g. {@code P1M} covers as many days as the month before.
+   *
+   * @param interval the interval to parse
+   * @return the interval as duration reaching back from now
+   */
+  static Duration parseInterval(String interval) {
+    var now = LocalDateTime.now();
+    return Duration.between(now.minus(PeriodDuration.parse(interval)), now);
+  }
+}
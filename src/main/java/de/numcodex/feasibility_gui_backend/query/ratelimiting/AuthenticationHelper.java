@@ -1,9 +1,6 @@
 package de.numcodex.feasibility_gui_backend.query.ratelimiting;
 
-import de.numcodex.feasibility_gui_backend.config.WebSecurityConfig.Jwt2AuthoritiesConverter;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Component;
 
@@ -15,17 +12,11 @@ import org.springframework.stereotype.Component;
 @Component
 public class AuthenticationHelper {
 
-  private final Jwt2AuthoritiesConverter jwt2AuthoritiesConverter;
-
-  @Autowired
-  public AuthenticationHelper(Jwt2AuthoritiesConverter jwt2AuthoritiesConverter) {
-    this.jwt2AuthoritiesConverter = jwt2AuthoritiesConverter;
-  }
-
   /**
    * Check if a submitted {@link Authentication} contains the given authority.
    * <p>
-   * {@link Authentication} must be of type {@link JwtAuthenticationToken}
+   * {@link Authentication} must be of type {@link JwtAuthenticationToken}. Its authorities have already been
+   * converted from the JWT claims when the token was authenticated, so they are not converted again.
    * @param authentication an object that should be of type {@link JwtAuthenticationToken}
    * @param authority the role/authority name to check
    * @return whether the principal contains the desired authority
@@ -33,12 +24,7 @@ public class AuthenticationHelper {
    */
   public boolean hasAuthority(Authentication authentication, String authority) throws InvalidAuthenticationException {
     if (authentication.getClass() == JwtAuthenticationToken.class) {
-      var jwtPrincipal = (Jwt)authentication.getPrincipal();
-      JwtAuthenticationToken jwtAuthenticationToken
-          = new JwtAuthenticationToken(jwtPrincipal,
-          jwt2AuthoritiesConverter.convert(jwtPrincipal));
-
-      return jwtAuthenticationToken.getAuthorities().stream()
+      return authentication.getAuthorities().stream()
           .anyMatch(auth -> authority.equals(auth.getAuthority()));
     } else {
       throw new InvalidAuthenticationException();
@@ -0,0 +1,160 @@
+package de.numcodex.feasibility_gui_backend.query.ratelimiting;
+
+import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.AbstractSelectForUpdateBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.LockAndGetResult;
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.SelectForUpdateBasedTransaction;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Keeps the state of rate limiting buckets within the (shared) PostgreSQL database, so that all backend instances
+ * connected to the same database enforce the same limits.
+ * <p>
+ * Each bucket is a row within the {@code rate_limiting_bucket} table that is locked for the duration of a single
+ * bucket operation.
+ */
+@Slf4j
+public class PostgresBucketProxyManager extends AbstractSelectForUpdateBasedProxyManager<String> {
+
+  private static final String SELECT_FOR_UPDATE = "SELECT state FROM rate_limiting_bucket WHERE id = ? FOR UPDATE";
+  private static final String INSERT_EMPTY = "INSERT INTO rate_limiting_bucket (id, state) VALUES (?, NULL) "
+      + "ON CONFLICT (id) DO NOTHING";
+  private static final String UPDATE = "UPDATE rate_limiting_bucket SET state = ?, updated_at = CURRENT_TIMESTAMP "
+      + "WHERE id = ?";
+  private static final String DELETE = "DELETE FROM rate_limiting_bucket WHERE id = ?";
+  private static final String DELETE_IDLE = "DELETE FROM rate_limiting_bucket WHERE updated_at < ?";
+
+  private final DataSource dataSource;
+
+  /**
+   * Creates a new PostgresBucketProxyManager.
+   *
+   * @param dataSource the data source of the database holding the buckets
+   */
+  public PostgresBucketProxyManager(DataSource dataSource) {
+    super(ClientSideConfig.getDefault());
+    this.dataSource = dataSource;
+  }
+
+  @Override
+  protected SelectForUpdateBasedTransaction allocateTransaction(String key, Optional<Long> requestTimeoutNanos) {
+    Connection connection;
+    try {
+      connection = dataSource.getConnection();
+    } catch (SQLException e) {
+      throw BucketExceptions.from(e);
+    }
+
+    return new SelectForUpdateBasedTransaction() {
+      @Override
+      public void begin(Optional<Long> requestTimeoutNanos) {
+        try {
+          connection.setAutoCommit(false);
+        } catch (SQLException e) {
+          throw BucketExceptions.from(e);
+        }
+      }
+
+      @Override
+      public void rollback() {
+        try {
+          connection.rollback();
+        } catch (SQLException e) {
+          throw BucketExceptions.from(e);
+        }
+      }
+
+      @Override
+      public void commit(Optional<Long> requestTimeoutNanos) {
+        try {
+          connection.commit();
+        } catch (SQLException e) {
+          throw BucketExceptions.from(e);
+        }
+      }
+
+      @Override
+      public LockAndGetResult tryLockAndGet(Optional<Long> requestTimeoutNanos) {
+        try (var statement = connection.prepareStatement(SELECT_FOR_UPDATE)) {
+          applyTimeout(statement, requestTimeoutNanos);
+          statement.setString(1, key);
+          try (var resultSet = statement.executeQuery()) {
+            return resultSet.next() ? LockAndGetResult.locked(resultSet.getBytes("state")) : LockAndGetResult.notLocked();
+          }
+        } catch (SQLException e) {
+          throw BucketExceptions.from(e);
+        }
+      }
+
+      @Override
+      public boolean tryInsertEmptyData(Optional<Long> requestTimeoutNanos) {
+        try (var statement = connection.prepareStatement(INSERT_EMPTY)) {
+          applyTimeout(statement, requestTimeoutNanos);
+          statement.setString(1, key);
+          statement.executeUpdate();
+          // Locking is retried either way. If another instance inserted the row meanwhile, it gets locked from there.
+          return true;
+        } catch (SQLException e) {
+          throw BucketExceptions.from(e);
+        }
+      }
+
+      @Override
+      public void update(byte[] data, RemoteBucketState newState, Optional<Long> requestTimeoutNanos) {
+        try (var statement = connection.prepareStatement(UPDATE)) {
+          applyTimeout(statement, requestTimeoutNanos);
+          statement.setBytes(1, data);
+          statement.setString(2, key);
+          statement.executeUpdate();
+        } catch (SQLException e) {
+          throw BucketExceptions.from(e);
+        }
+      }
+
+      @Override
+      public void release() {
+        try {
+          connection.close();
+        } catch (SQLException e) {
+          throw BucketExceptions.from(e);
+        }
+      }
+    };
+  }
+
+  @Override
+  public void removeProxy(String key) {
+    try (var connection = dataSource.getConnection();
+         var statement = connection.prepareStatement(DELETE)) {
+      statement.setString(1, key);
+      statement.executeUpdate();
+    } catch (SQLException e) {
+      throw BucketExceptions.from(e);
+    }
+  }
+
+  /**
+   * Deletes all buckets that have not been used within the given idle timeout.
+   *
+   * @param idleTimeout the duration after which an unused bucket is deleted
+   */
+  public void evictIdle(Duration idleTimeout) {
+    try (var connection = dataSource.getConnection();
+         var statement = connection.prepareStatement(DELETE_IDLE)) {
+      statement.setTimestamp(1, Timestamp.from(Instant.now().minus(idleTimeout)));
+      log.debug("Deleted {} idle rate limiting buckets", statement.executeUpdate());
+    } catch (SQLException e) {
+      log.error("Could not delete idle rate limiting buckets", e);
+    }
+  }
+}
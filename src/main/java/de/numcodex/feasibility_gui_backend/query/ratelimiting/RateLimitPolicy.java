@@ -0,0 +1,18 @@
+package de.numcodex.feasibility_gui_backend.query.ratelimiting;
+
+/**
+ * Rate-limiting policies that handler methods can declare via {@link RateLimited}.
+ */
+public enum RateLimitPolicy {
+
+  /**
+   * Limits the polling rate of summary results.
+   */
+  SUMMARY_RESULT,
+
+  /**
+   * Limits the polling rate of detailed obfuscated results as well as the amount of detailed obfuscated results
+   * that can be viewed within a given timespan.
+   */
+  DETAILED_OBFUSCATED_RESULT
+}
@@ -0,0 +1,19 @@
+package de.numcodex.feasibility_gui_backend.query.ratelimiting;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a handler method as subject to rate-limiting by the {@link RateLimitingInterceptor}.
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimited {
+
+  /**
+   * @return the policy deciding which buckets a request to the handler consumes from
+   */
+  RateLimitPolicy value();
+}
@@ -1,21 +1,32 @@
 package de.numcodex.feasibility_gui_backend.query.ratelimiting;
 
-import de.numcodex.feasibility_gui_backend.config.WebSecurityConfig;
 import de.numcodex.feasibility_gui_backend.query.api.status.FeasibilityIssue;
 import de.numcodex.feasibility_gui_backend.query.v5.FeasibilityQueryHandlerRestController;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
 
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * This Interceptor checks whether a user may use the requested endpoint at this
  * moment. If the user has the admin role (as defined via config), he is not
  * subject to rate-limiting.
+ * <p>
+ * Which limits apply is declared by the handler methods via {@link RateLimited}.
+ * Handler methods without that annotation are not rate-limited. The declared
+ * policy is resolved once per handler method.
  */
 @Component
 public class RateLimitingInterceptor implements HandlerInterceptor {
@@ -29,6 +40,8 @@ public class RateLimitingInterceptor implements HandlerInterceptor {
 
   private final AuthenticationHelper authenticationHelper;
 
+  private final Map<Method, Optional<RateLimitPolicy>> policies = new ConcurrentHashMap<>();
+
   @Value("${app.keycloakAllowedRole}")
   private String keycloakAllowedRole;
 
@@ -46,8 +59,17 @@ public class RateLimitingInterceptor implements HandlerInterceptor {
   public boolean preHandle(HttpServletRequest request,
       HttpServletResponse response, Object handler)
       throws Exception {
-    var authentication = SecurityContextHolder.getContext().getAuthentication();
+    // Limits were already checked when the request was initially dispatched.
+    if (request.getDispatcherType() == DispatcherType.ASYNC) {
+      return true;
+    }
+
+    var policy = resolvePolicy(handler);
+    if (policy.isEmpty()) {
+      return true;
+    }
 
+    var authentication = SecurityContextHolder.getContext().getAuthentication();
     if (authentication == null) {
       response.sendError(HttpStatus.UNAUTHORIZED.value());
       return false;
@@ -62,8 +84,7 @@ public class RateLimitingInterceptor implements HandlerInterceptor {
     }
 
     // Handle Summary Result
-    if ((request.getRequestURI()
-        .endsWith(WebSecurityConfig.PATH_SUMMARY_RESULT))) {
+    if (policy.get() == RateLimitPolicy.SUMMARY_RESULT) {
       var summaryResultTokenBucket = rateLimitingService.resolveSummaryResultBucket(
           authentication.getName());
       var summaryResultProbe = summaryResultTokenBucket.tryConsumeAndReturnRemaining(
@@ -84,8 +105,7 @@ public class RateLimitingInterceptor implements HandlerInterceptor {
     }
 
     // Handle Detailed Obfuscated Result
-    if ((request.getRequestURI()
-        .endsWith(WebSecurityConfig.PATH_DETAILED_OBFUSCATED_RESULT))) {
+    if (policy.get() == RateLimitPolicy.DETAILED_OBFUSCATED_RESULT) {
       var detailedPollingResultTokenBucket = rateLimitingService.resolveDetailedObfuscatedResultBucket(
           authentication.getName());
       var detailedPollingResultProbe = detailedPollingResultTokenBucket.tryConsumeAndReturnRemaining(
@@ -134,8 +154,8 @@ public class RateLimitingInterceptor implements HandlerInterceptor {
       Object handler, Exception ex) throws Exception {
     HandlerInterceptor.super.afterCompletion(request, response, handler, ex);
 
-    if (request.getRequestURI()
-        .endsWith(WebSecurityConfig.PATH_DETAILED_OBFUSCATED_RESULT) && response.containsHeader(
+    if (resolvePolicy(handler).filter(RateLimitPolicy.DETAILED_OBFUSCATED_RESULT::equals).isPresent()
+        && response.containsHeader(
         FeasibilityQueryHandlerRestController.HEADER_X_DETAILED_OBFUSCATED_RESULT_WAS_EMPTY)) {
       var authentication = SecurityContextHolder.getContext()
           .getAuthentication();
@@ -147,4 +167,13 @@ public class RateLimitingInterceptor implements HandlerInterceptor {
           null);
     }
   }
+
+  private Optional<RateLimitPolicy> resolvePolicy(Object handler) {
+    if (!(handler instanceof HandlerMethod handlerMethod)) {
+      return Optional.empty();
+    }
+    return policies.computeIfAbsent(handlerMethod.getMethod(), method ->
+        Optional.ofNullable(AnnotatedElementUtils.findMergedAnnotation(method, RateLimited.class))
+            .map(RateLimited::value));
+  }
 }
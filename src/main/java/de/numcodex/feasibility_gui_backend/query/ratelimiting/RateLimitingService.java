@@ -1,28 +1,61 @@
 package de.numcodex.feasibility_gui_backend.query.ratelimiting;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.BucketListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.Getter;
+import lombok.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.threeten.extra.PeriodDuration;
 
+import java.time.Duration;
+import java.util.EnumMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 /**
  * Implement a rate-limiting service via a {@link Bucket} on a per-user basis.
  * <p>
  * The limit is defined via application.yaml or env variable.
+ * <p>
+ * Buckets are kept in a single cache keyed by user and kind of bucket. A bucket that has not been used for as long as
+ * it takes any bucket to refill completely is evicted. Recreating it later is indistinguishable from keeping it, since
+ * it would have been full by then anyway. Optionally, the state of the buckets is kept in a
+ * PostgreSQL database shared by multiple backend instances, so that limits hold across all of them.
  */
 public class RateLimitingService {
 
-  private final Map<String, Bucket> summaryResultRetrievalCache = new ConcurrentHashMap<>();
-  private final Map<String, Bucket> detailedResultRetrievalCache = new ConcurrentHashMap<>();
-  private final Map<String, Bucket> detailedViewObfuscatedResultRetrievalCache = new ConcurrentHashMap<>();
+  private final Cache<BucketKey, Bucket> buckets;
+  private final PostgresBucketProxyManager sharedBuckets;
+  private final Map<BucketKind, Bandwidth> bandwidths = new EnumMap<>(BucketKind.class);
+  private final Map<BucketKind, BucketListener> rejectionListeners = new EnumMap<>(BucketKind.class);
 
-  private final PeriodDuration intervalPollingSummary;
-  private final PeriodDuration intervalPollingDetailed;
-  private final PeriodDuration intervalDetailedObfuscated;
   @Getter
   private final int amountDetailedObfuscated;
+  @Getter
+  private final Duration idleTimeout;
+
+  /**
+   * Creates a new RateLimitingService keeping all buckets within the memory of this process.
+   *
+   * @param intervalPollingSummary the duration after which the user can poll summary results again
+   * @param intervalPollingDetailed the duration after which the user can poll detailed results again
+   * @param amountDetailedObfuscated the amount of times a user can request detailed obfuscated results
+   * @param intervalDetailedObfuscated the timespan after which a users access is "forgotten"
+   */
+  public RateLimitingService(PeriodDuration intervalPollingSummary, PeriodDuration intervalPollingDetailed,
+      int amountDetailedObfuscated, PeriodDuration intervalDetailedObfuscated) {
+    this(intervalPollingSummary, intervalPollingDetailed, amountDetailedObfuscated, intervalDetailedObfuscated, null,
+        new SimpleMeterRegistry());
+  }
 
   /**
    * Creates a new RateLimitingService.
@@ -34,47 +67,132 @@ public class RateLimitingService {
    * @param intervalPollingDetailed the duration after which the user can poll detailed results again
    * @param amountDetailedObfuscated the amount of times a user can request detailed obfuscated results
    * @param intervalDetailedObfuscated the timespan after which a users access is "forgotten"
+   * @param sharedBuckets manager for bucket state shared between backend instances. May be {@code null} in which case
+   *                      buckets are only kept in memory.
+   * @param meterRegistry registry for exposing the number of buckets and rejected requests
    */
-  public RateLimitingService(PeriodDuration intervalPollingSummary, PeriodDuration intervalPollingDetailed, int amountDetailedObfuscated, PeriodDuration intervalDetailedObfuscated) {
-    this.intervalPollingSummary = intervalPollingSummary;
-    this.intervalPollingDetailed = intervalPollingDetailed;
+  public RateLimitingService(PeriodDuration intervalPollingSummary, PeriodDuration intervalPollingDetailed,
+      int amountDetailedObfuscated, PeriodDuration intervalDetailedObfuscated, PostgresBucketProxyManager sharedBuckets,
+      @NonNull MeterRegistry meterRegistry) {
     this.amountDetailedObfuscated = amountDetailedObfuscated;
-    this.intervalDetailedObfuscated = intervalDetailedObfuscated;
+    this.sharedBuckets = sharedBuckets;
+
+    bandwidths.put(BucketKind.SUMMARY_RESULT, Bandwidth.builder()
+        .capacity(1)
+        .refillIntervally(1, intervalPollingSummary.getDuration())
+        .build());
+    bandwidths.put(BucketKind.DETAILED_OBFUSCATED_RESULT, Bandwidth.builder()
+        .capacity(1)
+        .refillIntervally(1, intervalPollingDetailed.getDuration())
+        .build());
+    bandwidths.put(BucketKind.VIEW_DETAILED_OBFUSCATED_RESULT, Bandwidth.builder()
+        .capacity(amountDetailedObfuscated)
+        .refillIntervally(1, intervalDetailedObfuscated.getDuration())
+        .build());
+
+    this.idleTimeout = Stream.of(
+            intervalPollingSummary.getDuration(),
+            intervalPollingDetailed.getDuration(),
+            intervalDetailedObfuscated.getDuration().multipliedBy(amountDetailedObfuscated))
+        .max(Duration::compareTo)
+        .orElseThrow();
+    this.buckets = Caffeine.newBuilder()
+        .expireAfterAccess(idleTimeout)
+        .build();
+
+    Gauge.builder("ratelimiting.buckets", buckets, Cache::estimatedSize)
+        .description("Number of rate limiting buckets of users kept by this instance")
+        .register(meterRegistry);
+    for (var kind : BucketKind.values()) {
+      var rejections = Counter.builder("ratelimiting.rejections")
+          .description("Number of requests rejected due to rate limiting")
+          .tag("bucket", kind.tag)
+          .register(meterRegistry);
+      rejectionListeners.put(kind, new RejectionCountingListener(rejections));
+    }
   }
 
   public Bucket resolveSummaryResultBucket(String userId) {
-    return summaryResultRetrievalCache.computeIfAbsent(userId, this::newSummaryResultBucket);
+    return resolveBucket(userId, BucketKind.SUMMARY_RESULT);
   }
 
   public Bucket resolveDetailedObfuscatedResultBucket(String userId) {
-    return detailedResultRetrievalCache.computeIfAbsent(userId, this::newDetailedResultBucket);
+    return resolveBucket(userId, BucketKind.DETAILED_OBFUSCATED_RESULT);
   }
 
   public Bucket resolveViewDetailedObfuscatedBucket(String userId) {
-    return detailedViewObfuscatedResultRetrievalCache.computeIfAbsent(userId, this::newViewDetailedObfuscatedResultBucket);
+    return resolveBucket(userId, BucketKind.VIEW_DETAILED_OBFUSCATED_RESULT);
   }
 
   public void addTokensToDetailedObfuscatedResultBucket(String userId, int amount) {
     resolveViewDetailedObfuscatedBucket(userId).addTokens(amount);
   }
 
-  private Bucket newSummaryResultBucket(String userId) {
-    return Bucket.builder()
-        .addLimit(limit -> limit.capacity(1).refillIntervally(1, intervalPollingSummary.getDuration()))
-        .build();
+  /**
+   * Deletes shared buckets that have not been used by any backend instance within the idle timeout.
+   */
+  @Scheduled(fixedDelay = 1, initialDelay = 1, timeUnit = TimeUnit.HOURS)
+  public void evictIdleSharedBuckets() {
+    if (sharedBuckets != null) {
+      sharedBuckets.evictIdle(idleTimeout);
+    }
   }
 
-  private Bucket newDetailedResultBucket(String userId) {
-    return Bucket.builder()
-        .addLimit(limit -> limit.capacity(1).refillIntervally(1, intervalPollingDetailed.getDuration()))
-        .build();
+  private Bucket resolveBucket(String userId, BucketKind kind) {
+    return buckets.get(new BucketKey(userId, kind), this::newBucket);
   }
 
-  private Bucket newViewDetailedObfuscatedResultBucket(String userId) {
-    return Bucket.builder()
-        .addLimit(limit -> limit.capacity(amountDetailedObfuscated).refillIntervally(1, intervalDetailedObfuscated.getDuration()))
-        .build();
+  private Bucket newBucket(BucketKey key) {
+    var bandwidth = bandwidths.get(key.kind());
+    var bucket = sharedBuckets == null
+        ? Bucket.builder().addLimit(bandwidth).build()
+        : sharedBuckets.builder().build(key.kind().tag + ":" + key.userId(),
+            () -> BucketConfiguration.builder().addLimit(bandwidth).build());
+    return bucket.toListenable(rejectionListeners.get(key.kind()));
+  }
+
+  private enum BucketKind {
+    SUMMARY_RESULT("summary-result"),
+    DETAILED_OBFUSCATED_RESULT("detailed-obfuscated-result"),
+    VIEW_DETAILED_OBFUSCATED_RESULT("view-detailed-obfuscated-result");
+
+    private final String tag;
+
+    BucketKind(String tag) {
+      this.tag = tag;
+    }
+  }
+
+  private record BucketKey(String userId, BucketKind kind) {
   }
 
+  private static class RejectionCountingListener implements BucketListener {
+
+    private final Counter rejections;
+
+    private RejectionCountingListener(Counter rejections) {
+      this.rejections = rejections;
+    }
+
+    @Override
+    public void onConsumed(long tokens) {
+    }
 
+    @Override
+    public void onRejected(long tokens) {
+      rejections.increment();
+    }
+
+    @Override
+    public void onParked(long nanos) {
+    }
+
+    @Override
+    public void onInterrupted(InterruptedException e) {
+    }
+
+    @Override
+    public void onDelayed(long nanos) {
+    }
+  }
 }
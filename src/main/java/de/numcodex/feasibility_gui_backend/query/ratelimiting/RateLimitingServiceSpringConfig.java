@@ -1,28 +1,48 @@
 package de.numcodex.feasibility_gui_backend.query.ratelimiting;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.threeten.extra.PeriodDuration;
 
+import javax.sql.DataSource;
+
 @Configuration
 @Slf4j
 public class RateLimitingServiceSpringConfig {
 
+  @Value("${app.rateLimitingStore.type:memory}")
+  private String rateLimitingStoreType;
+
   @Bean
   public RateLimitingService createRateLimitingService(
       @Value("${app.privacy.quota.read.resultSummary.pollingInterval}") String pollingIntervalSummary,
       @Value("${app.privacy.quota.read.resultDetailedObfuscated.pollingInterval}") String pollingIntervalDetailed,
       @Value("${app.privacy.quota.read.resultDetailedObfuscated.amount}") int detailedObfuscatedAmount,
-      @Value("${app.privacy.quota.read.resultDetailedObfuscated.interval}") String detailedObfuscatedInterval) {
+      @Value("${app.privacy.quota.read.resultDetailedObfuscated.interval}") String detailedObfuscatedInterval,
+      ObjectProvider<DataSource> dataSource,
+      ObjectProvider<MeterRegistry> meterRegistry) {
 
     log.info(
         "Create RateLimitingService with interval of {} for summary result endpoint, {} for detailed"
             + " obfuscated results and {} allowed requests to detailed obfuscated result per {}",
         pollingIntervalSummary, pollingIntervalDetailed, detailedObfuscatedAmount, detailedObfuscatedInterval);
+    var sharedBuckets = switch (rateLimitingStoreType) {
+      case "memory" -> null;
+      case "postgres" -> {
+        log.info("Rate limiting buckets are kept in the database and shared between backend instances");
+        yield new PostgresBucketProxyManager(dataSource.getObject());
+      }
+      default -> throw new IllegalArgumentException(
+          "unknown rate limiting store type '%s'".formatted(rateLimitingStoreType));
+    };
     return new RateLimitingService(PeriodDuration.parse(pollingIntervalSummary),
         PeriodDuration.parse(pollingIntervalDetailed),
-        detailedObfuscatedAmount, PeriodDuration.parse(detailedObfuscatedInterval));
+        detailedObfuscatedAmount, PeriodDuration.parse(detailedObfuscatedInterval), sharedBuckets,
+        meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
   }
 }
@@ -0,0 +1,58 @@
+package de.numcodex.feasibility_gui_backend.query.result;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * {@link ResultStore} keeping results within the memory of a single process.
+ * <p>
+ * Results are only visible to the backend instance that received them.
+ */
+public class InMemoryResultStore implements ResultStore {
+
+  private final Cache<Long, QueryResultSnapshot> queryResultCache;
+
+  private volatile LongConsumer expiryListener = queryId -> {};
+
+  /**
+   * Creates a new InMemoryResultStore.
+   *
+   * @param resultExpiry the duration after which a result shouldn't be available anymore
+   */
+  public InMemoryResultStore(Duration resultExpiry) {
+    this.queryResultCache = Caffeine.newBuilder()
+        .expireAfterWrite(resultExpiry)
+        .removalListener((Long key, QueryResultSnapshot value, RemovalCause cause) -> {
+          if (cause == RemovalCause.EXPIRED) {
+            expiryListener.accept(key);
+          }
+        })
+        .build();
+  }
+
+  @Override
+  public void addResultLine(long queryId, ResultLine resultLine) {
+    queryResultCache.asMap()
+        .merge(queryId, QueryResultSnapshot.EMPTY.merge(resultLine), (snapshot, ignored) -> snapshot.merge(resultLine));
+  }
+
+  @Override
+  public List<ResultLine> findByQuery(long queryId) {
+    return findSnapshotByQuery(queryId).resultLines();
+  }
+
+  @Override
+  public QueryResultSnapshot findSnapshotByQuery(long queryId) {
+    return queryResultCache.asMap().getOrDefault(queryId, QueryResultSnapshot.EMPTY);
+  }
+
+  @Override
+  public void setExpiryListener(LongConsumer expiryListener) {
+    this.expiryListener = expiryListener;
+  }
+}
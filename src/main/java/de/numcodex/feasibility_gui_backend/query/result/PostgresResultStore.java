@@ -0,0 +1,83 @@
+package de.numcodex.feasibility_gui_backend.query.result;
+
+import de.numcodex.feasibility_gui_backend.query.persistence.StoredResultLineRepository;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * {@link ResultStore} keeping results within the (shared) PostgreSQL database.
+ * <p>
+ * All backend instances connected to the same database see the same results, regardless of which one received them
+ * from a broker. Results are stored in an unlogged table, since losing them on a database crash is acceptable.
+ * Expired results are invisible right away and get purged periodically. Each expired query is reported to the expiry
+ * listener of exactly one backend instance.
+ */
+@Slf4j
+public class PostgresResultStore implements ResultStore {
+
+  private final StoredResultLineRepository storedResultLineRepository;
+
+  private final Duration resultExpiry;
+
+  private volatile LongConsumer expiryListener = queryId -> {};
+
+  /**
+   * Creates a new PostgresResultStore.
+   *
+   * @param storedResultLineRepository the repository holding the result lines
+   * @param resultExpiry              the duration after which a result shouldn't be available anymore
+   */
+  public PostgresResultStore(@NonNull StoredResultLineRepository storedResultLineRepository,
+                             @NonNull Duration resultExpiry) {
+    this.storedResultLineRepository = storedResultLineRepository;
+    this.resultExpiry = resultExpiry;
+  }
+
+  @Override
+  public void addResultLine(long queryId, ResultLine resultLine) {
+    var now = Instant.now();
+    storedResultLineRepository.insertIfAbsent(queryId, resultLine.siteName(), resultLine.type().name(),
+        resultLine.result(), Timestamp.from(now), Timestamp.from(now.plus(resultExpiry)));
+  }
+
+  @Override
+  public List<ResultLine> findByQuery(long queryId) {
+    return storedResultLineRepository.findUnexpiredByQueryId(queryId, Timestamp.from(Instant.now())).stream()
+        .map(l -> ResultLine.builder()
+            .siteName(l.getId().getSiteName())
+            .type(l.getResultType())
+            .result(l.getResult())
+            .build())
+        .toList();
+  }
+
+  @Override
+  public boolean isShared() {
+    return true;
+  }
+
+  @Override
+  public void setExpiryListener(LongConsumer expiryListener) {
+    this.expiryListener = expiryListener;
+  }
+
+  /**
+   * Deletes expired result lines and notifies the expiry listener about each affected query.
+   */
+  @Scheduled(fixedDelayString = "${app.resultStore.purgeInterval:PT30S}",
+      initialDelayString = "${app.resultStore.purgeInterval:PT30S}")
+  public void purgeExpired() {
+    var expiredQueryIds = storedResultLineRepository.deleteExpired(Timestamp.from(Instant.now()));
+    expiredQueryIds.stream().distinct().forEach(queryId -> {
+      log.debug("Purged expired results of query {}", queryId);
+      expiryListener.accept(queryId);
+    });
+  }
+}
@@ -0,0 +1,154 @@
+package de.numcodex.feasibility_gui_backend.query.result;
+
+import de.numcodex.feasibility_gui_backend.query.persistence.ResultType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, pre-aggregated view of all {@link ResultLine result lines} of a query.
+ * <p>
+ * Aggregates are computed once whenever a result line gets {@link #merge(ResultLine) merged}. Reading them neither
+ * iterates the result lines nor allocates anything. Only the first result line per site is kept.
+ * <p>
+ * The number of sites above a threshold is counted once for the threshold it is asked for. From then on, merging keeps
+ * the count of that threshold up to date, so that reading it for the same (configured) threshold stays constant.
+ */
+public final class QueryResultSnapshot {
+
+  public static final QueryResultSnapshot EMPTY = new QueryResultSnapshot(Map.of(), List.of(), List.of(), 0, null);
+
+  private final Map<String, ResultLine> resultsBySite;
+  private final List<ResultLine> resultLines;
+  private final List<ResultLine> successfulResultLines;
+  private final long totalNumberOfPatients;
+
+  // Number of sites above the threshold that got asked for last. Snapshots are shared between threads, but counting
+  // twice for the same threshold does no harm.
+  private volatile SitesAboveThreshold sitesAboveThreshold;
+
+  private QueryResultSnapshot(Map<String, ResultLine> resultsBySite, List<ResultLine> resultLines,
+                              List<ResultLine> successfulResultLines, long totalNumberOfPatients,
+                              SitesAboveThreshold sitesAboveThreshold) {
+    this.resultsBySite = resultsBySite;
+    this.resultLines = resultLines;
+    this.successfulResultLines = successfulResultLines;
+    this.totalNumberOfPatients = totalNumberOfPatients;
+    this.sitesAboveThreshold = sitesAboveThreshold;
+  }
+
+  /**
+   * Creates a snapshot of the given result lines.
+   *
+   * @param resultLines the result lines, only the first one per site is considered
+   * @return a snapshot holding the given result lines
+   */
+  public static QueryResultSnapshot of(Collection<ResultLine> resultLines) {
+    var snapshot = EMPTY;
+    for (ResultLine resultLine : resultLines) {
+      snapshot = snapshot.merge(resultLine);
+    }
+    return snapshot;
+  }
+
+  /**
+   * Merges a result line into this snapshot, returning a new snapshot.
+   * <p>
+   * If this snapshot already holds a result line of the same site, the given result line is discarded and this
+   * snapshot is returned as is.
+   *
+   * @param resultLine the result line to merge
+   * @return a snapshot holding the result lines of this snapshot and the given result line
+   */
+  public QueryResultSnapshot merge(ResultLine resultLine) {
+    if (resultsBySite.containsKey(resultLine.siteName())) {
+      return this;
+    }
+
+    var mergedResultsBySite = new HashMap<>(resultsBySite);
+    mergedResultsBySite.put(resultLine.siteName(), resultLine);
+    var mergedResultLines = append(resultLines, resultLine);
+    var currentSitesAboveThreshold = sitesAboveThreshold;
+
+    if (resultLine.type() != ResultType.SUCCESS) {
+      return new QueryResultSnapshot(Map.copyOf(mergedResultsBySite), mergedResultLines, successfulResultLines,
+          totalNumberOfPatients, currentSitesAboveThreshold);
+    }
+
+    return new QueryResultSnapshot(Map.copyOf(mergedResultsBySite), mergedResultLines,
+        append(successfulResultLines, resultLine), totalNumberOfPatients + resultLine.result(),
+        currentSitesAboveThreshold == null ? null : currentSitesAboveThreshold.merge(resultLine.result()));
+  }
+
+  /**
+   * All result lines regardless of their type, in the order they were merged.
+   */
+  public List<ResultLine> resultLines() {
+    return resultLines;
+  }
+
+  /**
+   * All result lines of type {@link ResultType#SUCCESS success}, in the order they were merged.
+   */
+  public List<ResultLine> successfulResultLines() {
+    return successfulResultLines;
+  }
+
+  /**
+   * The number of sites that reported a successful result.
+   */
+  public int successCount() {
+    return successfulResultLines.size();
+  }
+
+  /**
+   * The sum of the number of patients over all successful results.
+   */
+  public long totalNumberOfPatients() {
+    return totalNumberOfPatients;
+  }
+
+  /**
+   * Counts the sites whose successful result is greater than the given threshold. The sites are only counted on the
+   * first call for a threshold.
+   *
+   * @param threshold the exclusive lower bound of the results to count
+   * @return the number of sites with a successful result above {@code threshold}
+   */
+  public int countSitesAboveThreshold(long threshold) {
+    var current = sitesAboveThreshold;
+    if (current != null && current.threshold() == threshold) {
+      return current.count();
+    }
+    var count = (int) successfulResultLines.stream().filter(resultLine -> resultLine.result() > threshold).count();
+    sitesAboveThreshold = new SitesAboveThreshold(threshold, count);
+    return count;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof QueryResultSnapshot other && resultsBySite.equals(other.resultsBySite);
+  }
+
+  @Override
+  public int hashCode() {
+    return resultsBySite.hashCode();
+  }
+
+  private record SitesAboveThreshold(long threshold, int count) {
+
+    SitesAboveThreshold merge(long result) {
+      return result > threshold ? new SitesAboveThreshold(threshold, count + 1) : this;
+    }
+  }
+
+  private static List<ResultLine> append(List<ResultLine> resultLines, ResultLine resultLine) {
+    var appended = new ArrayList<ResultLine>(resultLines.size() + 1);
+    appended.addAll(resultLines);
+    appended.add(resultLine);
+    return List.copyOf(appended);
+  }
+}
@@ -1,87 +1,71 @@
 package de.numcodex.feasibility_gui_backend.query.result;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.RemovalCause;
-import de.numcodex.feasibility_gui_backend.query.persistence.BrokerClientType;
-import de.numcodex.feasibility_gui_backend.query.persistence.QueryDispatchRepository;
+import de.numcodex.feasibility_gui_backend.query.collect.BrokerQueryLifecycleManager;
 import de.numcodex.feasibility_gui_backend.query.persistence.ResultType;
-import java.util.HashMap;
+import java.time.Duration;
 import java.util.List;
-import java.util.Map;
 
-import lombok.Builder;
 import lombok.NonNull;
-import lombok.extern.slf4j.Slf4j;
-import org.aktin.broker.client2.BrokerAdmin2;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.threeten.extra.PeriodDuration;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.publisher.Sinks.EmitFailureHandler;
 
 /**
  * Stores results of queries volatile.
  * <p>
  * Query results are stored in form of {@link ResultLine result lines}, one for
- * each site per query. All results of a query are cleared after a configurable
- * duration. Only the first result per query will be kept.
+ * each site per query, within a {@link ResultStore}. All results of a query are
+ * cleared after a configurable duration. Only the first result per query will be
+ * kept. Every added result is announced to {@link #resultUpdates(long) subscribers}
+ * of the respective query.
  */
-@Slf4j
 public class ResultService {
 
   private static final Logger resultLogger = LoggerFactory.getLogger("resultLogger");
 
-  private final Cache<Long, QueryResult> queryResultCache;
-  private final BrokerAdmin2 aktinBrokerClient;
-
-  @NonNull
-  private final QueryDispatchRepository queryDispatchRepository;
+  private final ResultStore resultStore;
+  private final BrokerQueryLifecycleManager brokerQueryLifecycleManager;
+  private final Sinks.Many<Long> resultUpdates = Sinks.many().multicast().directBestEffort();
 
   /**
-   * Creates a new ResultService.
+   * Creates a new ResultService keeping results in memory.
    *
    * @param resultExpiry the duration after which a result shouldn't be
    *                     available anymore
+   * @param brokerQueryLifecycleManager closes the broker specific queries of
+   *                                    queries whose results expired
    */
-  public ResultService(PeriodDuration resultExpiry, BrokerAdmin2 aktinBrokerClient,
-                       QueryDispatchRepository queryDispatchRepository) {
-    this.queryDispatchRepository = queryDispatchRepository;
-    this.aktinBrokerClient = aktinBrokerClient;
-    this.queryResultCache = Caffeine.newBuilder()
-        .expireAfterWrite(resultExpiry.getDuration())
-        .removalListener((key, value, cause) -> onRemoval(key, cause))
-        .build();
+  public ResultService(PeriodDuration resultExpiry, BrokerQueryLifecycleManager brokerQueryLifecycleManager) {
+    this(new InMemoryResultStore(resultExpiry.getDuration()), brokerQueryLifecycleManager);
   }
 
   /**
-   * Deletes Query from AKTIN broker if the query has been dispatched to AKTIN
-   * Broker.
+   * Creates a new ResultService.
    *
-   * @param key the query id as saved in the cache
+   * @param resultStore the store holding the results
+   * @param brokerQueryLifecycleManager closes the broker specific queries of
+   *                                    queries whose results expired
    */
-  private void onRemoval(Object key, Object cause) {
-
-    if (this.aktinBrokerClient == null || ! cause.equals(RemovalCause.EXPIRED)) {
-      return;
-    }
-
-    Long queryId = (Long) key;
-    var queryDispatch = queryDispatchRepository.findByQueryIdAndBrokerType(
-        Long.toString(queryId), BrokerClientType.AKTIN);
-
-    queryDispatch.ifPresent((queryDispatchResult) -> {
-      String externalQueryId = queryDispatchResult.getId().getExternalId();
-      log.debug(
-          "Deleting query with internal ID {} and AKTIN ID {} from AKTIN broker",
-          queryId, externalQueryId);
-      try {
-        aktinBrokerClient.deleteRequest(Integer.parseInt(externalQueryId));
-      } catch (Exception e) {
-        log.error(
-            "Could not delete query internal ID {} and AKTIN ID {} from AKTIN broker",
-            queryId, externalQueryId);
-      }
-    });
+  public ResultService(ResultStore resultStore, @NonNull BrokerQueryLifecycleManager brokerQueryLifecycleManager) {
+    this.brokerQueryLifecycleManager = brokerQueryLifecycleManager;
+    this.resultStore = resultStore;
+    this.resultStore.setExpiryListener(this::onExpiry);
+  }
 
+  /**
+   * Closes the broker specific queries of a query, since its results are not
+   * available anymore.
+   * <p>
+   * Runs within the expiry handling of the {@link ResultStore}. Closing
+   * happens asynchronously, so that expiring results never waits for brokers.
+   *
+   * @param queryId the query id whose results expired
+   */
+  private void onExpiry(long queryId) {
+    brokerQueryLifecycleManager.onResultsExpired(queryId);
   }
 
   /**
@@ -97,10 +81,22 @@ public class ResultService {
    * ResultType#SUCCESS success}
    */
   public List<ResultLine> findSuccessfulByQuery(long queryId) {
-    return queryResultCache.asMap().getOrDefault(queryId, QueryResult.EMPTY)
-        .resultsBySite()
-        .values().stream()
-        .filter(resultLine -> resultLine.type() == ResultType.SUCCESS).toList();
+    return findSnapshotByQuery(queryId).successfulResultLines();
+  }
+
+  /**
+   * Finds all {@link ResultLine results} for a query in form of a
+   * pre-aggregated {@link QueryResultSnapshot}.
+   * <p>
+   * In case the query is not found, or the query has no results, an empty
+   * snapshot is returned.
+   *
+   * @param queryId the query id
+   * @return the snapshot of all {@link ResultLine results} for the given
+   * {@code queryId}
+   */
+  public QueryResultSnapshot findSnapshotByQuery(long queryId) {
+    return resultStore.findSnapshotByQuery(queryId);
   }
 
   /**
@@ -113,51 +109,35 @@ public class ResultService {
    * @param result  the {@link ResultLine result} from a site
    */
   public void addResultLine(Long queryId, ResultLine result) {
-    queryResultCache.asMap()
-        .merge(queryId, QueryResult.ofResultLine(result), QueryResult::merge);
+    resultStore.addResultLine(queryId, result);
     resultLogger.info("{};{};{}", queryId, result.siteName(), result.result());
+    // Results of different sites may arrive concurrently. Retry emissions that collide with each other.
+    resultUpdates.emitNext(queryId, EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
   }
 
   /**
-   * Holds all submitted {@link ResultLine results} from sites to a query.
+   * Tells whether results may be added by other backend instances sharing the
+   * same {@link ResultStore}. Those results are not announced via
+   * {@link #resultUpdates(long)}.
+   *
+   * @return {@code true} if the result store is shared
    */
-  @Builder
-  private record QueryResult(Map<String, ResultLine> resultsBySite) {
-
-    private static final QueryResult EMPTY = QueryResult.builder()
-            .resultsBySite(Map.of())
-            .build();
-
-    private QueryResult {
-      resultsBySite = Map.copyOf(resultsBySite);
-    }
-
-    private static QueryResult ofResultLine(ResultLine resultLine) {
-      return QueryResult.builder()
-              .resultsBySite(Map.of(resultLine.siteName(), resultLine))
-              .build();
-    }
+  public boolean isShared() {
+    return resultStore.isShared();
+  }
 
-    /**
-     * Merges the result lines of {@code this} and the {@code other} query
-     * result, returning a new query result.
-     * <p>
-     * Prioritises result lines of {@code this} query result over the ones of
-     * the {@code other} query result in a way that result lines of a site
-     * already present in {@code this} query result will not be overwritten with
-     * ones from the {@code other} query result.
-     *
-     * @param other the query result to merge into this query result
-     * @return a new query result containing the result lines from this query
-     * result and result lines from new sites of the other query result
-     */
-    private QueryResult merge(QueryResult other) {
-      Map<String, ResultLine> mergedResultsBySite = new HashMap<>(
-          resultsBySite);
-      other.resultsBySite.forEach(mergedResultsBySite::putIfAbsent);
-      return QueryResult.builder()
-              .resultsBySite(mergedResultsBySite)
-              .build();
-    }
+  /**
+   * Announces updates of the results of a query.
+   * <p>
+   * The returned {@link Flux} emits the {@code queryId} each time a result
+   * line has been added to this service for the query. Results added by other
+   * backend instances sharing the same {@link ResultStore} are not announced.
+   * The {@link Flux} never completes on its own.
+   *
+   * @param queryId the query id
+   * @return a {@link Flux} emitting the {@code queryId} on each added result
+   */
+  public Flux<Long> resultUpdates(long queryId) {
+    return resultUpdates.asFlux().filter(id -> id == queryId);
   }
 }
@@ -1,12 +1,8 @@
 package de.numcodex.feasibility_gui_backend.query.result;
 
-import de.numcodex.feasibility_gui_backend.query.persistence.QueryDispatchRepository;
-import java.net.URI;
-import java.net.http.WebSocket.Builder;
-import lombok.AllArgsConstructor;
+import de.numcodex.feasibility_gui_backend.query.collect.BrokerQueryLifecycleManager;
+import de.numcodex.feasibility_gui_backend.query.persistence.StoredResultLineRepository;
 import lombok.extern.slf4j.Slf4j;
-import org.aktin.broker.client2.AuthFilter;
-import org.aktin.broker.client2.BrokerAdmin2;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -16,43 +12,28 @@ import org.threeten.extra.PeriodDuration;
 @Slf4j
 public class ResultServiceSpringConfig {
 
-  @Value("${app.broker.aktin.enabled:false}")
-  private boolean aktinEnabled;
+  @Value("${app.resultStore.type:memory}")
+  private String resultStoreType;
 
-  @Value("${app.broker.aktin.broker.baseUrl:}")
-  private String brokerBaseUrl;
-
-  @Value("${app.broker.aktin.broker.apiKey:}")
-  private String brokerApiKey;
+  @Bean
+  public ResultStore createResultStore(@Value("${app.queryResultExpiry}") String resultExpiry,
+                                       StoredResultLineRepository storedResultLineRepository) {
+    var expiry = PeriodDuration.parse(resultExpiry).getDuration();
+    return switch (resultStoreType) {
+      case "memory" -> new InMemoryResultStore(expiry);
+      case "postgres" -> {
+        log.info("Results are stored in the database and shared between backend instances");
+        yield new PostgresResultStore(storedResultLineRepository, expiry);
+      }
+      default -> throw new IllegalArgumentException("unknown result store type '%s'".formatted(resultStoreType));
+    };
+  }
 
   @Bean
   public ResultService createResultService(
-      @Value("${app.queryResultExpiry}") String resultExpiry, QueryDispatchRepository queryDispatchRepository) {
-
-    BrokerAdmin2 client = null;
-
-    if (aktinEnabled){
-      client = new BrokerAdmin2(URI.create(brokerBaseUrl));
-      client.setAuthFilter(new ApiKeyAuthFilter(brokerApiKey));
-    }
-
+      @Value("${app.queryResultExpiry}") String resultExpiry, ResultStore resultStore,
+      BrokerQueryLifecycleManager brokerQueryLifecycleManager) {
     log.info("Create ResultService with result TTL of {}", resultExpiry);
-    return new ResultService(PeriodDuration.parse(resultExpiry), client, queryDispatchRepository);
-  }
-
-  @AllArgsConstructor
-  private static class ApiKeyAuthFilter implements AuthFilter {
-
-    final private String key;
-
-    @Override
-    public void addAuthentication(Builder builder) {
-      builder.header("Authorization", "Bearer " + key);
-    }
-
-    @Override
-    public void addAuthentication(java.net.http.HttpRequest.Builder builder) {
-      builder.header("Authorization", "Bearer " + key);
-    }
+    return new ResultService(resultStore, brokerQueryLifecycleManager);
   }
 }
@@ -0,0 +1,57 @@
+package de.numcodex.feasibility_gui_backend.query.result;
+
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Storage for {@link ResultLine result lines} of queries.
+ * <p>
+ * Implementations keep at most one result line per site and query. The first result line of a site wins. All result
+ * lines of a query expire a configurable duration after the last result line of that query has been added.
+ */
+public interface ResultStore {
+
+  /**
+   * Adds {@code resultLine} to the results of the query with {@code queryId}, unless there already is a result line
+   * of the same site.
+   *
+   * @param queryId    the query id
+   * @param resultLine the {@link ResultLine result} from a site
+   */
+  void addResultLine(long queryId, ResultLine resultLine);
+
+  /**
+   * Finds all {@link ResultLine result lines} of a query, regardless of their type.
+   *
+   * @param queryId the query id
+   * @return the result lines of the query or an empty list if there are none or they expired
+   */
+  List<ResultLine> findByQuery(long queryId);
+
+  /**
+   * Finds all {@link ResultLine result lines} of a query in form of a pre-aggregated {@link QueryResultSnapshot}.
+   *
+   * @param queryId the query id
+   * @return a snapshot of the result lines of the query, which is empty if there are none or they expired
+   */
+  default QueryResultSnapshot findSnapshotByQuery(long queryId) {
+    return QueryResultSnapshot.of(findByQuery(queryId));
+  }
+
+  /**
+   * Tells whether other backend instances may add result lines to this store as well. Result lines added by other
+   * instances are not announced to this instance.
+   *
+   * @return {@code true} if the store is shared with other backend instances
+   */
+  default boolean isShared() {
+    return false;
+  }
+
+  /**
+   * Registers a listener that gets called with the id of each query whose results expired.
+   *
+   * @param expiryListener the listener
+   */
+  void setExpiryListener(LongConsumer expiryListener);
+}
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import de.numcodex.feasibility_gui_backend.query.api.StructuredQuery;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
 
 /**
  * A query translator for translating a {@link StructuredQuery} into its JSON representation.
@@ -24,4 +25,10 @@ class JsonQueryTranslator implements QueryTranslator {
             throw new QueryTranslationException("cannot encode structured query as JSON", e);
         }
     }
+
+    @Override
+    public Mono<String> translateAsync(StructuredQuery query) {
+        // Serializing is cheap enough to not require a separate scheduler.
+        return Mono.fromCallable(() -> translate(query));
+    }
 }
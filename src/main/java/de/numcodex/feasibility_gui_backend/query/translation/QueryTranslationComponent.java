@@ -3,23 +3,61 @@ package de.numcodex.feasibility_gui_backend.query.translation;
 import de.numcodex.feasibility_gui_backend.query.QueryMediaType;
 import de.numcodex.feasibility_gui_backend.query.api.StructuredQuery;
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Provides functions for translating {@link StructuredQuery} into different formats.
  */
 @Slf4j
-@RequiredArgsConstructor
 public class QueryTranslationComponent {
 
     @NonNull
     private final Map<QueryMediaType, QueryTranslator> translators;
 
+    @NonNull
+    private final Map<QueryMediaType, Duration> translationTimeouts;
+
+    /**
+     * Creates a new {@link QueryTranslationComponent} whose translators are not subject to any timeout.
+     *
+     * @param translators The translators mapped to the media type of the format they translate into.
+     */
+    public QueryTranslationComponent(@NonNull Map<QueryMediaType, QueryTranslator> translators) {
+        this(translators, Map.of());
+    }
+
+    /**
+     * Creates a new {@link QueryTranslationComponent}.
+     *
+     * @param translators         The translators mapped to the media type of the format they translate into.
+     * @param translationTimeouts Maximum durations of asynchronous translations mapped to the media type of the format
+     *                            they translate into. Translations without a timeout may take arbitrarily long.
+     */
+    public QueryTranslationComponent(@NonNull Map<QueryMediaType, QueryTranslator> translators,
+                                     @NonNull Map<QueryMediaType, Duration> translationTimeouts) {
+        this.translators = translators;
+        this.translationTimeouts = translationTimeouts;
+    }
+
+    /**
+     * Gets the media types of all formats that queries get translated into.
+     *
+     * @return The media types of the configured translators.
+     */
+    public Set<QueryMediaType> getTargetMediaTypes() {
+        return translators.keySet();
+    }
+
     /**
      * Translates a {@link StructuredQuery} into different formats using the configured translators.
      *
@@ -37,4 +75,36 @@ public class QueryTranslationComponent {
 
         return translationResults;
     }
+
+    /**
+     * Translates a {@link StructuredQuery} into different formats using the configured translators asynchronously.
+     * <p>
+     * All translators run in parallel, each one limited by the timeout configured for its media type.
+     *
+     * @param query The query that shall be translated.
+     * @return A {@link Mono} holding the query translated into different formats mapped to their corresponding media
+     * type. The {@link Mono} is in an error state holding a {@link QueryTranslationException} if any translation fails
+     * or times out.
+     */
+    public Mono<Map<QueryMediaType, String>> translateAsync(StructuredQuery query) {
+        return Flux.fromIterable(translators.entrySet())
+                .flatMap(translatorMapping -> translateAsync(query, translatorMapping.getKey(),
+                        translatorMapping.getValue()))
+                .collectMap(Entry::getKey, Entry::getValue, () -> new EnumMap<>(QueryMediaType.class));
+    }
+
+    private Mono<Entry<QueryMediaType, String>> translateAsync(StructuredQuery query, QueryMediaType mediaType,
+                                                               QueryTranslator translator) {
+        var translation = translator.translateAsync(query);
+        var timeout = translationTimeouts.get(mediaType);
+        if (timeout != null) {
+            translation = translation.timeout(timeout)
+                    .onErrorMap(TimeoutException.class, e -> new QueryTranslationException(
+                            "translation into format '%s' timed out after %s".formatted(mediaType, timeout), e));
+        }
+
+        return translation
+                .doOnNext(log::debug)
+                .map(translated -> Map.entry(mediaType, translated));
+    }
 }
@@ -1,6 +1,8 @@
 package de.numcodex.feasibility_gui_backend.query.translation;
 
 import de.numcodex.feasibility_gui_backend.query.api.StructuredQuery;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 /**
  * Describes an entity that is capable of translating a @{link StructuredQuery}
@@ -18,4 +20,20 @@ public interface QueryTranslator {
      */
     String translate(StructuredQuery query) throws QueryTranslationException
     ;
+
+    /**
+     * Translates a given {@link StructuredQuery} into another format asynchronously.
+     * <p>
+     * By default, {@link #translate(StructuredQuery)} is called on a scheduler that is suited for blocking work.
+     * Translators that can work in a non-blocking fashion should override this.
+     *
+     * @param query The structured query that gets translated.
+     * @return A {@link Mono} holding the string representation of the translated structured query in the targeted
+     * format. The {@link Mono} is in an error state holding a {@link QueryTranslationException} if the translation
+     * fails.
+     */
+    default Mono<String> translateAsync(StructuredQuery query) {
+        return Mono.fromCallable(() -> translate(query))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
 }
@@ -11,15 +11,17 @@ import de.numcodex.sq2cql.model.MappingTreeModuleRoot;
 import org.springframework.beans.factory.annotation.BeanFactoryAnnotationUtils;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
 
 import java.io.File;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
@@ -51,6 +53,12 @@ public class QueryTranslatorSpringConfig {
     @Value("${app.fhirTranslationEnabled:true}")
     private boolean fhirTranslationEnabled;
 
+    @Value("#{T(java.time.Duration).parse('${app.cqlTranslationTimeout:PT10S}')}")
+    private Duration cqlTranslationTimeout;
+
+    @Value("#{T(java.time.Duration).parse('${app.fhirTranslationTimeout:PT20S}')}")
+    private Duration fhirTranslationTimeout;
+
     private final ApplicationContext appContext;
 
     public QueryTranslatorSpringConfig(ApplicationContext appContext) {
@@ -65,16 +73,19 @@ public class QueryTranslatorSpringConfig {
     @Bean
     QueryTranslationComponent createQueryTranslationService(@Qualifier("json") QueryTranslator jsonQueryTranslator) {
         var queryTranslators = new HashMap<QueryMediaType, QueryTranslator>();
+        var translationTimeouts = new HashMap<QueryMediaType, Duration>();
         queryTranslators.put(STRUCTURED_QUERY, jsonQueryTranslator);
 
         if (fhirTranslationEnabled) {
             queryTranslators.put(FHIR, getQueryTranslatorByQualifier("fhir"));
+            translationTimeouts.put(FHIR, fhirTranslationTimeout);
         }
 
         if (cqlTranslationEnabled) {
             queryTranslators.put(CQL, getQueryTranslatorByQualifier("cql"));
+            translationTimeouts.put(CQL, cqlTranslationTimeout);
         }
-        return new QueryTranslationComponent(queryTranslators);
+        return new QueryTranslationComponent(queryTranslators, translationTimeouts);
     }
 
     @Lazy
@@ -137,7 +148,7 @@ public class QueryTranslatorSpringConfig {
     @Lazy
     @Bean
     QueryTranslator createFhirQueryBuilder(
-            @Qualifier("flare") RestTemplate flareWebClient,
+            @Qualifier("flare") WebClient flareWebClient,
             @Qualifier("translation") ObjectMapper jsonUtil) {
         return new FhirQueryTranslator(flareWebClient, jsonUtil);
     }
@@ -150,9 +161,11 @@ public class QueryTranslatorSpringConfig {
 
     @Qualifier("flare")
     @Bean
-    RestTemplate createFlareWebClient() {
-        return new RestTemplateBuilder()
-                .rootUri(flareBaseUrl)
+    WebClient createFlareWebClient() {
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create()
+                        .responseTimeout(fhirTranslationTimeout)))
+                .baseUrl(flareBaseUrl)
                 .build();
     }
 
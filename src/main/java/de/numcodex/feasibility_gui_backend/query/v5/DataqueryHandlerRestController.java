@@ -13,15 +13,18 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.ws.rs.core.Context;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.util.ArrayList;
 
@@ -137,16 +140,18 @@ public class DataqueryHandlerRestController {
   }
 
   @GetMapping(path = "/{dataqueryId}" + PATH_CRTDL, produces = "application/zip")
-  public ResponseEntity<Object> getDataqueryCrtdlCsv(@PathVariable(value = "dataqueryId") Long dataqueryId,
-                                                     Authentication authentication) {
+  public ResponseEntity<StreamingResponseBody> getDataqueryCrtdlCsv(@PathVariable(value = "dataqueryId") Long dataqueryId,
+                                                                    Authentication authentication) {
     try {
       var dataquery = dataqueryHandler.getDataqueryById(dataqueryId, authentication);
-      var zipByteArrayOutputStream = dataqueryHandler.createCsvExportZipfile(dataquery);
+      // The zip file is written straight into the response. Errors while writing it can no longer change the status.
+      var zipStream = dataqueryHandler.createCsvExportZipStream(dataquery);
       HttpHeaders headers = new HttpHeaders();
-      String headerValue = "attachment; filename=" + dataquery.label().toUpperCase() +  "_dataquery.zip";
-      headers.add(HttpHeaders.CONTENT_DISPOSITION, headerValue);
+      headers.setContentDisposition(ContentDisposition.attachment()
+          .filename(dataquery.label().toUpperCase() + "_dataquery.zip", StandardCharsets.UTF_8)
+          .build());
       headers.add(HttpHeaders.CONTENT_TYPE, "application/zip");
-      return new ResponseEntity<>(zipByteArrayOutputStream.toByteArray(), HttpStatus.OK);
+      return new ResponseEntity<>(zipStream, headers, HttpStatus.OK);
     } catch (IOException e) {
       return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
     } catch (DataqueryException e) {
@@ -11,6 +11,8 @@ import de.numcodex.feasibility_gui_backend.query.persistence.UserBlacklist;
 import de.numcodex.feasibility_gui_backend.query.persistence.UserBlacklistRepository;
 import de.numcodex.feasibility_gui_backend.query.ratelimiting.AuthenticationHelper;
 import de.numcodex.feasibility_gui_backend.query.ratelimiting.InvalidAuthenticationException;
+import de.numcodex.feasibility_gui_backend.query.ratelimiting.RateLimitPolicy;
+import de.numcodex.feasibility_gui_backend.query.ratelimiting.RateLimited;
 import de.numcodex.feasibility_gui_backend.query.ratelimiting.RateLimitingService;
 import de.numcodex.feasibility_gui_backend.query.translation.QueryTranslationException;
 import de.numcodex.feasibility_gui_backend.terminology.validation.StructuredQueryValidation;
@@ -23,22 +25,29 @@ import org.apache.commons.text.StringEscapeUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.web.util.UriComponentsBuilder;
 import org.threeten.extra.PeriodDuration;
+import reactor.core.Disposables;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
 import java.net.URI;
 import java.security.Principal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static de.numcodex.feasibility_gui_backend.config.WebSecurityConfig.*;
 
@@ -52,6 +61,8 @@ Rest Interface for the UI to send queries from the ui to the ui backend.
 public class FeasibilityQueryHandlerRestController {
 
   public static final String HEADER_X_DETAILED_OBFUSCATED_RESULT_WAS_EMPTY = "X-Detailed-Obfuscated-Result-Was-Empty";
+  public static final String RESULT_STREAM_EVENT_RESULT = "result";
+  public static final String RESULT_STREAM_EVENT_ISSUES = "issues";
   private final QueryHandlerService queryHandlerService;
   private final StructuredQueryValidation structuredQueryValidation;
   private final RateLimitingService rateLimitingService;
@@ -82,8 +93,16 @@ public class FeasibilityQueryHandlerRestController {
   @Value("${app.privacy.threshold.results}")
   private int privacyThresholdResults;
 
-  @Value("${app.privacy.threshold.sitesResult}")
-  private int privacyThresholdSitesResult;
+  @Value("#{T(org.threeten.extra.PeriodDuration).parse('${app.queryResultExpiry}').getDuration()}")
+  private Duration queryResultExpiry;
+
+  @Value("#{T(java.time.Duration).parse('${app.resultStream.pollInterval:PT5S}')}")
+  private Duration resultStreamPollInterval;
+
+  @Value("${app.resultStream.maxStreamsPerUser:3}")
+  private int resultStreamMaxStreamsPerUser;
+
+  private final Map<String, Integer> openResultStreams = new ConcurrentHashMap<>();
 
   public FeasibilityQueryHandlerRestController(QueryHandlerService queryHandlerService,
                                                RateLimitingService rateLimitingService,
@@ -190,6 +209,7 @@ public class FeasibilityQueryHandlerRestController {
     return queryHandlerService.getQueryResult(queryId, ResultDetail.DETAILED);
   }
 
+  @RateLimited(RateLimitPolicy.DETAILED_OBFUSCATED_RESULT)
   @GetMapping("/{id}" + WebSecurityConfig.PATH_DETAILED_OBFUSCATED_RESULT)
   public ResponseEntity<Object> getDetailedObfuscatedQueryResult(@PathVariable("id") Long queryId,
    Authentication authentication) {
@@ -199,22 +219,11 @@ public class FeasibilityQueryHandlerRestController {
     QueryResult queryResult = queryHandlerService.getQueryResult(queryId,
         ResultDetail.DETAILED_OBFUSCATED);
 
-    if (queryResult.totalNumberOfPatients() < privacyThresholdResults) {
-      var issues = FeasibilityIssues.builder()
-              .issues(List.of(FeasibilityIssue.PRIVACY_RESTRICTION_RESULT_SIZE))
-              .build();
-      return new ResponseEntity<>(issues,
-          HttpStatus.OK);
+    var privacyIssues = findDetailedObfuscatedResultPrivacyIssues(queryResult);
+    if (privacyIssues.isPresent()) {
+      return new ResponseEntity<>(privacyIssues.get(), HttpStatus.OK);
     }
     HttpHeaders headers = new HttpHeaders();
-    if (queryResult.resultLines().stream().filter(result -> result.numberOfPatients() > privacyThresholdSitesResult).count() < privacyThresholdSites) {
-      var issues = FeasibilityIssues.builder()
-              .issues(List.of(FeasibilityIssue.PRIVACY_RESTRICTION_RESULT_SITES))
-              .build();
-      return new ResponseEntity<>(
-              issues,
-              HttpStatus.OK);
-    }
     if (queryResult.resultLines().isEmpty()) {
       headers.add(HEADER_X_DETAILED_OBFUSCATED_RESULT_WAS_EMPTY, "true");
     }
@@ -246,6 +255,7 @@ public class FeasibilityQueryHandlerRestController {
     return new ResponseEntity<>(sentQueryStatistics, HttpStatus.OK);
   }
 
+  @RateLimited(RateLimitPolicy.SUMMARY_RESULT)
   @GetMapping("/{id}" + WebSecurityConfig.PATH_SUMMARY_RESULT)
   public ResponseEntity<Object> getSummaryQueryResult(
       @PathVariable("id") Long queryId,
@@ -256,15 +266,95 @@ public class FeasibilityQueryHandlerRestController {
     var queryResult = queryHandlerService.getQueryResult(queryId,
         ResultDetail.SUMMARY);
 
+    var privacyIssues = findSummaryResultPrivacyIssues(queryResult);
+    if (privacyIssues.isPresent()) {
+      return new ResponseEntity<>(privacyIssues.get(), HttpStatus.OK);
+    }
+    return new ResponseEntity<>(queryResult, HttpStatus.OK);
+  }
+
+  /**
+   * Pushes the summary result of a query each time it changes. Results violating the privacy thresholds are replaced
+   * by the respective issues. The stream ends once the results of the query expire.
+   * <p>
+   * Detailed obfuscated results are not streamed, since each of them is charged against the quota of the user.
+   */
+  @RateLimited(RateLimitPolicy.SUMMARY_RESULT)
+  @GetMapping(value = "/{id}" + WebSecurityConfig.PATH_SUMMARY_RESULT + WebSecurityConfig.PATH_STREAM,
+      produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public ResponseEntity<SseEmitter> streamSummaryQueryResult(
+      @PathVariable("id") Long queryId,
+      Authentication authentication) {
+    if (!hasAccess(queryId, authentication)) {
+      return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+    }
+    var userId = authentication.getName();
+    if (!tryOpenResultStream(userId)) {
+      return new ResponseEntity<>(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    // The stream ends on its own once the results expire. Its timeout must outlast that instead of falling back to
+    // the default async request timeout, since every reconnect of a client is charged against its rate limit.
+    var emitter = new SseEmitter(queryResultExpiry.plus(resultStreamPollInterval).toMillis());
+    var subscription = Disposables.swap();
+    emitter.onCompletion(subscription::dispose);
+    emitter.onTimeout(emitter::complete);
+    emitter.onError(error -> subscription.dispose());
+    subscription.update(queryHandlerService.streamQueryResult(queryId, ResultDetail.SUMMARY,
+            resultStreamPollInterval)
+        .map(queryResult -> findSummaryResultPrivacyIssues(queryResult)
+            .map(issues -> SseEmitter.event().name(RESULT_STREAM_EVENT_ISSUES).data(issues))
+            .orElseGet(() -> SseEmitter.event().name(RESULT_STREAM_EVENT_RESULT).data(queryResult)))
+        .doFinally(signal -> closeResultStream(userId))
+        .subscribe(event -> sendResultStreamEvent(emitter, event), emitter::completeWithError, emitter::complete));
+    return ResponseEntity.ok(emitter);
+  }
+
+  private static void sendResultStreamEvent(SseEmitter emitter, SseEventBuilder event) {
+    try {
+      emitter.send(event);
+    } catch (IOException e) {
+      throw Exceptions.propagate(e);
+    }
+  }
+
+  private boolean tryOpenResultStream(String userId) {
+    var opened = new AtomicBoolean();
+    openResultStreams.compute(userId, (id, count) -> {
+      var openCount = count == null ? 0 : count;
+      if (openCount >= resultStreamMaxStreamsPerUser) {
+        return count;
+      }
+      opened.set(true);
+      return openCount + 1;
+    });
+    return opened.get();
+  }
+
+  private void closeResultStream(String userId) {
+    openResultStreams.computeIfPresent(userId, (id, count) -> count > 1 ? count - 1 : null);
+  }
+
+  private Optional<FeasibilityIssues> findSummaryResultPrivacyIssues(QueryResult queryResult) {
     if (queryResult.totalNumberOfPatients() < privacyThresholdResults) {
-      var issues = FeasibilityIssues.builder()
+      return Optional.of(FeasibilityIssues.builder()
               .issues(List.of(FeasibilityIssue.PRIVACY_RESTRICTION_RESULT_SIZE))
-              .build();
-      return new ResponseEntity<>(
-          issues,
-          HttpStatus.OK);
+              .build());
     }
-    return new ResponseEntity<>(queryResult, HttpStatus.OK);
+    return Optional.empty();
+  }
+
+  private Optional<FeasibilityIssues> findDetailedObfuscatedResultPrivacyIssues(QueryResult queryResult) {
+    var summaryIssues = findSummaryResultPrivacyIssues(queryResult);
+    if (summaryIssues.isPresent()) {
+      return summaryIssues;
+    }
+    if (queryResult.numberOfSitesAboveThreshold() < privacyThresholdSites) {
+      return Optional.of(FeasibilityIssues.builder()
+              .issues(List.of(FeasibilityIssue.PRIVACY_RESTRICTION_RESULT_SITES))
+              .build());
+    }
+    return Optional.empty();
   }
 
   @PostMapping("/validate")
@@ -285,11 +375,11 @@ public class FeasibilityQueryHandlerRestController {
   }
 
   private boolean hasAccess(Long queryId, Authentication authentication) {
-    Set<String> roles = authentication.getAuthorities().stream()
-        .map(GrantedAuthority::getAuthority).collect(Collectors.toSet());
+    var isAdmin = authentication.getAuthorities().stream()
+        .anyMatch(authority -> keycloakAdminRole.equals(authority.getAuthority()));
 
     try {
-      return (roles.contains(keycloakAdminRole)
+      return (isAdmin
           || queryHandlerService.getAuthorId(queryId)
           .equalsIgnoreCase(authentication.getName()));
     } catch (QueryNotFoundException e) {
@@ -0,0 +1,88 @@
+package de.numcodex.feasibility_gui_backend.task;
+
+import de.numcodex.feasibility_gui_backend.query.persistence.QueryContentRepository;
+import de.numcodex.feasibility_gui_backend.query.persistence.QueryRepository;
+import de.numcodex.feasibility_gui_backend.query.quota.QueryQuotaStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Deletes queries (including their dispatches) that are older than the configured retention period. Query contents
+ * that are no longer referenced by any query are deleted as well.
+ * <p>
+ * Queries are still needed for enforcing the create quotas. The retention period is therefore extended to the
+ * longest quota interval if it is shorter.
+ */
+@Component
+@Slf4j
+public class QueryRetentionMaintenance {
+
+  private final QueryRepository queryRepository;
+
+  private final QueryContentRepository queryContentRepository;
+
+  // Null if queries shall be kept forever.
+  private final Duration retention;
+
+  private final int batchSize;
+
+  public QueryRetentionMaintenance(QueryRepository queryRepository,
+                                   QueryContentRepository queryContentRepository,
+                                   @Value("${app.queryRetention.period:}") String retentionPeriod,
+                                   @Value("${app.queryRetention.batchSize:1000}") int batchSize,
+                                   @Value("${app.privacy.quota.soft.create.interval}") String softInterval,
+                                   @Value("${app.privacy.quota.hard.create.interval}") String hardInterval) {
+    this.queryRepository = queryRepository;
+    this.queryContentRepository = queryContentRepository;
+    this.batchSize = batchSize;
+    this.retention = retentionPeriod == null || retentionPeriod.isBlank()
+        ? null
+        : extendToQuotaIntervals(QueryQuotaStore.parseInterval(retentionPeriod), softInterval, hardInterval);
+  }
+
+  private static Duration extendToQuotaIntervals(Duration retention, String softInterval, String hardInterval) {
+    var longestQuotaInterval = Stream.of(softInterval, hardInterval)
+        .map(QueryQuotaStore::parseInterval)
+        .max(Duration::compareTo)
+        .orElseThrow();
+    if (retention.compareTo(longestQuotaInterval) < 0) {
+      log.warn("Query retention period {} is shorter than the longest quota interval. Keeping queries for {}",
+          retention, longestQuotaInterval);
+      return longestQuotaInterval;
+    }
+    return retention;
+  }
+
+  @Scheduled(cron = "${app.queryRetention.schedule:0 30 3 * * *}")
+  public void purgeExpiredQueries() {
+    if (retention == null) {
+      return;
+    }
+
+    var cutoff = Timestamp.from(Instant.now().minus(retention));
+    var deletedQueryCount = 0;
+    var deletedQueryContentCount = 0;
+    int deletedInBatch;
+    do {
+      var queryContentIds = queryRepository.deleteCreatedBefore(cutoff, batchSize);
+      deletedInBatch = queryContentIds.size();
+      deletedQueryCount += deletedInBatch;
+
+      var distinctQueryContentIds = queryContentIds.stream().filter(Objects::nonNull).distinct().toList();
+      if (!distinctQueryContentIds.isEmpty()) {
+        deletedQueryContentCount += queryContentRepository.deleteUnreferencedByIds(distinctQueryContentIds);
+      }
+    } while (deletedInBatch == batchSize);
+
+    log.debug("Deleted {} queries created before {} and {} query contents no longer in use", deletedQueryCount,
+        cutoff, deletedQueryContentCount);
+  }
+}
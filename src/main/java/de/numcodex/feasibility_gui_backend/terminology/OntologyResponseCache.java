@@ -0,0 +1,198 @@
+package de.numcodex.feasibility_gui_backend.terminology;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.numcodex.feasibility_gui_backend.config.PropertiesReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import static de.numcodex.feasibility_gui_backend.terminology.OntologyInfoContributor.KEY_ONTOLOGY_TAG_PROPERTIES;
+
+/**
+ * Serves responses whose payload rarely changes, like the dse profile tree or the available terminology filters.
+ * <p>
+ * Each payload is serialized and gzip compressed once per version, which is either the ontology tag or the payload
+ * instance handed out by another cache. Responses carry a strong ETag derived from the serialized payload, so that
+ * clients can revalidate them with {@code If-None-Match} and get a 304 without any payload.
+ */
+@Component
+@Slf4j
+public class OntologyResponseCache {
+
+  private static final String GZIP = "gzip";
+  private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+  private final ObjectMapper objectMapper;
+
+  private final PropertiesReader propertiesReader;
+
+  private final Map<String, CachedResponse> responses = new ConcurrentHashMap<>();
+
+  public OntologyResponseCache(ObjectMapper objectMapper, PropertiesReader propertiesReader) {
+    this.objectMapper = objectMapper;
+    this.propertiesReader = propertiesReader;
+  }
+
+  /**
+   * Creates the response for a payload that only changes with a new ontology.
+   *
+   * @param name           identifies the payload
+   * @param requestHeaders the headers of the request, used for conditional requests and content negotiation
+   * @param payload        provides the payload if it is not cached for the current ontology yet
+   * @return a 304 response if the client already has the current payload, the JSON payload otherwise
+   */
+  public ResponseEntity<byte[]> respond(String name, HttpHeaders requestHeaders, Supplier<?> payload) {
+    var ontologyTag = propertiesReader.getValue(KEY_ONTOLOGY_TAG_PROPERTIES);
+    return respond(getResponse(name, ontologyTag, payload), requestHeaders);
+  }
+
+  /**
+   * Creates the response for a payload that is cached elsewhere, like the available terminology filters.
+   * <p>
+   * The payload is only serialized again if a different instance is passed, so the given payload has to be the same
+   * instance as long as it does not change.
+   *
+   * @param name           identifies the payload
+   * @param requestHeaders the headers of the request, used for conditional requests and content negotiation
+   * @param payload        the current payload
+   * @return a 304 response if the client already has the current payload, the JSON payload otherwise
+   */
+  public ResponseEntity<byte[]> respondWithCurrent(String name, HttpHeaders requestHeaders, Object payload) {
+    return respond(getResponse(name, new PayloadVersion(payload), () -> payload), requestHeaders);
+  }
+
+  /**
+   * Drops all cached payloads.
+   */
+  public void clear() {
+    responses.clear();
+  }
+
+  private static ResponseEntity<byte[]> respond(CachedResponse response, HttpHeaders requestHeaders) {
+    var gzip = acceptsGzip(requestHeaders);
+    var etag = gzip ? response.gzipEtag() : response.etag();
+
+    if (matchesAny(etag, requestHeaders.getOrEmpty(HttpHeaders.IF_NONE_MATCH))) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+          .eTag(etag)
+          .cacheControl(CACHE_CONTROL)
+          .varyBy(HttpHeaders.ACCEPT_ENCODING)
+          .build();
+    }
+
+    var builder = ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .eTag(etag)
+        .cacheControl(CACHE_CONTROL)
+        .varyBy(HttpHeaders.ACCEPT_ENCODING);
+    if (gzip) {
+      return builder.header(HttpHeaders.CONTENT_ENCODING, GZIP).body(response.gzippedJson());
+    }
+    return builder.body(response.json());
+  }
+
+  private CachedResponse getResponse(String name, Object version, Supplier<?> payload) {
+    var cached = responses.get(name);
+    if (cached != null && Objects.equals(cached.version(), version)) {
+      return cached;
+    }
+
+    // Serialize outside the map, so that neither the payload supplier nor the serialization blocks other requests.
+    // Concurrent requests may serialize the same payload, the result is the same.
+    log.debug("Serializing payload '{}' for version '{}'", name, version);
+    var created = createResponse(version, payload.get());
+    responses.put(name, created);
+    return created;
+  }
+
+  private CachedResponse createResponse(Object version, Object payload) {
+    try {
+      var json = objectMapper.writeValueAsBytes(payload);
+      var hash = Base64.getUrlEncoder().withoutPadding()
+          .encodeToString(MessageDigest.getInstance("SHA-256").digest(json));
+      // Strong ETags have to differ between content codings of the same payload
+      return new CachedResponse(version, json, gzip(json), "\"" + hash + "\"", "\"" + hash + "-" + GZIP + "\"");
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static boolean acceptsGzip(HttpHeaders requestHeaders) {
+    return requestHeaders.getOrEmpty(HttpHeaders.ACCEPT_ENCODING).stream()
+        .flatMap(value -> Arrays.stream(value.split(",")))
+        .map(String::trim)
+        .anyMatch(coding -> {
+          var parts = coding.split(";");
+          return parts[0].trim().equalsIgnoreCase(GZIP)
+              && (parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?"));
+        });
+  }
+
+  private static boolean matchesAny(String etag, Iterable<String> ifNoneMatch) {
+    var expected = ETag.create(etag);
+    for (var value : ifNoneMatch) {
+      for (var candidate : ETag.parse(value)) {
+        // If-None-Match uses the weak comparison
+        if (candidate.isWildcard() || candidate.compare(expected, false)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static byte[] gzip(byte[] data) {
+    var out = new ByteArrayOutputStream();
+    try (var gzip = new GZIPOutputStream(out)) {
+      gzip.write(data);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+
+  private record CachedResponse(Object version, byte[] json, byte[] gzippedJson, String etag, String gzipEtag) {
+  }
+
+  /**
+   * Compares payloads by identity, so that an unchanged payload does not have to be compared element by element.
+   */
+  private record PayloadVersion(Object payload) {
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof PayloadVersion version && version.payload() == payload;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(payload);
+    }
+
+    @Override
+    public String toString() {
+      return "payload@" + Integer.toHexString(hashCode());
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package de.numcodex.feasibility_gui_backend.terminology;
+
+import de.numcodex.feasibility_gui_backend.terminology.persistence.TermCodeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * In-memory index of all (system, code) combinations present in the termcode table.
+ * <p>
+ * The termcode table only changes when Flyway applies (ontology) migrations. The index is therefore loaded once the
+ * application is ready and reloaded whenever the set of applied migrations changes. Until the index is loaded, lookups
+ * are answered by the database.
+ */
+@Component
+@Slf4j
+public class TermCodeIndex {
+
+  private final TermCodeRepository termCodeRepository;
+
+  private final ObjectProvider<Flyway> flyway;
+
+  private volatile Map<String, Set<String>> codesBySystem;
+
+  private volatile Integer indexedMigrationRank;
+
+  public TermCodeIndex(TermCodeRepository termCodeRepository, ObjectProvider<Flyway> flyway) {
+    this.termCodeRepository = termCodeRepository;
+    this.flyway = flyway;
+  }
+
+  /**
+   * Checks whether a term code with the given system and code exists.
+   *
+   * @param system the system of the term code
+   * @param code the code of the term code
+   * @return true if the term code exists in the termcode table
+   */
+  public boolean contains(String system, String code) {
+    var index = codesBySystem;
+    if (index == null) {
+      return termCodeRepository.existsTermCode(system, code);
+    }
+    var codes = index.get(system);
+    return codes != null && codes.contains(code);
+  }
+
+  /**
+   * Whether the index is loaded and serves lookups without accessing the database.
+   */
+  public boolean isLoaded() {
+    return codesBySystem != null;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    refresh(getLatestMigrationRank().orElse(null));
+  }
+
+  /**
+   * Reloads the index if Flyway applied any migrations since it was last loaded.
+   */
+  @Scheduled(fixedDelayString = "${app.termCodeIndex.refreshCheckInterval:PT5M}",
+      initialDelayString = "${app.termCodeIndex.refreshCheckInterval:PT5M}")
+  public void refreshIfMigrationsChanged() {
+    var latestMigrationRank = getLatestMigrationRank().orElse(null);
+    if (codesBySystem == null || !Objects.equals(latestMigrationRank, indexedMigrationRank)) {
+      log.info("Database migrations changed, reloading term code index");
+      refresh(latestMigrationRank);
+    }
+  }
+
+  private synchronized void refresh(Integer migrationRank) {
+    var index = new HashMap<String, Set<String>>();
+    for (Object[] systemAndCode : termCodeRepository.findAllSystemsAndCodes()) {
+      // Systems repeat for nearly every row. Grouping by system keeps only a single instance of each of them.
+      index.computeIfAbsent((String) systemAndCode[0], s -> new HashSet<>()).add((String) systemAndCode[1]);
+    }
+    index.replaceAll((system, codes) -> Set.copyOf(codes));
+
+    codesBySystem = Map.copyOf(index);
+    indexedMigrationRank = migrationRank;
+    log.info("Loaded term code index with {} systems and {} codes", index.size(),
+        index.values().stream().mapToInt(Set::size).sum());
+  }
+
+  private Optional<Integer> getLatestMigrationRank() {
+    return Optional.ofNullable(flyway.getIfAvailable())
+        .flatMap(f -> Arrays.stream(f.info().applied())
+            .map(MigrationInfo::getInstalledRank)
+            .max(Integer::compare));
+  }
+}
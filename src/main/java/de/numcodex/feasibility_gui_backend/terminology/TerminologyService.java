@@ -3,6 +3,8 @@ package de.numcodex.feasibility_gui_backend.terminology;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import de.numcodex.feasibility_gui_backend.terminology.api.*;
 import de.numcodex.feasibility_gui_backend.terminology.persistence.*;
 import de.numcodex.feasibility_gui_backend.terminology.persistence.UiProfile;
@@ -14,7 +16,10 @@ import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.net.URL;
+import java.time.Duration;
 import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -24,6 +29,11 @@ public class TerminologyService {
 
   private final TermCodeRepository termCodeRepository;
 
+  private final ContextualizedTermCodeRepository contextualizedTermCodeRepository;
+
+  private final TermCodeIndex termCodeIndex;
+
+  private final Cache<Long, de.numcodex.feasibility_gui_backend.terminology.api.UiProfile> parsedUiProfiles;
 
   @Getter
   private final List<TerminologySystemEntry> terminologySystems;
@@ -33,11 +43,21 @@ public class TerminologyService {
 
 
   public TerminologyService(@Value("${app.terminologySystemsFile}") String terminologySystemsFilename,
+                            @Value("${app.uiProfileCache.maxEntries:10000}") long uiProfileCacheMaxEntries,
+                            @Value("#{T(java.time.Duration).parse('${app.uiProfileCache.expiry:PT1H}')}") Duration uiProfileCacheExpiry,
                             UiProfileRepository uiProfileRepository,
                             TermCodeRepository termCodeRepository,
+                            ContextualizedTermCodeRepository contextualizedTermCodeRepository,
+                            TermCodeIndex termCodeIndex,
                             ObjectMapper jsonUtil) throws IOException {
     this.uiProfileRepository = uiProfileRepository;
     this.termCodeRepository = termCodeRepository;
+    this.contextualizedTermCodeRepository = contextualizedTermCodeRepository;
+    this.termCodeIndex = termCodeIndex;
+    this.parsedUiProfiles = Caffeine.newBuilder()
+        .maximumSize(uiProfileCacheMaxEntries)
+        .expireAfterWrite(uiProfileCacheExpiry)
+        .build();
     this.jsonUtil = jsonUtil;
     this.terminologySystems = jsonUtil.readValue(new URL("file:" + terminologySystemsFilename), new TypeReference<>() {});
   }
@@ -53,7 +73,7 @@ public class TerminologyService {
   }
 
   public boolean isExistingTermCode(String system, String code) {
-    return termCodeRepository.existsTermCode(system, code);
+    return termCodeIndex.contains(system, code);
   }
 
   public static int min(int... numbers) {
@@ -61,40 +81,60 @@ public class TerminologyService {
         .min().orElse(Integer.MAX_VALUE);
   }
 
+  /**
+   * Get term codes, context and ui profile for a list of contextualized term code hashes.
+   *
+   * All hashes are resolved with a single query. Parsed ui profiles are cached by their id, so only ui profiles that
+   * are not cached yet are loaded (in one additional query).
+   *
+   * @param criteriaIds the contextualized term code hashes
+   * @return one entry per requested hash, in the same order
+   */
   public List<CriteriaProfileData> getCriteriaProfileData(List<String> criteriaIds) {
-    List<CriteriaProfileData> results = new ArrayList<>();
+    if (criteriaIds.isEmpty()) {
+      return List.of();
+    }
 
+    Map<String, ContextualizedTermCodeDetails> detailsByHash = contextualizedTermCodeRepository
+        .findDetailsByContextTermcodeHashes(new HashSet<>(criteriaIds)).stream()
+        .collect(Collectors.toMap(ContextualizedTermCodeDetails::contextTermcodeHash, Function.identity(),
+            (first, second) -> first));
+    var uiProfiles = getParsedUiProfiles(detailsByHash.values().stream()
+        .map(ContextualizedTermCodeDetails::uiProfileId)
+        .filter(Objects::nonNull)
+        .map(Integer::longValue)
+        .collect(Collectors.toSet()));
+
+    List<CriteriaProfileData> results = new ArrayList<>();
     for (String id : criteriaIds) {
-      TermCode tc = termCodeRepository.findTermCodeByContextualizedTermcodeHash(id).orElse(null);
-      Context c = termCodeRepository.findContextByContextualizedTermcodeHash(id).orElse(null);
-      de.numcodex.feasibility_gui_backend.terminology.api.UiProfile uiProfile;
-      de.numcodex.feasibility_gui_backend.common.api.TermCode context;
+      var details = detailsByHash.get(id);
+      de.numcodex.feasibility_gui_backend.common.api.TermCode context = null;
+      de.numcodex.feasibility_gui_backend.terminology.api.UiProfile uiProfile = null;
       List<de.numcodex.feasibility_gui_backend.common.api.TermCode> termCodes = new ArrayList<>();
-      try {
-        uiProfile = jsonUtil.readValue(getUiProfile(id), de.numcodex.feasibility_gui_backend.terminology.api.UiProfile.class);
-      } catch (UiProfileNotFoundException | JsonProcessingException e) {
-        log.debug("Error trying to read ui profile", e);
-        uiProfile = null;
-      }
-      if (c != null) {
-        context = de.numcodex.feasibility_gui_backend.common.api.TermCode.builder()
-            .code(c.getCode())
-            .display(c.getDisplay())
-            .system(c.getSystem())
-            .version(c.getVersion())
-            .build();
-      } else {
-        context = null;
-      }
-      if (tc != null) {
-        termCodes.add(
-            de.numcodex.feasibility_gui_backend.common.api.TermCode.builder()
-                .code(tc.getCode())
-                .display(tc.getDisplay())
-                .system(tc.getSystem())
-                .version(tc.getVersion())
-                .build()
-        );
+      if (details != null) {
+        Context c = details.context();
+        if (c != null) {
+          context = de.numcodex.feasibility_gui_backend.common.api.TermCode.builder()
+              .code(c.getCode())
+              .display(c.getDisplay())
+              .system(c.getSystem())
+              .version(c.getVersion())
+              .build();
+        }
+        TermCode tc = details.termCode();
+        if (tc != null) {
+          termCodes.add(
+              de.numcodex.feasibility_gui_backend.common.api.TermCode.builder()
+                  .code(tc.getCode())
+                  .display(tc.getDisplay())
+                  .system(tc.getSystem())
+                  .version(tc.getVersion())
+                  .build()
+          );
+        }
+        if (details.uiProfileId() != null) {
+          uiProfile = uiProfiles.get(details.uiProfileId().longValue());
+        }
       }
       results.add(
           CriteriaProfileData.builder()
@@ -109,10 +149,30 @@ public class TerminologyService {
     return results;
   }
 
+  private Map<Long, de.numcodex.feasibility_gui_backend.terminology.api.UiProfile> getParsedUiProfiles(Set<Long> uiProfileIds) {
+    return parsedUiProfiles.getAll(uiProfileIds, missingIds -> {
+      var loadedUiProfiles = new HashMap<Long, de.numcodex.feasibility_gui_backend.terminology.api.UiProfile>();
+      for (UiProfile uiProfile : uiProfileRepository.findAllById(List.copyOf(missingIds))) {
+        try {
+          loadedUiProfiles.put(uiProfile.getId(), jsonUtil.readValue(uiProfile.getUiProfile(),
+              de.numcodex.feasibility_gui_backend.terminology.api.UiProfile.class));
+        } catch (JsonProcessingException e) {
+          log.debug("Error trying to read ui profile", e);
+        }
+      }
+      return loadedUiProfiles;
+    });
+  }
+
   public List<CriteriaProfileData> addDisplayDataToCriteriaProfileData(List<CriteriaProfileData> criteriaProfileData, List<EsSearchResultEntry> displayData) {
-    var result = new ArrayList<CriteriaProfileData>();
+    var displayDataById = new HashMap<String, EsSearchResultEntry>();
+    for (EsSearchResultEntry searchResultEntry : displayData) {
+      displayDataById.putIfAbsent(searchResultEntry.id(), searchResultEntry);
+    }
+
+    var result = new ArrayList<CriteriaProfileData>(criteriaProfileData.size());
     for (CriteriaProfileData cpd : criteriaProfileData) {
-      var searchResultEntry = displayData.stream().filter(dd -> cpd.id().equals(dd.id())).findFirst().orElse(null);
+      var searchResultEntry = displayDataById.get(cpd.id());
       if (searchResultEntry == null) {
         result.add(cpd);
       } else {
@@ -5,6 +5,8 @@ import co.elastic.clients.elasticsearch._types.Script;
 import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
 import co.elastic.clients.elasticsearch._types.aggregations.StringTermsBucket;
 import co.elastic.clients.elasticsearch._types.query_dsl.*;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import de.numcodex.feasibility_gui_backend.common.api.Criterion;
 import de.numcodex.feasibility_gui_backend.common.api.TermCode;
 import de.numcodex.feasibility_gui_backend.terminology.api.EsSearchResult;
@@ -18,6 +20,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
 import org.springframework.data.elasticsearch.client.elc.NativeQuery;
@@ -33,6 +37,7 @@ import org.springframework.util.CollectionUtils;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.text.MessageFormat;
+import java.time.Duration;
 import java.util.*;
 
 @Service
@@ -48,6 +53,7 @@ public class TerminologyEsService {
   public static final String FIELD_NAME_DISPLAY_ORIGINAL = "display.original";
   public static final String FIELD_NAME_TERMCODE_WITH_BOOST = "termcode^2";
   private static final UUID NAMESPACE_UUID = UUID.fromString("00000000-0000-0000-0000-000000000000");
+  private static final String AVAILABLE_FILTERS_KEY = "available-filters";
   private ElasticsearchOperations operations;
 
   private String[] filterFields;
@@ -56,12 +62,32 @@ public class TerminologyEsService {
 
   private OntologyListItemEsRepository ontologyListItemEsRepository;
 
+  private final LoadingCache<String, List<TermFilter>> availableFilters;
+
   @Autowired
-  public TerminologyEsService(@Value("${app.elastic.filter}") String[] filterFields, ElasticsearchOperations operations, OntologyItemEsRepository ontologyItemEsRepository, OntologyListItemEsRepository ontologyListItemEsRepository) {
+  public TerminologyEsService(@Value("${app.elastic.filter}") String[] filterFields, ElasticsearchOperations operations, OntologyItemEsRepository ontologyItemEsRepository, OntologyListItemEsRepository ontologyListItemEsRepository,
+                              @Value("#{T(java.time.Duration).parse('${app.elastic.filterRefreshInterval:PT1H}')}") Duration filterRefreshInterval) {
     this.filterFields = filterFields;
     this.operations = operations;
     this.ontologyItemEsRepository = ontologyItemEsRepository;
     this.ontologyListItemEsRepository = ontologyListItemEsRepository;
+    // Stale filters keep being served while they are refreshed in the background
+    this.availableFilters = Caffeine.newBuilder()
+        .refreshAfterWrite(filterRefreshInterval)
+        .build(key -> loadAvailableFilters());
+  }
+
+  /**
+   * Loads the available filters once the application is ready, so that the first request does not have to wait for
+   * the aggregations.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUpAvailableFilters() {
+    try {
+      getAvailableFilters();
+    } catch (RuntimeException e) {
+      log.warn("Could not load available filters from elastic search, retrying on first request: {}", e.getMessage());
+    }
   }
 
   public EsSearchResultEntry getSearchResultEntryByCriterion(Criterion criterion) {
@@ -81,12 +107,35 @@ public class TerminologyEsService {
     return results;
   }
 
+  /**
+   * Gets the available filters. The same list instance is returned until the filters are refreshed.
+   */
   public List<TermFilter> getAvailableFilters() {
+    var filters = availableFilters.get(AVAILABLE_FILTERS_KEY);
+    if (filters.stream().allMatch(filter -> filter.values().isEmpty())) {
+      // The index is most likely not filled yet. Do not serve filters without any values until the next refresh.
+      availableFilters.invalidate(AVAILABLE_FILTERS_KEY);
+    }
+    return filters;
+  }
+
+  private List<TermFilter> loadAvailableFilters() {
     var filterTerms = List.of(filterFields);
     var list = new ArrayList<TermFilter>();
 
+    // Run all terms aggregations within a single search request
+    var aggQueryBuilder = NativeQuery.builder().withMaxResults(0);
+    for (var term : filterTerms) {
+      var termElastic = toElasticField(term);
+      aggQueryBuilder.withAggregation(termElastic, Aggregation.of(a -> a
+          .terms(ta -> ta.field(termElastic))));
+    }
+    SearchHits<OntologyListItemDocument> searchHits = operations.search(aggQueryBuilder.build(), OntologyListItemDocument.class);
+    ElasticsearchAggregations aggregations = (ElasticsearchAggregations) searchHits.getAggregations();
+    assert aggregations != null;
+
     for (var term : filterTerms) {
-      list.add(getFilter(term));
+      list.add(getFilter(term, aggregations));
     }
 
     // Hardcode availability filter. It is not yet decided if and how this will be available anyways. TODO!
@@ -96,7 +145,7 @@ public class TerminologyEsService {
         .values(List.of())
         .build());
 
-    return list;
+    return List.copyOf(list);
   }
 
   public EsSearchResult performOntologySearchWithPaging(String keyword,
@@ -253,16 +302,12 @@ public class TerminologyEsService {
   }
 
 
-  private TermFilter getFilter(String termApi) {
-    final var termElastic = termApi.equalsIgnoreCase("context") ? "context.code" : termApi;
-    var aggQuery = NativeQuery.builder()
-        .withAggregation(termElastic, Aggregation.of(a -> a
-            .terms(ta -> ta.field(termElastic))))
-        .build();
+  private static String toElasticField(String termApi) {
+    return termApi.equalsIgnoreCase("context") ? "context.code" : termApi;
+  }
 
-    SearchHits<OntologyListItemDocument> searchHits = operations.search(aggQuery, OntologyListItemDocument.class);
-    ElasticsearchAggregations aggregations = (ElasticsearchAggregations) searchHits.getAggregations();
-    assert aggregations != null;
+  private TermFilter getFilter(String termApi, ElasticsearchAggregations aggregations) {
+    final var termElastic = toElasticField(termApi);
     List<StringTermsBucket> buckets = aggregations.aggregationsAsMap().get(termElastic).aggregation().getAggregate().sterms().buckets().array();
     List<TermFilterValue> termFilterValues = new ArrayList<>();
 
@@ -0,0 +1,17 @@
+package de.numcodex.feasibility_gui_backend.terminology.persistence;
+
+/**
+ * Term code, context and ui profile reference of a single contextualized term code.
+ *
+ * @param contextTermcodeHash the hash identifying the contextualized term code
+ * @param termCode the term code, may be null
+ * @param context the context, may be null
+ * @param uiProfileId the id of the ui profile, may be null
+ */
+public record ContextualizedTermCodeDetails(
+    String contextTermcodeHash,
+    TermCode termCode,
+    Context context,
+    Integer uiProfileId
+) {
+}
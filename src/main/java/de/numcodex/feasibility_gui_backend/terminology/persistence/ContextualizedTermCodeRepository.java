@@ -1,6 +1,14 @@
 package de.numcodex.feasibility_gui_backend.terminology.persistence;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface ContextualizedTermCodeRepository extends JpaRepository<ContextualizedTermCode, Long> {
+
+    @Query("select new de.numcodex.feasibility_gui_backend.terminology.persistence.ContextualizedTermCodeDetails(ctc.contextTermcodeHash, tc, c, ctc.uiProfileId) from ContextualizedTermCode ctc left join TermCode tc on ctc.termCodeId = tc.id left join Context c on ctc.contextId = c.id where ctc.contextTermcodeHash in :hashes")
+    List<ContextualizedTermCodeDetails> findDetailsByContextTermcodeHashes(@Param("hashes") Collection<String> contextualizedTermcodeHashes);
 }
@@ -4,6 +4,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface TermCodeRepository extends JpaRepository<TermCode, Long> {
@@ -14,6 +15,9 @@ public interface TermCodeRepository extends JpaRepository<TermCode, Long> {
     @Query("select case when count(t) > 0 then true else false end from TermCode t where t.code = :code and t.system = :system")
     boolean existsTermCode(@Param("system") String system, @Param("code") String code);
 
+    @Query("select distinct t.system, t.code from TermCode t")
+    List<Object[]> findAllSystemsAndCodes();
+
     @Query("select tc from ContextualizedTermCode ctc left join TermCode tc on ctc.termCodeId = tc.id where ctc.contextTermcodeHash = :hash")
     Optional<TermCode> findTermCodeByContextualizedTermcodeHash(@Param("hash") String contextualizedTermcodeHash);
 
@@ -1,14 +1,19 @@
 package de.numcodex.feasibility_gui_backend.terminology.v5;
 
 
+import de.numcodex.feasibility_gui_backend.terminology.OntologyResponseCache;
 import de.numcodex.feasibility_gui_backend.terminology.TerminologyService;
 import de.numcodex.feasibility_gui_backend.terminology.api.*;
 import de.numcodex.feasibility_gui_backend.terminology.es.TerminologyEsService;
-import de.numcodex.feasibility_gui_backend.terminology.es.model.TermFilter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.List;
 
@@ -24,31 +29,62 @@ import java.util.List;
 @ConditionalOnExpression("${app.elastic.enabled}")
 public class TerminologyRestController {
 
+    private static final int CRITERIA_PROFILE_DATA_STREAM_CHUNK_SIZE = 100;
+
     private final TerminologyService terminologyService;
 
     private TerminologyEsService terminologyEsService;
 
+    private final OntologyResponseCache ontologyResponseCache;
+
     @Autowired
-    public TerminologyRestController(TerminologyService terminologyService, TerminologyEsService terminologyEsService) {
+    public TerminologyRestController(TerminologyService terminologyService, TerminologyEsService terminologyEsService,
+                                     OntologyResponseCache ontologyResponseCache) {
         this.terminologyService = terminologyService;
         this.terminologyEsService = terminologyEsService;
+        this.ontologyResponseCache = ontologyResponseCache;
     }
 
     @GetMapping("criteria-profile-data")
-    public List<CriteriaProfileData> getCriteriaProfileData(@RequestParam List<String> ids) {
-        var criteriaProfileData = terminologyService.getCriteriaProfileData(ids);
-        var displayData = terminologyEsService.getSearchResultEntriesByHash(ids);
-        return terminologyService.addDisplayDataToCriteriaProfileData(criteriaProfileData, displayData);
+    public Mono<List<CriteriaProfileData>> getCriteriaProfileData(@RequestParam List<String> ids) {
+        return getCriteriaProfileDataWithDisplay(ids);
+    }
+
+    /*
+     Same as criteria-profile-data, but resolves the ids in chunks and streams the result as newline delimited json.
+     Meant for very large lists of ids, which is why they are sent as a JSON array in the body rather than in the
+     query string.
+     */
+    @PostMapping(value = "criteria-profile-data/stream", consumes = MediaType.APPLICATION_JSON_VALUE,
+        produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<CriteriaProfileData> streamCriteriaProfileData(@RequestBody List<String> ids) {
+        return Flux.fromIterable(ids)
+            .buffer(CRITERIA_PROFILE_DATA_STREAM_CHUNK_SIZE)
+            .concatMap(this::getCriteriaProfileDataWithDisplay)
+            .flatMapIterable(criteriaProfileData -> criteriaProfileData);
+    }
+
+    /*
+     The database lookup runs on the subscribing thread while the elastic search lookup runs concurrently on a
+     separate one.
+     */
+    private Mono<List<CriteriaProfileData>> getCriteriaProfileDataWithDisplay(List<String> ids) {
+        var criteriaProfileData = Mono.fromCallable(() -> terminologyService.getCriteriaProfileData(ids));
+        var displayData = Mono.fromCallable(() -> terminologyEsService.getSearchResultEntriesByHash(ids))
+            .subscribeOn(Schedulers.boundedElastic());
+        return Mono.zip(displayData, criteriaProfileData,
+            (display, profileData) -> terminologyService.addDisplayDataToCriteriaProfileData(profileData, display));
     }
 
     @GetMapping(value = "systems", produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<TerminologySystemEntry> getTerminologySystems() {
-        return terminologyService.getTerminologySystems();
+    public ResponseEntity<byte[]> getTerminologySystems(@RequestHeader HttpHeaders headers) {
+        return ontologyResponseCache.respond("terminology-systems", headers, terminologyService::getTerminologySystems);
     }
 
-    @GetMapping("search/filter")
-    public List<TermFilter> getAvailableFilters() {
-        return terminologyEsService.getAvailableFilters();
+    @GetMapping(value = "search/filter", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getAvailableFilters(@RequestHeader HttpHeaders headers) {
+        return ontologyResponseCache.respondWithCurrent("terminology-filters", headers,
+                terminologyEsService.getAvailableFilters());
     }
 
     @GetMapping("entry/search")
@@ -0,0 +1,11 @@
+CREATE TABLE IF NOT EXISTS query_content_translation
+(
+    query_content_id INTEGER   NOT NULL,
+    media_type       TEXT      NOT NULL,
+    mapping_version  TEXT      NOT NULL,
+    translation      TEXT      NOT NULL,
+    created_at       TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (query_content_id, media_type, mapping_version),
+    CONSTRAINT query_content_translation_query_content_id_fkey FOREIGN KEY (query_content_id)
+        REFERENCES query_content (id) ON DELETE CASCADE
+);
@@ -0,0 +1,12 @@
+-- Results are volatile by design. Skipping the WAL makes writes cheap, losing them on a crash is acceptable.
+CREATE UNLOGGED TABLE IF NOT EXISTS query_result_line
+(
+    query_id    INTEGER   NOT NULL,
+    site_name   TEXT      NOT NULL,
+    result_type TEXT      NOT NULL,
+    result      BIGINT    NOT NULL,
+    expires_at  TIMESTAMP NOT NULL,
+    PRIMARY KEY (query_id, site_name)
+);
+
+CREATE INDEX IF NOT EXISTS query_result_line_expires_at_idx ON query_result_line (expires_at);
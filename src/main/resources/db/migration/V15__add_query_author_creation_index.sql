@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS query_created_by_created_at_idx ON query (created_by, created_at);
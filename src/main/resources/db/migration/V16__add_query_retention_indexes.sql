@@ -0,0 +1,3 @@
+CREATE INDEX IF NOT EXISTS query_created_at_idx ON query (created_at);
+CREATE INDEX IF NOT EXISTS query_query_content_id_idx ON query (query_content_id);
+CREATE INDEX IF NOT EXISTS query_content_hash_idx ON query_content (hash);
@@ -0,0 +1,8 @@
+CREATE TABLE IF NOT EXISTS rate_limiting_bucket
+(
+    id         TEXT      NOT NULL PRIMARY KEY,
+    state      BYTEA,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS rate_limiting_bucket_updated_at_idx ON rate_limiting_bucket (updated_at);
@@ -0,0 +1,98 @@
+package de.numcodex.feasibility_gui_backend.dse;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.numcodex.feasibility_gui_backend.config.PropertiesReader;
+import de.numcodex.feasibility_gui_backend.dse.persistence.DseProfile;
+import de.numcodex.feasibility_gui_backend.dse.persistence.DseProfileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DseProfileIndexTest {
+
+  private static final String PROFILE_URL = "http://example.com/profile";
+
+  @Mock
+  private DseProfileRepository dseProfileRepository;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final MockEnvironment environment = new MockEnvironment().withProperty("ontology-tag", "v1");
+
+  private DseProfileIndex dseProfileIndex;
+
+  @BeforeEach
+  void setUp() {
+    dseProfileIndex = new DseProfileIndex(dseProfileRepository, objectMapper, new PropertiesReader(environment));
+  }
+
+  @Test
+  void testGet_loadsProfilesOnlyOnce() throws JsonProcessingException {
+    doReturn(List.of(createDseProfile(PROFILE_URL, "profile"))).when(dseProfileRepository).findAll();
+
+    dseProfileIndex.load();
+    var profile = dseProfileIndex.get(PROFILE_URL);
+    var unknownProfile = dseProfileIndex.get("unknown");
+
+    assertTrue(profile.isPresent());
+    assertEquals(PROFILE_URL, profile.get().profile().url());
+    assertTrue(unknownProfile.isEmpty());
+    verify(dseProfileRepository, times(1)).findAll();
+  }
+
+  @Test
+  void testGet_providesSerializedProfile() throws Exception {
+    doReturn(List.of(createDseProfile(PROFILE_URL, "profile"))).when(dseProfileRepository).findAll();
+
+    var profile = dseProfileIndex.get(PROFILE_URL).orElseThrow();
+
+    assertEquals(objectMapper.writeValueAsString(profile.profile()), new String(profile.json()));
+  }
+
+  @Test
+  void testGet_reloadsProfilesOnChangedOntologyTag() throws JsonProcessingException {
+    doReturn(List.of(createDseProfile(PROFILE_URL, "old")))
+        .doReturn(List.of(createDseProfile(PROFILE_URL, "new")))
+        .when(dseProfileRepository).findAll();
+
+    assertEquals("old", dseProfileIndex.get(PROFILE_URL).orElseThrow().profile().display().original());
+    environment.setProperty("ontology-tag", "v2");
+
+    assertEquals("new", dseProfileIndex.get(PROFILE_URL).orElseThrow().profile().display().original());
+    verify(dseProfileRepository, times(2)).findAll();
+  }
+
+  @Test
+  void testGet_throwsOnUnparsableProfileOnly() throws JsonProcessingException {
+    var unparsableProfile = new DseProfile();
+    unparsableProfile.setUrl("unparsable");
+    unparsableProfile.setEntry("something that can't be parsed as dse profile");
+    doReturn(List.of(createDseProfile(PROFILE_URL, "profile"), unparsableProfile)).when(dseProfileRepository).findAll();
+
+    assertThrows(IllegalStateException.class, () -> dseProfileIndex.get("unparsable"));
+    assertTrue(dseProfileIndex.get(PROFILE_URL).isPresent());
+  }
+
+  private DseProfile createDseProfile(String url, String display) throws JsonProcessingException {
+    var dseProfile = new DseProfile();
+    dseProfile.setUrl(url);
+    dseProfile.setEntry(objectMapper.writeValueAsString(de.numcodex.feasibility_gui_backend.dse.api.DseProfile.builder()
+        .url(url)
+        .display(de.numcodex.feasibility_gui_backend.common.api.DisplayEntry.builder()
+            .original(display)
+            .translations(List.of())
+            .build())
+        .build()));
+    return dseProfile;
+  }
+}
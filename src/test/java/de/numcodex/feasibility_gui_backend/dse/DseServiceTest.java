@@ -3,6 +3,7 @@ package de.numcodex.feasibility_gui_backend.dse;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import de.numcodex.feasibility_gui_backend.config.PropertiesReader;
 import de.numcodex.feasibility_gui_backend.common.api.DisplayEntry;
 import de.numcodex.feasibility_gui_backend.dse.api.*;
 import de.numcodex.feasibility_gui_backend.dse.persistence.DseProfile;
@@ -13,17 +14,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.env.MockEnvironment;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.List;
-import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
-import static org.mockito.Mockito.doThrow;
 
 @ExtendWith(MockitoExtension.class)
 class DseServiceTest {
@@ -35,8 +33,13 @@ class DseServiceTest {
 
   private DseService dseService;
 
+  private DseProfileIndex createDseProfileIndex() {
+    return new DseProfileIndex(dseProfileRepository, objectMapper,
+        new PropertiesReader(new MockEnvironment().withProperty("ontology-tag", "v1")));
+  }
+
   private DseService createDseService() throws IOException {
-    return new DseService("src/test/resources/ontology/dse/profile_tree.json", dseProfileRepository, objectMapper);
+    return new DseService("src/test/resources/ontology/dse/profile_tree.json", createDseProfileIndex(), objectMapper);
   }
 
   @BeforeEach
@@ -48,7 +51,7 @@ class DseServiceTest {
   @Test
   void testCreateProfileTreeInstance_throwsOnProfileTreeNotFound() {
     assertThrows(FileNotFoundException.class, ()
-        -> new DseService("src/test/this/is/not/found.json", dseProfileRepository, objectMapper));
+        -> new DseService("src/test/this/is/not/found.json", createDseProfileIndex(), objectMapper));
   }
 
   @Test
@@ -68,7 +71,7 @@ class DseServiceTest {
   @Test
   void testGetProfileTree_throwsOnObjectMapperError() {
     assertThrows(UnrecognizedPropertyException.class, ()
-        -> new DseService("src/test/resources/ontology/dse/bogus_profile_tree.json", dseProfileRepository, objectMapper));
+        -> new DseService("src/test/resources/ontology/dse/bogus_profile_tree.json", createDseProfileIndex(), objectMapper));
   }
 
   @Test
@@ -81,7 +84,7 @@ class DseServiceTest {
 
   @Test
   void testGetProfileData_succeedsWithoutErrors() throws JsonProcessingException {
-    doReturn(Optional.of(createDummyDseProfile())).when(dseProfileRepository).findByUrl(any(String.class));
+    doReturn(List.of(createDummyDseProfile("1"))).when(dseProfileRepository).findAll();
 
     var results = assertDoesNotThrow(() -> dseService.getProfileData(List.of("1")));
 
@@ -90,8 +93,8 @@ class DseServiceTest {
   }
 
   @Test
-  void testGetProfileData_succeedsWithErrorEntryOnCaughtException() throws JsonProcessingException {
-    doThrow(DataIntegrityViolationException.class).when(dseProfileRepository).findByUrl(any(String.class));
+  void testGetProfileData_succeedsWithErrorEntryOnUnknownProfile() {
+    doReturn(List.of()).when(dseProfileRepository).findAll();
 
     var results = assertDoesNotThrow(() -> dseService.getProfileData(List.of("1")));
 
@@ -104,8 +107,7 @@ class DseServiceTest {
 
   @Test
   void testGetProfileData_succeedsWithErrors() throws JsonProcessingException {
-    doReturn(Optional.of(createDummyDseProfile())).when(dseProfileRepository).findByUrl("found");
-    doReturn(Optional.empty()).when(dseProfileRepository).findByUrl("not-found");
+    doReturn(List.of(createDummyDseProfile("found"))).when(dseProfileRepository).findAll();
 
     var results = assertDoesNotThrow(() -> dseService.getProfileData(List.of("found", "not-found")));
 
@@ -117,15 +119,30 @@ class DseServiceTest {
 
   @Test
   void testGetProfileData_throwsOnJsonProcessingException() {
-    doReturn(Optional.of(createDummyDseProfileWithBogusEntry())).when(dseProfileRepository).findByUrl(any(String.class));
-    assertThrows(RuntimeException.class, () -> dseService.getProfileData(List.of("1")));
+    doReturn(List.of(createDummyDseProfileWithBogusEntry())).when(dseProfileRepository).findAll();
+    assertThrows(RuntimeException.class, () -> dseService.getProfileData(List.of("http://example.com")));
   }
 
-  private DseProfile createDummyDseProfile() throws JsonProcessingException {
+  @Test
+  void testGetProfileDataJson_matchesProfileData() throws IOException {
+    doReturn(List.of(createDummyDseProfile("found"))).when(dseProfileRepository).findAll();
+
+    var json = dseService.getProfileDataJson(List.of("found", "not-found"));
+
+    assertEquals(objectMapper.readTree(objectMapper.writeValueAsBytes(dseService.getProfileData(List.of("found", "not-found")))),
+        objectMapper.readTree(json));
+  }
+
+  @Test
+  void testGetProfileDataJson_succeedsWithEmptyList() throws IOException {
+    assertEquals("[]", new String(dseService.getProfileDataJson(List.of())));
+  }
+
+  private DseProfile createDummyDseProfile(String url) throws JsonProcessingException {
     var dseProfile = new DseProfile();
 
     dseProfile.setId(1L);
-    dseProfile.setUrl("http://example.com");
+    dseProfile.setUrl(url);
     dseProfile.setEntry(objectMapper.writeValueAsString(createDummyDseProfileEntry()));
 
     return dseProfile;
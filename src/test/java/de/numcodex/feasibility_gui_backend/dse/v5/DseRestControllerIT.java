@@ -1,17 +1,22 @@
 package de.numcodex.feasibility_gui_backend.dse.v5;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import de.numcodex.feasibility_gui_backend.config.PropertiesReader;
 import de.numcodex.feasibility_gui_backend.dse.DseService;
 import de.numcodex.feasibility_gui_backend.common.api.DisplayEntry;
 import de.numcodex.feasibility_gui_backend.dse.api.DseProfile;
 import de.numcodex.feasibility_gui_backend.dse.api.DseProfileTreeNode;
 import de.numcodex.feasibility_gui_backend.dse.api.LocalizedValue;
 import de.numcodex.feasibility_gui_backend.query.ratelimiting.RateLimitingInterceptor;
+import de.numcodex.feasibility_gui_backend.terminology.OntologyResponseCache;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -32,6 +37,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @Tag("terminology")
 @ExtendWith(SpringExtension.class)
+@Import({OntologyResponseCache.class, PropertiesReader.class})
 @WebMvcTest(
     controllers = DseRestController.class
 )
@@ -49,6 +55,14 @@ class DseRestControllerIT {
   @MockitoBean
   private RateLimitingInterceptor rateLimitingInterceptor;
 
+  @Autowired
+  private OntologyResponseCache ontologyResponseCache;
+
+  @BeforeEach
+  void setUp() {
+    ontologyResponseCache.clear();
+  }
+
   @Test
   @WithMockUser(roles = "DATAPORTAL_TEST_USER")
   public void testGetProfileTree_succeedsWith200() throws Exception {
@@ -62,6 +76,22 @@ class DseRestControllerIT {
         .andExpect(jsonPath("$.children.[0].children", hasSize(5)));
   }
 
+  @Test
+  @WithMockUser(roles = "DATAPORTAL_TEST_USER")
+  public void testGetProfileTree_succeedsWith304OnMatchingETag() throws Exception {
+    doReturn(jsonUtil.readValue(new URL("file:src/test/resources/ontology/dse/profile_tree.json"), DseProfileTreeNode.class)).when(dseService).getProfileTree();
+
+    var etag = mockMvc.perform(get(URI.create(PATH_API + PATH_DSE + "/profile-tree")).with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(header().exists(HttpHeaders.ETAG))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    mockMvc.perform(get(URI.create(PATH_API + PATH_DSE + "/profile-tree")).header(HttpHeaders.IF_NONE_MATCH, etag).with(csrf()))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.ETAG, etag))
+        .andExpect(content().bytes(new byte[0]));
+  }
+
   @Test
   @WithMockUser(roles = "DATAPORTAL_TEST_USER")
   public void testGetProfileTree_failsOnFileNotFound() throws Exception {
@@ -74,7 +104,7 @@ class DseRestControllerIT {
   @Test
   @WithMockUser(roles = "DATAPORTAL_TEST_USER")
   void testGetProfileData_succeedsWith200OnFoundProfile() throws Exception {
-    doReturn(List.of(createDummyDseProfileEntry())).when(dseService).getProfileData(anyList());
+    doReturn(jsonUtil.writeValueAsBytes(List.of(createDummyDseProfileEntry()))).when(dseService).getProfileDataJson(anyList());
 
     mockMvc.perform(get(URI.create(PATH_API + PATH_DSE + "/profile-data")).param("ids", "https://www.medizininformatik-initiative.de/fhir/core/modul-labor/StructureDefinition/ObservationLab,foobar").with(csrf()))
         .andExpect(status().isOk())
@@ -85,7 +115,7 @@ class DseRestControllerIT {
   @Test
   @WithMockUser(roles = "DATAPORTAL_TEST_USER")
   void testGetProfileData_succeedsWith200OnNoFoundProfile() throws Exception {
-    doReturn(List.of()).when(dseService).getProfileData(anyList());
+    doReturn("[]".getBytes()).when(dseService).getProfileDataJson(anyList());
 
     mockMvc.perform(get(URI.create(PATH_API + PATH_DSE + "/profile-data")).param("ids", "https://www.medizininformatik-initiative.de/fhir/core/modul-labor/StructureDefinition/ObservationLab,foobar").with(csrf()))
         .andExpect(status().isOk())
@@ -17,6 +17,7 @@ import de.numcodex.feasibility_gui_backend.query.dataquery.DataquerySpringConfig
 import de.numcodex.feasibility_gui_backend.query.dispatch.QueryDispatchSpringConfig;
 import de.numcodex.feasibility_gui_backend.query.dispatch.QueryHashCalculator;
 import de.numcodex.feasibility_gui_backend.query.persistence.*;
+import de.numcodex.feasibility_gui_backend.query.quota.QueryQuotaSpringConfig;
 import de.numcodex.feasibility_gui_backend.query.result.ResultLine;
 import de.numcodex.feasibility_gui_backend.query.result.ResultService;
 import de.numcodex.feasibility_gui_backend.query.result.ResultServiceSpringConfig;
@@ -63,6 +64,7 @@ import static org.junit.jupiter.api.Assertions.*;
         QueryCollectSpringConfig.class,
         QueryHandlerService.class,
         ResultServiceSpringConfig.class,
+        QueryQuotaSpringConfig.class,
         DataquerySpringConfig.class
 })
 @DataJpaTest(
@@ -72,7 +74,8 @@ import static org.junit.jupiter.api.Assertions.*;
                 "app.broker.mock.enabled=true",
                 "app.broker.direct.enabled=false",
                 "app.broker.aktin.enabled=false",
-                "app.broker.dsf.enabled=false"
+                "app.broker.dsf.enabled=false",
+                "app.queryQuotaStore.type=postgres"
         }
 )
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
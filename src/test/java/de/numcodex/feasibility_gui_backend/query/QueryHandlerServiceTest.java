@@ -4,8 +4,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import de.numcodex.feasibility_gui_backend.query.api.StructuredQuery;
 import de.numcodex.feasibility_gui_backend.query.dispatch.QueryDispatchException;
 import de.numcodex.feasibility_gui_backend.query.dispatch.QueryDispatcher;
+import de.numcodex.feasibility_gui_backend.query.persistence.Query;
 import de.numcodex.feasibility_gui_backend.query.persistence.QueryContentRepository;
 import de.numcodex.feasibility_gui_backend.query.persistence.QueryRepository;
+import de.numcodex.feasibility_gui_backend.query.quota.QueryQuotaStore;
+import de.numcodex.feasibility_gui_backend.query.result.QueryResultSnapshot;
+import de.numcodex.feasibility_gui_backend.query.result.ResultLine;
 import de.numcodex.feasibility_gui_backend.query.result.ResultService;
 import de.numcodex.feasibility_gui_backend.query.translation.QueryTranslator;
 import de.numcodex.feasibility_gui_backend.terminology.validation.StructuredQueryValidation;
@@ -16,12 +20,27 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.test.StepVerifier;
 
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
+import static de.numcodex.feasibility_gui_backend.query.persistence.ResultType.SUCCESS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class QueryHandlerServiceTest {
@@ -48,11 +67,15 @@ class QueryHandlerServiceTest {
   @Mock
   private QueryTranslator queryTranslator;
 
+  @Mock
+  private QueryQuotaStore queryQuotaStore;
+
   private QueryHandlerService queryHandlerService;
 
   private QueryHandlerService createQueryHandlerService() {
     return new QueryHandlerService(queryDispatcher, queryRepository, queryContentRepository,
-        resultService, structuredQueryValidation, queryTranslator, jsonUtil);
+        resultService, structuredQueryValidation, queryTranslator, jsonUtil, queryQuotaStore,
+        Duration.ofMinutes(1), 10000, 20);
   }
 
   @BeforeEach
@@ -75,4 +98,177 @@ class QueryHandlerServiceTest {
         .expectError(QueryDispatchException.class)
         .verify();
   }
+
+  @Test
+  public void testGetQueryResult_countsSitesAboveSitesResultThreshold() {
+    when(resultService.findSnapshotByQuery(1L)).thenReturn(QueryResultSnapshot.of(List.of(
+        ResultLine.builder().siteName("A").type(SUCCESS).result(20L).build(),
+        ResultLine.builder().siteName("B").type(SUCCESS).result(21L).build(),
+        ResultLine.builder().siteName("C").type(SUCCESS).result(100L).build())));
+
+    var queryResult = queryHandlerService.getQueryResult(1L, QueryHandlerService.ResultDetail.SUMMARY);
+
+    assertThat(queryResult.resultLines()).isEmpty();
+    assertThat(queryResult.numberOfSitesAboveThreshold()).isEqualTo(2);
+  }
+
+  @Test
+  public void testStreamQueryResult_emitsChangedResultsOnly() {
+    var resultUpdates = Sinks.many().multicast().<Long>directBestEffort();
+    var resultLineA = ResultLine.builder().siteName("A").type(SUCCESS).result(10L).build();
+    var resultLineB = ResultLine.builder().siteName("B").type(SUCCESS).result(20L).build();
+    doReturn(Optional.of(createQuery(Instant.now()))).when(queryRepository).findById(1L);
+    when(resultService.resultUpdates(1L)).thenReturn(resultUpdates.asFlux());
+    when(resultService.findSnapshotByQuery(1L))
+        .thenReturn(QueryResultSnapshot.of(List.of(resultLineA)))
+        .thenReturn(QueryResultSnapshot.of(List.of(resultLineA)))
+        .thenReturn(QueryResultSnapshot.of(List.of(resultLineB, resultLineA)));
+
+    StepVerifier.create(queryHandlerService.streamQueryResult(1L, QueryHandlerService.ResultDetail.SUMMARY,
+            Duration.ofHours(1)))
+        .assertNext(queryResult -> {
+          assertThat(queryResult.totalNumberOfPatients()).isEqualTo(10L);
+          assertThat(queryResult.resultLines()).isEmpty();
+        })
+        .then(() -> resultUpdates.tryEmitNext(1L))
+        .expectNoEvent(Duration.ofMillis(200))
+        .then(() -> resultUpdates.tryEmitNext(1L))
+        .assertNext(queryResult -> assertThat(queryResult.totalNumberOfPatients()).isEqualTo(30L))
+        .thenCancel()
+        .verify(Duration.ofSeconds(5));
+  }
+
+  @Test
+  public void testStreamQueryResult_picksUpResultsOfSharedStorePeriodically() {
+    var resultLine = ResultLine.builder().siteName("A").type(SUCCESS).result(10L).build();
+    doReturn(Optional.of(createQuery(Instant.now()))).when(queryRepository).findById(1L);
+    when(resultService.isShared()).thenReturn(true);
+    when(resultService.resultUpdates(1L)).thenReturn(Sinks.many().multicast().<Long>directBestEffort().asFlux());
+    when(resultService.findSnapshotByQuery(1L))
+        .thenReturn(QueryResultSnapshot.EMPTY)
+        .thenReturn(QueryResultSnapshot.of(List.of(resultLine)));
+
+    StepVerifier.create(queryHandlerService.streamQueryResult(1L, QueryHandlerService.ResultDetail.DETAILED_OBFUSCATED,
+            Duration.ofMillis(50)))
+        .assertNext(queryResult -> assertThat(queryResult.totalNumberOfPatients()).isZero())
+        .assertNext(queryResult -> {
+          assertThat(queryResult.totalNumberOfPatients()).isEqualTo(10L);
+          assertThat(queryResult.resultLines()).singleElement()
+              .satisfies(line -> assertThat(line.siteName()).isNotEqualTo("A"));
+        })
+        .thenCancel()
+        .verify(Duration.ofSeconds(5));
+  }
+
+  @Test
+  public void testStreamQueryResult_doesNotPollUnsharedStore() {
+    doReturn(Optional.of(createQuery(Instant.now()))).when(queryRepository).findById(1L);
+    when(resultService.resultUpdates(1L)).thenReturn(Sinks.many().multicast().<Long>directBestEffort().asFlux());
+    when(resultService.findSnapshotByQuery(1L)).thenReturn(QueryResultSnapshot.EMPTY);
+
+    StepVerifier.create(queryHandlerService.streamQueryResult(1L, QueryHandlerService.ResultDetail.SUMMARY,
+            Duration.ofMillis(50)))
+        .assertNext(queryResult -> assertThat(queryResult.totalNumberOfPatients()).isZero())
+        .expectNoEvent(Duration.ofMillis(300))
+        .thenCancel()
+        .verify(Duration.ofSeconds(5));
+
+    verify(resultService, times(1)).findSnapshotByQuery(1L);
+  }
+
+  @Test
+  public void testStreamQueryResult_completesOnceResultExpiryPassedSinceQueryCreation() {
+    var resultUpdates = Sinks.many().multicast().<Long>directBestEffort();
+    doReturn(Optional.of(createQuery(Instant.now().minus(Duration.ofMinutes(1)).plusMillis(500))))
+        .when(queryRepository).findById(1L);
+    when(resultService.resultUpdates(1L)).thenReturn(resultUpdates.asFlux());
+    when(resultService.findSnapshotByQuery(1L)).thenReturn(QueryResultSnapshot.EMPTY);
+
+    StepVerifier.create(queryHandlerService.streamQueryResult(1L, QueryHandlerService.ResultDetail.SUMMARY,
+            Duration.ofHours(1)))
+        .assertNext(queryResult -> assertThat(queryResult.totalNumberOfPatients()).isZero())
+        .expectComplete()
+        .verify(Duration.ofSeconds(5));
+  }
+
+  @Test
+  public void testStreamQueryResult_emitsCurrentResultOnlyForExpiredQuery() {
+    var resultLine = ResultLine.builder().siteName("A").type(SUCCESS).result(10L).build();
+    doReturn(Optional.of(createQuery(Instant.now().minus(Duration.ofMinutes(2))))).when(queryRepository).findById(1L);
+    when(resultService.findSnapshotByQuery(1L)).thenReturn(QueryResultSnapshot.of(List.of(resultLine)));
+
+    StepVerifier.create(queryHandlerService.streamQueryResult(1L, QueryHandlerService.ResultDetail.SUMMARY,
+            Duration.ofHours(1)))
+        .assertNext(queryResult -> assertThat(queryResult.totalNumberOfPatients()).isEqualTo(10L))
+        .expectComplete()
+        .verify(Duration.ofSeconds(5));
+
+    verify(resultService, never()).resultUpdates(1L);
+  }
+
+  private static Query createQuery(Instant createdAt) {
+    var query = new Query();
+    query.setId(1L);
+    query.setCreatedAt(Timestamp.from(createdAt));
+    return query;
+  }
+
+  @Test
+  public void testGetAuthorId_servesAuthorOfRunQueryFromMemory() throws Exception {
+    var testStructuredQuery = StructuredQuery.builder()
+        .inclusionCriteria(List.of(List.of()))
+        .exclusionCriteria(List.of(List.of()))
+        .build();
+    doReturn(1L).when(queryDispatcher).enqueueNewQuery(any(StructuredQuery.class), any(String.class));
+    doReturn(Mono.empty()).when(queryDispatcher).dispatchEnqueuedQuery(1L);
+
+    StepVerifier.create(queryHandlerService.runQuery(testStructuredQuery, "userid"))
+        .expectNext(1L)
+        .verifyComplete();
+
+    assertThat(queryHandlerService.getAuthorId(1L)).isEqualTo("userid");
+    verify(queryRepository, never()).getAuthor(any());
+    verify(queryQuotaStore).recordQuery(eq("userid"), any());
+  }
+
+  @Test
+  public void testGetAuthorId_looksUpUnknownQueryOnlyOnce() throws Exception {
+    doReturn(Optional.of("userid")).when(queryRepository).getAuthor(1L);
+
+    assertThat(queryHandlerService.getAuthorId(1L)).isEqualTo("userid");
+    assertThat(queryHandlerService.getAuthorId(1L)).isEqualTo("userid");
+    verify(queryRepository, times(1)).getAuthor(1L);
+  }
+
+  @Test
+  public void testGetAuthorId_failsOnMissingQuery() {
+    doReturn(Optional.empty()).when(queryRepository).getAuthor(1L);
+
+    assertThatThrownBy(() -> queryHandlerService.getAuthorId(1L)).isInstanceOf(QueryNotFoundException.class);
+  }
+
+  @Test
+  public void testGetRetryAfterTime() {
+    doReturn(Optional.of(Duration.ofSeconds(20))).when(queryQuotaStore).findAgeOfQuery("userid", 2);
+
+    assertThat(queryHandlerService.getRetryAfterTime("userid", 2, "PT1M")).isEqualTo(41L);
+  }
+
+  @Test
+  public void testGetRetryAfterTime_zeroWithoutEnoughQueries() {
+    doReturn(Optional.empty()).when(queryQuotaStore).findAgeOfQuery("userid", 2);
+
+    assertThat(queryHandlerService.getRetryAfterTime("userid", 2, "PT1M")).isZero();
+  }
+
+  @Test
+  public void testGetSentQueryStatistics_convertsPeriods() {
+    doReturn(1L).when(queryQuotaStore).countQueries("userid", Duration.ofMinutes(1));
+    doReturn(4L).when(queryQuotaStore).countQueries("userid", Duration.ofDays(7));
+
+    var quota = queryHandlerService.getSentQueryStatistics("userid", 3, "PT1M", 50, "P1W");
+
+    assertThat(quota.soft().used()).isEqualTo(1);
+    assertThat(quota.hard().used()).isEqualTo(4);
+  }
 }
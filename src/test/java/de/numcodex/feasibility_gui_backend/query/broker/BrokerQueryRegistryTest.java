@@ -0,0 +1,71 @@
+package de.numcodex.feasibility_gui_backend.query.broker;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("query")
+@Tag("broker")
+public class BrokerQueryRegistryTest {
+
+  @Test
+  void testCreateQueryMap_KeepsQueriesUntilRemoved() {
+    var registry = new BrokerQueryRegistry();
+    var queries = registry.<Long>createQueryMap("test");
+
+    queries.put("broker-query-id", 1L);
+
+    assertEquals(1L, queries.get("broker-query-id"));
+    assertEquals(1L, queries.remove("broker-query-id"));
+    assertNull(queries.get("broker-query-id"));
+  }
+
+  @Test
+  void testCreateQueryMap_EvictsExpiredQueries() {
+    var registry = new BrokerQueryRegistry(10, Duration.ZERO, new SimpleMeterRegistry());
+    var queries = registry.<Long>createQueryMap("test");
+
+    queries.put("broker-query-id", 1L);
+
+    assertNull(queries.get("broker-query-id"));
+  }
+
+  @Test
+  void testCreateQueryMap_AcceptsConcurrentWrites() throws InterruptedException {
+    var registry = new BrokerQueryRegistry();
+    var queries = registry.<Long>createQueryMap("test");
+    var executor = Executors.newFixedThreadPool(4);
+
+    IntStream.range(0, 1000).forEach(i -> executor.submit(() -> queries.put("query-" + i, (long) i)));
+    executor.shutdown();
+
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    assertEquals(1000, queries.size());
+  }
+
+  @Test
+  void testCreateQueryMap_ExposesSizeMetricPerMap() {
+    var meterRegistry = new SimpleMeterRegistry();
+    var registry = new BrokerQueryRegistry(10, Duration.ofHours(1), meterRegistry);
+    var queries = registry.<Long>createQueryMap("test");
+    registry.createQueryMap("other");
+
+    queries.put("broker-query-id", 1L);
+
+    assertEquals(1.0, meterRegistry.get("broker.queries").tag("map", "test").gauge().value());
+    assertEquals(0.0, meterRegistry.get("broker.queries").tag("map", "other").gauge().value());
+  }
+
+  @Test
+  void testNew_RejectsNonPositiveMaximum() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new BrokerQueryRegistry(0, Duration.ofHours(1), new SimpleMeterRegistry()));
+  }
+}
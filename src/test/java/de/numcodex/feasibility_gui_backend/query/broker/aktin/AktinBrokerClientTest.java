@@ -1,9 +1,10 @@
 package de.numcodex.feasibility_gui_backend.query.broker.aktin;
 
+import de.numcodex.feasibility_gui_backend.query.broker.BrokerQueryRegistry;
 import org.aktin.broker.client2.BrokerAdmin2;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -12,6 +13,7 @@ import java.io.IOException;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -20,9 +22,21 @@ public class AktinBrokerClientTest {
     @Mock
     private BrokerAdmin2 delegate;
 
-    @InjectMocks
     private AktinBrokerClient client;
 
+    @BeforeEach
+    public void setUp() {
+        client = new AktinBrokerClient(delegate, new BrokerQueryRegistry());
+    }
+
+    @Test
+    public void testCloseQuery_DeletesRequestFromBroker() throws IOException {
+        assertDoesNotThrow(() -> client.closeQuery("42"));
+
+        verify(delegate).closeRequest(42);
+        verify(delegate).deleteRequest(42);
+    }
+
     @Test
     public void testGetResultFeasibility_ReturnsActualPeerResultIfParsable() throws IOException {
         when(delegate.getResultString(anyInt(), anyInt())).thenReturn("5");
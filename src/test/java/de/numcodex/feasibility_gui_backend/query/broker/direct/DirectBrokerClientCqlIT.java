@@ -1,5 +1,6 @@
 package de.numcodex.feasibility_gui_backend.query.broker.direct;
 
+import de.numcodex.feasibility_gui_backend.query.broker.BrokerQueryRegistry;
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.rest.client.api.IGenericClient;
 import de.numcodex.feasibility_gui_backend.query.broker.QueryDefinitionNotFoundException;
@@ -20,9 +21,12 @@ import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.containers.wait.strategy.Wait;
 import org.testcontainers.images.PullPolicy;
 import org.testcontainers.junit.jupiter.Testcontainers;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.testcontainers.utility.DockerImageName;
+import reactor.core.scheduler.Schedulers;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.stream.Stream;
 
 import static de.numcodex.feasibility_gui_backend.query.QueryMediaType.CQL;
@@ -40,7 +44,7 @@ import static org.mockito.Mockito.verify;
 @SuppressWarnings("NewClassNamingConvention")
 class DirectBrokerClientCqlIT {
 
-    private static final int ASYNC_TIMEOUT_WAIT_MS = 2000;
+    private static final int ASYNC_TIMEOUT_WAIT_MS = 20000;
     private static final Long TEST_BACKEND_QUERY_ID = 1L;
 
     private final GenericContainer<?> blaze = new GenericContainer<>(DockerImageName.parse("samply/blaze:1.0.3"))
@@ -58,9 +62,12 @@ class DirectBrokerClientCqlIT {
         fhirContext.getRestfulClientFactory().setSocketTimeout(200 * 1000);
         IGenericClient fhirClient = fhirContext.newRestfulGenericClient(
             format("http://localhost:%d/fhir", blaze.getFirstMappedPort()));
-        FhirConnector fhirConnector = new FhirConnector(fhirClient);
+        FhirConnector fhirConnector = new FhirConnector(
+            WebClient.create(format("http://localhost:%d/fhir", blaze.getFirstMappedPort())), fhirContext, false,
+            Duration.ofSeconds(200));
         FhirHelper fhirHelper = new FhirHelper(fhirContext);
-        client = new DirectBrokerClientCql(fhirConnector, false, fhirHelper);
+        client = new DirectBrokerClientCql(fhirConnector, false, fhirHelper, new BrokerQueryRegistry(), 4, 100,
+            Schedulers.boundedElastic());
 
         Stream.of(
             new Patient().setGender(AdministrativeGender.MALE),
@@ -1,5 +1,6 @@
 package de.numcodex.feasibility_gui_backend.query.broker.direct;
 
+import de.numcodex.feasibility_gui_backend.query.broker.BrokerQueryRegistry;
 import static de.numcodex.feasibility_gui_backend.query.broker.direct.DirectBrokerClient.SITE_ID_LOCAL;
 import static de.numcodex.feasibility_gui_backend.query.collect.QueryStatus.COMPLETED;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -7,8 +8,10 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.doThrow;
+import static de.numcodex.feasibility_gui_backend.query.collect.QueryStatus.FAILED;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -16,6 +19,7 @@ import de.numcodex.feasibility_gui_backend.query.QueryMediaType;
 import de.numcodex.feasibility_gui_backend.query.broker.QueryDefinitionNotFoundException;
 import de.numcodex.feasibility_gui_backend.query.broker.QueryNotFoundException;
 import de.numcodex.feasibility_gui_backend.query.broker.SiteNotFoundException;
+import de.numcodex.feasibility_gui_backend.query.collect.QueryStatus;
 import de.numcodex.feasibility_gui_backend.query.collect.QueryStatusListener;
 import de.numcodex.feasibility_gui_backend.query.collect.QueryStatusUpdate;
 import java.io.IOException;
@@ -27,6 +31,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Answers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
 
 @ExtendWith(MockitoExtension.class)
 class DirectBrokerClientCqlTest {
@@ -36,7 +43,7 @@ class DirectBrokerClientCqlTest {
     private static final int MEASURE_COUNT = 8723132;
 
     @SuppressWarnings("unused")
-    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    @Mock
     FhirConnector fhirConnector;
 
     @SuppressWarnings("unused")
@@ -47,7 +54,33 @@ class DirectBrokerClientCqlTest {
 
     @BeforeEach
     void setUp() {
-        client = new DirectBrokerClientCql(fhirConnector, false, fhirHelper);
+        client = createClient(4, 100);
+    }
+
+    private DirectBrokerClientCql createClient(int maxConcurrentEvaluations, int maxQueuedEvaluations) {
+        return new DirectBrokerClientCql(fhirConnector, false, fhirHelper, new BrokerQueryRegistry(),
+                maxConcurrentEvaluations, maxQueuedEvaluations, Schedulers.immediate());
+    }
+
+    private String createPublishableQuery(DirectBrokerClientCql client) throws QueryNotFoundException {
+        var queryId = client.createQuery(TEST_BACKEND_QUERY_ID);
+        client.addQueryDefinition(queryId, QueryMediaType.CQL, EXAMPLE_CQL);
+        return queryId;
+    }
+
+    private QueryStatusUpdate statusUpdate(String queryId, QueryStatus status) {
+        return QueryStatusUpdate.builder()
+                .source(client)
+                .brokerQueryId(queryId)
+                .brokerSiteId(SITE_ID_LOCAL)
+                .status(status)
+                .build();
+    }
+
+    private static MeasureReport measureReport() {
+        MeasureReport measureReport = new MeasureReport();
+        measureReport.addGroup().addPopulation().setCount(MEASURE_COUNT);
+        return measureReport;
     }
 
     @Test
@@ -58,7 +91,8 @@ class DirectBrokerClientCqlTest {
         MeasureReport measureReport = new MeasureReport();
         measureReport.addGroup().addPopulation().setCount(MEASURE_COUNT);
         when(fhirHelper.createBundle(eq(EXAMPLE_CQL), any(String.class), any(String.class))).thenReturn(testBundle);
-        when(fhirConnector.evaluateMeasure(any(String.class))).thenReturn(measureReport);
+        when(fhirConnector.transmitBundle(testBundle)).thenReturn(Mono.empty());
+        when(fhirConnector.evaluateMeasure(any(String.class))).thenReturn(Mono.just(measureReport));
 
         client.publishQuery(queryId);
 
@@ -76,7 +110,8 @@ class DirectBrokerClientCqlTest {
         MeasureReport measureReport = new MeasureReport();
         measureReport.addGroup().addPopulation().setCount(MEASURE_COUNT);
         when(fhirHelper.createBundle(eq(EXAMPLE_CQL), any(String.class), any(String.class))).thenReturn(testBundle);
-        when(fhirConnector.evaluateMeasure(any(String.class))).thenReturn(measureReport);
+        when(fhirConnector.transmitBundle(testBundle)).thenReturn(Mono.empty());
+        when(fhirConnector.evaluateMeasure(any(String.class))).thenReturn(Mono.just(measureReport));
 
         client.publishQuery(queryId);
 
@@ -115,20 +150,78 @@ class DirectBrokerClientCqlTest {
 
     @Test
     void testPublishExistingQueryWithIOExceptionInTransmitBundle() throws Exception {
-        var queryId = client.createQuery(TEST_BACKEND_QUERY_ID);
-        client.addQueryDefinition(queryId, QueryMediaType.CQL, EXAMPLE_CQL);
-        doThrow(IOException.class).when(fhirConnector).transmitBundle(any(Bundle.class));
+        var queryId = createPublishableQuery(client);
+        var listener = mock(QueryStatusListener.class);
+        client.addQueryStatusListener(listener);
+        when(fhirConnector.transmitBundle(any())).thenReturn(Mono.error(new IOException("transmit failed")));
 
-        assertThrows(IOException.class, () -> client.publishQuery(queryId));
+        client.publishQuery(queryId);
+
+        verify(listener).onClientUpdate(TEST_BACKEND_QUERY_ID, statusUpdate(queryId, FAILED));
+        verify(fhirConnector, never()).evaluateMeasure(any(String.class));
     }
 
     @Test
     void testPublishExistingQueryWithIOExceptionInEvaluateMeasure() throws Exception {
-        var queryId = client.createQuery(TEST_BACKEND_QUERY_ID);
-        client.addQueryDefinition(queryId, QueryMediaType.CQL, EXAMPLE_CQL);
-        when(fhirConnector.evaluateMeasure(any(String.class))).thenThrow(IOException.class);
+        var queryId = createPublishableQuery(client);
+        var listener = mock(QueryStatusListener.class);
+        client.addQueryStatusListener(listener);
+        when(fhirConnector.transmitBundle(any())).thenReturn(Mono.empty());
+        when(fhirConnector.evaluateMeasure(any(String.class)))
+                .thenReturn(Mono.error(new IOException("evaluation failed")));
 
-        assertThrows(IOException.class, () -> client.publishQuery(queryId));
+        client.publishQuery(queryId);
+
+        verify(listener).onClientUpdate(TEST_BACKEND_QUERY_ID, statusUpdate(queryId, FAILED));
+        verify(listener, never()).onClientUpdate(TEST_BACKEND_QUERY_ID, statusUpdate(queryId, COMPLETED));
+    }
+
+    @Test
+    void testPublishQuery_QueuesEvaluationsBeyondMaxConcurrentEvaluations() throws Exception {
+        client = createClient(1, 1);
+        var listener = mock(QueryStatusListener.class);
+        client.addQueryStatusListener(listener);
+        var firstTransmission = Sinks.empty();
+        when(fhirConnector.transmitBundle(any()))
+                .thenReturn(firstTransmission.asMono().then())
+                .thenReturn(Mono.empty());
+        when(fhirConnector.evaluateMeasure(any(String.class))).thenReturn(Mono.just(measureReport()));
+        var firstQueryId = createPublishableQuery(client);
+        var secondQueryId = createPublishableQuery(client);
+
+        client.publishQuery(firstQueryId);
+        client.publishQuery(secondQueryId);
+
+        verify(fhirConnector, times(1)).transmitBundle(any());
+
+        firstTransmission.tryEmitEmpty();
+
+        verify(fhirConnector, times(2)).transmitBundle(any());
+        verify(listener).onClientUpdate(TEST_BACKEND_QUERY_ID, statusUpdate(firstQueryId, COMPLETED));
+        verify(listener).onClientUpdate(TEST_BACKEND_QUERY_ID, statusUpdate(secondQueryId, COMPLETED));
+    }
+
+    @Test
+    void testPublishQuery_FailsIfEvaluationQueueIsFull() throws Exception {
+        client = createClient(1, 1);
+        var listener = mock(QueryStatusListener.class);
+        client.addQueryStatusListener(listener);
+        when(fhirConnector.transmitBundle(any())).thenReturn(Mono.never());
+        var firstQueryId = createPublishableQuery(client);
+        var secondQueryId = createPublishableQuery(client);
+        var thirdQueryId = createPublishableQuery(client);
+
+        client.publishQuery(firstQueryId);
+        client.publishQuery(secondQueryId);
+
+        assertThrows(IOException.class, () -> client.publishQuery(thirdQueryId));
+        verify(listener).onClientUpdate(TEST_BACKEND_QUERY_ID, statusUpdate(thirdQueryId, FAILED));
+        verify(fhirConnector, times(1)).transmitBundle(any());
+    }
+
+    @Test
+    void testNew_RejectsNonPositiveMaxConcurrentEvaluations() {
+        assertThrows(IllegalArgumentException.class, () -> createClient(0, 1));
     }
 
     @Test
@@ -1,5 +1,6 @@
 package de.numcodex.feasibility_gui_backend.query.broker.direct;
 
+import de.numcodex.feasibility_gui_backend.query.broker.BrokerQueryRegistry;
 import de.numcodex.feasibility_gui_backend.query.broker.QueryDefinitionNotFoundException;
 import de.numcodex.feasibility_gui_backend.query.broker.QueryNotFoundException;
 import de.numcodex.feasibility_gui_backend.query.broker.SiteNotFoundException;
@@ -25,7 +26,7 @@ class DirectBrokerClientFlareTest {
 
     @BeforeEach
     void setUp() {
-        client = new DirectBrokerClientFlare(webClient, false);
+        client = new DirectBrokerClientFlare(webClient, false, new BrokerQueryRegistry());
 
     }
 
@@ -1,11 +1,8 @@
 package de.numcodex.feasibility_gui_backend.query.broker.direct;
 
 import ca.uhn.fhir.context.FhirContext;
-import ca.uhn.fhir.rest.client.api.IGenericClient;
-import ca.uhn.fhir.rest.client.interceptor.BasicAuthInterceptor;
 import de.numcodex.feasibility_gui_backend.query.broker.BrokerClient;
-import de.numcodex.feasibility_gui_backend.query.broker.OAuthInterceptor;
-import org.assertj.core.api.Assertions;
+import de.numcodex.feasibility_gui_backend.query.broker.BrokerQueryRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -66,46 +63,53 @@ class DirectSpringConfigTest {
   }
 
   @Test
-  void getFhirClient_withCredentials() {
+  void directWebClientCql_withCredentials() {
     directSpringConfig = new DirectSpringConfig(true, null, "http://my.fhir.url", "username", "password", null, null,
             null, TIMEOUT, false);
 
-    IGenericClient fhirClient = directSpringConfig.getFhirClient(fhirContext);
+    WebClient webClient = directSpringConfig.directWebClientCql();
 
-    assertNotNull(fhirClient);
-    Assertions.assertThat(fhirClient.getInterceptorService().getAllRegisteredInterceptors())
-        .anySatisfy(interceptor -> Assertions.assertThat(interceptor).isInstanceOf(BasicAuthInterceptor.class));
+    assertNotNull(webClient);
+    // Since there is no way to check whether the webclient has an auth filter set, see DirectSpringConfigIT.java for a check for that
   }
 
   @Test
-  void getFhirClient_withoutCredentials() {
+  void directWebClientCql_withoutCredentials() {
       directSpringConfig = new DirectSpringConfig(true, null, "http://my.fhir.url", null, null, null, null, null,
               TIMEOUT, false);
 
-    IGenericClient fhirClient = directSpringConfig.getFhirClient(fhirContext);
+    WebClient webClient = directSpringConfig.directWebClientCql();
 
-    assertNotNull(fhirClient);
-    Assertions.assertThat(fhirClient.getInterceptorService().getAllRegisteredInterceptors())
-        .noneSatisfy(interceptor -> Assertions.assertThat(interceptor).isInstanceOf(BasicAuthInterceptor.class));
+    assertNotNull(webClient);
   }
 
   @Test
-  void directBrokerClient_withOAuthCredentials() {
+  void directWebClientCql_withOAuthCredentials() {
     directSpringConfig = new DirectSpringConfig(true, null, "http://my.fhir.url", null, null, "http://my.oauth.url",
             "foo", "bar", TIMEOUT, false);
 
-    IGenericClient fhirClient = directSpringConfig.getFhirClient(fhirContext);
+    WebClient webClient = directSpringConfig.directWebClientCql();
 
-    assertNotNull(fhirClient);
-    Assertions.assertThat(fhirClient.getInterceptorService().getAllRegisteredInterceptors())
-            .anySatisfy(interceptor -> Assertions.assertThat(interceptor).isInstanceOf(OAuthInterceptor.class));
+    assertNotNull(webClient);
+    // Since there is no way to check whether the webclient has an auth filter set, see DirectSpringConfigIT.java for a check for that
+  }
+
+  @Test
+  void fhirConnector() {
+    directSpringConfig = new DirectSpringConfig(true, null, "http://my.fhir.url", null, null, null, null, null,
+            TIMEOUT, true);
+
+    FhirConnector connector = directSpringConfig.fhirConnector(directSpringConfig.directWebClientCql(), fhirContext);
+
+    assertNotNull(connector);
   }
 
   @Test
   void directBrokerClient_useCql() {
       directSpringConfig = new DirectSpringConfig(true, null, null, null, null, null, null, null, TIMEOUT, false);
 
-    BrokerClient brokerClient = directSpringConfig.directBrokerClient(webClient, false, fhirConnector, fhirHelper);
+    BrokerClient brokerClient = directSpringConfig.directBrokerClient(webClient, false, fhirConnector, fhirHelper,
+        new BrokerQueryRegistry(), 4, 100);
 
     assertInstanceOf(DirectBrokerClientCql.class, brokerClient);
   }
@@ -114,21 +118,10 @@ class DirectSpringConfigTest {
   void directBrokerClient_useFlare() {
       directSpringConfig = new DirectSpringConfig(false, null, null, null, null, null, null, null, TIMEOUT, false);
 
-    BrokerClient brokerClient = directSpringConfig.directBrokerClient(webClient, false, fhirConnector, fhirHelper);
+    BrokerClient brokerClient = directSpringConfig.directBrokerClient(webClient, false, fhirConnector, fhirHelper,
+        new BrokerQueryRegistry(), 4, 100);
 
     assertInstanceOf(DirectBrokerClientFlare.class, brokerClient);
   }
 
-  @Test
-  void fhirClient_withTimeout() {
-      directSpringConfig = new DirectSpringConfig(true, null, "http://my.fhir.url", null, null, null, null, null,
-              TIMEOUT, false);
-
-      var fhirClient = directSpringConfig.getFhirClient(fhirContext);
-
-      assertNotNull(fhirClient);
-      Assertions.assertThat(fhirClient.getFhirContext().getRestfulClientFactory().getSocketTimeout())
-              .isEqualTo(TIMEOUT.toMillis());
-  }
-
 }
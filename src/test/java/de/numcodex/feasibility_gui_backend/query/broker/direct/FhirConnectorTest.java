@@ -1,237 +1,365 @@
 package de.numcodex.feasibility_gui_backend.query.broker.direct;
 
-import ca.uhn.fhir.rest.client.api.IGenericClient;
-import ca.uhn.fhir.rest.gclient.IOperationUntypedWithInput;
-import ca.uhn.fhir.rest.param.DateParam;
-import ca.uhn.fhir.rest.param.StringParam;
-import ca.uhn.fhir.rest.server.exceptions.BaseServerResponseException;
+import ca.uhn.fhir.context.FhirContext;
+import okhttp3.Headers;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
 import org.hl7.fhir.r4.model.Bundle;
 import org.hl7.fhir.r4.model.CapabilityStatement;
 import org.hl7.fhir.r4.model.CapabilityStatement.CapabilityStatementSoftwareComponent;
-import org.hl7.fhir.r4.model.Measure;
 import org.hl7.fhir.r4.model.MeasureReport;
 import org.hl7.fhir.r4.model.OperationOutcome;
 import org.hl7.fhir.r4.model.Parameters;
 import org.hl7.fhir.r4.model.Parameters.ParametersParameterComponent;
+import org.hl7.fhir.r4.model.Resource;
 import org.hl7.fhir.r4.model.StringType;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.Answers;
-import org.mockito.Mock;
-import org.mockito.Mockito;
-import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.system.CapturedOutput;
 import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.WebClient;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
+import static org.assertj.core.api.Assertions.from;
 
-@ExtendWith(MockitoExtension.class)
 @ExtendWith(OutputCaptureExtension.class)
 public class FhirConnectorTest {
 
-
   private static final String MEASURE_URI = "uri:1-measure-example-uri";
   private static final int MEASURE_COUNT = 8723132;
+  private static final String STATUS_PATH = "/fhir/__async-request/foo";
 
-  @Mock(answer = Answers.RETURNS_DEEP_STUBS)
-  IGenericClient client;
-  @Mock private IOperationUntypedWithInput<Parameters> operation;
-
+  private final FhirContext fhirContext = FhirContext.forR4();
 
-  FhirConnector fhirConnector;
+  MockWebServer mockWebServer;
 
   @BeforeEach
-  void setUp() {
-    fhirConnector = new FhirConnector(client);
+  void setUp() throws IOException {
+    mockWebServer = new MockWebServer();
+    mockWebServer.start();
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    mockWebServer.shutdown();
+  }
+
+  private FhirConnector createFhirConnector(boolean useAsyncRequestPattern, Duration timeout) {
+    return new FhirConnector(WebClient.create("http://localhost:%s/fhir".formatted(mockWebServer.getPort())),
+        fhirContext, useAsyncRequestPattern, timeout);
+  }
+
+  private MockResponse fhirResponse(Resource resource) {
+    return new MockResponse().setResponseCode(200)
+        .setHeaders(Headers.of("Content-Type", "application/fhir+json"))
+        .setBody(fhirContext.newJsonParser().encodeResourceToString(resource));
+  }
+
+  private MockResponse kickOffResponse() {
+    return new MockResponse().setResponseCode(202)
+        .setHeaders(Headers.of("Content-Location",
+            "http://localhost:%s%s".formatted(mockWebServer.getPort(), STATUS_PATH)))
+        .setBody("");
+  }
+
+  private static MeasureReport measureReport() {
+    var measureReport = new MeasureReport();
+    measureReport.addGroup().addPopulation().setCount(MEASURE_COUNT);
+    return measureReport;
+  }
+
+  private static int count(MeasureReport measureReport) {
+    return measureReport.getGroupFirstRep().getPopulationFirstRep().getCount();
   }
 
   @Test
   void testTransmitBundleSuccess() throws Exception {
-    Bundle bundle = new Bundle();
+    mockWebServer.enqueue(fhirResponse(new Bundle()));
+    var fhirConnector = createFhirConnector(false, Duration.ofSeconds(10));
 
-    fhirConnector.transmitBundle(bundle);
+    fhirConnector.transmitBundle(new Bundle().setType(Bundle.BundleType.TRANSACTION)).block();
 
-    verify(client.transaction().withBundle(bundle)).execute();
+    assertThat(mockWebServer.takeRequest())
+        .returns("POST", from(r -> r.getMethod()))
+        .returns("/fhir", from(r -> r.getPath()))
+        .returns("application/fhir+json", from(r -> r.getHeader(HttpHeaders.CONTENT_TYPE)));
   }
 
-
   @Test
   void testTransmitBundleIOException() {
-    Bundle bundle = new Bundle();
-
-    BaseServerResponseException e = BaseServerResponseException.newInstance(200, "test");
-    Mockito.when(client.transaction().withBundle(bundle).execute()).thenThrow(e);
+    mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+    var fhirConnector = createFhirConnector(false, Duration.ofSeconds(10));
 
-    assertThatThrownBy(() -> fhirConnector.transmitBundle(bundle))
-            .isInstanceOf(IOException.class);
+    assertThatThrownBy(() -> fhirConnector.transmitBundle(new Bundle()).block())
+        .hasCauseInstanceOf(IOException.class);
   }
 
   @Test
   void testEvaluateMeasureSuccess() throws Exception {
-    var measureReport = new MeasureReport();
-    measureReport.addGroup().addPopulation().setCount(MEASURE_COUNT);
-    var paramerters = new Parameters()
-            .addParameter(new ParametersParameterComponent()
-                    .setResource(measureReport));
-
-    when(client.operation()
-        .onType(Measure.class)
-        .named("evaluate-measure")
-        .withSearchParameter(Parameters.class, "measure", new StringParam(MEASURE_URI))
-        .andSearchParameter("periodStart", new DateParam("1900"))
-        .andSearchParameter("periodEnd", new DateParam("2100"))
-            .useHttpGet())
-                    .thenReturn(operation);
-    when(operation.preferResponseTypes(List.of(MeasureReport.class, Bundle.class, OperationOutcome.class)))
-            .thenReturn(operation);
-    when(operation
-        .execute()).thenReturn(paramerters);
+    mockWebServer.enqueue(fhirResponse(measureReport()));
+    var fhirConnector = createFhirConnector(false, Duration.ofSeconds(10));
+
+    assertThat(count(fhirConnector.evaluateMeasure(MEASURE_URI).block())).isEqualTo(MEASURE_COUNT);
+    assertThat(mockWebServer.takeRequest())
+        .returns("GET", from(r -> r.getMethod()))
+        .returns("/fhir/Measure/$evaluate-measure?measure=" + MEASURE_URI + "&periodStart=1900&periodEnd=2100",
+            from(r -> r.getPath()))
+        .returns(null, from(r -> r.getHeader("Prefer")));
+  }
 
-    assertThat(fhirConnector.evaluateMeasure(MEASURE_URI).getGroup().get(0).getPopulationFirstRep().getCount())
-            .isEqualTo(MEASURE_COUNT);
+  @Test
+  @DisplayName("Result of evaluating measure is a Parameters resource containing the MeasureReport")
+  void testEvaluateMeasureSucceedsWithMeasureReportInParameters() {
+    mockWebServer.enqueue(fhirResponse(new Parameters()
+        .addParameter(new ParametersParameterComponent().setResource(measureReport()))));
+    var fhirConnector = createFhirConnector(false, Duration.ofSeconds(10));
 
+    assertThat(count(fhirConnector.evaluateMeasure(MEASURE_URI).block())).isEqualTo(MEASURE_COUNT);
   }
 
   @Test
   @DisplayName("Result of evaluating measure is a Bundle containing the MeasureReport and gets processed correctly")
-  void testEvaluateMeasureSucceedsWithMeasureReportInBundle() throws Exception {
-      var measureReport = new MeasureReport();
-      var bundle = new Bundle().setEntry(List.of(new Bundle.BundleEntryComponent().setResource(measureReport)));
-      measureReport.addGroup().addPopulation().setCount(MEASURE_COUNT);
-      var paramerters = new Parameters()
-              .addParameter(new ParametersParameterComponent()
-                      .setResource(bundle));
+  void testEvaluateMeasureSucceedsWithMeasureReportInBundle() {
+    mockWebServer.enqueue(fhirResponse(new Bundle()
+        .setEntry(List.of(new Bundle.BundleEntryComponent().setResource(measureReport())))));
+    var fhirConnector = createFhirConnector(false, Duration.ofSeconds(10));
 
-      when(client.operation()
-              .onType(Measure.class)
-              .named("evaluate-measure")
-              .withSearchParameter(Parameters.class, "measure", new StringParam(MEASURE_URI))
-              .andSearchParameter("periodStart", new DateParam("1900"))
-              .andSearchParameter("periodEnd", new DateParam("2100"))
-              .useHttpGet())
-      .thenReturn(operation);
-      when(operation.preferResponseTypes(List.of(MeasureReport.class, Bundle.class, OperationOutcome.class)))
-      .thenReturn(operation);
-      when(operation
-              .execute()).thenReturn(paramerters);
+    assertThat(count(fhirConnector.evaluateMeasure(MEASURE_URI).block())).isEqualTo(MEASURE_COUNT);
+  }
 
-      assertThat(fhirConnector.evaluateMeasure(MEASURE_URI).getGroup().get(0).getPopulationFirstRep().getCount())
-              .isEqualTo(MEASURE_COUNT);
+  @Test
+  @DisplayName("OperationOutcome issue message of failed operation gets logged")
+  void testEvaluateMeasureFailsWithOperationOutcome(CapturedOutput output) {
+    var issueMessage = "foobar-042104";
+    mockWebServer.enqueue(fhirResponse(new OperationOutcome()
+        .setIssue(List.of(new OperationOutcome.OperationOutcomeIssueComponent().setDiagnostics(issueMessage)))));
+    var fhirConnector = createFhirConnector(false, Duration.ofSeconds(10));
+
+    assertThatThrownBy(() -> fhirConnector.evaluateMeasure(MEASURE_URI).block())
+        .hasCauseInstanceOf(IOException.class);
+    assertThat(output.getOut()).contains(issueMessage);
+  }
 
+  @Test
+  @DisplayName("evaluating measure returns Bundle with unknown resource type entry")
+  void testEvaluateMeasureFailsWithBundleContainingInvalidResourceType(CapturedOutput output) {
+    var resource = new CapabilityStatement()
+        .setSoftware(new CapabilityStatementSoftwareComponent(new StringType("name-073450")));
+    mockWebServer.enqueue(fhirResponse(new Bundle().addEntry(new Bundle.BundleEntryComponent().setResource(resource))));
+    var fhirConnector = createFhirConnector(false, Duration.ofSeconds(10));
+
+    assertThatThrownBy(() -> fhirConnector.evaluateMeasure(MEASURE_URI).block())
+        .hasCauseInstanceOf(IOException.class);
+    assertThat(output.getOut()).contains("Failed to extract MeasureReport from Bundle");
   }
 
   @Test
-  @DisplayName("OperationOutcome issue message of failed operation gets logged")
-  void testEvaluateMeasureFailsWithOperationOutcome(CapturedOutput output) throws Exception {
-      var issueMessage = "foobar-042104";
-      var outcome = new OperationOutcome()
-              .setIssue(List.of(new OperationOutcome.OperationOutcomeIssueComponent().setDiagnostics(issueMessage)));
-      var paramerters = new Parameters()
-              .addParameter(new ParametersParameterComponent()
-                      .setResource(outcome));
-
-      when(client.operation()
-              .onType(Measure.class)
-              .named("evaluate-measure")
-              .withSearchParameter(Parameters.class, "measure", new StringParam(MEASURE_URI))
-              .andSearchParameter("periodStart", new DateParam("1900"))
-              .andSearchParameter("periodEnd", new DateParam("2100"))
-              .useHttpGet())
-                      .thenReturn(operation);
-      when(operation.preferResponseTypes(List.of(MeasureReport.class, Bundle.class, OperationOutcome.class)))
-              .thenReturn(operation);
-      when(operation
-              .execute()).thenReturn(paramerters);
-
-      assertThatThrownBy(() -> fhirConnector.evaluateMeasure(MEASURE_URI))
-              .isInstanceOf(IOException.class);
-      assertThat(output.getOut()).contains(issueMessage);
+  @DisplayName("evaluating measure returns unknown resource type")
+  void testEvaluateMeasureFailsWithInvalidResourceType(CapturedOutput output) {
+    mockWebServer.enqueue(fhirResponse(new CapabilityStatement()
+        .setSoftware(new CapabilityStatementSoftwareComponent(new StringType("name-073450")))));
+    var fhirConnector = createFhirConnector(false, Duration.ofSeconds(10));
+
+    assertThatThrownBy(() -> fhirConnector.evaluateMeasure(MEASURE_URI).block())
+        .hasCauseInstanceOf(IOException.class);
+    assertThat(output.getOut()).contains("unexpected resource type");
+  }
+
+  @Test
+  void testEvaluateMeasureIOException() {
+    mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+    var fhirConnector = createFhirConnector(false, Duration.ofSeconds(10));
 
+    assertThatThrownBy(() -> fhirConnector.evaluateMeasure(MEASURE_URI).block())
+        .hasCauseInstanceOf(IOException.class);
   }
 
   @Test
-  @DisplayName("evaluating measure returns Bundle with unknown resource type entry")
-  void testEvaluateMeasureFailsWithBundleContainingInvalidResourceType(CapturedOutput output) throws Exception {
-      var resource = new CapabilityStatement()
-              .setSoftware(new CapabilityStatementSoftwareComponent(new StringType("name-073450")));
-      var bundle = new Bundle().addEntry(new Bundle.BundleEntryComponent().setResource(resource));
-      var paramerters = new Parameters()
-              .addParameter(new ParametersParameterComponent()
-                      .setResource(bundle));
-
-      when(client.operation()
-              .onType(Measure.class)
-              .named("evaluate-measure")
-              .withSearchParameter(Parameters.class, "measure", new StringParam(MEASURE_URI))
-              .andSearchParameter("periodStart", new DateParam("1900"))
-              .andSearchParameter("periodEnd", new DateParam("2100"))
-              .useHttpGet())
-      .thenReturn(operation);
-      when(operation.preferResponseTypes(List.of(MeasureReport.class, Bundle.class, OperationOutcome.class)))
-      .thenReturn(operation);
-      when(operation
-              .execute()).thenReturn(paramerters);
-
-      assertThatThrownBy(() -> fhirConnector.evaluateMeasure(MEASURE_URI))
-      .isInstanceOf(IOException.class);
-      assertThat(output.getOut()).contains("Failed to extract MeasureReport from Bundle");
+  @DisplayName("Measure evaluation uses Async Interaction Request Pattern successfully")
+  void testEvaluateMeasureAsyncSucceeds() throws Exception {
+    var inProgressResponse = new MockResponse().setResponseCode(202)
+        .setHeaders(Headers.of("X-Progress", "0%"))
+        .setBody("");
+    mockWebServer.enqueue(kickOffResponse());
+    mockWebServer.enqueue(inProgressResponse);
+    mockWebServer.enqueue(inProgressResponse);
+    mockWebServer.enqueue(fhirResponse(measureReport()));
+    var fhirConnector = createFhirConnector(true, Duration.ofSeconds(10));
+
+    var result = fhirConnector.evaluateMeasure(MEASURE_URI).block();
+
+    assertThat(count(result)).isEqualTo(MEASURE_COUNT);
+    assertThat(mockWebServer.getRequestCount()).isEqualTo(4);
+    assertThat(mockWebServer.takeRequest())
+        .matches(r -> r.getPath().startsWith("/fhir/Measure/$evaluate-measure"), "path is the evaluate operation")
+        .returns("respond-async", from(r -> r.getHeader("Prefer")));
+    for (int i = 0; i < 3; i++) {
+      assertThat(mockWebServer.takeRequest())
+          .matches(r -> STATUS_PATH.equals(r.getPath()), "path is '%s'".formatted(STATUS_PATH));
+    }
+  }
 
+  @Test
+  @DisplayName("Measure evaluation fails when kickoff response contains no Content-Location header")
+  void testEvaluateMeasureAsyncFailsWithNoContentLocation() {
+    mockWebServer.enqueue(new MockResponse().setResponseCode(202));
+    var fhirConnector = createFhirConnector(true, Duration.ofSeconds(10));
+
+    assertThatThrownBy(() -> fhirConnector.evaluateMeasure(MEASURE_URI).block())
+        .hasCauseInstanceOf(AsyncRequestException.class)
+        .cause().hasMessageContaining("No Content-Location provided for polling");
+    assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
   }
 
   @Test
-  @DisplayName("evaluating measure returns Bundle with unknown resource type entry")
-  void testEvaluateMeasureFailsWithInvalidResourceType(CapturedOutput output) throws Exception {
-      var resource = new CapabilityStatement()
-              .setSoftware(new CapabilityStatementSoftwareComponent(new StringType("name-073450")));
-      var paramerters = new Parameters()
-              .addParameter(new ParametersParameterComponent()
-                      .setResource(resource));
+  @DisplayName("Measure evaluation respects the Retry-After header of server response")
+  void testEvaluateMeasureAsyncRespectsRetryAfterHeader() throws Exception {
+    var start = Instant.now();
+    // Use HTTP date format as Retry-After header value
+    var inProgressResponse1 = new MockResponse().setResponseCode(202)
+        .setHeaders(Headers.of(HttpHeaders.RETRY_AFTER,
+            DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneId.of("GMT"))
+                .withLocale(Locale.US)
+                .format(Instant.now().plus(Duration.ofSeconds(3)))))
+        .setBody("");
+    // Use integer value as Retry-After header value representing seconds
+    var inProgressResponse2 = new MockResponse().setResponseCode(202)
+        .setHeaders(Headers.of(HttpHeaders.RETRY_AFTER, "2"))
+        .setBody("");
+    mockWebServer.enqueue(kickOffResponse());
+    mockWebServer.enqueue(inProgressResponse1);
+    mockWebServer.enqueue(inProgressResponse2);
+    mockWebServer.enqueue(fhirResponse(measureReport()));
+    var fhirConnector = createFhirConnector(true, Duration.ofSeconds(20));
+
+    var result = fhirConnector.evaluateMeasure(MEASURE_URI).block();
+
+    assertThat(Duration.between(start, Instant.now())).isGreaterThan(Duration.ofSeconds(4));
+    assertThat(mockWebServer.getRequestCount()).isEqualTo(4);
+    assertThat(count(result)).isEqualTo(MEASURE_COUNT);
+  }
 
-      when(client.operation()
-              .onType(Measure.class)
-              .named("evaluate-measure")
-              .withSearchParameter(Parameters.class, "measure", new StringParam(MEASURE_URI))
-              .andSearchParameter("periodStart", new DateParam("1900"))
-              .andSearchParameter("periodEnd", new DateParam("2100"))
-              .useHttpGet())
-                      .thenReturn(operation);
-      when(operation.preferResponseTypes(List.of(MeasureReport.class, Bundle.class, OperationOutcome.class)))
-              .thenReturn(operation);
-      when(operation
-              .execute()).thenReturn(paramerters);
+  @Test
+  @DisplayName("Measure evaluation uses predefined exponential timeout on invalid Retry-After header value")
+  void testEvaluateMeasureAsyncIgnoresInvalidRetryAfterHeader(CapturedOutput output) throws Exception {
+    var start = Instant.now();
+    var inProgressResponse = new MockResponse().setResponseCode(202)
+        .setHeaders(Headers.of(HttpHeaders.RETRY_AFTER, "five seconds"))
+        .setBody("");
+    mockWebServer.enqueue(kickOffResponse());
+    mockWebServer.enqueue(inProgressResponse); // 250ms wait time
+    mockWebServer.enqueue(inProgressResponse); // 500ms wait time
+    mockWebServer.enqueue(inProgressResponse); // 1000ms wait time
+    mockWebServer.enqueue(fhirResponse(measureReport()));
+    var fhirConnector = createFhirConnector(true, Duration.ofSeconds(20));
+
+    var result = fhirConnector.evaluateMeasure(MEASURE_URI).block();
+
+    assertThat(Duration.between(start, Instant.now())).isGreaterThan(Duration.ofMillis(1750));
+    assertThat(mockWebServer.getRequestCount()).isEqualTo(5);
+    assertThat(count(result)).isEqualTo(MEASURE_COUNT);
+    assertThat(output.getOut()).contains("invalid Retry-After header value: five seconds");
+  }
 
-      assertThatThrownBy(() -> fhirConnector.evaluateMeasure(MEASURE_URI))
-              .isInstanceOf(IOException.class);
-      assertThat(output.getOut()).contains("unexpected resource type");
+  @Test
+  @DisplayName("Measure evaluation sends DELETE request to status location after polling exceeded timeout")
+  void testEvaluateMeasureAsyncSendsDeleteRequestAfterTimeout() throws Exception {
+    var inProgressResponse = new MockResponse().setResponseCode(202)
+        .setHeaders(Headers.of("X-Progress", "0%"))
+        .setHeadersDelay(1, SECONDS)
+        .setBody("");
+    mockWebServer.enqueue(kickOffResponse());
+    mockWebServer.enqueue(inProgressResponse);
+    mockWebServer.enqueue(inProgressResponse);
+    mockWebServer.enqueue(new MockResponse().setResponseCode(202));
+    var fhirConnector = createFhirConnector(true, Duration.ofSeconds(2));
+
+    assertThatThrownBy(() -> fhirConnector.evaluateMeasure(MEASURE_URI).block())
+        .hasCauseInstanceOf(AsyncRequestException.class)
+        .cause().hasMessageContaining("timed out");
+
+    assertThat(mockWebServer.getRequestCount()).isEqualTo(4);
+    mockWebServer.takeRequest(); // Skip kick-off request
+    mockWebServer.takeRequest(); // Skip first polling request
+    mockWebServer.takeRequest(); // Skip second polling request
+    assertThat(mockWebServer.takeRequest())
+        .matches(r -> STATUS_PATH.equals(r.getPath()), "path is '%s'".formatted(STATUS_PATH))
+        .matches(r -> r.getMethod().equals(HttpMethod.DELETE.name()),
+            "http method is '%s'".formatted(HttpMethod.DELETE.name()));
+  }
 
+  @Test
+  @DisplayName("Measure evaluation sends DELETE request to status location when cancelled during polling")
+  void testEvaluateMeasureAsyncSendsDeleteRequestWhenCancelled() throws Exception {
+    var inProgressResponse = new MockResponse().setResponseCode(202)
+        .setHeaders(Headers.of(HttpHeaders.RETRY_AFTER, "5"))
+        .setBody("");
+    mockWebServer.enqueue(kickOffResponse());
+    mockWebServer.enqueue(inProgressResponse);
+    mockWebServer.enqueue(new MockResponse().setResponseCode(202));
+    var fhirConnector = createFhirConnector(true, Duration.ofSeconds(10));
+
+    var evaluation = fhirConnector.evaluateMeasure(MEASURE_URI).subscribe();
+    mockWebServer.takeRequest(); // Skip kick-off request
+    mockWebServer.takeRequest(); // Skip first polling request
+    evaluation.dispose();
+
+    var lastRequest = mockWebServer.takeRequest(5, TimeUnit.SECONDS);
+    assertThat(lastRequest)
+        .isNotNull()
+        .matches(r -> STATUS_PATH.equals(r.getPath()), "path is '%s'".formatted(STATUS_PATH))
+        .matches(r -> r.getMethod().equals(HttpMethod.DELETE.name()),
+            "http method is '%s'".formatted(HttpMethod.DELETE.name()));
   }
 
   @Test
-  void testEvaluateMeasureIOException() {
-    BaseServerResponseException e = BaseServerResponseException.newInstance(200, "test");
-    Mockito.when(client.operation()
-        .onType(Measure.class)
-        .named("evaluate-measure")
-        .withSearchParameter(Parameters.class, "measure", new StringParam(MEASURE_URI))
-        .andSearchParameter("periodStart", new DateParam("1900"))
-        .andSearchParameter("periodEnd", new DateParam("2100"))
-            .useHttpGet())
-            .thenReturn(operation);
-    when(operation.preferResponseTypes(List.of(MeasureReport.class, Bundle.class, OperationOutcome.class)))
-            .thenReturn(operation);
-    when(operation
-            .execute()).thenThrow(e);
-
-    assertThatThrownBy(() -> fhirConnector.evaluateMeasure(MEASURE_URI))
-            .isInstanceOf(IOException.class);
+  @DisplayName("Measure evaluation handles non-202 response when canceling request")
+  void testEvaluateMeasureAsyncHandlesNon202ResponseWhenCanceling(CapturedOutput output) throws Exception {
+    var inProgressResponse = new MockResponse().setResponseCode(202)
+        .setHeaders(Headers.of(HttpHeaders.RETRY_AFTER, "2"))
+        .setBody("");
+    mockWebServer.enqueue(kickOffResponse());
+    mockWebServer.enqueue(inProgressResponse);
+    mockWebServer.enqueue(new MockResponse().setResponseCode(404).setBody("Not Found"));
+    var fhirConnector = createFhirConnector(true, Duration.ofSeconds(1));
+
+    assertThatThrownBy(() -> fhirConnector.evaluateMeasure(MEASURE_URI).block())
+        .hasCauseInstanceOf(AsyncRequestException.class);
+
+    assertThat(mockWebServer.getRequestCount()).isEqualTo(3);
+    assertThat(output.getOut()).contains("Got http status 404 cancelling asynchronous request");
   }
 
+  @Test
+  @DisplayName("Measure evaluation fails when canceling request fails")
+  void testEvaluateMeasureAsyncHandlesErrorWhenCanceling() {
+    var inProgressResponse = new MockResponse().setResponseCode(202)
+        .setHeaders(Headers.of(HttpHeaders.RETRY_AFTER, "2"))
+        .setBody("");
+    mockWebServer.enqueue(kickOffResponse());
+    mockWebServer.enqueue(inProgressResponse);
+    // send invalid http status code
+    mockWebServer.enqueue(new MockResponse().setResponseCode(42));
+    var fhirConnector = createFhirConnector(true, Duration.ofSeconds(1));
+
+    assertThatThrownBy(() -> fhirConnector.evaluateMeasure(MEASURE_URI).block())
+        .hasCauseInstanceOf(AsyncRequestException.class)
+        .cause().hasMessageContaining("Failed to cancel asynchronous request at");
+  }
 }
@@ -1,6 +1,7 @@
 package de.numcodex.feasibility_gui_backend.query.broker.direct;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import ca.uhn.fhir.context.FhirContext;
 import java.nio.charset.StandardCharsets;
 import org.hl7.fhir.r4.model.Bundle;
@@ -40,4 +41,22 @@ public class FhirHelperTest {
     assertEquals(CQL_STRING, s);
   }
 
+  @Test
+  void testCreateBundleDoesNotShareResourcesBetweenBundles() throws Exception {
+    Bundle first = fhirHelper.createBundle(CQL_STRING, LIBRARY_URI, MEASURE_URI);
+    Bundle second = fhirHelper.createBundle("other-cql-string", "uri:2-library", "uri:2-measure");
+
+    Library firstLibrary = (Library) first.getEntry().get(0).getResource();
+    Measure firstMeasure = (Measure) first.getEntry().get(1).getResource();
+    Library secondLibrary = (Library) second.getEntry().get(0).getResource();
+    Measure secondMeasure = (Measure) second.getEntry().get(1).getResource();
+    assertNotSame(firstLibrary, secondLibrary);
+    assertNotSame(firstMeasure, secondMeasure);
+    assertEquals(LIBRARY_URI, firstLibrary.getUrl());
+    assertEquals(CQL_STRING, new String(firstLibrary.getContentFirstRep().getData(), StandardCharsets.UTF_8));
+    assertEquals(1, firstMeasure.getLibrary().size());
+    assertEquals(1, secondMeasure.getLibrary().size());
+    assertEquals("uri:2-library", secondMeasure.getLibrary().get(0).asStringValue());
+  }
+
 }
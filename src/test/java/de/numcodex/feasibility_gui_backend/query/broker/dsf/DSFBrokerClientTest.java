@@ -1,22 +1,94 @@
 package de.numcodex.feasibility_gui_backend.query.broker.dsf;
 
+import de.numcodex.feasibility_gui_backend.query.broker.BrokerQueryRegistry;
+import de.numcodex.feasibility_gui_backend.query.broker.QueryNotFoundException;
 import de.numcodex.feasibility_gui_backend.query.broker.SiteNotFoundException;
+import de.numcodex.feasibility_gui_backend.query.collect.BrokerQueryLifecycleManager;
+import de.numcodex.feasibility_gui_backend.query.collect.QueryStatus;
+import de.numcodex.feasibility_gui_backend.query.collect.QueryStatusUpdate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
-import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 public class DSFBrokerClientTest {
 
-    @InjectMocks
+    @Mock
+    private QueryManager queryManager;
+
+    @Mock
+    private QueryResultCollector queryResultCollector;
+
     private DSFBrokerClient client;
 
+    @BeforeEach
+    public void setUp() {
+        client = new DSFBrokerClient(queryManager, queryResultCollector, new BrokerQueryRegistry());
+    }
+
+    @Test
+    public void testCreateQuery_BackendQueryIdIsKept() {
+        when(queryManager.createQuery()).thenReturn("broker-query-id");
+
+        var brokerQueryId = client.createQuery(1L);
+
+        assertEquals(1L, client.getBackendQueryId(brokerQueryId));
+    }
+
+    @Test
+    public void testCloseQuery_DoesNotFailIfNoSiteAnswered() throws Exception {
+        when(queryManager.createQuery()).thenReturn("broker-query-id");
+        var brokerQueryId = client.createQuery(1L);
+        doThrow(new QueryNotFoundException(brokerQueryId)).when(queryResultCollector).removeResults(brokerQueryId);
+
+        assertDoesNotThrow(() -> client.closeQuery(brokerQueryId));
+        verify(queryManager).removeQuery(brokerQueryId);
+        assertNull(client.getBackendQueryId(brokerQueryId));
+    }
+
+    @Test
+    public void testLateResultAfterResultExpiry_IsStillAssociatedWithBackendQuery() throws Exception {
+        when(queryManager.createQuery()).thenReturn("broker-query-id");
+        try (var lifecycleManager = new BrokerQueryLifecycleManager(Duration.ofMillis(100), Duration.ofSeconds(1), 10,
+                0, Duration.ofMillis(10), Schedulers.immediate(), new SimpleMeterRegistry())) {
+            var brokerQueryId = client.createQuery(1L);
+            lifecycleManager.onQueryCreated(1L, client, brokerQueryId);
+
+            lifecycleManager.onResultsExpired(1L);
+            Thread.sleep(300);
+            lifecycleManager.onSiteAnswered(1L, QueryStatusUpdate.builder()
+                    .source(client)
+                    .brokerQueryId(brokerQueryId)
+                    .brokerSiteId("late-site")
+                    .status(QueryStatus.COMPLETED)
+                    .build());
+
+            assertEquals(1L, client.getBackendQueryId(brokerQueryId));
+            verify(queryManager, never()).removeQuery(brokerQueryId);
+
+            verify(queryManager, timeout(3000)).removeQuery(brokerQueryId);
+            assertNull(client.getBackendQueryId(brokerQueryId));
+        }
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {"my-site", "something", "identity", "Site 1"})
     public void testGetSiteName_IsIdentity(String siteId) throws SiteNotFoundException {
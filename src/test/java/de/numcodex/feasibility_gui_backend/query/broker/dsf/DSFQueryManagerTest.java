@@ -1,5 +1,6 @@
 package de.numcodex.feasibility_gui_backend.query.broker.dsf;
 
+import de.numcodex.feasibility_gui_backend.query.broker.BrokerQueryRegistry;
 import de.numcodex.feasibility_gui_backend.query.broker.QueryDefinitionNotFoundException;
 import de.numcodex.feasibility_gui_backend.query.broker.QueryNotFoundException;
 import de.numcodex.feasibility_gui_backend.query.broker.UnsupportedMediaTypeException;
@@ -8,6 +9,7 @@ import org.hl7.fhir.r4.model.Bundle;
 import org.hl7.fhir.r4.model.Bundle.BundleEntryComponent;
 import org.hl7.fhir.r4.model.Library;
 import org.hl7.fhir.r4.model.Measure;
+import org.hl7.fhir.r4.model.Reference;
 import org.hl7.fhir.r4.model.Task;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -51,7 +53,8 @@ public class DSFQueryManagerTest {
     @BeforeEach
     public void setUp() {
         var dsfMediaTypeTranslator = new DSFMediaTypeTranslator();
-        this.queryHandler = new DSFQueryManager(fhirWebClientProvider, dsfMediaTypeTranslator, ORGANIZATION);
+        this.queryHandler = new DSFQueryManager(fhirWebClientProvider, dsfMediaTypeTranslator, ORGANIZATION,
+                new BrokerQueryRegistry());
         this.unknownQueryId = UUID.randomUUID().toString();
     }
 
@@ -159,6 +162,33 @@ public class DSFQueryManagerTest {
         assertEquals("http://medizininformatik-initiative.de/fhir/CodeSystem/feasibility", measureReferenceSystem);
     }
 
+    @Test
+    public void testPublishQuery_BundleReferencesItsOwnLibraryAndMeasure()
+        throws UnsupportedMediaTypeException, QueryNotFoundException, IOException, FhirWebClientProvisionException, QueryDefinitionNotFoundException {
+        var queryId = queryHandler.createQuery();
+        queryHandler.addQueryDefinition(queryId, CQL, "library Retrieve version '1.0.0'");
+
+        when(fhirWebClientProvider.provideFhirWebserviceClient()).thenReturn(fhirWebserviceClient);
+        when(fhirWebserviceClient.getBaseUrl()).thenReturn("http://localhost/fhir");
+        queryHandler.publishQuery(queryId);
+
+        verify(fhirWebserviceClient).postBundle(bundleCaptor.capture());
+
+        List<BundleEntryComponent> bundleEntries = bundleCaptor.getValue().getEntry();
+        assertEquals(List.of("Task", "Library", "Measure"),
+                bundleEntries.stream().map(e -> e.getResource().fhirType()).toList());
+        var task = (Task) bundleEntries.get(0).getResource();
+        var library = (Library) bundleEntries.get(1).getResource();
+        var measure = (Measure) bundleEntries.get(2).getResource();
+        var measureReference = task.getInput().stream().filter(i -> i.getType().getCodingFirstRep()
+                        .getCode().equals("measure-reference"))
+                .findFirst().orElseThrow().getValue();
+
+        assertEquals(bundleEntries.get(2).getFullUrl(), ((Reference) measureReference).getReference());
+        assertEquals(library.getUrl(), measure.getLibrary().get(0).getValue());
+        assertEquals(1, library.getContent().size());
+    }
+
     @Test
     public void testRemoveQuery_QueryNotFound() {
         assertThrows(QueryNotFoundException.class, () -> queryHandler.removeQuery(unknownQueryId));
@@ -1,10 +1,12 @@
 package de.numcodex.feasibility_gui_backend.query.broker.dsf;
 
+import de.numcodex.feasibility_gui_backend.query.broker.BrokerQueryRegistry;
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.parser.IParser;
 import de.numcodex.feasibility_gui_backend.query.collect.QueryStatus;
 import dev.dsf.fhir.client.FhirWebserviceClient;
 import dev.dsf.fhir.client.WebsocketClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.hl7.fhir.r4.model.CodeableConcept;
 import org.hl7.fhir.r4.model.Coding;
 import org.hl7.fhir.r4.model.DomainResource;
@@ -13,11 +15,13 @@ import org.hl7.fhir.r4.model.Meta;
 import org.hl7.fhir.r4.model.Reference;
 import org.hl7.fhir.r4.model.StringType;
 import org.hl7.fhir.r4.model.Task;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.scheduler.Schedulers;
 
 import java.io.IOException;
 import java.util.Date;
@@ -51,15 +55,22 @@ public class DSFQueryResultCollectorIT {
 
     private WebsocketClientMock websocketClient;
     private QueryResultCollector resultCollector;
+    private DSFQueryResultHandler resultHandler;
 
     @BeforeEach
     public void setUp() {
         FhirContext fhirCtx = FhirContext.forR4();
-        DSFQueryResultStore resultStore = new DSFQueryResultStore();
-        DSFQueryResultHandler resultHandler = new DSFQueryResultHandler(fhirWebClientProvider);
+        DSFQueryResultStore resultStore = new DSFQueryResultStore(new BrokerQueryRegistry());
+        resultHandler = new DSFQueryResultHandler(fhirWebClientProvider, new SimpleMeterRegistry());
 
         websocketClient = new WebsocketClientMock();
-        resultCollector = new DSFQueryResultCollector(resultStore, fhirCtx, fhirWebClientProvider, resultHandler);
+        resultCollector = new DSFQueryResultCollector(resultStore, fhirCtx, fhirWebClientProvider, resultHandler,
+                Schedulers.immediate(), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        resultHandler.close();
     }
 
     private Task createTestTask(String brokerQueryId, String siteId, String measureReportReference, String profile) {
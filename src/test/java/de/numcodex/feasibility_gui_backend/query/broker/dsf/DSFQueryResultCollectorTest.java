@@ -2,13 +2,15 @@ package de.numcodex.feasibility_gui_backend.query.broker.dsf;
 
 import de.numcodex.feasibility_gui_backend.query.broker.QueryNotFoundException;
 import de.numcodex.feasibility_gui_backend.query.broker.SiteNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.util.Lists;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.List;
 
@@ -22,9 +24,14 @@ public class DSFQueryResultCollectorTest {
     @Mock
     QueryResultStore store;
 
-    @InjectMocks
     DSFQueryResultCollector collector;
 
+    @BeforeEach
+    public void setUp() {
+        collector = new DSFQueryResultCollector(store, null, null, null, Schedulers.immediate(),
+                new SimpleMeterRegistry());
+    }
+
     @Test
     public void testGetResultFeasibilityButQueryIsNotFound() throws QueryNotFoundException, SiteNotFoundException {
         when(store.getMeasureCount("foo", "bar")).thenThrow(QueryNotFoundException.class);
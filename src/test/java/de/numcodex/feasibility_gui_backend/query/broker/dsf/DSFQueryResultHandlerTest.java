@@ -1,6 +1,7 @@
 package de.numcodex.feasibility_gui_backend.query.broker.dsf;
 
 import dev.dsf.fhir.client.FhirWebserviceClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.hl7.fhir.r4.model.CodeableConcept;
 import org.hl7.fhir.r4.model.Coding;
 import org.hl7.fhir.r4.model.Identifier;
@@ -10,9 +11,10 @@ import org.hl7.fhir.r4.model.Reference;
 import org.hl7.fhir.r4.model.StringType;
 import org.hl7.fhir.r4.model.Task;
 import org.hl7.fhir.r4.model.Task.TaskRestrictionComponent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -23,6 +25,10 @@ import static org.hl7.fhir.r4.model.Task.TaskStatus.COMPLETED;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,9 +40,18 @@ public class DSFQueryResultHandlerTest {
     @Mock
     FhirWebClientProvider fhirWebClientProvider;
 
-    @InjectMocks
     DSFQueryResultHandler handler;
 
+    @BeforeEach
+    public void setUp() {
+        handler = new DSFQueryResultHandler(fhirWebClientProvider, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        handler.close();
+    }
+
     @Test
     public void testOnResultButResourceIsNoTask() {
         Patient patient = new Patient();
@@ -88,6 +103,7 @@ public class DSFQueryResultHandlerTest {
 
         Optional<DSFQueryResult> dsfQueryResult = handler.onResult(task);
         assertFalse(dsfQueryResult.isPresent());
+        verify(client, never()).delete(MeasureReport.class, "dfd68241-224d-4fd8-bd1a-7675682fa608");
     }
 
     @Test
@@ -139,5 +155,70 @@ public class DSFQueryResultHandlerTest {
         assertEquals("1234567890", dsfQueryResult.get().getQueryId());
         assertEquals("DIC", dsfQueryResult.get().getSiteId());
         assertEquals(10, dsfQueryResult.get().getMeasureCount());
+
+        verify(client, timeout(5000)).delete(MeasureReport.class, "dfd68241-224d-4fd8-bd1a-7675682fa608");
+        verify(client, timeout(5000)).deletePermanently(MeasureReport.class, "dfd68241-224d-4fd8-bd1a-7675682fa608");
+    }
+
+    @Test
+    public void testOnResult_keepsDeletingAfterFailedDeletion() throws FhirWebClientProvisionException {
+        when(fhirWebClientProvider.provideFhirWebserviceClient()).thenReturn(client);
+        when(client.read(MeasureReport.class, "failing")).thenReturn(createMeasureReport(10));
+        when(client.read(MeasureReport.class, "succeeding")).thenReturn(createMeasureReport(20));
+        doThrow(new RuntimeException("cannot delete measure report")).when(client)
+                .delete(MeasureReport.class, "failing");
+
+        assertTrue(handler.onResult(createResultTask("failing")).isPresent());
+        assertTrue(handler.onResult(createResultTask("succeeding")).isPresent());
+
+        verify(client, timeout(5000)).deletePermanently(MeasureReport.class, "succeeding");
+        verify(client, never()).deletePermanently(MeasureReport.class, "failing");
+    }
+
+    @Test
+    public void testClose_waitsForPendingDeletions() throws FhirWebClientProvisionException {
+        when(fhirWebClientProvider.provideFhirWebserviceClient()).thenReturn(client);
+        when(client.read(MeasureReport.class, "pending")).thenReturn(createMeasureReport(10));
+
+        assertTrue(handler.onResult(createResultTask("pending")).isPresent());
+        handler.close();
+
+        verify(client).delete(MeasureReport.class, "pending");
+        verify(client).deletePermanently(MeasureReport.class, "pending");
+    }
+
+    private static Task createResultTask(String measureReportId) {
+        Task task = new Task()
+                .setStatus(COMPLETED)
+                .setIntent(ORDER)
+                .setRequester(new Reference().setIdentifier(new Identifier()
+                        .setSystem("http://dsf.dev/fhir/NamingSystem/organization-identifier").setValue("DIC")));
+        task.getMeta().addProfile(
+                "http://medizininformatik-initiative.de/fhir/StructureDefinition/feasibility-task-single-dic-result|1.0");
+        task.addInput()
+                .setType(new CodeableConcept()
+                        .addCoding(new Coding()
+                                .setSystem("http://dsf.dev/fhir/CodeSystem/bpmn-message")
+                                .setCode("business-key")))
+                .setValue(new StringType("1234567890"));
+        task.addOutput()
+                .setType(new CodeableConcept()
+                        .addCoding(new Coding()
+                                .setSystem("http://medizininformatik-initiative.de/fhir/CodeSystem/feasibility")
+                                .setCode("measure-report-reference")))
+                .setValue(new Reference().setReference("MeasureReport/" + measureReportId));
+        return task;
+    }
+
+    private static MeasureReport createMeasureReport(int count) {
+        MeasureReport report = new MeasureReport();
+        report.addGroup()
+                .addPopulation()
+                .setCode(new CodeableConcept()
+                        .addCoding(new Coding()
+                                .setSystem("http://terminology.hl7.org/CodeSystem/measure-population")
+                                .setCode("initial-population")))
+                .setCount(count);
+        return report;
     }
 }
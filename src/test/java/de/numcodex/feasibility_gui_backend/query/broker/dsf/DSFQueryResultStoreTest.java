@@ -1,5 +1,6 @@
 package de.numcodex.feasibility_gui_backend.query.broker.dsf;
 
+import de.numcodex.feasibility_gui_backend.query.broker.BrokerQueryRegistry;
 import de.numcodex.feasibility_gui_backend.query.broker.QueryNotFoundException;
 import de.numcodex.feasibility_gui_backend.query.broker.SiteNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,7 +17,7 @@ public class DSFQueryResultStoreTest {
 
     @BeforeEach
     public void setUp() {
-        store = new DSFQueryResultStore();
+        store = new DSFQueryResultStore(new BrokerQueryRegistry());
     }
 
     @Test
@@ -0,0 +1,224 @@
+package de.numcodex.feasibility_gui_backend.query.collect;
+
+import de.numcodex.feasibility_gui_backend.query.broker.BrokerClient;
+import de.numcodex.feasibility_gui_backend.query.broker.QueryNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.OptionalInt;
+
+import static de.numcodex.feasibility_gui_backend.query.collect.QueryStatus.COMPLETED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@Tag("query")
+@Tag("collect")
+@ExtendWith(MockitoExtension.class)
+class BrokerQueryLifecycleManagerTest {
+
+    private static final long BACKEND_QUERY_ID = 1L;
+    private static final String BROKER_QUERY_ID = "broker-query-id";
+    private static final long CLOSING_TIMEOUT_MILLIS = 3000;
+
+    @Mock
+    private BrokerClient broker;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private BrokerQueryLifecycleManager lifecycleManager;
+
+    @AfterEach
+    void tearDown() {
+        lifecycleManager.close();
+    }
+
+    private BrokerQueryLifecycleManager createLifecycleManager(Duration resultExpiry) {
+        return createLifecycleManager(resultExpiry, Duration.ofHours(1));
+    }
+
+    private BrokerQueryLifecycleManager createLifecycleManager(Duration resultExpiry,
+                                                               Duration unknownSitesCloseTimeout) {
+        return new BrokerQueryLifecycleManager(resultExpiry, unknownSitesCloseTimeout, 10, 2, Duration.ofMillis(10),
+                Schedulers.immediate(), meterRegistry);
+    }
+
+    private QueryStatusUpdate answer(String siteId) {
+        return QueryStatusUpdate.builder()
+                .source(broker)
+                .brokerQueryId(BROKER_QUERY_ID)
+                .brokerSiteId(siteId)
+                .status(COMPLETED)
+                .build();
+    }
+
+    @Test
+    void testOnSiteAnswered_ClosesQueryOnceAllExpectedSitesAnswered() throws Exception {
+        lifecycleManager = createLifecycleManager(Duration.ofHours(1));
+        when(broker.getExpectedSiteCount(BROKER_QUERY_ID)).thenReturn(OptionalInt.of(2));
+        lifecycleManager.onQueryCreated(BACKEND_QUERY_ID, broker, BROKER_QUERY_ID);
+
+        lifecycleManager.onSiteAnswered(BACKEND_QUERY_ID, answer("site-1"));
+        lifecycleManager.onSiteAnswered(BACKEND_QUERY_ID, answer("site-1"));
+        verify(broker, after(1500).never()).closeQuery(BROKER_QUERY_ID);
+
+        lifecycleManager.onSiteAnswered(BACKEND_QUERY_ID, answer("site-2"));
+        verify(broker, timeout(CLOSING_TIMEOUT_MILLIS)).closeQuery(BROKER_QUERY_ID);
+    }
+
+    @Test
+    void testOnSiteAnswered_KeepsQueryOpenIfExpectedSitesAreUnknown() throws Exception {
+        lifecycleManager = createLifecycleManager(Duration.ofHours(1));
+        when(broker.getExpectedSiteCount(BROKER_QUERY_ID)).thenReturn(OptionalInt.empty());
+        lifecycleManager.onQueryCreated(BACKEND_QUERY_ID, broker, BROKER_QUERY_ID);
+
+        lifecycleManager.onSiteAnswered(BACKEND_QUERY_ID, answer("site-1"));
+
+        verify(broker, after(1500).never()).closeQuery(BROKER_QUERY_ID);
+    }
+
+    @Test
+    void testOnSiteAnswered_IgnoresUnknownQueries() throws Exception {
+        lifecycleManager = createLifecycleManager(Duration.ofHours(1));
+
+        lifecycleManager.onSiteAnswered(BACKEND_QUERY_ID, answer("site-1"));
+
+        verify(broker, after(1500).never()).closeQuery(BROKER_QUERY_ID);
+    }
+
+    @Test
+    void testOnResultsExpired_ClosesAllQueriesOfBackendQuery() throws Exception {
+        lifecycleManager = createLifecycleManager(Duration.ofHours(1));
+        when(broker.getExpectedSiteCount(BROKER_QUERY_ID)).thenReturn(OptionalInt.of(1));
+        var otherBroker = mock(BrokerClient.class);
+        when(otherBroker.getExpectedSiteCount("other-broker-query-id")).thenReturn(OptionalInt.of(1));
+        lifecycleManager.onQueryCreated(BACKEND_QUERY_ID, broker, BROKER_QUERY_ID);
+        lifecycleManager.onQueryCreated(BACKEND_QUERY_ID, otherBroker, "other-broker-query-id");
+
+        lifecycleManager.onResultsExpired(BACKEND_QUERY_ID);
+
+        verify(broker, timeout(CLOSING_TIMEOUT_MILLIS)).closeQuery(BROKER_QUERY_ID);
+        verify(otherBroker, timeout(CLOSING_TIMEOUT_MILLIS)).closeQuery("other-broker-query-id");
+    }
+
+    @Test
+    void testOnQueryFailed_ClosesQuery() throws Exception {
+        lifecycleManager = createLifecycleManager(Duration.ofHours(1));
+        when(broker.getExpectedSiteCount(BROKER_QUERY_ID)).thenReturn(OptionalInt.of(1));
+        lifecycleManager.onQueryCreated(BACKEND_QUERY_ID, broker, BROKER_QUERY_ID);
+
+        lifecycleManager.onQueryFailed(BACKEND_QUERY_ID, broker, BROKER_QUERY_ID);
+        lifecycleManager.onResultsExpired(BACKEND_QUERY_ID);
+
+        verify(broker, timeout(CLOSING_TIMEOUT_MILLIS)).closeQuery(BROKER_QUERY_ID);
+        verify(broker, after(500).times(1)).closeQuery(BROKER_QUERY_ID);
+    }
+
+    @Test
+    void testClosesQueriesNobodyAnsweredWithinResultExpiry() throws Exception {
+        lifecycleManager = createLifecycleManager(Duration.ofMillis(100));
+        when(broker.getExpectedSiteCount(BROKER_QUERY_ID)).thenReturn(OptionalInt.of(1));
+
+        lifecycleManager.onQueryCreated(BACKEND_QUERY_ID, broker, BROKER_QUERY_ID);
+
+        verify(broker, timeout(CLOSING_TIMEOUT_MILLIS)).closeQuery(BROKER_QUERY_ID);
+    }
+
+    @Test
+    void testRetriesClosingQuery() throws Exception {
+        lifecycleManager = createLifecycleManager(Duration.ofHours(1));
+        when(broker.getExpectedSiteCount(BROKER_QUERY_ID)).thenReturn(OptionalInt.of(1));
+        doThrow(new IOException("broker unavailable")).doNothing().when(broker).closeQuery(BROKER_QUERY_ID);
+        lifecycleManager.onQueryCreated(BACKEND_QUERY_ID, broker, BROKER_QUERY_ID);
+
+        lifecycleManager.onResultsExpired(BACKEND_QUERY_ID);
+
+        verify(broker, timeout(CLOSING_TIMEOUT_MILLIS).times(2)).closeQuery(BROKER_QUERY_ID);
+        assertEquals(1.0, meterRegistry.get("broker.query.closings").tag("outcome", "closed").counter().count());
+    }
+
+    @Test
+    void testGivesUpClosingQueryAfterMaxRetries() throws Exception {
+        lifecycleManager = createLifecycleManager(Duration.ofHours(1));
+        when(broker.getExpectedSiteCount(BROKER_QUERY_ID)).thenReturn(OptionalInt.of(1));
+        doThrow(new IOException("broker unavailable")).when(broker).closeQuery(BROKER_QUERY_ID);
+        lifecycleManager.onQueryCreated(BACKEND_QUERY_ID, broker, BROKER_QUERY_ID);
+
+        lifecycleManager.onResultsExpired(BACKEND_QUERY_ID);
+
+        verify(broker, timeout(CLOSING_TIMEOUT_MILLIS).times(3)).closeQuery(BROKER_QUERY_ID);
+        verify(broker, after(500).times(3)).closeQuery(BROKER_QUERY_ID);
+    }
+
+    @Test
+    void testKeepsClosingQueriesOfOtherBrokersWhileClosingFailsForOneBroker() throws Exception {
+        lifecycleManager = new BrokerQueryLifecycleManager(Duration.ofHours(1), Duration.ofHours(1), 10, 2,
+                Duration.ofHours(1), Schedulers.immediate(), meterRegistry);
+        when(broker.getExpectedSiteCount(BROKER_QUERY_ID)).thenReturn(OptionalInt.of(1));
+        doThrow(new IOException("broker unavailable")).when(broker).closeQuery(BROKER_QUERY_ID);
+        var otherBroker = mock(BrokerClient.class);
+        when(otherBroker.getExpectedSiteCount("other-broker-query-id")).thenReturn(OptionalInt.of(1));
+        lifecycleManager.onQueryCreated(BACKEND_QUERY_ID, broker, BROKER_QUERY_ID);
+        lifecycleManager.onQueryCreated(2L, otherBroker, "other-broker-query-id");
+
+        lifecycleManager.onResultsExpired(BACKEND_QUERY_ID);
+        verify(broker, timeout(CLOSING_TIMEOUT_MILLIS)).closeQuery(BROKER_QUERY_ID);
+        lifecycleManager.onResultsExpired(2L);
+
+        verify(otherBroker, timeout(CLOSING_TIMEOUT_MILLIS)).closeQuery("other-broker-query-id");
+        verify(broker, times(1)).closeQuery(BROKER_QUERY_ID);
+        assertEquals(1.0, meterRegistry.get("broker.query.closings").tag("outcome", "closed").counter().count());
+    }
+
+    @Test
+    void testTreatsAlreadyClosedQueryAsClosed() throws Exception {
+        lifecycleManager = createLifecycleManager(Duration.ofHours(1));
+        when(broker.getExpectedSiteCount(BROKER_QUERY_ID)).thenReturn(OptionalInt.of(1));
+        doThrow(new QueryNotFoundException(BROKER_QUERY_ID)).when(broker).closeQuery(BROKER_QUERY_ID);
+        lifecycleManager.onQueryCreated(BACKEND_QUERY_ID, broker, BROKER_QUERY_ID);
+
+        lifecycleManager.onResultsExpired(BACKEND_QUERY_ID);
+
+        verify(broker, timeout(CLOSING_TIMEOUT_MILLIS)).closeQuery(BROKER_QUERY_ID);
+        verify(broker, after(500).times(1)).closeQuery(BROKER_QUERY_ID);
+    }
+
+    @Test
+    void testOnResultsExpired_KeepsQueriesWithUnknownSitesOpenForLateAnswers() throws Exception {
+        lifecycleManager = createLifecycleManager(Duration.ofMillis(100));
+        lifecycleManager.onQueryCreated(BACKEND_QUERY_ID, broker, BROKER_QUERY_ID);
+
+        lifecycleManager.onResultsExpired(BACKEND_QUERY_ID);
+        Thread.sleep(300);
+        lifecycleManager.onSiteAnswered(BACKEND_QUERY_ID, answer("late-site"));
+
+        verify(broker, after(1500).never()).closeQuery(BROKER_QUERY_ID);
+    }
+
+    @Test
+    void testClosesQueriesWithUnknownSitesAfterCloseTimeout() throws Exception {
+        lifecycleManager = createLifecycleManager(Duration.ofHours(1), Duration.ofMillis(100));
+
+        lifecycleManager.onQueryCreated(BACKEND_QUERY_ID, broker, BROKER_QUERY_ID);
+
+        verify(broker, timeout(CLOSING_TIMEOUT_MILLIS)).closeQuery(BROKER_QUERY_ID);
+    }
+
+    @Test
+    void testOnQueryFailed_ClosesQueryWithUnknownSites() throws Exception {
+        lifecycleManager = createLifecycleManager(Duration.ofHours(1));
+        lifecycleManager.onQueryCreated(BACKEND_QUERY_ID, broker, BROKER_QUERY_ID);
+
+        lifecycleManager.onQueryFailed(BACKEND_QUERY_ID, broker, BROKER_QUERY_ID);
+
+        verify(broker, timeout(CLOSING_TIMEOUT_MILLIS)).closeQuery(BROKER_QUERY_ID);
+        verify(broker, after(500).times(1)).closeQuery(BROKER_QUERY_ID);
+    }
+}
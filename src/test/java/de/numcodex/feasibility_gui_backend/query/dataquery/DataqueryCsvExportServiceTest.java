@@ -46,6 +46,8 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class DataqueryCsvExportServiceTest {
 
+  private static final String LAB_PROFILE_URL = "https://www.medizininformatik-initiative.de/fhir/core/modul-labor/StructureDefinition/ObservationLab";
+
   @Mock
   private ObjectMapper objectMapper;
 
@@ -102,7 +104,7 @@ class DataqueryCsvExportServiceTest {
     CodeableConceptEntry ccEntry = mock(CodeableConceptEntry.class);
     doReturn(displayEntry).when(ccEntry).display();
     doReturn(ccEntry).when(codeableConceptService).getSearchResultEntryByTermCode(any(TermCode.class));
-    doReturn(Optional.of(createDseProfile())).when(dseProfileRepository).findByUrl(anyString());
+    doReturn(List.of(createDseProfile(LAB_PROFILE_URL))).when(dseProfileRepository).findAllByUrlIn(anyCollection());
     doReturn(createDseProfileApi()).when(objectMapper).readValue(anyString(), eq(de.numcodex.feasibility_gui_backend.dse.api.DseProfile.class));
 
     String csvResult = dataqueryCsvExportService.jsonToCsv(dataExtraction, language);
@@ -111,6 +113,36 @@ class DataqueryCsvExportServiceTest {
     assertTrue(csvResult.contains("basic testgroup"));
   }
 
+  @Test
+  void testResolveDseProfiles_loadsAndParsesEachProfileOnce() throws IOException {
+    var dataExtraction = createValidDataExtraction();
+    doReturn(List.of(createDseProfile(LAB_PROFILE_URL))).when(dseProfileRepository).findAllByUrlIn(List.of(LAB_PROFILE_URL));
+    doReturn(createDseProfileApi()).when(objectMapper).readValue(anyString(), eq(de.numcodex.feasibility_gui_backend.dse.api.DseProfile.class));
+
+    var dseProfiles = dataqueryCsvExportService.resolveDseProfiles(dataExtraction);
+
+    assertTrue(dseProfiles.get(LAB_PROFILE_URL).isPresent());
+    verify(dseProfileRepository, times(1)).findAllByUrlIn(anyCollection());
+    verify(objectMapper, times(1)).readValue(anyString(), eq(de.numcodex.feasibility_gui_backend.dse.api.DseProfile.class));
+  }
+
+  @Test
+  void testResolveDseProfiles_failsOnMissingProfile() {
+    var dataExtraction = createValidDataExtraction();
+    doReturn(List.of()).when(dseProfileRepository).findAllByUrlIn(List.of(LAB_PROFILE_URL));
+
+    assertThrows(DataqueryCsvExportException.class, () -> dataqueryCsvExportService.resolveDseProfiles(dataExtraction));
+  }
+
+  @Test
+  void testJsonToCsv_dataExtractionFailsOnMissingProfile() {
+    var dataExtraction = createValidDataExtraction();
+    doReturn(List.of()).when(dseProfileRepository).findAllByUrlIn(anyCollection());
+
+    assertThrows(DataqueryCsvExportException.class,
+        () -> dataqueryCsvExportService.jsonToCsv(dataExtraction, DataqueryCsvExportService.SUPPORTED_LANGUAGES.EN));
+  }
+
   @Test
   void testAddFileToZip() throws IOException {
     String fileName = "dataquery.json";
@@ -143,6 +175,26 @@ class DataqueryCsvExportServiceTest {
     }
   }
 
+  @Test
+  void testAddCsvFileToZip_keepsZipStreamOpen() throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+      dataqueryCsvExportService.addCsvFileToZip(zos, "inclusion.csv", List.of(List.of()), DataqueryCsvExportService.SUPPORTED_LANGUAGES.EN);
+      dataqueryCsvExportService.addCsvFileToZip(zos, "features.csv", DataExtraction.builder().build(), ExportDseProfiles.EMPTY, DataqueryCsvExportService.SUPPORTED_LANGUAGES.EN);
+    }
+
+    try (ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray());
+         ZipInputStream zis = new ZipInputStream(bais)) {
+      assertEquals("inclusion.csv", zis.getNextEntry().getName());
+      assertEquals(dataqueryCsvExportService.jsonToCsv(List.of(List.of()), DataqueryCsvExportService.SUPPORTED_LANGUAGES.EN),
+          new String(zis.readAllBytes(), StandardCharsets.UTF_8));
+      assertEquals("features.csv", zis.getNextEntry().getName());
+      assertEquals(dataqueryCsvExportService.jsonToCsv(DataExtraction.builder().build(), DataqueryCsvExportService.SUPPORTED_LANGUAGES.EN),
+          new String(zis.readAllBytes(), StandardCharsets.UTF_8));
+      assertNull(zis.getNextEntry(), "too many entries in zipfile");
+    }
+  }
+
   private static Stream<Arguments> provideParamsForCriteriaTest() {
     List<Arguments> argumentsList = new ArrayList<>();
     for (DataqueryCsvExportService.SUPPORTED_LANGUAGES language : DataqueryCsvExportService.SUPPORTED_LANGUAGES.values()) {
@@ -169,7 +221,7 @@ class DataqueryCsvExportServiceTest {
     var referenceId = "my-referenced-group";
     return List.of(
         AttributeGroup.builder()
-        .groupReference(URI.create("https://www.medizininformatik-initiative.de/fhir/core/modul-labor/StructureDefinition/ObservationLab"))
+        .groupReference(URI.create(LAB_PROFILE_URL))
         .name("basic testgroup")
         .id("my-grp")
         .attributes(List.of(
@@ -182,7 +234,7 @@ class DataqueryCsvExportServiceTest {
         .build(),
 
         AttributeGroup.builder()
-            .groupReference(URI.create("https://www.medizininformatik-initiative.de/fhir/core/modul-labor/StructureDefinition/ObservationLab"))
+            .groupReference(URI.create(LAB_PROFILE_URL))
             .name("referencing testgroup")
             .id("my-referencing-grp")
             .attributes(List.of(
@@ -208,7 +260,7 @@ class DataqueryCsvExportServiceTest {
             .build(),
 
         AttributeGroup.builder()
-            .groupReference(URI.create("https://www.medizininformatik-initiative.de/fhir/core/modul-labor/StructureDefinition/ObservationLab"))
+            .groupReference(URI.create(LAB_PROFILE_URL))
             .name("referenced testgroup")
             .id(referenceId)
             .includeReferenceOnly(true)
@@ -337,14 +389,14 @@ class DataqueryCsvExportServiceTest {
         .build();
   }
 
-  private DseProfile createDseProfile() throws IOException {
+  private DseProfile createDseProfile(String url) throws IOException {
     var dseProfile = new DseProfile();
     FileInputStream fis = new FileInputStream("src/test/resources/de/numcodex/feasibility_gui_backend/query/dataquery/dseProfileDiagnose.json");
     String dseProfileString = IOUtils.toString(fis, StandardCharsets.UTF_8);
 
     dseProfile.setId(1L);
     dseProfile.setEntry(dseProfileString);
-    dseProfile.setUrl("https://www.medizininformatik-initiative.de/fhir/core/modul-diagnose/StructureDefinition/Diagnose");
+    dseProfile.setUrl(url);
     return dseProfile;
   }
 
@@ -365,7 +417,7 @@ class DataqueryCsvExportServiceTest {
 
   private de.numcodex.feasibility_gui_backend.dse.api.DseProfile createDseProfileApi() throws IOException {
     ObjectMapper mapper = new ObjectMapper();
-    return mapper.readValue(createDseProfile().getEntry(), de.numcodex.feasibility_gui_backend.dse.api.DseProfile.class);
+    return mapper.readValue(createDseProfile(LAB_PROFILE_URL).getEntry(), de.numcodex.feasibility_gui_backend.dse.api.DseProfile.class);
   }
 
   private de.numcodex.feasibility_gui_backend.terminology.api.UiProfile createUiProfileApi() throws JsonProcessingException {
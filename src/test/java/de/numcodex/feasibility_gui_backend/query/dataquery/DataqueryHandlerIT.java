@@ -13,6 +13,7 @@ import de.numcodex.feasibility_gui_backend.query.broker.BrokerSpringConfig;
 import de.numcodex.feasibility_gui_backend.query.collect.QueryCollectSpringConfig;
 import de.numcodex.feasibility_gui_backend.query.dispatch.QueryDispatchSpringConfig;
 import de.numcodex.feasibility_gui_backend.query.persistence.DataqueryRepository;
+import de.numcodex.feasibility_gui_backend.query.quota.QueryQuotaSpringConfig;
 import de.numcodex.feasibility_gui_backend.query.result.ResultServiceSpringConfig;
 import de.numcodex.feasibility_gui_backend.query.translation.QueryTranslatorSpringConfig;
 import de.numcodex.feasibility_gui_backend.terminology.validation.StructuredQueryValidation;
@@ -44,6 +45,7 @@ import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
     QueryCollectSpringConfig.class,
     QueryHandlerService.class,
     ResultServiceSpringConfig.class,
+    QueryQuotaSpringConfig.class,
     DataquerySpringConfig.class
 })
 @DataJpaTest(
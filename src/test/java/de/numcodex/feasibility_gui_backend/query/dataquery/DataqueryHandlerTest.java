@@ -32,6 +32,7 @@ import java.net.URI;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.Assert.assertThrows;
@@ -421,49 +422,24 @@ class DataqueryHandlerTest {
         assertDoesNotThrow(() -> dataqueryHandler.storeExpiringDataquery(createDataquery(), CREATOR, DURATION));
     }
 
-    @ParameterizedTest
-    @CsvSource({"true,true,true", "true,true,false", "true,false,true", "true,false,false",
-        "false,true,true", "false,true,false", "false,false,true"})
-    @DisplayName("storeExpiringDataquery() -> trying to store a null object with a null user throws an exception")
-    void storeExpiringDataquery_throwsOnEmptyValue(boolean emptyQuery, boolean emptyUser, boolean emptyTtl) throws JsonProcessingException {
-        var dataqueryHandler = createDataqueryHandler();
-        assertThrows(NullPointerException.class, () -> dataqueryHandler.storeExpiringDataquery(
-            emptyQuery ? null : createDataquery(),
-            emptyUser ? null : CREATOR,
-            emptyTtl ? null : DURATION)
-        );
-    }
-
-    @ParameterizedTest
-    @CsvSource({"true", "false"})
-    @DisplayName("storeExpiringDataquery() -> trying to store an expiring dataquery when no slots are free does not throw")
-    void storeExpiringDataquery_ignoresFreeSlots(boolean withResult) throws JsonProcessingException {
-        var dataqueryHandler = createDataqueryHandler();
-        lenient().doReturn(MAX_QUERIES_PER_USER + 1L).when(dataqueryRepository).countByCreatedByWhereResultIsNotNull(any(String.class));
-        lenient().doReturn(createDataqueryEntity()).when(dataqueryRepository).save(any(de.numcodex.feasibility_gui_backend.query.persistence.Dataquery.class));
-
-        assertDoesNotThrow(() -> dataqueryHandler.storeExpiringDataquery(createDataquery(withResult), CREATOR, DURATION));
-    }
-
-
     @ParameterizedTest
     @CsvSource({"true,true,true", "true,true,false", "true,false,true", "true,false,false", "false,true,true",
         "false,true,false", "false,false,true", "false,false,false"})
-    @DisplayName("createCsvExportZipfile() -> creating a csv export succeeds")
-    void createCsvExportZipfile(String withInclusionCriteria, String withExclusionCriteria, String withDataextraction) {
+    @DisplayName("createCsvExportZipStream() -> creating a csv export succeeds")
+    void createCsvExportZipStream(String withInclusionCriteria, String withExclusionCriteria, String withDataextraction) {
         var dataqueryHandler = createDataqueryHandler();
         var dataquery = createDataquery(Boolean.parseBoolean(withInclusionCriteria),
             Boolean.parseBoolean(withExclusionCriteria),
             Boolean.parseBoolean(withDataextraction));
 
-        var byteArrayOutputStream = assertDoesNotThrow(() -> dataqueryHandler.createCsvExportZipfile(dataquery));
-        assertNotNull(byteArrayOutputStream);
-        assertInstanceOf(ByteArrayOutputStream.class, byteArrayOutputStream);
+        var zipStream = assertDoesNotThrow(() -> dataqueryHandler.createCsvExportZipStream(dataquery));
+        assertNotNull(zipStream);
+        assertDoesNotThrow(() -> zipStream.writeTo(new ByteArrayOutputStream()));
     }
 
     @Test
-    @DisplayName("createCsvExportZipfile() -> creating a csv export fails if no content is set")
-    void createCsvExportZipfile_throwsOnNullContent() {
+    @DisplayName("createCsvExportZipStream() -> creating a csv export fails if no content is set")
+    void createCsvExportZipStream_throwsOnNullContent() {
         var dataqueryHandler = createDataqueryHandler();
         var dataqueryWithoutContent = Dataquery.builder()
             .id(1L)
@@ -473,12 +449,33 @@ class DataqueryHandlerTest {
             .lastModified(TIME_STRING)
             .build();
 
-        assertThrows(DataqueryException.class, () -> dataqueryHandler.createCsvExportZipfile(dataqueryWithoutContent));
+        assertThrows(DataqueryException.class, () -> dataqueryHandler.createCsvExportZipStream(dataqueryWithoutContent));
     }
 
     @Test
-    @DisplayName("createCsvExportZipfile() -> creating a csv export fails if no cohort definition is set")
-    void createCsvExportZipfile_throwsOnNullCohortDefinition() {
+    @DisplayName("createCsvExportZipStream() -> csv files are only generated once the stream is written")
+    void createCsvExportZipStream_generatesCsvFilesWhenWritten() throws Exception {
+        var dataqueryHandler = createDataqueryHandler();
+        var dataquery = createDataquery(true, true, true);
+
+        var dseProfiles = new ExportDseProfiles(Map.of());
+        doReturn(dseProfiles).when(csvExportService).resolveDseProfiles(any(DataExtraction.class));
+
+        var zipStream = dataqueryHandler.createCsvExportZipStream(dataquery);
+        verify(csvExportService).resolveDseProfiles(any(DataExtraction.class));
+        verifyNoMoreInteractions(csvExportService);
+
+        zipStream.writeTo(new ByteArrayOutputStream());
+        var languageCount = DataqueryCsvExportService.SUPPORTED_LANGUAGES.values().length;
+        verify(csvExportService).addFileToZip(any(), eq("Datendefinition.json"), anyString());
+        verify(csvExportService, times(2 * languageCount)).addCsvFileToZip(any(), anyString(), anyList(), any());
+        verify(csvExportService, times(languageCount)).addCsvFileToZip(any(), anyString(), any(DataExtraction.class), same(dseProfiles), any());
+        verify(csvExportService).resolveDseProfiles(any(DataExtraction.class));
+    }
+
+    @Test
+    @DisplayName("createCsvExportZipStream() -> creating a csv export fails before writing if no cohort definition is set")
+    void createCsvExportZipStream_throwsOnNullCohortDefinition() {
         var dataqueryHandler = createDataqueryHandler();
         var dataqueryWithoutCohortDefinition = Dataquery.builder()
             .id(1L)
@@ -486,12 +483,10 @@ class DataqueryHandlerTest {
                 .display("foo")
                 .build())
             .label(LABEL)
-            .comment(COMMENT)
-            .createdBy(CREATOR)
-            .lastModified(TIME_STRING)
             .build();
 
-        assertThrows(DataqueryException.class, () -> dataqueryHandler.createCsvExportZipfile(dataqueryWithoutCohortDefinition));
+        assertThrows(DataqueryException.class, () -> dataqueryHandler.createCsvExportZipStream(dataqueryWithoutCohortDefinition));
+        verifyNoInteractions(csvExportService);
     }
 
     private Dataquery createDataquery(boolean withInclusion, boolean withExclusion, boolean withExtraction) {
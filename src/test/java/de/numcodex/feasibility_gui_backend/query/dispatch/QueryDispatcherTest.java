@@ -7,9 +7,13 @@ import de.numcodex.feasibility_gui_backend.query.api.StructuredQuery;
 import de.numcodex.feasibility_gui_backend.query.broker.BrokerClient;
 import de.numcodex.feasibility_gui_backend.query.broker.QueryDefinitionNotFoundException;
 import de.numcodex.feasibility_gui_backend.query.broker.QueryNotFoundException;
+import de.numcodex.feasibility_gui_backend.query.broker.UnsupportedMediaTypeException;
+import de.numcodex.feasibility_gui_backend.query.collect.BrokerQueryLifecycleManager;
 import de.numcodex.feasibility_gui_backend.query.persistence.*;
 import de.numcodex.feasibility_gui_backend.query.translation.QueryTranslationComponent;
 import de.numcodex.feasibility_gui_backend.query.translation.QueryTranslationException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
@@ -18,14 +22,27 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
 import java.io.IOException;
 import java.net.URI;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static de.numcodex.feasibility_gui_backend.query.persistence.BrokerClientType.AKTIN;
+import static de.numcodex.feasibility_gui_backend.query.persistence.BrokerClientType.DSF;
+import static de.numcodex.feasibility_gui_backend.query.QueryMediaType.STRUCTURED_QUERY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.*;
 
 @Tag("query")
@@ -51,16 +68,30 @@ public class QueryDispatcherTest {
     @Mock
     private QueryDispatchRepository queryDispatchRepository;
 
+    @Mock
+    private BrokerQueryLifecycleManager brokerQueryLifecycleManager;
+
+    private MeterRegistry meterRegistry;
+
     private QueryDispatcher createQueryDispatcher(List<BrokerClient> brokerClients) {
-        return new QueryDispatcher(brokerClients, queryTranslationComponent, queryHashCalculator,
-                jsonUtil, queryRepository, queryContentRepository, queryDispatchRepository);
+        return createQueryDispatcher(brokerClients, Schedulers.immediate(), Duration.ofSeconds(30));
+    }
+
+    private QueryDispatcher createQueryDispatcher(List<BrokerClient> brokerClients, Scheduler dispatchScheduler,
+                                                  Duration dispatchTimeout) {
+        var queryTranslationCache = new QueryTranslationCache(10, Duration.ofMinutes(1), "test", null, meterRegistry);
+        return new QueryDispatcher(brokerClients, queryTranslationComponent, queryTranslationCache, queryHashCalculator,
+                jsonUtil, queryRepository, queryContentRepository, queryDispatchRepository, dispatchScheduler,
+                dispatchTimeout, meterRegistry, brokerQueryLifecycleManager);
     }
 
 
     @BeforeEach
     public void resetMocks() {
         Mockito.reset(queryTranslationComponent, queryHashCalculator, jsonUtil, queryRepository, queryContentRepository,
-                queryDispatchRepository);
+                queryDispatchRepository, brokerQueryLifecycleManager);
+        lenient().doReturn(Mono.just(Map.of())).when(queryTranslationComponent).translateAsync(any());
+        meterRegistry = new SimpleMeterRegistry();
     }
 
     @Test
@@ -104,7 +135,8 @@ public class QueryDispatcherTest {
 
         doReturn(Optional.of(testQuery)).when(queryRepository).findById(testQueryId);
         doReturn(structuredQuery).when(jsonUtil).readValue(testQueryContent.getQueryContent(), StructuredQuery.class);
-        doThrow(QueryTranslationException.class).when(queryTranslationComponent).translate(structuredQuery);
+        doReturn(Mono.error(new QueryTranslationException("test"))).when(queryTranslationComponent)
+                .translateAsync(structuredQuery);
 
 
         var queryDispatcher = createQueryDispatcher(List.of());
@@ -127,7 +159,7 @@ public class QueryDispatcherTest {
 
         doReturn(Optional.of(testQuery)).when(queryRepository).findById(testQueryId);
         doReturn(structuredQuery).when(jsonUtil).readValue(testQueryContent.getQueryContent(), StructuredQuery.class);
-        doReturn(Map.of()).when(queryTranslationComponent).translate(structuredQuery);
+        doReturn(Mono.just(Map.of())).when(queryTranslationComponent).translateAsync(structuredQuery);
         doThrow(IOException.class).when(failingBrokerClient).createQuery(testQueryId);
 
         var queryDispatcher = createQueryDispatcher(List.of(failingBrokerClient));
@@ -156,7 +188,7 @@ public class QueryDispatcherTest {
 
         doReturn(Optional.of(testQuery)).when(queryRepository).findById(testQueryId);
         doReturn(structuredQuery).when(jsonUtil).readValue(testQueryContent.getQueryContent(), StructuredQuery.class);
-        doReturn(translationResult).when(queryTranslationComponent).translate(structuredQuery);
+        doReturn(Mono.just(translationResult)).when(queryTranslationComponent).translateAsync(structuredQuery);
         doReturn("1").when(failingBrokerClient).createQuery(testQueryId);
         doThrow(IOException.class).when(failingBrokerClient).publishQuery("1");
 
@@ -164,6 +196,8 @@ public class QueryDispatcherTest {
         StepVerifier.create(queryDispatcher.dispatchEnqueuedQuery(testQueryId))
                 .expectError(QueryDispatchException.class)
                 .verify();
+        verify(brokerQueryLifecycleManager).onQueryCreated(testQueryId, failingBrokerClient, "1");
+        verify(brokerQueryLifecycleManager).onQueryFailed(testQueryId, failingBrokerClient, "1");
     }
 
     @Test
@@ -245,4 +279,263 @@ public class QueryDispatcherTest {
         verify(failingBrokerClient, times(1)).publishQuery("1");
         verify(anotherFailingBrokerClient, times(1)).publishQuery("1");
     }
+
+    @Test
+    public void testDispatchEnqueuedQuery_DispatchesToBrokersInParallel() throws IOException {
+        var firstBrokerClient = mock(BrokerClient.class);
+        var secondBrokerClient = mock(BrokerClient.class);
+        var dispatchScheduler = Schedulers.newBoundedElastic(2, 10, "test-dispatch");
+        var queryDispatcher = createQueryDispatcher(List.of(firstBrokerClient, secondBrokerClient),
+                dispatchScheduler, Duration.ofSeconds(10));
+
+        var testQueryId = 99999L;
+        var testQuery = new Query();
+        testQuery.setId(testQueryId);
+        var testQueryContent = new QueryContent(jsonUtil.writeValueAsString(StructuredQuery.builder().build()));
+        testQuery.setQueryContent(testQueryContent);
+
+        // Both brokers wait for each other. This only works out if they get dispatched to at the same time.
+        var bothBrokersCalled = new CountDownLatch(2);
+        doReturn(Optional.of(testQuery)).when(queryRepository).findById(testQueryId);
+        doAnswer(invocation -> {
+            bothBrokersCalled.countDown();
+            return bothBrokersCalled.await(5, TimeUnit.SECONDS) ? "1" : null;
+        }).when(firstBrokerClient).createQuery(testQueryId);
+        doAnswer(invocation -> {
+            bothBrokersCalled.countDown();
+            return bothBrokersCalled.await(5, TimeUnit.SECONDS) ? "2" : null;
+        }).when(secondBrokerClient).createQuery(testQueryId);
+
+        try {
+            StepVerifier.create(queryDispatcher.dispatchEnqueuedQuery(testQueryId))
+                    .expectComplete()
+                    .verify(Duration.ofSeconds(10));
+            assertEquals(0, bothBrokersCalled.getCount());
+        } finally {
+            dispatchScheduler.dispose();
+        }
+    }
+
+    @Test
+    public void testDispatchEnqueuedQuery_DoesNotFailOnSingleBrokerTimeout() throws IOException,
+            QueryNotFoundException, QueryDefinitionNotFoundException {
+        var slowBrokerClient = mock(BrokerClient.class);
+        var succeedingBrokerClient = mock(BrokerClient.class);
+        var dispatchScheduler = Schedulers.newBoundedElastic(2, 10, "test-dispatch");
+        var queryDispatcher = createQueryDispatcher(List.of(slowBrokerClient, succeedingBrokerClient),
+                dispatchScheduler, Duration.ofMillis(200));
+
+        var testQueryId = 99999L;
+        var testQuery = new Query();
+        testQuery.setId(testQueryId);
+        var testQueryContent = new QueryContent(jsonUtil.writeValueAsString(StructuredQuery.builder().build()));
+        testQuery.setQueryContent(testQueryContent);
+
+        doReturn(Optional.of(testQuery)).when(queryRepository).findById(testQueryId);
+        doReturn(DSF).when(slowBrokerClient).getBrokerType();
+        doReturn(AKTIN).when(succeedingBrokerClient).getBrokerType();
+        doAnswer(invocation -> {
+            Thread.sleep(2000);
+            return "1";
+        }).when(slowBrokerClient).createQuery(testQueryId);
+        doReturn("2").when(succeedingBrokerClient).createQuery(testQueryId);
+
+        try {
+            StepVerifier.create(queryDispatcher.dispatchEnqueuedQuery(testQueryId))
+                    .expectComplete()
+                    .verify(Duration.ofSeconds(1));
+            verify(succeedingBrokerClient, times(1)).publishQuery("2");
+            assertEquals(1, meterRegistry.get("query.dispatch").tags("broker", "DSF", "outcome", "timeout")
+                    .timer().count());
+            assertEquals(1, meterRegistry.get("query.dispatch").tags("broker", "AKTIN", "outcome", "success")
+                    .timer().count());
+        } finally {
+            dispatchScheduler.dispose();
+        }
+    }
+
+    @Test
+    public void testDispatchEnqueuedQuery_ClosesQueryPublishedAfterTimeout() throws IOException,
+            QueryNotFoundException, QueryDefinitionNotFoundException {
+        var slowBrokerClient = mock(BrokerClient.class);
+        var succeedingBrokerClient = mock(BrokerClient.class);
+        var dispatchScheduler = Schedulers.newBoundedElastic(2, 10, "test-dispatch");
+        var queryDispatcher = createQueryDispatcher(List.of(slowBrokerClient, succeedingBrokerClient),
+                dispatchScheduler, Duration.ofMillis(200));
+
+        var testQueryId = 99999L;
+        var testQuery = new Query();
+        testQuery.setId(testQueryId);
+        var testQueryContent = new QueryContent(jsonUtil.writeValueAsString(StructuredQuery.builder().build()));
+        testQuery.setQueryContent(testQueryContent);
+
+        doReturn(Optional.of(testQuery)).when(queryRepository).findById(testQueryId);
+        doReturn(DSF).when(slowBrokerClient).getBrokerType();
+        doReturn("1").when(slowBrokerClient).createQuery(testQueryId);
+        doReturn("2").when(succeedingBrokerClient).createQuery(testQueryId);
+
+        // The slow broker ignores being interrupted and only finishes publishing after the dispatch timed out.
+        var dispatchTimedOut = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            while (true) {
+                try {
+                    if (dispatchTimedOut.await(5, TimeUnit.SECONDS)) {
+                        return null;
+                    }
+                } catch (InterruptedException ignored) {
+                    // keep on publishing
+                }
+            }
+        }).when(slowBrokerClient).publishQuery("1");
+
+        try {
+            StepVerifier.create(queryDispatcher.dispatchEnqueuedQuery(testQueryId))
+                    .expectComplete()
+                    .verify(Duration.ofSeconds(1));
+            dispatchTimedOut.countDown();
+
+            verify(brokerQueryLifecycleManager, timeout(1000)).onQueryFailed(testQueryId, slowBrokerClient, "1");
+            verify(queryDispatchRepository, times(1)).save(argThat(dispatch ->
+                    dispatch.getId().getExternalId().equals("2")));
+            verify(queryDispatchRepository, never()).save(argThat(dispatch ->
+                    dispatch.getId().getExternalId().equals("1")));
+        } finally {
+            dispatchScheduler.dispose();
+        }
+    }
+
+    @Test
+    public void testDispatchEnqueuedQuery_DoesFailIfAllBrokersTimeOut() throws IOException {
+        var slowBrokerClient = mock(BrokerClient.class);
+        var dispatchScheduler = Schedulers.newBoundedElastic(1, 10, "test-dispatch");
+        var queryDispatcher = createQueryDispatcher(List.of(slowBrokerClient), dispatchScheduler,
+                Duration.ofMillis(200));
+
+        var testQueryId = 99999L;
+        var testQuery = new Query();
+        testQuery.setId(testQueryId);
+        var testQueryContent = new QueryContent(jsonUtil.writeValueAsString(StructuredQuery.builder().build()));
+        testQuery.setQueryContent(testQueryContent);
+
+        doReturn(Optional.of(testQuery)).when(queryRepository).findById(testQueryId);
+        doAnswer(invocation -> {
+            Thread.sleep(2000);
+            return "1";
+        }).when(slowBrokerClient).createQuery(testQueryId);
+
+        try {
+            StepVerifier.create(queryDispatcher.dispatchEnqueuedQuery(testQueryId))
+                    .expectError(QueryDispatchException.class)
+                    .verify(Duration.ofSeconds(1));
+        } finally {
+            dispatchScheduler.dispose();
+        }
+    }
+
+    @Test
+    public void testDispatchEnqueuedQuery_DoesFailIfPublishFailsRightBeforeTimeout() throws IOException,
+            QueryNotFoundException, QueryDefinitionNotFoundException {
+        var failingBrokerClient = mock(BrokerClient.class);
+        var dispatchScheduler = Schedulers.newBoundedElastic(1, 10, "test-dispatch");
+        var queryDispatcher = createQueryDispatcher(List.of(failingBrokerClient), dispatchScheduler,
+                Duration.ofMillis(200));
+
+        var testQueryId = 99999L;
+        var testQuery = new Query();
+        testQuery.setId(testQueryId);
+        var testQueryContent = new QueryContent(jsonUtil.writeValueAsString(StructuredQuery.builder().build()));
+        testQuery.setQueryContent(testQueryContent);
+
+        doReturn(Optional.of(testQuery)).when(queryRepository).findById(testQueryId);
+        doReturn(DSF).when(failingBrokerClient).getBrokerType();
+        doReturn("1").when(failingBrokerClient).createQuery(testQueryId);
+        doThrow(IOException.class).when(failingBrokerClient).publishQuery("1");
+
+        // Closing the failed query ignores being interrupted and only finishes after the dispatch timed out.
+        doAnswer(invocation -> {
+            var closingEnd = System.nanoTime() + Duration.ofMillis(600).toNanos();
+            while (System.nanoTime() < closingEnd) {
+                try {
+                    Thread.sleep(Duration.ofNanos(closingEnd - System.nanoTime()).toMillis() + 1);
+                } catch (InterruptedException ignored) {
+                    // keep on closing
+                }
+            }
+            return null;
+        }).when(brokerQueryLifecycleManager).onQueryFailed(testQueryId, failingBrokerClient, "1");
+
+        try {
+            StepVerifier.create(queryDispatcher.dispatchEnqueuedQuery(testQueryId))
+                    .expectError(QueryDispatchException.class)
+                    .verify(Duration.ofSeconds(2));
+            assertEquals(1, meterRegistry.get("query.dispatch").tags("broker", "DSF", "outcome", "failure")
+                    .timer().count());
+            assertNull(meterRegistry.find("query.dispatch").tags("outcome", "timeout").timer());
+            assertNull(meterRegistry.find("query.dispatch").tags("outcome", "success").timer());
+        } finally {
+            dispatchScheduler.dispose();
+        }
+    }
+
+    @Test
+    public void testDispatchEnqueuedQuery_FailsOnPersistError() throws IOException, QueryNotFoundException,
+            QueryDefinitionNotFoundException {
+        var brokerClient = mock(BrokerClient.class);
+        var queryDispatcher = createQueryDispatcher(List.of(brokerClient));
+
+        var testQueryId = 99999L;
+        var testQuery = new Query();
+        testQuery.setId(testQueryId);
+        var testQueryContent = new QueryContent(jsonUtil.writeValueAsString(StructuredQuery.builder().build()));
+        testQuery.setQueryContent(testQueryContent);
+
+        doReturn(Optional.of(testQuery)).when(queryRepository).findById(testQueryId);
+        doReturn("1").when(brokerClient).createQuery(testQueryId);
+        doThrow(DataAccessResourceFailureException.class).when(queryDispatchRepository).save(any());
+
+        StepVerifier.create(queryDispatcher.dispatchEnqueuedQuery(testQueryId))
+                .expectError(QueryDispatchException.class)
+                .verify();
+        verify(brokerClient).publishQuery("1");
+        verify(brokerQueryLifecycleManager).onQueryFailed(testQueryId, brokerClient, "1");
+    }
+
+    @Test
+    public void testDispatchEnqueuedQuery_ReusesTranslationsOfIdenticalQueryContent() throws IOException,
+            QueryTranslationException, QueryNotFoundException, QueryDefinitionNotFoundException,
+            UnsupportedMediaTypeException {
+        var brokerClient = mock(BrokerClient.class);
+        var queryDispatcher = createQueryDispatcher(List.of(brokerClient));
+
+        var structuredQuery = StructuredQuery.builder().build();
+        var testQueryContent = new QueryContent(jsonUtil.writeValueAsString(structuredQuery));
+        testQueryContent.setId(1L);
+        testQueryContent.setHash("abc");
+        var firstQuery = new Query();
+        firstQuery.setId(1L);
+        firstQuery.setQueryContent(testQueryContent);
+        var secondQuery = new Query();
+        secondQuery.setId(2L);
+        secondQuery.setQueryContent(testQueryContent);
+        var translationResult = Map.of(STRUCTURED_QUERY, testQueryContent.getQueryContent());
+
+        doReturn(Optional.of(firstQuery)).when(queryRepository).findById(1L);
+        doReturn(Optional.of(secondQuery)).when(queryRepository).findById(2L);
+        doReturn(Set.of(STRUCTURED_QUERY)).when(queryTranslationComponent).getTargetMediaTypes();
+        doReturn(Mono.just(translationResult)).when(queryTranslationComponent)
+                .translateAsync(any(StructuredQuery.class));
+        doReturn("1").when(brokerClient).createQuery(1L);
+        doReturn("2").when(brokerClient).createQuery(2L);
+
+        StepVerifier.create(queryDispatcher.dispatchEnqueuedQuery(1L))
+                .expectComplete()
+                .verify();
+        StepVerifier.create(queryDispatcher.dispatchEnqueuedQuery(2L))
+                .expectComplete()
+                .verify();
+
+        verify(queryTranslationComponent, times(1)).translateAsync(any(StructuredQuery.class));
+        verify(brokerClient).addQueryDefinition("2", STRUCTURED_QUERY, testQueryContent.getQueryContent());
+        verify(brokerClient).publishQuery("2");
+    }
 }
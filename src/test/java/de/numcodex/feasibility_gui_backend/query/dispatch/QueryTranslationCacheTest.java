@@ -0,0 +1,139 @@
+package de.numcodex.feasibility_gui_backend.query.dispatch;
+
+import de.numcodex.feasibility_gui_backend.query.persistence.QueryContent;
+import de.numcodex.feasibility_gui_backend.query.persistence.QueryContentTranslation;
+import de.numcodex.feasibility_gui_backend.query.persistence.QueryContentTranslation.QueryContentTranslationId;
+import de.numcodex.feasibility_gui_backend.query.persistence.QueryContentTranslationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static de.numcodex.feasibility_gui_backend.query.QueryMediaType.CQL;
+import static de.numcodex.feasibility_gui_backend.query.QueryMediaType.STRUCTURED_QUERY;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@Tag("query")
+@Tag("dispatch")
+@ExtendWith(MockitoExtension.class)
+public class QueryTranslationCacheTest {
+
+    private static final String MAPPING_VERSION = "v1.0.0";
+
+    @Mock
+    private QueryContentTranslationRepository queryContentTranslationRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private QueryContent queryContent;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        queryContent = new QueryContent("{}");
+        queryContent.setId(1L);
+        queryContent.setHash("abc");
+    }
+
+    private QueryTranslationCache createCache(QueryContentTranslationRepository repository) {
+        return new QueryTranslationCache(10, Duration.ofMinutes(1), MAPPING_VERSION, repository, meterRegistry);
+    }
+
+    @Test
+    public void testGetAndPut_OnlyKeepTranslationsInMemoryWithoutMappingVersion() {
+        var cache = new QueryTranslationCache(10, Duration.ofMinutes(1), null, queryContentTranslationRepository,
+                meterRegistry);
+        cache.put(queryContent, Map.of(CQL, "library Retrieve"));
+
+        assertEquals(Map.of(CQL, "library Retrieve"), cache.get(queryContent, Set.of(CQL)).orElseThrow());
+        assertTrue(cache.get(queryContent, Set.of(CQL, STRUCTURED_QUERY)).isEmpty());
+        verifyNoInteractions(queryContentTranslationRepository);
+    }
+
+    @Test
+    public void testGet_MissesWhenNothingIsCached() {
+        var cache = createCache(null);
+
+        assertTrue(cache.get(queryContent, Set.of(STRUCTURED_QUERY)).isEmpty());
+        assertEquals(1, meterRegistry.get("cache.gets").tags("cache", "queryTranslations", "result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    public void testGet_HitsAfterPut() {
+        var cache = createCache(null);
+        cache.put(queryContent, Map.of(STRUCTURED_QUERY, "{}", CQL, "library Retrieve"));
+
+        var translations = cache.get(queryContent, Set.of(STRUCTURED_QUERY, CQL));
+
+        assertTrue(translations.isPresent());
+        assertEquals(Map.of(STRUCTURED_QUERY, "{}", CQL, "library Retrieve"), translations.get());
+        assertEquals(2, meterRegistry.get("cache.gets").tags("cache", "queryTranslations", "result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    public void testGet_MissesWhenAnyMediaTypeIsNotCached() {
+        var cache = createCache(null);
+        cache.put(queryContent, Map.of(STRUCTURED_QUERY, "{}"));
+
+        assertTrue(cache.get(queryContent, Set.of(STRUCTURED_QUERY, CQL)).isEmpty());
+    }
+
+    @Test
+    public void testGetAndPut_IgnoreQueryContentWithoutHash() {
+        var cache = createCache(queryContentTranslationRepository);
+        queryContent.setHash(null);
+        cache.put(queryContent, Map.of(STRUCTURED_QUERY, "{}"));
+
+        assertTrue(cache.get(queryContent, Set.of(STRUCTURED_QUERY)).isEmpty());
+        verifyNoInteractions(queryContentTranslationRepository);
+    }
+
+    @Test
+    public void testPut_PersistsTranslationsWhenRepositoryIsGiven() {
+        var cache = createCache(queryContentTranslationRepository);
+
+        cache.put(queryContent, Map.of(CQL, "library Retrieve"));
+
+        verify(queryContentTranslationRepository).insertIfAbsent(1L, CQL.name(), MAPPING_VERSION, "library Retrieve");
+    }
+
+    @Test
+    public void testGet_FallsBackToPersistedTranslations() {
+        var cache = createCache(queryContentTranslationRepository);
+        doReturn(List.of(new QueryContentTranslation(new QueryContentTranslationId(1L, CQL, MAPPING_VERSION),
+                "library Retrieve"))).when(queryContentTranslationRepository)
+                .findByQueryContentIdAndMappingVersion(1L, MAPPING_VERSION);
+
+        var translations = cache.get(queryContent, Set.of(CQL));
+        var translationsFromMemory = cache.get(queryContent, Set.of(CQL));
+
+        assertEquals(Map.of(CQL, "library Retrieve"), translations.orElseThrow());
+        assertEquals(Map.of(CQL, "library Retrieve"), translationsFromMemory.orElseThrow());
+        verify(queryContentTranslationRepository, times(1)).findByQueryContentIdAndMappingVersion(1L, MAPPING_VERSION);
+        assertEquals(1, meterRegistry.get("query.translation.cache.persistent").tags("result", "hit")
+                .counter().count());
+    }
+
+    @Test
+    public void testGet_MissesWhenPersistedTranslationsAreIncomplete() {
+        var cache = createCache(queryContentTranslationRepository);
+        doReturn(List.of(new QueryContentTranslation(new QueryContentTranslationId(1L, CQL, MAPPING_VERSION),
+                "library Retrieve"))).when(queryContentTranslationRepository)
+                .findByQueryContentIdAndMappingVersion(1L, MAPPING_VERSION);
+
+        assertTrue(cache.get(queryContent, Set.of(CQL, STRUCTURED_QUERY)).isEmpty());
+        assertEquals(1, meterRegistry.get("query.translation.cache.persistent").tags("result", "miss")
+                .counter().count());
+    }
+}
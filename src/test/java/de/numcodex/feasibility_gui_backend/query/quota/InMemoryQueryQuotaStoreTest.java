@@ -0,0 +1,89 @@
+package de.numcodex.feasibility_gui_backend.query.quota;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("query")
+@Tag("quota")
+class InMemoryQueryQuotaStoreTest {
+
+  private static final String USER_ID = "user-id-101512";
+  private static final Instant NOW = Instant.parse("2024-05-01T12:00:00Z");
+
+  private InMemoryQueryQuotaStore queryQuotaStore;
+
+  @BeforeEach
+  void setUp() {
+    queryQuotaStore = new InMemoryQueryQuotaStore(Duration.ofDays(7), Clock.fixed(NOW, ZoneOffset.UTC));
+  }
+
+  @Test
+  void testCountQueries_unknownUser() {
+    assertThat(queryQuotaStore.countQueries(USER_ID, Duration.ofMinutes(1))).isZero();
+    assertThat(queryQuotaStore.findAgeOfQuery(USER_ID, 0)).isEmpty();
+  }
+
+  @Test
+  void testCountQueries_withinInterval() {
+    queryQuotaStore.recordQuery(USER_ID, NOW.minus(Duration.ofDays(2)));
+    queryQuotaStore.recordQuery(USER_ID, NOW.minusSeconds(90));
+    queryQuotaStore.recordQuery(USER_ID, NOW.minusSeconds(30));
+    queryQuotaStore.recordQuery(USER_ID, NOW.minusSeconds(10));
+    queryQuotaStore.recordQuery("other-" + USER_ID, NOW.minusSeconds(10));
+
+    assertThat(queryQuotaStore.countQueries(USER_ID, Duration.ofMinutes(1))).isEqualTo(2);
+    assertThat(queryQuotaStore.countQueries(USER_ID, Duration.ofDays(7))).isEqualTo(4);
+    assertThat(queryQuotaStore.countQueries(USER_ID, Duration.ZERO)).isZero();
+  }
+
+  @Test
+  void testCountQueries_excludesQueryAtIntervalStart() {
+    queryQuotaStore.recordQuery(USER_ID, NOW.minusSeconds(60));
+    queryQuotaStore.recordQuery(USER_ID, NOW.minusSeconds(60));
+
+    assertThat(queryQuotaStore.countQueries(USER_ID, Duration.ofMinutes(1))).isZero();
+    assertThat(queryQuotaStore.countQueries(USER_ID, Duration.ofSeconds(61))).isEqualTo(2);
+  }
+
+  @Test
+  void testFindAgeOfQuery_countsFromMostRecent() {
+    queryQuotaStore.recordQuery(USER_ID, NOW.minusSeconds(10));
+    queryQuotaStore.recordQuery(USER_ID, NOW.minusSeconds(50));
+    queryQuotaStore.recordQuery(USER_ID, NOW.minusSeconds(30));
+
+    assertThat(queryQuotaStore.findAgeOfQuery(USER_ID, 0)).contains(Duration.ofSeconds(10));
+    assertThat(queryQuotaStore.findAgeOfQuery(USER_ID, 1)).contains(Duration.ofSeconds(30));
+    assertThat(queryQuotaStore.findAgeOfQuery(USER_ID, 2)).contains(Duration.ofSeconds(50));
+    assertThat(queryQuotaStore.findAgeOfQuery(USER_ID, 3)).isEmpty();
+  }
+
+  @Test
+  void testRecordQuery_manyQueries() {
+    for (int i = 100; i > 0; i--) {
+      queryQuotaStore.recordQuery(USER_ID, NOW.minusSeconds(i));
+    }
+
+    assertThat(queryQuotaStore.countQueries(USER_ID, Duration.ofSeconds(50))).isEqualTo(49);
+    assertThat(queryQuotaStore.findAgeOfQuery(USER_ID, 99)).contains(Duration.ofSeconds(100));
+  }
+
+  @Test
+  void testEvictExpired() {
+    queryQuotaStore.recordQuery(USER_ID, NOW.minus(Duration.ofDays(8)));
+    queryQuotaStore.recordQuery(USER_ID, NOW.minusSeconds(10));
+    queryQuotaStore.recordQuery("other-" + USER_ID, NOW.minus(Duration.ofDays(8)));
+
+    queryQuotaStore.evictExpired();
+
+    assertThat(queryQuotaStore.countQueries(USER_ID, Duration.ofDays(30))).isEqualTo(1);
+    assertThat(queryQuotaStore.findAgeOfQuery(USER_ID, 1)).isEmpty();
+    assertThat(queryQuotaStore.countQueries("other-" + USER_ID, Duration.ofDays(30))).isZero();
+  }
+}
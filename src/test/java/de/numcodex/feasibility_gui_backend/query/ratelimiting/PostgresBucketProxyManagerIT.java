@@ -0,0 +1,143 @@
+package de.numcodex.feasibility_gui_backend.query.ratelimiting;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.BucketProxy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("query")
+@Tag("ratelimiting")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers
+// The proxy managers use their own connections and commit right away
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PostgresBucketProxyManagerIT {
+
+  private static final String KEY = "detailed-obfuscated:user-104512";
+  private static final int CAPACITY = 50;
+
+  @Autowired
+  private DataSource dataSource;
+
+  private JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  void setUp() {
+    jdbcTemplate = new JdbcTemplate(dataSource);
+  }
+
+  @AfterEach
+  void tearDown() {
+    jdbcTemplate.update("DELETE FROM rate_limiting_bucket");
+  }
+
+  @Test
+  void testTryConsume_createsMissingBucket() {
+    var bucket = resolveBucket(new PostgresBucketProxyManager(dataSource), KEY);
+    assertThat(countBuckets(KEY)).isZero();
+
+    assertThat(bucket.tryConsume(1)).isTrue();
+
+    assertThat(countBuckets(KEY)).isOne();
+    assertThat(jdbcTemplate.queryForObject("SELECT state FROM rate_limiting_bucket WHERE id = ?", byte[].class, KEY))
+        .isNotEmpty();
+    assertThat(bucket.getAvailableTokens()).isEqualTo(CAPACITY - 1);
+  }
+
+  @Test
+  void testTryConsume_sharesBucketBetweenConcurrentProxyManagers() throws Exception {
+    var buckets = new BucketProxy[]{
+        resolveBucket(new PostgresBucketProxyManager(dataSource), KEY),
+        resolveBucket(new PostgresBucketProxyManager(dataSource), KEY)
+    };
+    var executor = Executors.newFixedThreadPool(8);
+    try {
+      var consumers = new ArrayList<Callable<Integer>>();
+      for (var i = 0; i < 8; i++) {
+        var bucket = buckets[i % buckets.length];
+        consumers.add(() -> {
+          var consumed = 0;
+          for (var j = 0; j < 20; j++) {
+            if (bucket.tryConsume(1)) {
+              consumed++;
+            }
+          }
+          return consumed;
+        });
+      }
+
+      var consumed = 0;
+      for (Future<Integer> result : executor.invokeAll(consumers)) {
+        consumed += result.get();
+      }
+
+      assertThat(consumed).isEqualTo(CAPACITY);
+      assertThat(countBuckets(KEY)).isOne();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void testEvictIdle_deletesOnlyIdleBuckets() {
+    var proxyManager = new PostgresBucketProxyManager(dataSource);
+    resolveBucket(proxyManager, "idle").tryConsume(1);
+    resolveBucket(proxyManager, "active").tryConsume(1);
+    jdbcTemplate.update("UPDATE rate_limiting_bucket SET updated_at = ? WHERE id = ?",
+        Timestamp.from(Instant.now().minus(Duration.ofHours(2))), "idle");
+
+    proxyManager.evictIdle(Duration.ofHours(1));
+
+    assertThat(countBuckets("idle")).isZero();
+    assertThat(countBuckets("active")).isOne();
+  }
+
+  @Test
+  void testEvictIdle_startsEvictedBucketOver() {
+    var proxyManager = new PostgresBucketProxyManager(dataSource);
+    var bucket = resolveBucket(proxyManager, KEY);
+    bucket.tryConsume(CAPACITY);
+    jdbcTemplate.update("UPDATE rate_limiting_bucket SET updated_at = ? WHERE id = ?",
+        Timestamp.from(Instant.now().minus(Duration.ofHours(2))), KEY);
+
+    proxyManager.evictIdle(Duration.ofHours(1));
+
+    assertThat(bucket.tryConsume(1)).isTrue();
+    assertThat(countBuckets(KEY)).isOne();
+  }
+
+  private static BucketProxy resolveBucket(PostgresBucketProxyManager proxyManager, String key) {
+    return proxyManager.builder().build(key, () -> BucketConfiguration.builder()
+        .addLimit(Bandwidth.builder()
+            .capacity(CAPACITY)
+            .refillIntervally(CAPACITY, Duration.ofHours(1))
+            .build())
+        .build());
+  }
+
+  private int countBuckets(String key) {
+    return jdbcTemplate.queryForObject("SELECT count(*) FROM rate_limiting_bucket WHERE id = ?", Integer.class, key);
+  }
+}
@@ -286,6 +286,24 @@ public class RateLimitingInterceptorIT {
         .andExpect(status().isOk());
   }
 
+  @Test
+  public void testGetDetailedObfuscatedResultRateLimit_IsNotRateLimited() throws Exception {
+    var authorName = UUID.randomUUID().toString();
+    var requestUri = PATH_API + PATH_QUERY + PATH_FEASIBILITY + "/detailed-obfuscated-result-rate-limit";
+
+    doReturn(false).when(authenticationHelper)
+        .hasAuthority(any(Authentication.class), eq("ROLE_DATAPORTAL_TEST_ADMIN"));
+
+    for (int i = 0; i < 3; ++i) {
+      mockMvc
+          .perform(
+              get(requestUri).with(csrf())
+                  .with(user(authorName).password("pass").roles("DATAPORTAL_TEST_USER"))
+          )
+          .andExpect(status().isOk());
+    }
+  }
+
   @NotNull
   private static QueryResult createTestQueryResult(ResultDetail resultDetail) {
     List<QueryResultLine> queryResultLines;
@@ -323,6 +341,7 @@ public class RateLimitingInterceptorIT {
         .queryId(1L)
         .totalNumberOfPatients(123L)
         .resultLines(queryResultLines)
+        .numberOfSitesAboveThreshold(3)
         .build();
   }
 
@@ -1,6 +1,7 @@
 package de.numcodex.feasibility_gui_backend.query.ratelimiting;
 
 import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 import java.time.Duration;
 import java.util.concurrent.TimeUnit;
@@ -62,4 +63,27 @@ public class RateLimitingServiceTest {
     Thread.sleep(TimeUnit.MILLISECONDS.convert(intervalPollingSummary.getDuration()));
     assertTrue(bucketSomeoneDetailed.tryConsume(1));
   }
+
+  @Test
+  void testIdleTimeoutCoversFullRefill() {
+    assertEquals(intervalDetailedObfuscated.getDuration().multipliedBy(amountDetailedObfuscated),
+        rateLimitingService.getIdleTimeout());
+  }
+
+  @Test
+  void testBucketsAndRejectionsAreCounted() {
+    var meterRegistry = new SimpleMeterRegistry();
+    var countingRateLimitingService = new RateLimitingService(intervalPollingSummary, intervalPollingDetailed,
+        amountDetailedObfuscated, intervalDetailedObfuscated, null, meterRegistry);
+
+    Bucket summaryBucket = countingRateLimitingService.resolveSummaryResultBucket("someone");
+    assertTrue(summaryBucket.tryConsume(1));
+    assertFalse(summaryBucket.tryConsume(1));
+    countingRateLimitingService.resolveViewDetailedObfuscatedBucket("someone");
+
+    assertEquals(2, meterRegistry.get("ratelimiting.buckets").gauge().value());
+    assertEquals(1, meterRegistry.get("ratelimiting.rejections").tag("bucket", "summary-result").counter().count());
+    assertEquals(0, meterRegistry.get("ratelimiting.rejections").tag("bucket", "view-detailed-obfuscated-result")
+        .counter().count());
+  }
 }
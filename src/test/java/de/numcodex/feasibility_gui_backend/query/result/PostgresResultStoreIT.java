@@ -0,0 +1,122 @@
+package de.numcodex.feasibility_gui_backend.query.result;
+
+import de.numcodex.feasibility_gui_backend.query.persistence.StoredResultLine.StoredResultLineId;
+import de.numcodex.feasibility_gui_backend.query.persistence.StoredResultLineRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+
+import static de.numcodex.feasibility_gui_backend.query.persistence.ResultType.SUCCESS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("query")
+@Tag("result")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers
+// Each repository call runs in its own transaction, like it does outside of tests
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PostgresResultStoreIT {
+
+  private static final long QUERY_ID = 1L;
+  private static final String SITE_NAME_1 = "site-name-093512";
+  private static final String SITE_NAME_2 = "site-name-093517";
+
+  @Autowired
+  private StoredResultLineRepository storedResultLineRepository;
+
+  private PostgresResultStore resultStore;
+
+  @BeforeEach
+  void setUp() {
+    resultStore = new PostgresResultStore(storedResultLineRepository, Duration.ofMinutes(1));
+  }
+
+  @AfterEach
+  void tearDown() {
+    storedResultLineRepository.deleteAll();
+  }
+
+  @Test
+  void addResultLine_extendsExpiryOfUnexpiredResultLines() {
+    var now = Instant.now();
+    insertResultLine(QUERY_ID, SITE_NAME_1, now, now.plusSeconds(10));
+
+    resultStore.addResultLine(QUERY_ID, resultLine(SITE_NAME_2, 20L));
+
+    assertThat(expiresAt(QUERY_ID, SITE_NAME_1)).isAfter(now.plusSeconds(50));
+    assertThat(resultStore.findByQuery(QUERY_ID)).containsExactlyInAnyOrder(
+        resultLine(SITE_NAME_1, 10L),
+        resultLine(SITE_NAME_2, 20L));
+  }
+
+  @Test
+  void addResultLine_doesNotReviveExpiredResultLines() {
+    // The database keeps microseconds only
+    var now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    var expiredAt = now.minusSeconds(10);
+    insertResultLine(QUERY_ID, SITE_NAME_1, now.minusSeconds(70), expiredAt);
+
+    resultStore.addResultLine(QUERY_ID, resultLine(SITE_NAME_2, 20L));
+
+    assertThat(expiresAt(QUERY_ID, SITE_NAME_1)).isEqualTo(expiredAt);
+    assertThat(resultStore.findByQuery(QUERY_ID)).containsExactly(resultLine(SITE_NAME_2, 20L));
+  }
+
+  @Test
+  void addResultLine_keepsFirstResultLinePerSite() {
+    resultStore.addResultLine(QUERY_ID, resultLine(SITE_NAME_1, 10L));
+    resultStore.addResultLine(QUERY_ID, resultLine(SITE_NAME_1, 20L));
+
+    assertThat(resultStore.findByQuery(QUERY_ID)).containsExactly(resultLine(SITE_NAME_1, 10L));
+  }
+
+  @Test
+  void purgeExpired_deletesExpiredResultLinesAndNotifiesOncePerQuery() {
+    var now = Instant.now();
+    insertResultLine(1L, SITE_NAME_1, now.minusSeconds(70), now.minusSeconds(10));
+    insertResultLine(1L, SITE_NAME_2, now.minusSeconds(70), now.minusSeconds(10));
+    insertResultLine(2L, SITE_NAME_1, now, now.plusSeconds(60));
+    insertResultLine(3L, SITE_NAME_1, now.minusSeconds(70), now.minusSeconds(10));
+    var expiredQueryIds = new ArrayList<Long>();
+    resultStore.setExpiryListener(expiredQueryIds::add);
+
+    resultStore.purgeExpired();
+
+    assertThat(expiredQueryIds).containsExactlyInAnyOrder(1L, 3L);
+    assertThat(storedResultLineRepository.findAll())
+        .extracting(resultLine -> resultLine.getId().getQueryId())
+        .containsExactly(2L);
+  }
+
+  private void insertResultLine(long queryId, String siteName, Instant now, Instant expiresAt) {
+    storedResultLineRepository.insertIfAbsent(queryId, siteName, SUCCESS.name(), 10L, Timestamp.from(now),
+        Timestamp.from(expiresAt));
+  }
+
+  private Instant expiresAt(long queryId, String siteName) {
+    return storedResultLineRepository.findById(new StoredResultLineId(queryId, siteName)).orElseThrow()
+        .getExpiresAt().toInstant();
+  }
+
+  private static ResultLine resultLine(String siteName, long result) {
+    return ResultLine.builder()
+        .siteName(siteName)
+        .type(SUCCESS)
+        .result(result)
+        .build();
+  }
+}
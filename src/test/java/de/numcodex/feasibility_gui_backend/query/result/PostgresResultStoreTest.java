@@ -0,0 +1,88 @@
+package de.numcodex.feasibility_gui_backend.query.result;
+
+import static de.numcodex.feasibility_gui_backend.query.persistence.ResultType.SUCCESS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
+
+import de.numcodex.feasibility_gui_backend.query.persistence.StoredResultLine;
+import de.numcodex.feasibility_gui_backend.query.persistence.StoredResultLine.StoredResultLineId;
+import de.numcodex.feasibility_gui_backend.query.persistence.StoredResultLineRepository;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@Tag("query")
+@Tag("result")
+@ExtendWith(MockitoExtension.class)
+class PostgresResultStoreTest {
+
+  private static final String SITE_NAME = "site-name-101542";
+  private static final long QUERY_ID = 1L;
+
+  @Mock
+  private StoredResultLineRepository storedResultLineRepository;
+
+  private PostgresResultStore resultStore;
+
+  @BeforeEach
+  void setUp() {
+    resultStore = new PostgresResultStore(storedResultLineRepository, Duration.ofMinutes(1));
+  }
+
+  @Test
+  void addResultLine_storesResultLineWithExpiry() {
+    var expiresAtCaptor = ArgumentCaptor.forClass(Timestamp.class);
+
+    resultStore.addResultLine(QUERY_ID, ResultLine.builder()
+        .siteName(SITE_NAME)
+        .type(SUCCESS)
+        .result(10L)
+        .build());
+
+    verify(storedResultLineRepository).insertIfAbsent(eq(QUERY_ID), eq(SITE_NAME), eq("SUCCESS"), eq(10L),
+        any(Timestamp.class), expiresAtCaptor.capture());
+    assertThat(expiresAtCaptor.getValue().toInstant())
+        .isBetween(Instant.now().plusSeconds(50), Instant.now().plusSeconds(70));
+  }
+
+  @Test
+  void findByQuery_mapsStoredResultLines() {
+    var storedResultLine = new StoredResultLine();
+    storedResultLine.setId(new StoredResultLineId(QUERY_ID, SITE_NAME));
+    storedResultLine.setResultType(SUCCESS);
+    storedResultLine.setResult(10L);
+    doReturn(List.of(storedResultLine)).when(storedResultLineRepository)
+        .findUnexpiredByQueryId(eq(QUERY_ID), any(Timestamp.class));
+
+    var resultLines = resultStore.findByQuery(QUERY_ID);
+
+    assertThat(resultLines).singleElement().isEqualTo(ResultLine.builder()
+        .siteName(SITE_NAME)
+        .type(SUCCESS)
+        .result(10L)
+        .build());
+  }
+
+  @Test
+  void purgeExpired_notifiesExpiryListenerOncePerQuery() {
+    var expiredQueryIds = new ArrayList<Long>();
+    resultStore.setExpiryListener(expiredQueryIds::add);
+    doReturn(List.of(1L, 1L, 2L)).when(storedResultLineRepository).deleteExpired(any(Timestamp.class));
+
+    resultStore.purgeExpired();
+
+    assertThat(expiredQueryIds).containsExactly(1L, 2L);
+  }
+}
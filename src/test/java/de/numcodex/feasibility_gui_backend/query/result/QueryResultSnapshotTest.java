@@ -0,0 +1,109 @@
+package de.numcodex.feasibility_gui_backend.query.result;
+
+import static de.numcodex.feasibility_gui_backend.query.persistence.ResultType.ERROR;
+import static de.numcodex.feasibility_gui_backend.query.persistence.ResultType.SUCCESS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("query")
+@Tag("result")
+class QueryResultSnapshotTest {
+
+  private static ResultLine resultLine(String siteName, long result) {
+    return ResultLine.builder()
+        .siteName(siteName)
+        .type(SUCCESS)
+        .result(result)
+        .build();
+  }
+
+  @Test
+  void testEmpty() {
+    assertThat(QueryResultSnapshot.EMPTY.resultLines()).isEmpty();
+    assertThat(QueryResultSnapshot.EMPTY.successfulResultLines()).isEmpty();
+    assertThat(QueryResultSnapshot.EMPTY.successCount()).isZero();
+    assertThat(QueryResultSnapshot.EMPTY.totalNumberOfPatients()).isZero();
+    assertThat(QueryResultSnapshot.EMPTY.countSitesAboveThreshold(0)).isZero();
+  }
+
+  @Test
+  void testMerge_aggregatesSuccessfulResultLines() {
+    var errorResultLine = ResultLine.builder().siteName("C").type(ERROR).result(0L).build();
+
+    var snapshot = QueryResultSnapshot.EMPTY
+        .merge(resultLine("A", 30L))
+        .merge(errorResultLine)
+        .merge(resultLine("B", 12L));
+
+    assertThat(snapshot.resultLines()).containsExactly(resultLine("A", 30L), errorResultLine, resultLine("B", 12L));
+    assertThat(snapshot.successfulResultLines()).containsExactly(resultLine("A", 30L), resultLine("B", 12L));
+    assertThat(snapshot.successCount()).isEqualTo(2);
+    assertThat(snapshot.totalNumberOfPatients()).isEqualTo(42L);
+  }
+
+  @Test
+  void testMerge_keepsFirstResultLinePerSite() {
+    var snapshot = QueryResultSnapshot.EMPTY.merge(resultLine("A", 30L));
+
+    var merged = snapshot.merge(resultLine("A", 12L));
+
+    assertThat(merged).isSameAs(snapshot);
+    assertThat(merged.successfulResultLines()).containsExactly(resultLine("A", 30L));
+    assertThat(merged.totalNumberOfPatients()).isEqualTo(30L);
+  }
+
+  @Test
+  void testMerge_doesNotModifyOriginalSnapshot() {
+    var snapshot = QueryResultSnapshot.EMPTY.merge(resultLine("A", 30L));
+
+    snapshot.merge(resultLine("B", 12L));
+
+    assertThat(snapshot.successfulResultLines()).containsExactly(resultLine("A", 30L));
+    assertThat(snapshot.totalNumberOfPatients()).isEqualTo(30L);
+  }
+
+  @Test
+  void testCountSitesAboveThreshold() {
+    var snapshot = QueryResultSnapshot.of(List.of(
+        resultLine("A", 25L),
+        resultLine("B", 5L),
+        resultLine("C", 20L),
+        resultLine("D", 20L),
+        resultLine("E", 100L)));
+
+    assertThat(snapshot.countSitesAboveThreshold(0)).isEqualTo(5);
+    assertThat(snapshot.countSitesAboveThreshold(5)).isEqualTo(4);
+    assertThat(snapshot.countSitesAboveThreshold(19)).isEqualTo(4);
+    assertThat(snapshot.countSitesAboveThreshold(20)).isEqualTo(2);
+    assertThat(snapshot.countSitesAboveThreshold(100)).isZero();
+  }
+
+  @Test
+  void testCountSitesAboveThreshold_keepsCountOfThresholdUpToDateOnMerge() {
+    var errorResultLine = ResultLine.builder().siteName("D").type(ERROR).result(0L).build();
+    var snapshot = QueryResultSnapshot.of(List.of(resultLine("A", 25L), resultLine("B", 5L)));
+    assertThat(snapshot.countSitesAboveThreshold(20)).isEqualTo(1);
+
+    var merged = snapshot
+        .merge(resultLine("C", 21L))
+        .merge(errorResultLine)
+        .merge(resultLine("E", 20L))
+        .merge(resultLine("A", 100L));
+
+    assertThat(merged.countSitesAboveThreshold(20)).isEqualTo(2);
+    assertThat(merged.countSitesAboveThreshold(0)).isEqualTo(4);
+    assertThat(snapshot.countSitesAboveThreshold(20)).isEqualTo(1);
+  }
+
+  @Test
+  void testEquals_ignoresOrderOfResultLines() {
+    var snapshot = QueryResultSnapshot.of(List.of(resultLine("A", 1L), resultLine("B", 2L)));
+    var reordered = QueryResultSnapshot.of(List.of(resultLine("B", 2L), resultLine("A", 1L)));
+
+    assertThat(snapshot).isEqualTo(reordered).hasSameHashCodeAs(reordered);
+    assertThat(snapshot).isNotEqualTo(QueryResultSnapshot.of(List.of(resultLine("A", 1L))));
+  }
+}
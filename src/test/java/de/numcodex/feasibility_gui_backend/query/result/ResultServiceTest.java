@@ -3,12 +3,12 @@ package de.numcodex.feasibility_gui_backend.query.result;
 import static de.numcodex.feasibility_gui_backend.query.persistence.ResultType.ERROR;
 import static de.numcodex.feasibility_gui_backend.query.persistence.ResultType.SUCCESS;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 
-import de.numcodex.feasibility_gui_backend.query.persistence.QueryDispatchRepository;
-import java.net.URI;
+import de.numcodex.feasibility_gui_backend.query.collect.BrokerQueryLifecycleManager;
 import java.time.Duration;
 
-import org.aktin.broker.client2.BrokerAdmin2;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
@@ -16,6 +16,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.threeten.extra.PeriodDuration;
+import reactor.test.StepVerifier;
 
 @Tag("query")
 @Tag("result")
@@ -34,11 +35,11 @@ class ResultServiceTest {
   private ResultService resultService;
 
   @Mock
-  private QueryDispatchRepository queryDispatchRepository;
+  private BrokerQueryLifecycleManager brokerQueryLifecycleManager;
 
   @BeforeEach
   void setUp() {
-    resultService = new ResultService(expiryTime, new BrokerAdmin2(URI.create("test")), queryDispatchRepository);
+    resultService = new ResultService(expiryTime, brokerQueryLifecycleManager);
   }
 
   @Test
@@ -86,6 +87,22 @@ class ResultServiceTest {
     assertThat(resultLines).isEmpty();
   }
 
+  @Test
+  void testResultExpiry_ClosesBrokerQueries() throws Exception {
+    resultService.addResultLine(QUERY_ID,
+            ResultLine.builder()
+                    .siteName(SITE_NAME)
+                    .type(SUCCESS)
+                    .result(0L)
+                    .build()
+    );
+    Thread.sleep(expiryTime.getDuration().plusMillis(250).toMillis());
+
+    resultService.findSuccessfulByQuery(QUERY_ID);
+
+    verify(brokerQueryLifecycleManager, timeout(1000)).onResultsExpired(QUERY_ID);
+  }
+
   @Test
   void testKeepsFirstResultPerSite() {
     ResultLine resultLine = ResultLine.builder()
@@ -145,4 +162,23 @@ class ResultServiceTest {
     assertThat(resultLines1).singleElement().isEqualTo(resultLine);
     assertThat(resultLines2).singleElement().isEqualTo(resultLine);
   }
+
+  @Test
+  void testResultUpdates_announcesAddedResultsOfQuery() {
+    var resultLine = ResultLine.builder()
+            .siteName(SITE_NAME)
+            .type(SUCCESS)
+            .result(0L)
+            .build();
+
+    StepVerifier.create(resultService.resultUpdates(QUERY_ID_1))
+            .then(() -> {
+              resultService.addResultLine(QUERY_ID_1, resultLine);
+              resultService.addResultLine(QUERY_ID_2, resultLine);
+              resultService.addResultLine(QUERY_ID_1, resultLine);
+            })
+            .expectNext(QUERY_ID_1, QUERY_ID_1)
+            .thenCancel()
+            .verify();
+  }
 }
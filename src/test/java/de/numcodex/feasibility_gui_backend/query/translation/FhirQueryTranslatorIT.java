@@ -16,8 +16,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.containers.wait.strategy.Wait;
@@ -78,8 +78,8 @@ public class FhirQueryTranslatorIT {
                 .build()
                 .toString();
 
-        var client = new RestTemplateBuilder()
-                .rootUri(flareRootUri)
+        var client = WebClient.builder()
+                .baseUrl(flareRootUri)
                 .build();
 
         fhirQueryTranslator = new FhirQueryTranslator(client, jsonUtil);
@@ -4,35 +4,44 @@ package de.numcodex.feasibility_gui_backend.query.translation;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import de.numcodex.feasibility_gui_backend.query.api.StructuredQuery;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.*;
-import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 
 @Tag("query")
 @Tag("translation")
-@ExtendWith(MockitoExtension.class)
 public class FhirQueryTranslatorTest {
 
-    @Mock
-    private RestTemplate client;
+    private MockWebServer mockWebServer;
 
-    @Spy
     private ObjectMapper jsonUtil;
 
-    @InjectMocks
     private FhirQueryTranslator fhirQueryTranslator;
 
-    @Captor
-    private ArgumentCaptor<HttpEntity<String>> requestCaptor;
+    @BeforeEach
+    public void setUp() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+        jsonUtil = spy(new ObjectMapper());
+        fhirQueryTranslator = new FhirQueryTranslator(WebClient.create(mockWebServer.url("/").toString()), jsonUtil);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
 
     @Test
     public void testTranslate_EncodingStructuredQueryForRequestFails() throws JsonProcessingException {
@@ -41,33 +50,45 @@ public class FhirQueryTranslatorTest {
 
         assertThrows(QueryTranslationException.class, () -> fhirQueryTranslator.translate(testQuery));
         verify(jsonUtil).writeValueAsString(testQuery);
-        verifyNoInteractions(client);
+        assertEquals(0, mockWebServer.getRequestCount());
     }
 
     @Test
     public void testTranslate_RequestToExternalTranslationServiceFails() throws JsonProcessingException {
         var testQuery = StructuredQuery.builder().build();
         doReturn("foo").when(jsonUtil).writeValueAsString(testQuery);
-        doThrow(RestClientException.class).when(client)
-                .postForObject(anyString(), any(), eq(String.class));
+        mockWebServer.enqueue(new MockResponse().setStatus(INTERNAL_SERVER_ERROR.toString()));
 
         assertThrows(QueryTranslationException.class, () -> fhirQueryTranslator.translate(testQuery));
         verify(jsonUtil).writeValueAsString(testQuery);
-        verify(client).postForObject(anyString(), any(), eq(String.class));
+        assertEquals(1, mockWebServer.getRequestCount());
     }
 
     @Test
-    public void testTranslate_EverythingSucceeds() throws JsonProcessingException, QueryTranslationException {
+    public void testTranslate_EverythingSucceeds() throws JsonProcessingException, QueryTranslationException,
+            InterruptedException {
         var testQuery = StructuredQuery.builder().build();
         doReturn("foo").when(jsonUtil).writeValueAsString(testQuery);
-        when(client.postForObject(eq("/query/translate"), requestCaptor.capture(), eq(String.class)))
-                .thenReturn("bar");
+        mockWebServer.enqueue(new MockResponse().setBody("bar"));
 
         var translationResult = fhirQueryTranslator.translate(testQuery);
+        var recordedRequest = mockWebServer.takeRequest();
+
         assertEquals("bar", translationResult);
-        assertEquals("foo", requestCaptor.getValue().getBody());
-        assertEquals("CSQ", requestCaptor.getValue().getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING));
-        assertNotNull(requestCaptor.getValue().getHeaders().getContentType());
-        assertEquals("application/json", requestCaptor.getValue().getHeaders().getContentType().toString());
+        assertEquals("/query/translate", recordedRequest.getPath());
+        assertEquals("foo", recordedRequest.getBody().readUtf8());
+        assertEquals("CSQ", recordedRequest.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        assertEquals("application/json", recordedRequest.getHeader(HttpHeaders.CONTENT_TYPE));
+    }
+
+    @Test
+    public void testTranslateAsync_RequestToExternalTranslationServiceFails() throws JsonProcessingException {
+        var testQuery = StructuredQuery.builder().build();
+        doReturn("foo").when(jsonUtil).writeValueAsString(testQuery);
+        mockWebServer.enqueue(new MockResponse().setStatus(INTERNAL_SERVER_ERROR.toString()));
+
+        StepVerifier.create(fhirQueryTranslator.translateAsync(testQuery))
+                .expectError(QueryTranslationException.class)
+                .verify();
     }
 }
@@ -9,7 +9,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
+import java.time.Duration;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -84,4 +87,47 @@ public class QueryTranslationComponentTest {
         assertTrue(translationsResults.containsKey(CQL));
         assertEquals("bar", translationsResults.get(CQL));
     }
+
+    @Test
+    public void testTranslateAsync_MultipleTranslatorsYieldMultipleTranslationResults() {
+        var queryTranslationComponent = setUpComponent(Map.of(
+                STRUCTURED_QUERY, firstQueryTranslator,
+                CQL, secondQueryTranslator
+        ));
+        doReturn(Mono.just("foo")).when(firstQueryTranslator).translateAsync(testQuery);
+        doReturn(Mono.just("bar")).when(secondQueryTranslator).translateAsync(testQuery);
+
+        StepVerifier.create(queryTranslationComponent.translateAsync(testQuery))
+                .expectNext(Map.of(STRUCTURED_QUERY, "foo", CQL, "bar"))
+                .verifyComplete();
+    }
+
+    @Test
+    public void testTranslateAsync_FailingTranslatorFailsTranslation() {
+        var queryTranslationComponent = setUpComponent(Map.of(
+                STRUCTURED_QUERY, firstQueryTranslator,
+                CQL, secondQueryTranslator
+        ));
+        // Translation order is not defined, so the first translator might not get subscribed to at all.
+        lenient().doReturn(Mono.just("foo")).when(firstQueryTranslator).translateAsync(testQuery);
+        doReturn(Mono.error(new QueryTranslationException("error-154417")))
+                .when(secondQueryTranslator).translateAsync(testQuery);
+
+        StepVerifier.create(queryTranslationComponent.translateAsync(testQuery))
+                .expectErrorMatches(e -> e instanceof QueryTranslationException
+                        && e.getMessage().equals("error-154417"))
+                .verify();
+    }
+
+    @Test
+    public void testTranslateAsync_SlowTranslatorTimesOut() {
+        var queryTranslationComponent = new QueryTranslationComponent(
+                Map.of(CQL, firstQueryTranslator),
+                Map.of(CQL, Duration.ofMillis(50)));
+        doReturn(Mono.never()).when(firstQueryTranslator).translateAsync(testQuery);
+
+        StepVerifier.create(queryTranslationComponent.translateAsync(testQuery))
+                .expectError(QueryTranslationException.class)
+                .verify(Duration.ofSeconds(5));
+    }
 }
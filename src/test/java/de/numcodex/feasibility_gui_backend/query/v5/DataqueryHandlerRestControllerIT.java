@@ -6,13 +6,20 @@ import de.numcodex.feasibility_gui_backend.query.api.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import de.numcodex.feasibility_gui_backend.common.api.Criterion;
 import de.numcodex.feasibility_gui_backend.common.api.TermCode;
+import de.numcodex.feasibility_gui_backend.dse.persistence.DseProfileRepository;
 import de.numcodex.feasibility_gui_backend.query.api.status.SavedQuerySlots;
 import de.numcodex.feasibility_gui_backend.query.api.status.ValidationIssue;
+import de.numcodex.feasibility_gui_backend.query.dataquery.DataqueryCsvExportException;
+import de.numcodex.feasibility_gui_backend.query.dataquery.DataqueryCsvExportService;
 import de.numcodex.feasibility_gui_backend.query.dataquery.DataqueryException;
 import de.numcodex.feasibility_gui_backend.query.dataquery.DataqueryHandler;
 import de.numcodex.feasibility_gui_backend.query.dataquery.DataqueryStorageFullException;
+import de.numcodex.feasibility_gui_backend.query.persistence.DataqueryRepository;
 import de.numcodex.feasibility_gui_backend.query.ratelimiting.AuthenticationHelper;
 import de.numcodex.feasibility_gui_backend.query.ratelimiting.RateLimitingServiceSpringConfig;
+import de.numcodex.feasibility_gui_backend.terminology.es.CodeableConceptService;
+import de.numcodex.feasibility_gui_backend.terminology.es.TerminologyEsService;
+import de.numcodex.feasibility_gui_backend.terminology.persistence.UiProfileRepository;
 import de.numcodex.feasibility_gui_backend.terminology.validation.StructuredQueryValidation;
 
 import java.io.ByteArrayOutputStream;
@@ -31,12 +38,14 @@ import org.junit.jupiter.params.provider.CsvSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.util.MimeType;
 
 import java.net.URI;
@@ -44,6 +53,8 @@ import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 import static de.numcodex.feasibility_gui_backend.config.WebSecurityConfig.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
@@ -190,15 +201,51 @@ public class DataqueryHandlerRestControllerIT {
         long dataqueryId = 1L;
 
         doReturn(createValidApiDataqueryToGet(dataqueryId)).when(dataqueryHandler).getDataqueryById(any(Long.class), any(Authentication.class));
-        doReturn(createValidByteArrayOutputStream()).when(dataqueryHandler).createCsvExportZipfile(any(Dataquery.class));
+        var zipFile = createValidByteArrayOutputStream().toByteArray();
+        StreamingResponseBody zipStream = outputStream -> outputStream.write(zipFile);
+        doReturn(zipStream).when(dataqueryHandler).createCsvExportZipStream(any(Dataquery.class));
 
-        mockMvc.perform(get(URI.create(PATH_API + PATH_QUERY + PATH_DATA + "/" + dataqueryId + "/crtdl"))
+        var mvcResult = mockMvc.perform(get(URI.create(PATH_API + PATH_QUERY + PATH_DATA + "/" + dataqueryId + "/crtdl"))
                 .header(HttpHeaders.ACCEPT, "application/zip")
                 .with(csrf()))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
             .andExpect(status().isOk())
             .andExpect(content().contentType("application/zip"))
             .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/zip"))
-            .andExpect(header().string(HttpHeaders.CONTENT_LENGTH, Matchers.not("0")));
+            .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, Matchers.startsWith("attachment; filename=")))
+            .andExpect(content().bytes(zipFile));
+    }
+
+    @Test
+    @WithMockUser(roles = "DATAPORTAL_TEST_USER")
+    public void testGetDataqueryCrtdlCsv_encodesLabelInFilename() throws Exception {
+        long dataqueryId = 1L;
+        var dataquery = Dataquery.builder()
+            .id(dataqueryId)
+            .content(createCrtdl())
+            .label("Größe \"a\"; filename=x")
+            .build();
+
+        doReturn(dataquery).when(dataqueryHandler).getDataqueryById(any(Long.class), any(Authentication.class));
+        StreamingResponseBody zipStream = outputStream -> {};
+        doReturn(zipStream).when(dataqueryHandler).createCsvExportZipStream(any(Dataquery.class));
+
+        var mvcResult = mockMvc.perform(get(URI.create(PATH_API + PATH_QUERY + PATH_DATA + "/" + dataqueryId + "/crtdl"))
+                .header(HttpHeaders.ACCEPT, "application/zip")
+                .with(csrf()))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        var contentDisposition = mockMvc.perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.CONTENT_DISPOSITION);
+
+        var parsed = ContentDisposition.parse(contentDisposition);
+        assertTrue(parsed.isAttachment());
+        assertEquals("GRÖSSE \"A\"; FILENAME=X_dataquery.zip", parsed.getFilename());
     }
 
     @Test
@@ -207,7 +254,7 @@ public class DataqueryHandlerRestControllerIT {
         long dataqueryId = 1;
 
         doReturn(createValidApiDataqueryToGet(dataqueryId)).when(dataqueryHandler).getDataqueryById(any(Long.class), any(Authentication.class));
-        doThrow(DataqueryException.class).when(dataqueryHandler).createCsvExportZipfile(any(Dataquery.class));
+        doThrow(DataqueryException.class).when(dataqueryHandler).createCsvExportZipStream(any(Dataquery.class));
 
         mockMvc.perform(get(URI.create(PATH_API + PATH_QUERY + PATH_DATA + "/" + dataqueryId + "/crtdl"))
                 .header(HttpHeaders.ACCEPT, "application/zip")
@@ -221,7 +268,7 @@ public class DataqueryHandlerRestControllerIT {
         long dataqueryId = 1;
 
         doReturn(createValidApiDataqueryToGet(dataqueryId)).when(dataqueryHandler).getDataqueryById(any(Long.class), any(Authentication.class));
-        doThrow(JsonProcessingException.class).when(dataqueryHandler).createCsvExportZipfile(any(Dataquery.class));
+        doThrow(JsonProcessingException.class).when(dataqueryHandler).createCsvExportZipStream(any(Dataquery.class));
 
         mockMvc.perform(get(URI.create(PATH_API + PATH_QUERY + PATH_DATA + "/" + dataqueryId + "/crtdl"))
                 .header(HttpHeaders.ACCEPT, "application/zip")
@@ -231,16 +278,52 @@ public class DataqueryHandlerRestControllerIT {
 
     @Test
     @WithMockUser(roles = "DATAPORTAL_TEST_USER")
-    public void testGetDataqueryCrtdlCsv_failsOnIoException() throws Exception {
+    public void testGetDataqueryCrtdlCsv_failsOnCsvExportError() throws Exception {
         long dataqueryId = 1;
 
         doReturn(createValidApiDataqueryToGet(dataqueryId)).when(dataqueryHandler).getDataqueryById(any(Long.class), any(Authentication.class));
-        doThrow(IOException.class).when(dataqueryHandler).createCsvExportZipfile(any(Dataquery.class));
+        doThrow(DataqueryCsvExportException.class).when(dataqueryHandler).createCsvExportZipStream(any(Dataquery.class));
 
         mockMvc.perform(get(URI.create(PATH_API + PATH_QUERY + PATH_DATA + "/" + dataqueryId + "/crtdl"))
                 .header(HttpHeaders.ACCEPT, "application/zip")
                 .with(csrf()))
-            .andExpect(status().isInternalServerError());
+            .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    @WithMockUser(roles = "DATAPORTAL_TEST_USER")
+    public void testGetDataqueryCrtdlCsv_failsOnUnknownDseProfileWith422() throws Exception {
+        long dataqueryId = 1;
+        var dataquery = Dataquery.builder()
+            .id(dataqueryId)
+            .content(Crtdl.builder()
+                .cohortDefinition(createValidStructuredQuery())
+                .dataExtraction(DataExtraction.builder()
+                    .attributeGroups(List.of(AttributeGroup.builder()
+                        .id("group-1")
+                        .name("unknown profile")
+                        .groupReference(URI.create("https://example.com/fhir/StructureDefinition/unknown"))
+                        .build()))
+                    .build())
+                .build())
+            .label("TestLabel")
+            .build();
+        var dseProfileRepository = mock(DseProfileRepository.class);
+        var csvExportService = new DataqueryCsvExportService(jsonUtil, dseProfileRepository,
+            mock(UiProfileRepository.class), mock(TerminologyEsService.class), mock(CodeableConceptService.class));
+        var csvExportingDataqueryHandler = new DataqueryHandler(jsonUtil, mock(DataqueryRepository.class),
+            csvExportService, 10, "admin");
+
+        doReturn(dataquery).when(dataqueryHandler).getDataqueryById(any(Long.class), any(Authentication.class));
+        doAnswer(invocation -> csvExportingDataqueryHandler.createCsvExportZipStream(invocation.getArgument(0)))
+            .when(dataqueryHandler).createCsvExportZipStream(any(Dataquery.class));
+
+        mockMvc.perform(get(URI.create(PATH_API + PATH_QUERY + PATH_DATA + "/" + dataqueryId + "/crtdl"))
+                .header(HttpHeaders.ACCEPT, "application/zip")
+                .with(csrf()))
+            .andExpect(request().asyncNotStarted())
+            .andExpect(status().isUnprocessableEntity());
+        verify(dseProfileRepository).findAllByUrlIn(List.of("https://example.com/fhir/StructureDefinition/unknown"));
     }
 
     @ParameterizedTest
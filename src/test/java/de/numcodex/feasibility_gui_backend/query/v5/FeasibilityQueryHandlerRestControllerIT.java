@@ -37,21 +37,28 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.List;
 
 import static de.numcodex.feasibility_gui_backend.common.api.Comparator.GREATER_EQUAL;
 import static de.numcodex.feasibility_gui_backend.config.WebSecurityConfig.*;
 import static de.numcodex.feasibility_gui_backend.query.api.ValueFilterType.QUANTITY_COMPARATOR;
 import static de.numcodex.feasibility_gui_backend.query.persistence.ResultType.SUCCESS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.Mockito.*;
@@ -68,7 +75,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @WebMvcTest(
         controllers = FeasibilityQueryHandlerRestController.class,
         properties = {
-                "app.enableQueryValidation=true"
+                "app.enableQueryValidation=true",
+                "app.resultStream.maxStreamsPerUser=1"
         }
 )
 @SuppressWarnings("NewClassNamingConvention")
@@ -115,6 +123,9 @@ public class FeasibilityQueryHandlerRestControllerIT {
     @Value("${app.maxSavedQueriesPerUser}")
     private long maxSavedQueriesPerUser;
 
+    @Value("${app.queryResultExpiry}")
+    private String queryResultExpiry;
+
     @BeforeEach
     void initTest() throws Exception {
         when(rateLimitingInterceptor.preHandle(any(), any(), any())).thenReturn(true);
@@ -316,7 +327,8 @@ public class FeasibilityQueryHandlerRestControllerIT {
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$.totalNumberOfPatients").exists())
                     .andExpect(jsonPath("$.resultLines").exists())
-                    .andExpect(jsonPath("$.resultLines[0].siteName", startsWith("foobar")));
+                    .andExpect(jsonPath("$.resultLines[0].siteName", startsWith("foobar")))
+                    .andExpect(jsonPath("$.numberOfSitesAboveThreshold").doesNotExist());
             case DETAILED -> mockMvc.perform(get(requestUri).with(csrf()))
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$.totalNumberOfPatients").exists())
@@ -353,6 +365,96 @@ public class FeasibilityQueryHandlerRestControllerIT {
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    @WithMockUser(roles = {"DATAPORTAL_TEST_USER"}, username = "test")
+    public void testStreamSummaryQueryResult_succeeds() throws Exception {
+        doReturn("test").when(queryHandlerService).getAuthorId(any(Long.class));
+        doReturn(Flux.just(createTestQueryResult(QueryHandlerService.ResultDetail.SUMMARY)))
+                .when(queryHandlerService).streamQueryResult(eq(1L), eq(QueryHandlerService.ResultDetail.SUMMARY), any());
+
+        var mvcResult = mockMvc.perform(get(URI.create(PATH + "/1" + PATH_SUMMARY_RESULT + PATH_STREAM))
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .with(csrf()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(content().string(containsString("event:" + FeasibilityQueryHandlerRestController.RESULT_STREAM_EVENT_RESULT)))
+                .andExpect(content().string(containsString("\"totalNumberOfPatients\":999")));
+    }
+
+    @Test
+    @WithMockUser(roles = {"DATAPORTAL_TEST_USER"}, username = "test")
+    public void testStreamSummaryQueryResult_outlivesDefaultAsyncRequestTimeout() throws Exception {
+        var containerDefaultAsyncRequestTimeout = Duration.ofSeconds(30);
+        doReturn("test").when(queryHandlerService).getAuthorId(any(Long.class));
+        doReturn(Flux.just(createTestQueryResult(QueryHandlerService.ResultDetail.SUMMARY)))
+                .when(queryHandlerService).streamQueryResult(eq(1L), eq(QueryHandlerService.ResultDetail.SUMMARY), any());
+
+        var mvcResult = mockMvc.perform(get(URI.create(PATH + "/1" + PATH_SUMMARY_RESULT + PATH_STREAM))
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .with(csrf()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        var streamTimeout = mvcResult.getRequest().getAsyncContext().getTimeout();
+        assertThat(streamTimeout, greaterThan(containerDefaultAsyncRequestTimeout.toMillis()));
+        assertThat(streamTimeout, greaterThanOrEqualTo(Duration.parse(queryResultExpiry).toMillis()));
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser(roles = {"DATAPORTAL_TEST_USER"}, username = "stream-limit-user")
+    public void testStreamSummaryQueryResult_failsOnTooManyOpenStreamsWith429() throws Exception {
+        doReturn("stream-limit-user").when(queryHandlerService).getAuthorId(any(Long.class));
+        doReturn(Flux.never())
+                .when(queryHandlerService).streamQueryResult(eq(1L), eq(QueryHandlerService.ResultDetail.SUMMARY), any());
+
+        mockMvc.perform(get(URI.create(PATH + "/1" + PATH_SUMMARY_RESULT + PATH_STREAM))
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .with(csrf()))
+                .andExpect(request().asyncStarted());
+        mockMvc.perform(get(URI.create(PATH + "/1" + PATH_SUMMARY_RESULT + PATH_STREAM))
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .with(csrf()))
+                .andExpect(status().isTooManyRequests());
+        verify(queryHandlerService, times(1)).streamQueryResult(any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(roles = {"DATAPORTAL_TEST_USER"}, username = "test")
+    public void testStreamSummaryQueryResult_allowsNewStreamAfterPreviousOneEnded() throws Exception {
+        doReturn("test").when(queryHandlerService).getAuthorId(any(Long.class));
+        doReturn(Flux.just(createTestQueryResult(QueryHandlerService.ResultDetail.SUMMARY)))
+                .when(queryHandlerService).streamQueryResult(eq(1L), eq(QueryHandlerService.ResultDetail.SUMMARY), any());
+
+        for (var i = 0; i < 2; i++) {
+            var mvcResult = mockMvc.perform(get(URI.create(PATH + "/1" + PATH_SUMMARY_RESULT + PATH_STREAM))
+                            .accept(MediaType.TEXT_EVENT_STREAM)
+                            .with(csrf()))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(mvcResult))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    @WithMockUser(roles = {"DATAPORTAL_TEST_USER"}, username = "test")
+    public void testStreamSummaryQueryResult_failsOnWrongAuthorWith403() throws Exception {
+        doReturn("some-other-user").when(queryHandlerService).getAuthorId(any(Long.class));
+
+        mockMvc.perform(get(URI.create(PATH + "/1" + PATH_SUMMARY_RESULT + PATH_STREAM))
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .with(csrf()))
+                .andExpect(status().isForbidden());
+        verify(queryHandlerService, never()).streamQueryResult(any(), any(), any());
+    }
+
     @Test
     @WithMockUser(roles = {"DATAPORTAL_TEST_USER"}, username = "test")
     public void testGetDetailedObfuscatedResultRateLimit_succeeds() throws Exception  {
@@ -561,6 +663,7 @@ public class FeasibilityQueryHandlerRestControllerIT {
                 .queryId(1L)
                 .totalNumberOfPatients(totalNumberOfPatients)
                 .resultLines(queryResultLines)
+                .numberOfSitesAboveThreshold(3)
                 .build();
     }
 
@@ -597,6 +700,7 @@ public class FeasibilityQueryHandlerRestControllerIT {
                 .queryId(1L)
                 .totalNumberOfPatients(queryResultLines.stream().map(QueryResultLine::numberOfPatients).reduce(0L, Long::sum))
                 .resultLines(queryResultLines)
+                .numberOfSitesAboveThreshold(0)
                 .build();
     }
 
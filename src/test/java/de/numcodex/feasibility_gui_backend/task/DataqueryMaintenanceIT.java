@@ -12,6 +12,7 @@ import de.numcodex.feasibility_gui_backend.query.collect.QueryCollectSpringConfi
 import de.numcodex.feasibility_gui_backend.query.dataquery.*;
 import de.numcodex.feasibility_gui_backend.query.dispatch.QueryDispatchSpringConfig;
 import de.numcodex.feasibility_gui_backend.query.persistence.DataqueryRepository;
+import de.numcodex.feasibility_gui_backend.query.quota.QueryQuotaSpringConfig;
 import de.numcodex.feasibility_gui_backend.query.result.ResultServiceSpringConfig;
 import de.numcodex.feasibility_gui_backend.query.translation.QueryTranslatorSpringConfig;
 import de.numcodex.feasibility_gui_backend.terminology.validation.StructuredQueryValidation;
@@ -39,6 +40,7 @@ import static org.assertj.core.api.Assertions.assertThat;
     QueryCollectSpringConfig.class,
     QueryHandlerService.class,
     ResultServiceSpringConfig.class,
+    QueryQuotaSpringConfig.class,
     DataquerySpringConfig.class
 })
 @DataJpaTest(
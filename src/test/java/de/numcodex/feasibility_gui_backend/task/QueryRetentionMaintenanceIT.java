@@ -0,0 +1,114 @@
+package de.numcodex.feasibility_gui_backend.task;
+
+import de.numcodex.feasibility_gui_backend.query.persistence.Query;
+import de.numcodex.feasibility_gui_backend.query.persistence.QueryContent;
+import de.numcodex.feasibility_gui_backend.query.persistence.QueryContentRepository;
+import de.numcodex.feasibility_gui_backend.query.persistence.QueryRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("schedule")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers
+class QueryRetentionMaintenanceIT {
+
+  private static final String CREATOR = "creator-101455";
+
+  @Autowired
+  private QueryRepository queryRepository;
+
+  @Autowired
+  private QueryContentRepository queryContentRepository;
+
+  @Test
+  void testDeleteCreatedBefore_deletesOldestQueriesUpToLimit() {
+    var oldestContent = saveQueryContent("oldest");
+    var olderContent = saveQueryContent("older");
+    var oldContent = saveQueryContent("old");
+    saveQuery(oldContent, daysAgo(40));
+    saveQuery(oldestContent, daysAgo(60));
+    saveQuery(olderContent, daysAgo(50));
+    var recentQueryId = saveQuery(oldContent, daysAgo(1));
+
+    var deletedContentIds = queryRepository.deleteCreatedBefore(daysAgo(30), 2);
+
+    assertThat(deletedContentIds).containsExactlyInAnyOrder(oldestContent.getId(), olderContent.getId());
+    assertThat(queryRepository.findAll())
+        .extracting(Query::getId)
+        .hasSize(2)
+        .contains(recentQueryId);
+  }
+
+  @Test
+  void testDeleteUnreferencedByIds_sparesSharedQueryContents() {
+    var sharedContent = saveQueryContent("shared");
+    var unsharedContent = saveQueryContent("unshared");
+    var oldQueryId = saveQuery(sharedContent, daysAgo(60));
+    saveQuery(unsharedContent, daysAgo(60));
+    saveQuery(sharedContent, daysAgo(1));
+
+    var deletedContentIds = queryRepository.deleteCreatedBefore(daysAgo(30), 10);
+    var deletedContentCount = queryContentRepository.deleteUnreferencedByIds(deletedContentIds);
+
+    assertThat(deletedContentCount).isOne();
+    assertThat(queryContentRepository.findAll())
+        .extracting(QueryContent::getId)
+        .containsExactly(sharedContent.getId());
+    assertThat(queryRepository.findAll())
+        .extracting(Query::getId)
+        .doesNotContain(oldQueryId)
+        .hasSize(1);
+  }
+
+  @Test
+  void testPurgeExpiredQueries_deletesAllExpiredQueriesInBatches() {
+    var sharedContent = saveQueryContent("shared");
+    for (var i = 0; i < 5; i++) {
+      saveQuery(saveQueryContent("expired-" + i), daysAgo(60 + i));
+    }
+    saveQuery(sharedContent, daysAgo(60));
+    var recentQueryId = saveQuery(sharedContent, daysAgo(1));
+    var maintenance = new QueryRetentionMaintenance(queryRepository, queryContentRepository, "P30D", 2, "PT1M",
+        "PT1M");
+
+    maintenance.purgeExpiredQueries();
+
+    assertThat(queryRepository.findAll())
+        .extracting(Query::getId)
+        .containsExactly(recentQueryId);
+    assertThat(queryContentRepository.findAll())
+        .extracting(QueryContent::getId)
+        .containsExactly(sharedContent.getId());
+  }
+
+  private QueryContent saveQueryContent(String content) {
+    var queryContent = new QueryContent(content);
+    queryContent.setHash(content);
+    return queryContentRepository.save(queryContent);
+  }
+
+  private Long saveQuery(QueryContent queryContent, Timestamp createdAt) {
+    var query = new Query();
+    query.setCreatedBy(CREATOR);
+    // Updating the creation date clears the persistence context, so contents have to be attached again
+    query.setQueryContent(queryContentRepository.getReferenceById(queryContent.getId()));
+    var queryId = queryRepository.save(query).getId();
+    queryRepository.updateCreationDate(queryId, createdAt);
+    return queryId;
+  }
+
+  private static Timestamp daysAgo(int days) {
+    return Timestamp.from(Instant.now().minus(Duration.ofDays(days)));
+  }
+}
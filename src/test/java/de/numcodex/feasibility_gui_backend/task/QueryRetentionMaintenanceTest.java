@@ -0,0 +1,76 @@
+package de.numcodex.feasibility_gui_backend.task;
+
+import de.numcodex.feasibility_gui_backend.query.persistence.QueryContentRepository;
+import de.numcodex.feasibility_gui_backend.query.persistence.QueryRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@Tag("schedule")
+@ExtendWith(MockitoExtension.class)
+class QueryRetentionMaintenanceTest {
+
+  @Mock
+  private QueryRepository queryRepository;
+
+  @Mock
+  private QueryContentRepository queryContentRepository;
+
+  private QueryRetentionMaintenance createMaintenance(String retentionPeriod) {
+    return new QueryRetentionMaintenance(queryRepository, queryContentRepository, retentionPeriod, 2, "PT1M", "P7D");
+  }
+
+  @Test
+  void testPurgeExpiredQueries_disabledWithoutRetentionPeriod() {
+    createMaintenance("").purgeExpiredQueries();
+
+    verifyNoInteractions(queryRepository, queryContentRepository);
+  }
+
+  @Test
+  void testPurgeExpiredQueries_deletesInBatches() {
+    when(queryRepository.deleteCreatedBefore(any(Timestamp.class), eq(2)))
+        .thenReturn(List.of(1L, 1L))
+        .thenReturn(Arrays.asList(2L, null))
+        .thenReturn(List.of(3L));
+
+    createMaintenance("P30D").purgeExpiredQueries();
+
+    var cutoff = ArgumentCaptor.forClass(Timestamp.class);
+    verify(queryRepository, times(3)).deleteCreatedBefore(cutoff.capture(), eq(2));
+    assertThat(cutoff.getValue().toInstant())
+        .isCloseTo(Instant.now().minus(Duration.ofDays(30)), within(Duration.ofMinutes(1)));
+    verify(queryContentRepository).deleteUnreferencedByIds(List.of(1L));
+    verify(queryContentRepository).deleteUnreferencedByIds(List.of(2L));
+    verify(queryContentRepository).deleteUnreferencedByIds(List.of(3L));
+  }
+
+  @Test
+  void testPurgeExpiredQueries_keepsQueriesWithinQuotaInterval() {
+    when(queryRepository.deleteCreatedBefore(any(Timestamp.class), anyInt())).thenReturn(List.of());
+
+    createMaintenance("P1D").purgeExpiredQueries();
+
+    var cutoff = ArgumentCaptor.forClass(Timestamp.class);
+    verify(queryRepository).deleteCreatedBefore(cutoff.capture(), eq(2));
+    assertThat(cutoff.getValue().toInstant())
+        .isCloseTo(Instant.now().minus(Duration.ofDays(7)), within(Duration.ofMinutes(1)));
+    verifyNoInteractions(queryContentRepository);
+  }
+}
@@ -0,0 +1,116 @@
+package de.numcodex.feasibility_gui_backend.terminology;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.numcodex.feasibility_gui_backend.config.PropertiesReader;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OntologyResponseCacheTest {
+
+  private static final List<String> PAYLOAD = List.of("foo", "bar");
+
+  private final MockEnvironment environment = new MockEnvironment().withProperty("ontology-tag", "v1");
+
+  private final OntologyResponseCache cache = new OntologyResponseCache(new ObjectMapper(), new PropertiesReader(environment));
+
+  private static HttpHeaders headers(String name, String value) {
+    var headers = new HttpHeaders();
+    headers.add(name, value);
+    return headers;
+  }
+
+  @Test
+  void testRespond_servesPlainJsonWithoutAcceptedGzip() {
+    var response = cache.respond("test", new HttpHeaders(), () -> PAYLOAD);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals("[\"foo\",\"bar\"]", new String(response.getBody()));
+    assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    assertNotNull(response.getHeaders().getETag());
+  }
+
+  @Test
+  void testRespond_servesGzipWithDistinctETagIfAccepted() throws IOException {
+    var plain = cache.respond("test", new HttpHeaders(), () -> PAYLOAD);
+    var gzipped = cache.respond("test", headers(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.8"), () -> PAYLOAD);
+
+    assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    try (var in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getBody()))) {
+      assertEquals("[\"foo\",\"bar\"]", new String(in.readAllBytes()));
+    }
+    assertNotEquals(plain.getHeaders().getETag(), gzipped.getHeaders().getETag());
+  }
+
+  @Test
+  void testRespond_ignoresRejectedGzip() {
+    var response = cache.respond("test", headers(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"), () -> PAYLOAD);
+
+    assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+  }
+
+  @Test
+  void testRespond_answersMatchingETagWithNotModified() {
+    var etag = cache.respond("test", new HttpHeaders(), () -> PAYLOAD).getHeaders().getETag();
+
+    var response = cache.respond("test", headers(HttpHeaders.IF_NONE_MATCH, "\"other\", " + etag), () -> PAYLOAD);
+
+    assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+    assertEquals(etag, response.getHeaders().getETag());
+    assertNull(response.getBody());
+  }
+
+  @Test
+  void testRespond_servesPayloadOnOutdatedETag() {
+    var response = cache.respond("test", headers(HttpHeaders.IF_NONE_MATCH, "\"outdated\""), () -> PAYLOAD);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+  }
+
+  @Test
+  void testRespond_serializesPayloadOncePerOntologyTag() {
+    var calls = new AtomicInteger();
+    Supplier<List<String>> payload = () -> List.of("call-" + calls.incrementAndGet());
+
+    var first = cache.respond("test", new HttpHeaders(), payload);
+    var second = cache.respond("test", new HttpHeaders(), payload);
+    environment.setProperty("ontology-tag", "v2");
+    var third = cache.respond("test", new HttpHeaders(), payload);
+
+    assertEquals(2, calls.get());
+    assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+    assertNotEquals(first.getHeaders().getETag(), third.getHeaders().getETag());
+    assertEquals("[\"call-2\"]", new String(third.getBody()));
+  }
+
+  @Test
+  void testRespondWithCurrent_serializesPayloadOncePerInstance() {
+    var first = cache.respondWithCurrent("test", new HttpHeaders(), PAYLOAD);
+    var second = cache.respondWithCurrent("test", new HttpHeaders(), PAYLOAD);
+    var third = cache.respondWithCurrent("test", new HttpHeaders(), List.of("baz"));
+
+    assertSame(first.getBody(), second.getBody());
+    assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+    assertNotEquals(first.getHeaders().getETag(), third.getHeaders().getETag());
+    assertEquals("[\"baz\"]", new String(third.getBody()));
+  }
+
+  @Test
+  void testRespondWithCurrent_keepsETagForEqualPayload() {
+    var first = cache.respondWithCurrent("test", new HttpHeaders(), PAYLOAD);
+    var second = cache.respondWithCurrent("test", new HttpHeaders(), new ArrayList<>(PAYLOAD));
+
+    assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+  }
+}
@@ -0,0 +1,110 @@
+package de.numcodex.feasibility_gui_backend.terminology;
+
+import de.numcodex.feasibility_gui_backend.terminology.persistence.TermCodeRepository;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationInfoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@Tag("terminology")
+@ExtendWith(MockitoExtension.class)
+class TermCodeIndexTest {
+
+    @Mock
+    private TermCodeRepository termCodeRepository;
+
+    @Mock
+    private ObjectProvider<Flyway> flywayProvider;
+
+    @Mock
+    private Flyway flyway;
+
+    @Mock
+    private MigrationInfoService migrationInfoService;
+
+    private TermCodeIndex termCodeIndex;
+
+    @BeforeEach
+    void setUp() {
+        termCodeIndex = new TermCodeIndex(termCodeRepository, flywayProvider);
+    }
+
+    private void setLatestMigrationRank(int rank) {
+        var migrationInfo = mock(MigrationInfo.class);
+        doReturn(rank).when(migrationInfo).getInstalledRank();
+        doReturn(flyway).when(flywayProvider).getIfAvailable();
+        doReturn(migrationInfoService).when(flyway).info();
+        doReturn(new MigrationInfo[]{migrationInfo}).when(migrationInfoService).applied();
+    }
+
+    private static List<Object[]> systemsAndCodes(String... systemsAndCodes) {
+        var rows = new ArrayList<Object[]>();
+        for (int i = 0; i < systemsAndCodes.length; i += 2) {
+            rows.add(new Object[]{systemsAndCodes[i], systemsAndCodes[i + 1]});
+        }
+        return rows;
+    }
+
+    @Test
+    void contains_UsesDatabaseUntilLoaded() {
+        doReturn(true).when(termCodeRepository).existsTermCode("system-a", "code-1");
+
+        assertFalse(termCodeIndex.isLoaded());
+        assertTrue(termCodeIndex.contains("system-a", "code-1"));
+        verify(termCodeRepository).existsTermCode("system-a", "code-1");
+    }
+
+    @Test
+    void contains_UsesIndexOnceLoaded() {
+        setLatestMigrationRank(1);
+        doReturn(systemsAndCodes("system-a", "code-1", "system-a", "code-2", "system-b", "code-1"))
+                .when(termCodeRepository).findAllSystemsAndCodes();
+
+        termCodeIndex.load();
+
+        assertTrue(termCodeIndex.isLoaded());
+        assertTrue(termCodeIndex.contains("system-a", "code-1"));
+        assertTrue(termCodeIndex.contains("system-a", "code-2"));
+        assertTrue(termCodeIndex.contains("system-b", "code-1"));
+        assertFalse(termCodeIndex.contains("system-b", "code-2"));
+        assertFalse(termCodeIndex.contains("system-c", "code-1"));
+        verify(termCodeRepository, never()).existsTermCode(anyString(), anyString());
+    }
+
+    @Test
+    void refreshIfMigrationsChanged_KeepsIndexWhenMigrationsAreUnchanged() {
+        setLatestMigrationRank(1);
+        doReturn(systemsAndCodes("system-a", "code-1")).when(termCodeRepository).findAllSystemsAndCodes();
+
+        termCodeIndex.load();
+        termCodeIndex.refreshIfMigrationsChanged();
+
+        verify(termCodeRepository, times(1)).findAllSystemsAndCodes();
+    }
+
+    @Test
+    void refreshIfMigrationsChanged_ReloadsIndexWhenMigrationsChanged() {
+        setLatestMigrationRank(1);
+        doReturn(systemsAndCodes("system-a", "code-1")).when(termCodeRepository).findAllSystemsAndCodes();
+        termCodeIndex.load();
+
+        setLatestMigrationRank(2);
+        doReturn(systemsAndCodes("system-a", "code-2")).when(termCodeRepository).findAllSystemsAndCodes();
+        termCodeIndex.refreshIfMigrationsChanged();
+
+        assertFalse(termCodeIndex.contains("system-a", "code-1"));
+        assertTrue(termCodeIndex.contains("system-a", "code-2"));
+    }
+}
@@ -21,6 +21,7 @@ import org.mockito.quality.Strictness;
 import org.springframework.core.io.Resource;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -29,6 +30,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @Tag("terminology")
 @ExtendWith(MockitoExtension.class)
@@ -44,26 +47,32 @@ class TerminologyServiceTest {
     @Mock
     private TermCodeRepository termCodeRepository;
 
+    @Mock
+    private ContextualizedTermCodeRepository contextualizedTermCodeRepository;
+
+    @Mock
+    private TermCodeIndex termCodeIndex;
+
     private final ObjectMapper jsonUtil = new ObjectMapper();
 
     @Mock
     private Resource terminologySystemsResource;
 
     private TerminologyService createTerminologyService() throws IOException {
-        return new TerminologyService("src/test/resources/ontology/terminology_systems.json", uiProfileRepository, termCodeRepository, jsonUtil);
+        return new TerminologyService("src/test/resources/ontology/terminology_systems.json", 100, Duration.ofMinutes(1),
+            uiProfileRepository, termCodeRepository, contextualizedTermCodeRepository, termCodeIndex, jsonUtil);
     }
 
     @BeforeEach
     void setUp() {
-        Mockito.reset(uiProfileRepository, termCodeRepository);
+        Mockito.reset(uiProfileRepository, termCodeRepository, contextualizedTermCodeRepository, termCodeIndex);
     }
 
     @ParameterizedTest
     @ValueSource(strings = {"true", "false"})
     void isExistingTermCode(boolean doesExist) throws IOException {
         var terminologyService = createTerminologyService();
-        doReturn(doesExist).when(termCodeRepository).existsTermCode(any(String.class), any(String.class));
-        doReturn(doesExist).when(termCodeRepository).existsTermCode(any(String.class), any(String.class), any(String.class));
+        doReturn(doesExist).when(termCodeIndex).contains(any(String.class), any(String.class));
 
         boolean termCodeResult = terminologyService.isExistingTermCode("some-system", "some-code");
 
@@ -116,21 +125,14 @@ class TerminologyServiceTest {
         boolean excludeContext = Boolean.parseBoolean(noContext);
         boolean excludeTermcodes = Boolean.parseBoolean(noTermcodes);
 
-        if (excludeUiProfile) {
-            doReturn(Optional.empty()).when(uiProfileRepository).findByContextualizedTermcodeHash(any(String.class));
-        } else {
-            doReturn(Optional.of(createUiProfile())).when(uiProfileRepository).findByContextualizedTermcodeHash(any(String.class));
-        }
-        if (excludeContext) {
-            doReturn(Optional.empty()).when(termCodeRepository).findContextByContextualizedTermcodeHash(any(String.class));
-        } else {
-            doReturn(Optional.of(createContext())).when(termCodeRepository).findContextByContextualizedTermcodeHash(any(String.class));
-        }
-        if (excludeTermcodes) {
-            doReturn(Optional.empty()).when(termCodeRepository).findTermCodeByContextualizedTermcodeHash(any(String.class));
-        } else {
-            doReturn(Optional.of(createTermCode())).when(termCodeRepository).findTermCodeByContextualizedTermcodeHash(any(String.class));
-        }
+        var details = ids.stream()
+            .map(id -> new ContextualizedTermCodeDetails(id,
+                excludeTermcodes ? null : createTermCode(),
+                excludeContext ? null : createContext(),
+                excludeUiProfile ? null : 1))
+            .toList();
+        doReturn(details).when(contextualizedTermCodeRepository).findDetailsByContextTermcodeHashes(any());
+        doReturn(List.of(createUiProfile())).when(uiProfileRepository).findAllById(List.of(1L));
 
         var result = assertDoesNotThrow(() -> terminologyService.getCriteriaProfileData(ids));
 
@@ -145,6 +147,37 @@ class TerminologyServiceTest {
         }
     }
 
+    @Test
+    void getCriteriaProfileData_unknownIdsYieldEmptyEntries() throws IOException {
+        var terminologyService = createTerminologyService();
+        doReturn(List.of()).when(contextualizedTermCodeRepository).findDetailsByContextTermcodeHashes(any());
+
+        var result = terminologyService.getCriteriaProfileData(List.of("123"));
+
+        assertThat(result.size()).isEqualTo(1);
+        assertThat(result.get(0).id()).isEqualTo("123");
+        assertNull(result.get(0).context());
+        assertNull(result.get(0).uiProfile());
+        assertTrue(result.get(0).termCodes().isEmpty());
+    }
+
+    @Test
+    void getCriteriaProfileData_parsedUiProfilesAreCached() throws IOException {
+        var terminologyService = createTerminologyService();
+        doReturn(List.of(new ContextualizedTermCodeDetails("123", createTermCode(), createContext(), 1),
+            new ContextualizedTermCodeDetails("456", createTermCode(), createContext(), 1)))
+            .when(contextualizedTermCodeRepository).findDetailsByContextTermcodeHashes(any());
+        doReturn(List.of(createUiProfile())).when(uiProfileRepository).findAllById(List.of(1L));
+
+        var firstResult = terminologyService.getCriteriaProfileData(List.of("123", "456"));
+        var secondResult = terminologyService.getCriteriaProfileData(List.of("123", "456"));
+
+        assertThat(firstResult).isEqualTo(secondResult);
+        assertThat(firstResult.get(0).uiProfile().name()).isEqualTo("ExampleProfile");
+        verify(uiProfileRepository, times(1)).findAllById(any());
+        verify(contextualizedTermCodeRepository, times(2)).findDetailsByContextTermcodeHashes(any());
+    }
+
     @Test
     void getTerminologySystems_succeeds() throws IOException, NoSuchFieldException, IllegalAccessException {
         var terminologyService = createTerminologyService();
@@ -16,16 +16,19 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.Answers;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.mockito.stubbing.Answer;
 import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
 import org.springframework.data.elasticsearch.client.elc.NativeQuery;
 import org.springframework.data.elasticsearch.core.*;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -33,8 +36,7 @@ import java.util.stream.Stream;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.doReturn;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @Tag("terminology")
 @Tag("elasticsearch")
@@ -56,11 +58,10 @@ public class TerminologyEsServiceTest {
   @Mock
   private List<StringTermsBucket> stringTermsBuckets;
 
-  @InjectMocks
   private TerminologyEsService terminologyEsService;
 
   private TerminologyEsService createTerminologyEsService() {
-    return new TerminologyEsService(filterFields, operations, ontologyItemEsRepository, ontologyListItemEsRepository);
+    return new TerminologyEsService(filterFields, operations, ontologyItemEsRepository, ontologyListItemEsRepository, Duration.ofHours(1));
   }
 
   @BeforeEach
@@ -135,6 +136,54 @@ public class TerminologyEsServiceTest {
     assertThat(filters).containsAll(expectedTermFiltersList);
   }
 
+  @Test
+  void testGetAvailableFilters_runsSingleCachedSearch() {
+    doReturn(searchHits).when(operations).search(any(NativeQuery.class), any());
+    doReturn(elasticsearchAggregations).when(searchHits).getAggregations();
+    when(elasticsearchAggregations.aggregationsAsMap().get(any(String.class)).aggregation().getAggregate().sterms()
+        .buckets().array()).thenReturn(List.of(createStringTermsBucket()));
+
+    terminologyEsService.warmUpAvailableFilters();
+    var filters = terminologyEsService.getAvailableFilters();
+
+    assertThat(filters).hasSize(filterFields.length + 1);
+    var queryCaptor = ArgumentCaptor.forClass(NativeQuery.class);
+    verify(operations, times(1)).search(queryCaptor.capture(), any());
+    assertThat(queryCaptor.getValue().getAggregations()).hasSize(filterFields.length);
+  }
+
+  @Test
+  void testGetAvailableFilters_loadsFiltersWithoutValuesAgain() {
+    doReturn(searchHits).when(operations).search(any(NativeQuery.class), any());
+    doReturn(elasticsearchAggregations).when(searchHits).getAggregations();
+    when(elasticsearchAggregations.aggregationsAsMap().get(any(String.class)).aggregation().getAggregate().sterms()
+        .buckets().array()).thenAnswer(new Answer<List<StringTermsBucket>>() {
+          private int calls;
+
+          @Override
+          public List<StringTermsBucket> answer(InvocationOnMock invocation) {
+            // The first search returns no values for any of the filter fields
+            return calls++ < filterFields.length ? List.of() : List.of(createStringTermsBucket());
+          }
+        });
+
+    var emptyFilters = terminologyEsService.getAvailableFilters();
+    var filters = terminologyEsService.getAvailableFilters();
+    var cachedFilters = terminologyEsService.getAvailableFilters();
+
+    assertThat(emptyFilters).allMatch(filter -> filter.values().isEmpty());
+    assertThat(filters).anyMatch(filter -> !filter.values().isEmpty());
+    assertThat(cachedFilters).isSameAs(filters);
+    verify(operations, times(2)).search(any(NativeQuery.class), any());
+  }
+
+  @Test
+  void testWarmUpAvailableFilters_ignoresUnavailableElasticSearch() {
+    doThrow(new RuntimeException("elastic search unavailable")).when(operations).search(any(NativeQuery.class), any());
+
+    assertDoesNotThrow(() -> terminologyEsService.warmUpAvailableFilters());
+  }
+
   private static Stream<Arguments> generateArgumentsForTestPerformOntologySearchWithPaging() {
     var booleanList = List.of(true, false);
     var list = new ArrayList<Arguments>();
@@ -7,17 +7,21 @@ import de.numcodex.feasibility_gui_backend.common.api.TermCode;
 import de.numcodex.feasibility_gui_backend.dse.api.LocalizedValue;
 import de.numcodex.feasibility_gui_backend.query.ratelimiting.RateLimitingInterceptor;
 import de.numcodex.feasibility_gui_backend.query.ratelimiting.RateLimitingServiceSpringConfig;
+import de.numcodex.feasibility_gui_backend.config.PropertiesReader;
+import de.numcodex.feasibility_gui_backend.terminology.OntologyResponseCache;
 import de.numcodex.feasibility_gui_backend.terminology.TerminologyService;
 import de.numcodex.feasibility_gui_backend.terminology.api.*;
 import de.numcodex.feasibility_gui_backend.terminology.es.TerminologyEsService;
 import de.numcodex.feasibility_gui_backend.terminology.es.model.*;
 import de.numcodex.feasibility_gui_backend.terminology.validation.StructuredQueryValidation;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -32,16 +36,20 @@ import java.util.UUID;
 
 import static de.numcodex.feasibility_gui_backend.config.WebSecurityConfig.PATH_API;
 import static de.numcodex.feasibility_gui_backend.config.WebSecurityConfig.PATH_TERMINOLOGY;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @Tag("terminology")
 @ExtendWith(SpringExtension.class)
-@Import(RateLimitingServiceSpringConfig.class)
+@Import({RateLimitingServiceSpringConfig.class, OntologyResponseCache.class, PropertiesReader.class})
 @WebMvcTest(
         controllers = TerminologyRestController.class
 )
@@ -65,6 +73,14 @@ public class TerminologyRestControllerIT {
     @MockitoBean
     private RateLimitingInterceptor rateLimitingInterceptor;
 
+    @Autowired
+    private OntologyResponseCache ontologyResponseCache;
+
+    @BeforeEach
+    void setUp() {
+        ontologyResponseCache.clear();
+    }
+
     @Test
     @WithMockUser(roles = "DATAPORTAL_TEST_USER")
     public void testGetCriteriaProfileData_succeedsWith200() throws Exception {
@@ -74,19 +90,53 @@ public class TerminologyRestControllerIT {
         doReturn(List.of(createDummyEsSearchResultEntry(id.toString()))).when(terminologyEsService).getSearchResultEntriesByHash(anyList());
         doReturn(criteriaProfileDataList).when(terminologyService).addDisplayDataToCriteriaProfileData(anyList(), anyList());
 
-        mockMvc.perform(get(URI.create(PATH_API + PATH_TERMINOLOGY + "/criteria-profile-data")).param("ids", id.toString()).with(csrf()))
+        var mvcResult = mockMvc.perform(get(URI.create(PATH_API + PATH_TERMINOLOGY + "/criteria-profile-data")).param("ids", id.toString()).with(csrf()))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON))
             .andExpect(jsonPath("$.*", hasSize(1)))
             .andExpect(jsonPath("$.[0].id").value(id.toString()));
     }
 
+    @Test
+    @WithMockUser(roles = "DATAPORTAL_TEST_USER")
+    public void testStreamCriteriaProfileData_succeedsWith200() throws Exception {
+        var ids = List.of(UUID.randomUUID().toString(), UUID.randomUUID().toString());
+        var criteriaProfileDataList = createCriteriaProfileDataList(ids.stream().map(UUID::fromString).toList());
+        doReturn(criteriaProfileDataList).when(terminologyService).getCriteriaProfileData(anyList());
+        doReturn(criteriaProfileDataList).when(terminologyService).addDisplayDataToCriteriaProfileData(anyList(), anyList());
+
+        var mvcResult = mockMvc.perform(post(URI.create(PATH_API + PATH_TERMINOLOGY + "/criteria-profile-data/stream"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(jsonUtil.writeValueAsString(ids))
+                .accept(MediaType.APPLICATION_NDJSON)
+                .with(csrf()))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        var responseLines = mockMvc.perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+            .andReturn().getResponse().getContentAsString().lines().toList();
+
+        assertThat(responseLines).hasSize(2);
+        assertThat(jsonUtil.readValue(responseLines.get(0), CriteriaProfileData.class).id()).isEqualTo(ids.get(0));
+        assertThat(jsonUtil.readValue(responseLines.get(1), CriteriaProfileData.class).id()).isEqualTo(ids.get(1));
+    }
+
     @Test
     @WithMockUser(roles = "DATAPORTAL_TEST_USER")
     public void testGetCriteriaProfileData_succeedsWith200OnEmptyList() throws Exception {
         doReturn(List.of()).when(terminologyService).getCriteriaProfileData(anyList());
 
-        mockMvc.perform(get(URI.create(PATH_API + PATH_TERMINOLOGY + "/criteria-profile-data")).param("ids", "123").with(csrf()))
+        var mvcResult = mockMvc.perform(get(URI.create(PATH_API + PATH_TERMINOLOGY + "/criteria-profile-data")).param("ids", "123").with(csrf()))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON))
             .andExpect(jsonPath("$.*", hasSize(0)));
@@ -119,6 +169,37 @@ public class TerminologyRestControllerIT {
             .andExpect(content().json(jsonUtil.writeValueAsString(termFilterList)));
     }
 
+    @Test
+    @WithMockUser(roles = "DATAPORTAL_TEST_USER")
+    public void testGetFilters_succeedsWith304OnMatchingETag() throws Exception {
+        List<TermFilter> termFilterList = createTermFilterList(new String[]{"context", "kdsModule", "terminology"});
+        doReturn(termFilterList).when(terminologyEsService).getAvailableFilters();
+
+        var etag = mockMvc.perform(get(URI.create(PATH_API + PATH_TERMINOLOGY + "/search/filter")).with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(URI.create(PATH_API + PATH_TERMINOLOGY + "/search/filter")).header(HttpHeaders.IF_NONE_MATCH, etag).with(csrf()))
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @WithMockUser(roles = "DATAPORTAL_TEST_USER")
+    public void testGetFilters_servesRefreshedFiltersOnOutdatedETag() throws Exception {
+        List<TermFilter> oldTermFilterList = createTermFilterList(new String[]{"context"});
+        List<TermFilter> newTermFilterList = createTermFilterList(new String[]{"context", "terminology"});
+        doReturn(oldTermFilterList).doReturn(newTermFilterList).when(terminologyEsService).getAvailableFilters();
+
+        var etag = mockMvc.perform(get(URI.create(PATH_API + PATH_TERMINOLOGY + "/search/filter")).with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(URI.create(PATH_API + PATH_TERMINOLOGY + "/search/filter")).header(HttpHeaders.IF_NONE_MATCH, etag).with(csrf()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+            .andExpect(content().json(jsonUtil.writeValueAsString(newTermFilterList)));
+    }
+
     @Test
     public void testGetFilters_failsOnUnauthorized() throws Exception {
         mockMvc.perform(get(URI.create(PATH_API + PATH_TERMINOLOGY + "/search/filter")).with(csrf()))